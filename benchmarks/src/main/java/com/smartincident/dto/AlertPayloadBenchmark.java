@@ -0,0 +1,49 @@
+package com.smartincident.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartincident.model.Incident;
+import com.smartincident.model.enums.IncidentSeverity;
+import com.smartincident.model.enums.IncidentType;
+import com.smartincident.service.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building and serializing the webhook payload of an incident.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlertPayloadBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Incident incident;
+
+    @Setup
+    public void setup() {
+        objectMapper = BenchmarkFixtures.objectMapper();
+        incident = new Incident(IncidentType.HIGH_ERROR_RATE, IncidentSeverity.HIGH, "orders");
+        incident.id = 4242L;
+        incident.description = "High error log volume: 64 errors in last 5 minutes";
+        incident.probableCause = "Database connection pool exhausted";
+    }
+
+    @Benchmark
+    public String fromIncident() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(AlertPayload.fromIncident(incident));
+    }
+}
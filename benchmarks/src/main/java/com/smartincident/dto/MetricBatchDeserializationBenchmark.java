@@ -0,0 +1,51 @@
+package com.smartincident.dto;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.smartincident.service.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reading a POST /api/metrics/batch body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricBatchDeserializationBenchmark {
+
+    @Param({"100", "1000"})
+    int batchSize;
+
+    private ObjectReader reader;
+    private byte[] body;
+
+    @Setup
+    public void setup() throws IOException {
+        ObjectMapper objectMapper = BenchmarkFixtures.objectMapper();
+        reader = objectMapper.readerFor(new TypeReference<List<MetricDTO>>() {});
+        body = objectMapper.writeValueAsBytes(BenchmarkFixtures.metrics(batchSize));
+    }
+
+    @Benchmark
+    public List<MetricDTO> readBatch() throws IOException {
+        return reader.readValue(body);
+    }
+}
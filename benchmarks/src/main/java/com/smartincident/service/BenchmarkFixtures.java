@@ -0,0 +1,117 @@
+package com.smartincident.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.smartincident.dto.LogEntryDTO;
+import com.smartincident.dto.MetricDTO;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Services wired by hand, outside the container, and synthetic telemetry shared by
+ * the benchmarks. Data is generated from a fixed seed so every run sees the same input.
+ */
+public final class BenchmarkFixtures {
+
+    private static final String[] SERVICES = {"gateway", "orders", "payments", "inventory", "db-proxy", "auth"};
+    private static final String[] METRICS = {"cpu_usage_percent", "memory_usage_percent", "latency_ms", "http_requests_total"};
+    private static final String[] ERRORS = {
+        "Connection pool exhausted: timeout waiting for connection from pool",
+        "Deadlock detected while acquiring lock on table orders",
+        "Read timed out after 30000ms calling http://inventory/api/stock",
+        "503 Service Unavailable from upstream payments",
+        "java.lang.OutOfMemoryError: Java heap space",
+        "Authentication failed: token expired",
+        "Unexpected failure in request handler"
+    };
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * An ObjectMapper configured like the application's.
+     */
+    public static ObjectMapper objectMapper() {
+        return new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * A ClassificationService with the bundled catalog compiled.
+     */
+    public static ClassificationService classificationService() {
+        ClassificationService service = new ClassificationService();
+        service.objectMapper = objectMapper();
+        service.catalogPath = Optional.empty();
+        service.compile(service.loadCatalog());
+        return service;
+    }
+
+    public static LogIngestionService logIngestionService() {
+        LogIngestionService service = new LogIngestionService();
+        service.classificationService = classificationService();
+        service.tagErrorLogs = true;
+        return service;
+    }
+
+    public static MetricsIngestionService metricsIngestionService() {
+        return new MetricsIngestionService();
+    }
+
+    public static RootCauseAnalysisService rootCauseAnalysisService() {
+        RootCauseAnalysisService service = new RootCauseAnalysisService();
+        service.classificationService = classificationService();
+        return service;
+    }
+
+    /**
+     * Log entries of which roughly one in five is an ERROR.
+     */
+    public static List<LogEntryDTO> logs(int count) {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        List<LogEntryDTO> logs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LogEntryDTO dto = new LogEntryDTO();
+            dto.serviceName = SERVICES[random.nextInt(SERVICES.length)];
+            dto.podName = dto.serviceName + "-" + random.nextInt(8);
+            dto.namespace = "prod";
+            dto.timestamp = now.minusNanos(i * 1_000_000L);
+            dto.traceId = Long.toHexString(random.nextLong());
+            dto.spanId = Integer.toHexString(random.nextInt());
+            if (random.nextInt(5) == 0) {
+                dto.level = "error";
+                dto.message = ERRORS[random.nextInt(ERRORS.length)];
+            } else {
+                dto.level = "info";
+                dto.message = "Handled request GET /api/orders/" + random.nextInt(100_000) + " in " + random.nextInt(500) + "ms";
+            }
+            logs.add(dto);
+        }
+        return logs;
+    }
+
+    public static List<MetricDTO> metrics(int count) {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        List<MetricDTO> metrics = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            MetricDTO dto = new MetricDTO(METRICS[random.nextInt(METRICS.length)], random.nextDouble() * 100,
+                                          SERVICES[random.nextInt(SERVICES.length)]);
+            dto.podName = dto.serviceName + "-" + random.nextInt(8);
+            dto.namespace = "prod";
+            dto.unit = "percent";
+            dto.timestamp = now.minusSeconds(i);
+            metrics.add(dto);
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,63 @@
+package com.smartincident.service;
+
+import com.smartincident.dto.LogEntryDTO;
+import com.smartincident.dto.MetricDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of mapping ingested DTOs to entities, per entry. Log mapping includes
+ * classifying ERROR messages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestMappingBenchmark {
+
+    private static final int BATCH = 1000;
+
+    private LogIngestionService logIngestionService;
+    private MetricsIngestionService metricsIngestionService;
+    private List<LogEntryDTO> logs;
+    private List<MetricDTO> metrics;
+
+    @Setup
+    public void setup() {
+        logIngestionService = BenchmarkFixtures.logIngestionService();
+        metricsIngestionService = BenchmarkFixtures.metricsIngestionService();
+        logs = BenchmarkFixtures.logs(BATCH);
+        metrics = BenchmarkFixtures.metrics(BATCH);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void logToEntity(Blackhole blackhole) {
+        for (LogEntryDTO dto : logs) {
+            blackhole.consume(logIngestionService.toEntity(dto));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void metricToEntity(Blackhole blackhole) {
+        for (MetricDTO dto : metrics) {
+            blackhole.consume(metricsIngestionService.toEntity(dto));
+        }
+    }
+}
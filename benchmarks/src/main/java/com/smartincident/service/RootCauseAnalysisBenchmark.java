@@ -0,0 +1,54 @@
+package com.smartincident.service;
+
+import com.smartincident.model.Incident;
+import com.smartincident.model.enums.IncidentSeverity;
+import com.smartincident.model.enums.IncidentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the provisional root-cause analysis run when an incident is created.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RootCauseAnalysisBenchmark {
+
+    private RootCauseAnalysisService rootCauseAnalysisService;
+    private Incident errorRate;
+    private Incident memory;
+
+    @Setup
+    public void setup() {
+        rootCauseAnalysisService = BenchmarkFixtures.rootCauseAnalysisService();
+        errorRate = new Incident(IncidentType.HIGH_ERROR_RATE, IncidentSeverity.HIGH, "orders");
+        errorRate.description = "High error log volume: 64 errors in last 5 minutes";
+        errorRate.relatedMetrics = "{\"error_count\": 64, \"sample\": \"Connection pool exhausted: timeout waiting for connection\"}";
+        memory = new Incident(IncidentType.RESOURCE_EXHAUSTION, IncidentSeverity.CRITICAL, "cache");
+        memory.description = "Memory usage is 97.00% (threshold: 85.00%)";
+        memory.relatedMetrics = "{\"memory_usage_percent\": 97.00, \"threshold_percent\": 85.00}";
+    }
+
+    @Benchmark
+    public String analyzeErrorRate() {
+        return rootCauseAnalysisService.analyzeCause(errorRate);
+    }
+
+    @Benchmark
+    public String analyzeMemory() {
+        return rootCauseAnalysisService.analyzeCause(memory);
+    }
+}
@@ -0,0 +1,63 @@
+package com.smartincident.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.OptionalDouble;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the windowed error counting behind SLO burn-rate detection, with the
+ * default 5m/30m/1h/6h windows over one-minute buckets: recording samples as time
+ * advances, and reading the error ratio of every window.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DetectionWindowBenchmark {
+
+    private static final int[] WINDOWS = {5, 30, 60, 360};
+
+    private WindowedErrorCounter counter;
+    private long now;
+    private long tenths;
+
+    @Setup
+    public void setup() {
+        counter = new WindowedErrorCounter(60, WINDOWS);
+        now = 1_700_000_000L;
+        // Fill the longest window
+        for (long t = now - 6 * 3600; t < now; t += 10) {
+            counter.add(t, t % 7 == 0 ? 1 : 0, 1);
+        }
+        tenths = now * 10;
+    }
+
+    @Benchmark
+    public void record() {
+        // Ten samples a second, so the counter keeps rolling into new buckets
+        tenths++;
+        counter.add(tenths / 10, tenths % 7 == 0 ? 1 : 0, 1);
+    }
+
+    @Benchmark
+    public double readAllWindows() {
+        double sum = 0;
+        for (int w = 0; w < WINDOWS.length; w++) {
+            OptionalDouble ratio = counter.errorRatio(w, now);
+            sum += ratio.orElse(0);
+        }
+        return sum;
+    }
+}
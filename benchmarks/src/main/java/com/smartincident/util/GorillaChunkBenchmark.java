@@ -0,0 +1,66 @@
+package com.smartincident.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the compressed in-memory metric store: encoding a full chunk of 120
+ * samples scraped every 10 seconds with a slowly moving gauge, and decoding it for a
+ * range scan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GorillaChunkBenchmark {
+
+    private static final int SAMPLES = 120;
+
+    private long[] timestamps;
+    private double[] values;
+    private GorillaChunk chunk;
+
+    @Setup
+    public void setup() {
+        timestamps = new long[SAMPLES];
+        values = new double[SAMPLES];
+        long timestamp = 1_700_000_000_000L;
+        double value = 45;
+        for (int i = 0; i < SAMPLES; i++) {
+            // A few milliseconds of scrape jitter, values with two decimals
+            timestamp += 10_000 + (i % 3) - 1;
+            value = Math.round((value + Math.sin(i / 5.0)) * 100) / 100.0;
+            timestamps[i] = timestamp;
+            values[i] = value;
+        }
+        chunk = encode();
+    }
+
+    @Benchmark
+    public GorillaChunk encode() {
+        GorillaChunk encoded = new GorillaChunk();
+        for (int i = 0; i < SAMPLES; i++) {
+            encoded.append(timestamps[i], values[i]);
+        }
+        return encoded;
+    }
+
+    @Benchmark
+    public double scan() {
+        double[] sum = new double[1];
+        chunk.forEach(Long.MIN_VALUE, Long.MAX_VALUE, (timestamp, value) -> sum[0] += value);
+        return sum[0];
+    }
+}
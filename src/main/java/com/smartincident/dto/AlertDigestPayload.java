@@ -0,0 +1,48 @@
+package com.smartincident.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.smartincident.model.enums.IncidentSeverity;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Payload of a webhook digest: several alerts to one destination sent as one request.
+ * alerts holds the individual AlertPayload objects unchanged.
+ */
+public class AlertDigestPayload {
+
+    public String digestId;
+    public String title;
+    public String message;
+    public IncidentSeverity severity;
+    public int alertCount;
+    public LocalDateTime timestamp;
+    public List<JsonNode> alerts;
+
+    public AlertDigestPayload() {
+        this.timestamp = LocalDateTime.now();
+        this.digestId = java.util.UUID.randomUUID().toString();
+    }
+
+    public static AlertDigestPayload fromAlerts(List<JsonNode> alerts) {
+        AlertDigestPayload digest = new AlertDigestPayload();
+        IncidentSeverity highest = IncidentSeverity.LOW;
+        Set<String> services = new LinkedHashSet<>();
+        for (JsonNode alert : alerts) {
+            IncidentSeverity severity = IncidentSeverity.valueOf(alert.path("severity").asText(IncidentSeverity.LOW.name()));
+            if (severity.getLevel() > highest.getLevel()) {
+                highest = severity;
+            }
+            services.add(alert.path("serviceName").asText());
+        }
+        digest.severity = highest;
+        digest.alertCount = alerts.size();
+        digest.title = String.format("[%s] %d alerts on %d services", highest.name(), alerts.size(), services.size());
+        digest.message = "Services: " + String.join(", ", services);
+        digest.alerts = alerts;
+        return digest;
+    }
+}
@@ -1,5 +1,6 @@
 package com.smartincident.dto;
 
+import com.smartincident.model.enums.EnrichmentStatus;
 import com.smartincident.model.enums.IncidentSeverity;
 import com.smartincident.model.enums.IncidentStatus;
 import com.smartincident.model.enums.IncidentType;
@@ -23,6 +24,13 @@ public class IncidentDTO {
     public LocalDateTime resolvedAt;
     public String resolvedBy;
     public String resolutionNotes;
+    public EnrichmentStatus enrichmentStatus;
+    public LocalDateTime enrichedAt;
+    public String rcaEvidence;
+    public String correlatedSignals;
+    public Double correlationConfidence;
+    public Long parentIncidentId;
+    public int childCount;
 
     public IncidentDTO() {
     }
@@ -41,6 +49,13 @@ public class IncidentDTO {
         dto.resolvedAt = incident.resolvedAt;
         dto.resolvedBy = incident.resolvedBy;
         dto.resolutionNotes = incident.resolutionNotes;
+        dto.enrichmentStatus = incident.enrichmentStatus;
+        dto.enrichedAt = incident.enrichedAt;
+        dto.rcaEvidence = incident.rcaEvidence;
+        dto.correlatedSignals = incident.correlatedSignals;
+        dto.correlationConfidence = incident.correlationConfidence;
+        dto.parentIncidentId = incident.parentIncidentId;
+        dto.childCount = incident.childCount;
         return dto;
     }
 }
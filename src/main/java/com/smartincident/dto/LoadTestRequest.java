@@ -0,0 +1,51 @@
+package com.smartincident.dto;
+
+/**
+ * DTO describing a synthetic load test run against the local instance.
+ */
+public class LoadTestRequest {
+
+    public int services = 10;
+    public int podsPerService = 3;
+    public int durationSeconds = 60;
+    public double metricsPerPodPerSecond = 5;
+    public double logsPerPodPerSecond = 2;
+    public int batchSize = 500;
+    public int concurrency = 4;
+    public int anomalies = 2;          // services given an injected anomaly, alternating error burst / memory pressure
+    public int anomalyAfterSeconds = 20;
+
+    public LoadTestRequest() {
+    }
+
+    /**
+     * Reason the request cannot be run, or null when it is valid.
+     */
+    public String validate() {
+        if (services < 1 || services > 1000) {
+            return "services must be between 1 and 1000";
+        }
+        if (podsPerService < 1 || podsPerService > 100) {
+            return "podsPerService must be between 1 and 100";
+        }
+        if (durationSeconds < 1 || durationSeconds > 3600) {
+            return "durationSeconds must be between 1 and 3600";
+        }
+        if (metricsPerPodPerSecond < 0 || logsPerPodPerSecond < 0 || metricsPerPodPerSecond + logsPerPodPerSecond == 0) {
+            return "metricsPerPodPerSecond and logsPerPodPerSecond must not be negative, nor both zero";
+        }
+        if (batchSize < 1 || batchSize > 5000) {
+            return "batchSize must be between 1 and 5000";
+        }
+        if (concurrency < 1 || concurrency > 64) {
+            return "concurrency must be between 1 and 64";
+        }
+        if (anomalies < 0 || anomalies > services) {
+            return "anomalies must be between 0 and services";
+        }
+        if (anomalyAfterSeconds < 0 || anomalyAfterSeconds >= durationSeconds && anomalies > 0) {
+            return "anomalyAfterSeconds must be within the run";
+        }
+        return null;
+    }
+}
@@ -15,6 +15,7 @@ public class LogEntryDTO {
     public String namespace;
     public String traceId;
     public String spanId;
+    public String parentSpanId;
 
     public LogEntryDTO() {
     }
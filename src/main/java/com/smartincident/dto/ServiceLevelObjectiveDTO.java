@@ -0,0 +1,30 @@
+package com.smartincident.dto;
+
+import com.smartincident.model.enums.SloType;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for declaring and listing service level objectives.
+ */
+public class ServiceLevelObjectiveDTO {
+
+    public String serviceName;
+    public SloType type;
+    public Double targetPercent;
+    public Double latencyThresholdMs;
+    public LocalDateTime updatedAt;
+
+    public ServiceLevelObjectiveDTO() {
+    }
+
+    public static ServiceLevelObjectiveDTO fromEntity(com.smartincident.model.ServiceLevelObjective slo) {
+        ServiceLevelObjectiveDTO dto = new ServiceLevelObjectiveDTO();
+        dto.serviceName = slo.serviceName;
+        dto.type = slo.type;
+        dto.targetPercent = slo.targetPercent;
+        dto.latencyThresholdMs = slo.latencyThresholdMs;
+        dto.updatedAt = slo.updatedAt;
+        return dto;
+    }
+}
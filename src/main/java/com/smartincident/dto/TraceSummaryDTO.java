@@ -0,0 +1,37 @@
+package com.smartincident.dto;
+
+import com.smartincident.model.TraceSummary;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO for trace summaries.
+ */
+public class TraceSummaryDTO {
+
+    public String traceId;
+    public String rootService;
+    public List<String> services;
+    public long logCount;
+    public long errorCount;
+    public LocalDateTime firstSeen;
+    public LocalDateTime lastSeen;
+    public long durationMs;
+
+    public TraceSummaryDTO() {
+    }
+
+    public static TraceSummaryDTO fromEntity(TraceSummary summary) {
+        TraceSummaryDTO dto = new TraceSummaryDTO();
+        dto.traceId = summary.traceId;
+        dto.rootService = summary.rootService;
+        dto.services = summary.serviceList();
+        dto.logCount = summary.logCount;
+        dto.errorCount = summary.errorCount;
+        dto.firstSeen = summary.firstSeen;
+        dto.lastSeen = summary.lastSeen;
+        dto.durationMs = summary.durationMs();
+        return dto;
+    }
+}
@@ -0,0 +1,44 @@
+package com.smartincident.event;
+
+import com.smartincident.dto.IncidentDTO;
+import com.smartincident.model.Incident;
+import com.smartincident.model.enums.IncidentStatus;
+
+/**
+ * CDI event fired whenever an incident is created, changes status, has its root
+ * cause enriched or gets a child incident.
+ * Observers that must only see committed changes should use
+ * {@code @Observes(during = TransactionPhase.AFTER_SUCCESS)}.
+ */
+public record IncidentChangedEvent(
+    Change change,
+    IncidentStatus previousStatus,
+    IncidentDTO incident
+) {
+
+    /**
+     * Kind of lifecycle change.
+     */
+    public enum Change {
+        CREATED,
+        STATUS_CHANGED,
+        ENRICHED,
+        CHILD_ADDED
+    }
+
+    public static IncidentChangedEvent created(Incident incident) {
+        return new IncidentChangedEvent(Change.CREATED, null, IncidentDTO.fromEntity(incident));
+    }
+
+    public static IncidentChangedEvent statusChanged(IncidentStatus previousStatus, Incident incident) {
+        return new IncidentChangedEvent(Change.STATUS_CHANGED, previousStatus, IncidentDTO.fromEntity(incident));
+    }
+
+    public static IncidentChangedEvent enriched(Incident incident) {
+        return new IncidentChangedEvent(Change.ENRICHED, null, IncidentDTO.fromEntity(incident));
+    }
+
+    public static IncidentChangedEvent childAdded(Incident parent) {
+        return new IncidentChangedEvent(Change.CHILD_ADDED, null, IncidentDTO.fromEntity(parent));
+    }
+}
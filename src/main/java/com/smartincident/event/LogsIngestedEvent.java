@@ -0,0 +1,13 @@
+package com.smartincident.event;
+
+import com.smartincident.model.LogEntry;
+
+import java.util.List;
+
+/**
+ * CDI event fired by LogIngestionService with the entries of an ingest call.
+ * Observers that must only see committed logs should use
+ * {@code @Observes(during = TransactionPhase.AFTER_SUCCESS)}.
+ */
+public record LogsIngestedEvent(List<LogEntry> entries) {
+}
@@ -0,0 +1,13 @@
+package com.smartincident.event;
+
+import com.smartincident.model.Metric;
+
+import java.util.List;
+
+/**
+ * CDI event fired by MetricsIngestionService with the metrics of an ingest call.
+ * Observers that must only see committed metrics should use
+ * {@code @Observes(during = TransactionPhase.AFTER_SUCCESS)}.
+ */
+public record MetricsIngestedEvent(List<Metric> metrics) {
+}
@@ -0,0 +1,65 @@
+package com.smartincident.model;
+
+import com.smartincident.model.enums.AlertDeliveryStatus;
+import com.smartincident.model.enums.IncidentSeverity;
+import io.quarkus.hibernate.orm.panache.PanacheEntity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * An alert waiting for, or done with, webhook delivery.
+ * Written in the transaction that raises the alert, so an alert exists exactly when
+ * its incident does; delivery workers drain the table afterwards.
+ */
+@Entity
+@Table(name = "alert_outbox", indexes = {
+    @Index(name = "idx_alert_outbox_status_next", columnList = "status, nextAttemptAt")
+})
+public class AlertOutboxEntry extends PanacheEntity {
+
+    public Long incidentId;
+
+    @Column(nullable = false, length = 500)
+    public String destination;  // name of the alert channel
+
+    @Column(nullable = false, length = 4000)
+    public String payload;
+
+    @Enumerated(EnumType.STRING)
+    public IncidentSeverity severity;  // CRITICAL alerts are never held for a digest
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    public AlertDeliveryStatus status;
+
+    public int attempts;
+
+    @Column(nullable = false)
+    public LocalDateTime nextAttemptAt;  // for SENDING, when the claim expires
+
+    @Column(nullable = false)
+    public LocalDateTime createdAt;
+
+    public LocalDateTime deliveredAt;
+
+    @Column(length = 500)
+    public String lastError;
+
+    /**
+     * Default constructor required by JPA.
+     */
+    public AlertOutboxEntry() {
+    }
+
+    public AlertOutboxEntry(Long incidentId, String destination, String payload, IncidentSeverity severity,
+                            LocalDateTime createdAt) {
+        this.incidentId = incidentId;
+        this.destination = destination;
+        this.payload = payload;
+        this.severity = severity;
+        this.status = AlertDeliveryStatus.PENDING;
+        this.createdAt = createdAt;
+        this.nextAttemptAt = createdAt;
+    }
+}
@@ -1,5 +1,6 @@
 package com.smartincident.model;
 
+import com.smartincident.model.enums.EnrichmentStatus;
 import com.smartincident.model.enums.IncidentSeverity;
 import com.smartincident.model.enums.IncidentStatus;
 import com.smartincident.model.enums.IncidentType;
@@ -13,7 +14,14 @@ import java.time.LocalDateTime;
  * Incidents are created automatically when anomalies are detected.
  */
 @Entity
-@Table(name = "incident")
+@Table(name = "incident", indexes = {
+    @Index(name = "idx_incident_detected", columnList = "detectedAt, id"),
+    @Index(name = "idx_incident_status_detected", columnList = "status, detectedAt, id"),
+    @Index(name = "idx_incident_service_detected", columnList = "serviceName, detectedAt, id"),
+    @Index(name = "idx_incident_service_type_status", columnList = "serviceName, type, status"),
+    @Index(name = "idx_incident_modified", columnList = "lastModifiedAt"),
+    @Index(name = "idx_incident_parent", columnList = "parentIncidentId")
+})
 public class Incident extends PanacheEntity {
 
     @Enumerated(EnumType.STRING)
@@ -50,6 +58,28 @@ public class Incident extends PanacheEntity {
     @Column(length = 2000)
     public String resolutionNotes;
 
+    public LocalDateTime lastModifiedAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    public EnrichmentStatus enrichmentStatus;
+
+    public LocalDateTime enrichedAt;
+
+    @Column(length = 8000)
+    public String rcaEvidence;  // JSON, one entry per enrichment stage
+
+    @Column(length = 2000)
+    public String correlatedSignals;  // JSON, metrics that moved most before detection
+
+    public Double correlationConfidence;
+
+    public Long parentIncidentId;  // set on incidents grouped under another; only parents are alerted
+
+    // Default so the column can be added to a populated table by schema update
+    @Column(columnDefinition = "integer default 0 not null")
+    public int childCount;
+
     /**
      * Default constructor required by JPA.
      */
@@ -69,6 +99,15 @@ public class Incident extends PanacheEntity {
         this.description = type.getDescription();
     }
 
+    /**
+     * Records the time of the last insert or update.
+     */
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        this.lastModifiedAt = LocalDateTime.now();
+    }
+
     /**
      * Marks the incident as resolved.
      */
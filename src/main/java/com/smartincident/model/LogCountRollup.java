@@ -0,0 +1,43 @@
+package com.smartincident.model;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Number of log entries of one service and level within one minute.
+ * Maintained from ingest-time counters so log volume checks never count log_entry rows.
+ */
+@Entity
+@Table(name = "log_count_rollup", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_log_rollup_service_level_minute", columnNames = {"serviceName", "level", "minuteStart"})
+}, indexes = {
+    @Index(name = "idx_log_rollup_minute", columnList = "minuteStart")
+})
+public class LogCountRollup extends PanacheEntity {
+
+    @Column(nullable = false)
+    public String serviceName;
+
+    @Column(nullable = false, length = 10)
+    public String level;
+
+    @Column(nullable = false)
+    public LocalDateTime minuteStart;
+
+    public long logCount;
+
+    /**
+     * Default constructor required by JPA.
+     */
+    public LogCountRollup() {
+    }
+
+    public LogCountRollup(String serviceName, String level, LocalDateTime minuteStart, long logCount) {
+        this.serviceName = serviceName;
+        this.level = level;
+        this.minuteStart = minuteStart;
+        this.logCount = logCount;
+    }
+}
@@ -12,7 +12,10 @@ import java.time.LocalDateTime;
 @Table(name = "log_entry", indexes = {
     @Index(name = "idx_log_timestamp", columnList = "timestamp"),
     @Index(name = "idx_log_service", columnList = "serviceName"),
-    @Index(name = "idx_log_level", columnList = "level")
+    @Index(name = "idx_log_service_timestamp", columnList = "serviceName, timestamp"),
+    @Index(name = "idx_log_level", columnList = "level"),
+    @Index(name = "idx_log_trace", columnList = "traceId, timestamp"),
+    @Index(name = "idx_log_category_timestamp", columnList = "category, timestamp")
 })
 public class LogEntry extends PanacheEntity {
 
@@ -36,6 +39,11 @@ public class LogEntry extends PanacheEntity {
 
     public String spanId;
 
+    public String parentSpanId;
+
+    @Column(length = 40)
+    public String category;  // failure category from the classification catalog, ERROR logs only
+
     /**
      * Default constructor required by JPA.
      */
@@ -0,0 +1,57 @@
+package com.smartincident.model;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Aggregate of the samples of one service metric within one minute.
+ * Sum and sum of squares let any range of buckets be combined into a mean and
+ * variance without reading raw metric rows. These buckets are also the finest tier
+ * of the metric rollups, see MetricRollup for the coarser ones.
+ */
+@Entity
+@Table(name = "metric_bucket", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_metric_bucket_service_metric_start", columnNames = {"serviceName", "metricName", "bucketStart"})
+}, indexes = {
+    @Index(name = "idx_metric_bucket_start", columnList = "bucketStart")
+})
+public class MetricBucket extends PanacheEntity {
+
+    @Column(nullable = false)
+    public String serviceName;
+
+    @Column(nullable = false)
+    public String metricName;
+
+    @Column(nullable = false)
+    public LocalDateTime bucketStart;
+
+    public long sampleCount;
+
+    public double sumValue;
+
+    public double sumSquares;
+
+    public double minValue;
+
+    public double maxValue;
+
+    // Latest sample of the minute; null on buckets written before it was tracked
+    public Double lastValue;
+
+    public LocalDateTime lastAt;
+
+    /**
+     * Default constructor required by JPA.
+     */
+    public MetricBucket() {
+    }
+
+    public MetricBucket(String serviceName, String metricName, LocalDateTime bucketStart) {
+        this.serviceName = serviceName;
+        this.metricName = metricName;
+        this.bucketStart = bucketStart;
+    }
+}
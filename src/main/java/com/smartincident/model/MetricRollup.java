@@ -0,0 +1,59 @@
+package com.smartincident.model;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Aggregate of one service metric over a 5-minute or 1-hour period, computed from
+ * the finer tier below it (per-minute MetricBucket rows for 5 minutes, 5-minute
+ * rollups for 1 hour) so long-range queries read a few rows per series.
+ */
+@Entity
+@Table(name = "metric_rollup", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_metric_rollup_series_start",
+                      columnNames = {"serviceName", "metricName", "resolutionMinutes", "bucketStart"})
+}, indexes = {
+    @Index(name = "idx_metric_rollup_resolution_start", columnList = "resolutionMinutes, bucketStart")
+})
+public class MetricRollup extends PanacheEntity {
+
+    @Column(nullable = false)
+    public String serviceName;
+
+    @Column(nullable = false)
+    public String metricName;
+
+    public int resolutionMinutes;
+
+    @Column(nullable = false)
+    public LocalDateTime bucketStart;
+
+    public long sampleCount;
+
+    public double sumValue;
+
+    public double sumSquares;
+
+    public double minValue;
+
+    public double maxValue;
+
+    public Double lastValue;
+
+    public LocalDateTime lastAt;
+
+    /**
+     * Default constructor required by JPA.
+     */
+    public MetricRollup() {
+    }
+
+    public MetricRollup(String serviceName, String metricName, int resolutionMinutes, LocalDateTime bucketStart) {
+        this.serviceName = serviceName;
+        this.metricName = metricName;
+        this.resolutionMinutes = resolutionMinutes;
+        this.bucketStart = bucketStart;
+    }
+}
@@ -0,0 +1,58 @@
+package com.smartincident.model;
+
+import com.smartincident.model.enums.SloType;
+import io.quarkus.hibernate.orm.panache.PanacheEntity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A service level objective declared by a service.
+ * Availability objectives are measured from http_5xx_count / http_total_count,
+ * latency objectives from latency_ms samples against a threshold.
+ */
+@Entity
+@Table(name = "slo", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_slo_service_type", columnNames = {"serviceName", "type"})
+})
+public class ServiceLevelObjective extends PanacheEntity {
+
+    @Column(nullable = false)
+    public String serviceName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    public SloType type;
+
+    @Column(nullable = false)
+    public Double targetPercent;  // e.g. 99.9
+
+    public Double latencyThresholdMs;  // only used by LATENCY objectives
+
+    @Column(nullable = false)
+    public LocalDateTime updatedAt;
+
+    /**
+     * Default constructor required by JPA.
+     */
+    public ServiceLevelObjective() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Creates an objective with the essential fields.
+     */
+    public ServiceLevelObjective(String serviceName, SloType type, Double targetPercent) {
+        this();
+        this.serviceName = serviceName;
+        this.type = type;
+        this.targetPercent = targetPercent;
+    }
+
+    /**
+     * Fraction of events allowed to be bad, e.g. 0.001 for a 99.9% target.
+     */
+    public double errorBudget() {
+        return 1.0 - targetPercent / 100.0;
+    }
+}
@@ -0,0 +1,77 @@
+package com.smartincident.model;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+
+import jakarta.persistence.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-trace aggregate maintained as traced logs are ingested, so a trace can be
+ * summarized without reading its logs.
+ */
+@Entity
+@Table(name = "trace_summary", indexes = {
+    @Index(name = "idx_trace_last_seen", columnList = "lastSeen")
+})
+public class TraceSummary extends PanacheEntityBase {
+
+    public static final int SERVICES_MAX_LENGTH = 1000;
+
+    @Id
+    public String traceId;
+
+    @Column(nullable = false)
+    public LocalDateTime firstSeen;
+
+    @Column(nullable = false)
+    public LocalDateTime lastSeen;
+
+    public long logCount;
+
+    public long errorCount;
+
+    public String rootService;  // service of the earliest log of the trace
+
+    @Column(nullable = false, length = SERVICES_MAX_LENGTH)
+    public String services = ",";  // delimited as ",svc-a,svc-b," for containment checks
+
+    /**
+     * Default constructor required by JPA.
+     */
+    public TraceSummary() {
+    }
+
+    public TraceSummary(String traceId) {
+        this.traceId = traceId;
+    }
+
+    /**
+     * Services the trace touched.
+     */
+    public List<String> serviceList() {
+        return Arrays.stream(services.split(",")).filter(s -> !s.isEmpty()).toList();
+    }
+
+    /**
+     * Add a service to the trace, unless already present or the column is full.
+     */
+    public void addService(String serviceName) {
+        if (serviceName == null || services.contains("," + serviceName + ",")) {
+            return;
+        }
+        String updated = services + serviceName + ",";
+        if (updated.length() <= SERVICES_MAX_LENGTH) {
+            services = updated;
+        }
+    }
+
+    /**
+     * Time between the first and the last log of the trace.
+     */
+    public long durationMs() {
+        return Duration.between(firstSeen, lastSeen).toMillis();
+    }
+}
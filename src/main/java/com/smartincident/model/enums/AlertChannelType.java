@@ -0,0 +1,20 @@
+package com.smartincident.model.enums;
+
+/**
+ * Payload formats of alert channels.
+ */
+public enum AlertChannelType {
+    WEBHOOK("Generic JSON alert; batches into digests"),
+    SLACK("Slack-compatible incoming webhook message; batches into digests"),
+    PAGERDUTY("PagerDuty Events API v2 trigger; one event per alert");
+
+    private final String description;
+
+    AlertChannelType(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,21 @@
+package com.smartincident.model.enums;
+
+/**
+ * State of an alert in the webhook outbox.
+ */
+public enum AlertDeliveryStatus {
+    PENDING("Waiting for its first or next delivery attempt"),
+    SENDING("Claimed by a delivery worker"),
+    DELIVERED("Accepted by the webhook"),
+    DEAD_LETTER("Gave up after the maximum number of attempts");
+
+    private final String description;
+
+    AlertDeliveryStatus(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,20 @@
+package com.smartincident.model.enums;
+
+/**
+ * State of the asynchronous root-cause enrichment of an incident.
+ */
+public enum EnrichmentStatus {
+    PENDING("Provisional cause, enrichment queued or running"),
+    COMPLETED("Enrichment stages ran and evidence was recorded"),
+    FAILED("Enrichment could not run; the provisional cause stands");
+
+    private final String description;
+
+    EnrichmentStatus(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,19 @@
+package com.smartincident.model.enums;
+
+/**
+ * Kinds of service level objectives a service can declare.
+ */
+public enum SloType {
+    AVAILABILITY("Share of requests not answered with HTTP 5xx"),
+    LATENCY("Share of latency samples under the objective threshold");
+
+    private final String description;
+
+    SloType(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,101 @@
+package com.smartincident.repository;
+
+import com.smartincident.model.AlertOutboxEntry;
+import com.smartincident.model.enums.AlertDeliveryStatus;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Parameters;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for AlertOutboxEntry entity operations.
+ */
+@ApplicationScoped
+public class AlertOutboxRepository implements PanacheRepository<AlertOutboxEntry> {
+
+    /**
+     * Find alerts due for delivery: pending ones whose backoff has elapsed and claimed
+     * ones whose claim has expired, oldest first.
+     */
+    public List<AlertOutboxEntry> findDue(LocalDateTime now, int limit) {
+        return find("status in ?1 and nextAttemptAt <= ?2 ORDER BY nextAttemptAt, id",
+                    List.of(AlertDeliveryStatus.PENDING, AlertDeliveryStatus.SENDING), now).range(0, limit - 1).list();
+    }
+
+    /**
+     * Claim a due alert for delivery until leaseUntil. Fails when another worker or
+     * replica claimed or updated it since it was read.
+     *
+     * @return whether the alert was claimed
+     */
+    public boolean claim(Long id, LocalDateTime seenNextAttemptAt, LocalDateTime leaseUntil) {
+        return update("status = :sending, nextAttemptAt = :leaseUntil " +
+                      "where id = :id and nextAttemptAt = :seen and status in :claimable",
+                Parameters.with("sending", AlertDeliveryStatus.SENDING)
+                        .and("leaseUntil", leaseUntil)
+                        .and("id", id)
+                        .and("seen", seenNextAttemptAt)
+                        .and("claimable", List.of(AlertDeliveryStatus.PENDING, AlertDeliveryStatus.SENDING))) == 1;
+    }
+
+    /**
+     * Postpone alerts that are still due, without using up attempts. Alerts claimed
+     * since they were read are not due and are left alone.
+     */
+    public int defer(List<Long> ids, LocalDateTime until, LocalDateTime now) {
+        return update("nextAttemptAt = :until where id in :ids and nextAttemptAt <= :now and status in :claimable",
+                Parameters.with("until", until)
+                        .and("ids", ids)
+                        .and("now", now)
+                        .and("claimable", List.of(AlertDeliveryStatus.PENDING, AlertDeliveryStatus.SENDING)));
+    }
+
+    /**
+     * Record a successful delivery.
+     */
+    public void markDelivered(Long id, int attempts, LocalDateTime deliveredAt) {
+        update("status = ?1, attempts = ?2, deliveredAt = ?3, lastError = null where id = ?4",
+               AlertDeliveryStatus.DELIVERED, attempts, deliveredAt, id);
+    }
+
+    /**
+     * Record a failed attempt, either scheduling the next one or dead-lettering the alert.
+     */
+    public void markFailed(Long id, AlertDeliveryStatus status, int attempts, LocalDateTime nextAttemptAt, String error) {
+        update("status = ?1, attempts = ?2, nextAttemptAt = ?3, lastError = ?4 where id = ?5",
+               status, attempts, nextAttemptAt, error, id);
+    }
+
+    /**
+     * Move a dead-lettered alert back to pending.
+     *
+     * @return whether the alert was dead-lettered
+     */
+    public boolean requeue(Long id, LocalDateTime now) {
+        return update("status = ?1, attempts = 0, nextAttemptAt = ?2 where id = ?3 and status = ?4",
+                      AlertDeliveryStatus.PENDING, now, id, AlertDeliveryStatus.DEAD_LETTER) == 1;
+    }
+
+    /**
+     * Find alerts in a given state, newest first.
+     */
+    public List<AlertOutboxEntry> findByStatus(AlertDeliveryStatus status, int limit) {
+        return find("status = ?1 ORDER BY createdAt DESC, id DESC", status).range(0, limit - 1).list();
+    }
+
+    /**
+     * Count alerts in a given state.
+     */
+    public long countByStatus(AlertDeliveryStatus status) {
+        return count("status", status);
+    }
+
+    /**
+     * Delete alerts delivered before the given time.
+     */
+    public long deleteDeliveredBefore(LocalDateTime cutoff) {
+        return delete("status = ?1 and deliveredAt < ?2", AlertDeliveryStatus.DELIVERED, cutoff);
+    }
+}
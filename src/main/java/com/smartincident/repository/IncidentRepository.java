@@ -1,12 +1,16 @@
 package com.smartincident.repository;
 
 import com.smartincident.model.Incident;
+import com.smartincident.model.enums.EnrichmentStatus;
+import com.smartincident.model.enums.IncidentSeverity;
 import com.smartincident.model.enums.IncidentStatus;
 import com.smartincident.model.enums.IncidentType;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Parameters;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -15,13 +19,6 @@ import java.util.List;
 @ApplicationScoped
 public class IncidentRepository implements PanacheRepository<Incident> {
 
-    /**
-     * Find all open incidents.
-     */
-    public List<Incident> findOpenIncidents() {
-        return list("status", IncidentStatus.OPEN);
-    }
-
     /**
      * Find incidents by status.
      */
@@ -50,6 +47,60 @@ public class IncidentRepository implements PanacheRepository<Incident> {
         return list("detectedAt >= ?1", since);
     }
 
+    /**
+     * Find the incidents grouped under a parent, oldest first.
+     */
+    public List<Incident> findChildren(Long parentId) {
+        return list("parentIncidentId = ?1 ORDER BY detectedAt, id", parentId);
+    }
+
+    /**
+     * Find open incidents that are not grouped under another, detected since a given time.
+     */
+    public List<Incident> findOpenParentsSince(LocalDateTime since) {
+        return list("parentIncidentId is null and status = ?1 and detectedAt >= ?2 ORDER BY detectedAt",
+                    IncidentStatus.OPEN, since);
+    }
+
+    /**
+     * Count one more child under a parent, in the database so concurrent children all count.
+     */
+    public void incrementChildCount(Long parentId) {
+        update("childCount = childCount + 1, lastModifiedAt = ?1 where id = ?2", LocalDateTime.now(), parentId);
+    }
+
+    /**
+     * Raise the severity of an incident when it is lower than the given one.
+     *
+     * @return whether the severity was raised
+     */
+    public boolean raiseSeverity(Long id, IncidentSeverity severity) {
+        List<IncidentSeverity> lower = Arrays.stream(IncidentSeverity.values())
+                .filter(s -> s.getLevel() < severity.getLevel())
+                .toList();
+        return !lower.isEmpty()
+                && update("severity = ?1, lastModifiedAt = ?2 where id = ?3 and severity in ?4",
+                          severity, LocalDateTime.now(), id, lower) > 0;
+    }
+
+    /**
+     * Find incidents still waiting for enrichment, detected since a given time, oldest first.
+     */
+    public List<Incident> findPendingEnrichmentSince(LocalDateTime since) {
+        return list("enrichmentStatus = ?1 and detectedAt >= ?2 ORDER BY detectedAt, id",
+                    EnrichmentStatus.PENDING, since);
+    }
+
+    /**
+     * Mark incidents still waiting for enrichment, detected before a given time, as failed.
+     *
+     * @return number of incidents marked
+     */
+    public int failPendingEnrichmentBefore(LocalDateTime cutoff) {
+        return update("enrichmentStatus = ?1, lastModifiedAt = ?2 where enrichmentStatus = ?3 and detectedAt < ?4",
+                      EnrichmentStatus.FAILED, LocalDateTime.now(), EnrichmentStatus.PENDING, cutoff);
+    }
+
     /**
      * Check if an open incident of the same type exists for a service.
      */
@@ -59,10 +110,48 @@ public class IncidentRepository implements PanacheRepository<Incident> {
     }
 
     /**
-     * Find incidents ordered by detection time (newest first).
+     * Find one page of incidents matching a filter, newest first.
+     * Uses keyset pagination on (detectedAt, id): the page starts right after the
+     * given position instead of skipping rows, so fetch cost does not grow with history.
+     *
+     * @param afterDetectedAt detectedAt of the last incident of the previous page, or null for the first page
+     * @param afterId id of the last incident of the previous page, or null for the first page
      */
-    public List<Incident> findAllOrderedByDetectedAt() {
-        return list("ORDER BY detectedAt DESC");
+    public List<Incident> findPage(IncidentFilter filter, LocalDateTime afterDetectedAt, Long afterId, int limit) {
+        StringBuilder query = new StringBuilder("1 = 1");
+        Parameters params = new Parameters();
+
+        if (filter.status() != null) {
+            query.append(" and status = :status");
+            params.and("status", filter.status());
+        }
+        if (filter.severity() != null) {
+            query.append(" and severity = :severity");
+            params.and("severity", filter.severity());
+        }
+        if (filter.type() != null) {
+            query.append(" and type = :type");
+            params.and("type", filter.type());
+        }
+        if (filter.serviceName() != null) {
+            query.append(" and serviceName = :serviceName");
+            params.and("serviceName", filter.serviceName());
+        }
+        if (filter.from() != null) {
+            query.append(" and detectedAt >= :from");
+            params.and("from", filter.from());
+        }
+        if (filter.to() != null) {
+            query.append(" and detectedAt < :to");
+            params.and("to", filter.to());
+        }
+        if (afterDetectedAt != null && afterId != null) {
+            query.append(" and (detectedAt < :afterDetectedAt or (detectedAt = :afterDetectedAt and id < :afterId))");
+            params.and("afterDetectedAt", afterDetectedAt).and("afterId", afterId);
+        }
+        query.append(" ORDER BY detectedAt DESC, id DESC");
+
+        return find(query.toString(), params).range(0, limit - 1).list();
     }
 
     /**
@@ -71,4 +160,48 @@ public class IncidentRepository implements PanacheRepository<Incident> {
     public long countOpenBySeverity(com.smartincident.model.enums.IncidentSeverity severity) {
         return count("status = ?1 and severity = ?2", IncidentStatus.OPEN, severity);
     }
+
+    /**
+     * Get the most recent modification time of any incident, or null if there are none.
+     */
+    public LocalDateTime findLatestModification() {
+        return getEntityManager()
+                .createQuery("SELECT MAX(i.lastModifiedAt) FROM Incident i", LocalDateTime.class)
+                .getSingleResult();
+    }
+
+    /**
+     * Count incidents grouped by status, severity, type and service.
+     * Each row is [IncidentStatus, IncidentSeverity, IncidentType, String, Long].
+     */
+    public List<Object[]> countGrouped() {
+        return getEntityManager()
+                .createQuery("SELECT i.status, i.severity, i.type, i.serviceName, COUNT(i) FROM Incident i " +
+                             "GROUP BY i.status, i.severity, i.type, i.serviceName", Object[].class)
+                .getResultList();
+    }
+
+    /**
+     * Optional filters for incident listing; null fields are not applied.
+     */
+    public record IncidentFilter(
+        IncidentStatus status,
+        IncidentSeverity severity,
+        IncidentType type,
+        String serviceName,
+        LocalDateTime from,
+        LocalDateTime to
+    ) {
+        public static IncidentFilter none() {
+            return new IncidentFilter(null, null, null, null, null, null);
+        }
+
+        public IncidentFilter withStatus(IncidentStatus status) {
+            return new IncidentFilter(status, severity, type, serviceName, from, to);
+        }
+
+        public IncidentFilter withServiceName(String serviceName) {
+            return new IncidentFilter(status, severity, type, serviceName, from, to);
+        }
+    }
 }
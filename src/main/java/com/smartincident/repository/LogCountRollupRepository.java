@@ -0,0 +1,60 @@
+package com.smartincident.repository;
+
+import com.smartincident.model.LogCountRollup;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Parameters;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for LogCountRollup entity operations.
+ */
+@ApplicationScoped
+public class LogCountRollupRepository implements PanacheRepository<LogCountRollup> {
+
+    /**
+     * Add delta to the count of one (service, level, minute).
+     *
+     * @return number of rows updated, 0 when the row does not exist yet
+     */
+    public int increment(String serviceName, String level, LocalDateTime minuteStart, long delta) {
+        return update("logCount = logCount + :delta where serviceName = :serviceName and level = :level and minuteStart = :minuteStart",
+                Parameters.with("delta", delta)
+                        .and("serviceName", serviceName)
+                        .and("level", level)
+                        .and("minuteStart", minuteStart));
+    }
+
+    /**
+     * Total count of a service and level over the minutes starting at or after from.
+     */
+    public long sumCounts(String serviceName, String level, LocalDateTime from) {
+        Long total = getEntityManager()
+                .createQuery("SELECT SUM(r.logCount) FROM LogCountRollup r " +
+                             "WHERE r.serviceName = :serviceName AND r.level = :level AND r.minuteStart >= :from", Long.class)
+                .setParameter("serviceName", serviceName)
+                .setParameter("level", level)
+                .setParameter("from", from)
+                .getSingleResult();
+        return total != null ? total : 0;
+    }
+
+    /**
+     * Per-minute counts of a service since a given minute, oldest first.
+     */
+    public List<LogCountRollup> findSeries(String serviceName, String level, LocalDateTime from) {
+        if (level == null) {
+            return list("serviceName = ?1 and minuteStart >= ?2 ORDER BY minuteStart, level", serviceName, from);
+        }
+        return list("serviceName = ?1 and level = ?2 and minuteStart >= ?3 ORDER BY minuteStart", serviceName, level, from);
+    }
+
+    /**
+     * Delete rollups older than the given minute.
+     */
+    public long deleteOlderThan(LocalDateTime cutoff) {
+        return delete("minuteStart < ?1", cutoff);
+    }
+}
@@ -2,6 +2,7 @@ package com.smartincident.repository;
 
 import com.smartincident.model.LogEntry;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Parameters;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import java.time.LocalDateTime;
@@ -28,17 +29,82 @@ public class LogEntryRepository implements PanacheRepository<LogEntry> {
     }
 
     /**
-     * Find error logs for a service within a time range.
+     * Find the newest error logs for a service within a time range, at most limit of them.
      */
-    public List<LogEntry> findErrorsForService(String serviceName, LocalDateTime since) {
-        return list("serviceName = ?1 and level = 'ERROR' and timestamp >= ?2", serviceName, since);
+    public List<LogEntry> findErrorsForService(String serviceName, LocalDateTime since, int limit) {
+        return find("serviceName = ?1 and level = 'ERROR' and timestamp >= ?2 ORDER BY timestamp DESC",
+                    serviceName, since).range(0, limit - 1).list();
     }
 
     /**
-     * Find recent logs.
+     * Find the logs of a trace in time order, at most limit of them.
      */
-    public List<LogEntry> findRecent(LocalDateTime since) {
-        return list("timestamp >= ?1 ORDER BY timestamp DESC", since);
+    public List<LogEntry> findByTraceId(String traceId, int limit) {
+        return find("traceId = ?1 ORDER BY timestamp, id", traceId).range(0, limit - 1).list();
+    }
+
+    /**
+     * Find the newest logs since a given time, at most limit of them.
+     */
+    public List<LogEntry> findRecent(LocalDateTime since, int limit) {
+        return find("timestamp >= ?1 ORDER BY timestamp DESC", since).range(0, limit - 1).list();
+    }
+
+    /**
+     * Find one page of logs matching a filter, newest first, continuing after the
+     * given (timestamp, id) position when one is set.
+     */
+    public List<LogEntry> findPage(LogFilter filter, LocalDateTime afterTimestamp, Long afterId, int limit) {
+        Parameters params = new Parameters();
+        StringBuilder query = new StringBuilder(whereClause(filter, params));
+        if (afterTimestamp != null && afterId != null) {
+            query.append(" and (timestamp < :afterTimestamp or (timestamp = :afterTimestamp and id < :afterId))");
+            params.and("afterTimestamp", afterTimestamp).and("afterId", afterId);
+        }
+        query.append(" ORDER BY timestamp DESC, id DESC");
+
+        return find(query.toString(), params).range(0, limit - 1).list();
+    }
+
+    /**
+     * Build the where clause of a filter, adding its values to params. Shared by the
+     * paged query and the streaming export.
+     */
+    public String whereClause(LogFilter filter, Parameters params) {
+        StringBuilder query = new StringBuilder("1 = 1");
+        if (filter.serviceName() != null) {
+            query.append(" and serviceName = :serviceName");
+            params.and("serviceName", filter.serviceName());
+        }
+        if (filter.podName() != null) {
+            query.append(" and podName = :podName");
+            params.and("podName", filter.podName());
+        }
+        if (filter.namespace() != null) {
+            query.append(" and namespace = :namespace");
+            params.and("namespace", filter.namespace());
+        }
+        if (filter.level() != null) {
+            query.append(" and level = :level");
+            params.and("level", filter.level());
+        }
+        if (filter.traceId() != null) {
+            query.append(" and traceId = :traceId");
+            params.and("traceId", filter.traceId());
+        }
+        if (filter.category() != null) {
+            query.append(" and category = :category");
+            params.and("category", filter.category());
+        }
+        if (filter.from() != null) {
+            query.append(" and timestamp >= :from");
+            params.and("from", filter.from());
+        }
+        if (filter.to() != null) {
+            query.append(" and timestamp < :to");
+            params.and("to", filter.to());
+        }
+        return query.toString();
     }
 
     /**
@@ -56,9 +122,113 @@ public class LogEntryRepository implements PanacheRepository<LogEntry> {
     }
 
     /**
-     * Search logs containing a specific message pattern.
+     * Search logs whose message contains every term, newest first.
+     * On PostgreSQL the lower(message) predicate is served by the pg_trgm GIN index
+     * created at startup instead of a sequential scan.
+     */
+    public List<LogEntry> searchByTerms(List<String> terms, String serviceName, String level,
+                                        LocalDateTime from, LocalDateTime to, int limit) {
+        StringBuilder query = new StringBuilder("timestamp >= :from");
+        Parameters params = Parameters.with("from", from);
+
+        for (int i = 0; i < terms.size(); i++) {
+            query.append(" and lower(message) like :term").append(i).append(" escape '\\'");
+            params.and("term" + i, "%" + escapeLike(terms.get(i).toLowerCase()) + "%");
+        }
+        if (serviceName != null) {
+            query.append(" and serviceName = :serviceName");
+            params.and("serviceName", serviceName);
+        }
+        if (level != null) {
+            query.append(" and level = :level");
+            params.and("level", level);
+        }
+        if (to != null) {
+            query.append(" and timestamp < :to");
+            params.and("to", to);
+        }
+        query.append(" ORDER BY timestamp DESC");
+
+        return find(query.toString(), params).range(0, limit - 1).list();
+    }
+
+    /**
+     * Find logs with an id above afterId and a timestamp at or after since, in id order.
+     */
+    public List<LogEntry> findSince(LocalDateTime since, long afterId, int limit) {
+        return find("timestamp >= ?1 and id > ?2 ORDER BY id", since, afterId).range(0, limit - 1).list();
+    }
+
+    /**
+     * Logs with a trace id since a given time, in id order, after a given id.
+     */
+    public List<LogEntry> findTracedSince(LocalDateTime since, long afterId, int limit) {
+        return find("timestamp >= ?1 and id > ?2 and traceId is not null ORDER BY id", since, afterId).range(0, limit - 1).list();
+    }
+
+    /**
+     * Delete at most limit log entries older than the given time.
+     *
+     * @return number of rows deleted
+     */
+    public long deleteOlderThan(LocalDateTime cutoff, int limit) {
+        List<Long> ids = getEntityManager()
+                .createQuery("SELECT e.id FROM LogEntry e WHERE e.timestamp < :cutoff", Long.class)
+                .setParameter("cutoff", cutoff)
+                .setMaxResults(limit)
+                .getResultList();
+        return ids.isEmpty() ? 0 : delete("id in ?1 and timestamp < ?2", ids, cutoff);
+    }
+
+    /**
+     * Find logs with a timestamp in [from, to) and an id above afterId, in id order.
+     */
+    public List<LogEntry> findBetween(LocalDateTime from, LocalDateTime to, long afterId, int limit) {
+        return find("timestamp >= ?1 and timestamp < ?2 and id > ?3 ORDER BY id", from, to, afterId)
+                .range(0, limit - 1).list();
+    }
+
+    /**
+     * Count logs with a timestamp in [from, to) and an id above afterId.
+     */
+    public long countBetween(LocalDateTime from, LocalDateTime to, long afterId) {
+        return count("timestamp >= ?1 and timestamp < ?2 and id > ?3", from, to, afterId);
+    }
+
+    /**
+     * Timestamp of the oldest log before the given time, or null if there is none.
+     */
+    public LocalDateTime findOldestBefore(LocalDateTime cutoff) {
+        return getEntityManager()
+                .createQuery("SELECT min(e.timestamp) FROM LogEntry e WHERE e.timestamp < :cutoff", LocalDateTime.class)
+                .setParameter("cutoff", cutoff)
+                .getSingleResult();
+    }
+
+    /**
+     * Delete the logs with the given ids and a timestamp in [from, to).
+     *
+     * @return number of rows deleted
+     */
+    public long deleteIds(List<Long> ids, LocalDateTime from, LocalDateTime to) {
+        return ids.isEmpty() ? 0 : delete("id in ?1 and timestamp >= ?2 and timestamp < ?3", ids, from, to);
+    }
+
+    /**
+     * Optional criteria for log queries; null fields do not filter.
      */
-    public List<LogEntry> searchByMessage(String pattern) {
-        return list("lower(message) like ?1", "%" + pattern.toLowerCase() + "%");
+    public record LogFilter(
+        String serviceName,
+        String podName,
+        String namespace,
+        String level,
+        String traceId,
+        String category,
+        LocalDateTime from,
+        LocalDateTime to
+    ) {}
+
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 }
@@ -0,0 +1,108 @@
+package com.smartincident.repository;
+
+import com.smartincident.model.MetricBucket;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Parameters;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for MetricBucket entity operations.
+ */
+@ApplicationScoped
+public class MetricBucketRepository implements PanacheRepository<MetricBucket> {
+
+    /**
+     * Fold samples into the bucket of one (service, metric, minute).
+     *
+     * @return number of rows updated, 0 when the row does not exist yet
+     */
+    public int merge(String serviceName, String metricName, LocalDateTime bucketStart,
+                     long count, double sum, double sumSquares, double min, double max,
+                     double last, LocalDateTime lastAt) {
+        return update("sampleCount = sampleCount + :count, sumValue = sumValue + :sum, sumSquares = sumSquares + :sumSquares, " +
+                      "minValue = least(minValue, :min), maxValue = greatest(maxValue, :max), " +
+                      "lastValue = case when lastAt is null or lastAt <= :lastAt then :last else lastValue end, " +
+                      "lastAt = case when lastAt is null or lastAt <= :lastAt then :lastAt else lastAt end " +
+                      "where serviceName = :serviceName and metricName = :metricName and bucketStart = :bucketStart",
+                Parameters.with("count", count)
+                        .and("sum", sum)
+                        .and("sumSquares", sumSquares)
+                        .and("min", min)
+                        .and("max", max)
+                        .and("last", last)
+                        .and("lastAt", lastAt)
+                        .and("serviceName", serviceName)
+                        .and("metricName", metricName)
+                        .and("bucketStart", bucketStart));
+    }
+
+    /**
+     * Totals per (service, metric) over the buckets in [from, to): rows of
+     * serviceName, metricName, sampleCount, sumValue, sumSquares.
+     */
+    public List<Object[]> sumByMetric(Collection<String> serviceNames, LocalDateTime from, LocalDateTime to) {
+        return getEntityManager()
+                .createQuery("SELECT b.serviceName, b.metricName, SUM(b.sampleCount), SUM(b.sumValue), SUM(b.sumSquares) " +
+                             "FROM MetricBucket b WHERE b.serviceName IN :serviceNames " +
+                             "AND b.bucketStart >= :from AND b.bucketStart < :to " +
+                             "GROUP BY b.serviceName, b.metricName", Object[].class)
+                .setParameter("serviceNames", serviceNames)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+    }
+
+    /**
+     * Buckets of one metric of a service in [from, to), oldest first.
+     */
+    public List<MetricBucket> findSeries(String serviceName, String metricName, LocalDateTime from, LocalDateTime to) {
+        return list("serviceName = ?1 and metricName = ?2 and bucketStart >= ?3 and bucketStart < ?4 ORDER BY bucketStart",
+                    serviceName, metricName, from, to);
+    }
+
+    /**
+     * Buckets of the given services in [from, to).
+     */
+    public List<MetricBucket> findForServices(Collection<String> serviceNames, LocalDateTime from, LocalDateTime to) {
+        return list("serviceName in ?1 and bucketStart >= ?2 and bucketStart < ?3", serviceNames, from, to);
+    }
+
+    /**
+     * Distinct (serviceName, metricName, bucketStart) of the buckets since the given minute.
+     */
+    public List<Object[]> findKeysSince(LocalDateTime since) {
+        return getEntityManager()
+                .createQuery("SELECT b.serviceName, b.metricName, b.bucketStart FROM MetricBucket b " +
+                             "WHERE b.bucketStart >= :since", Object[].class)
+                .setParameter("since", since)
+                .getResultList();
+    }
+
+    /**
+     * Distinct (serviceName, metricName) of the buckets in [from, to), of one metric
+     * when metricName is set.
+     */
+    public List<Object[]> findSeriesBetween(LocalDateTime from, LocalDateTime to, String metricName) {
+        var query = getEntityManager()
+                .createQuery("SELECT DISTINCT b.serviceName, b.metricName FROM MetricBucket b " +
+                             "WHERE b.bucketStart >= :from AND b.bucketStart < :to" +
+                             (metricName != null ? " AND b.metricName = :metricName" : ""), Object[].class)
+                .setParameter("from", from)
+                .setParameter("to", to);
+        if (metricName != null) {
+            query.setParameter("metricName", metricName);
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * Delete buckets older than the given minute.
+     */
+    public long deleteOlderThan(LocalDateTime cutoff) {
+        return delete("bucketStart < ?1", cutoff);
+    }
+}
@@ -2,6 +2,9 @@ package com.smartincident.repository;
 
 import com.smartincident.model.Metric;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import java.time.LocalDateTime;
@@ -78,4 +81,57 @@ public class MetricRepository implements PanacheRepository<Metric> {
                 .createQuery("SELECT DISTINCT m.serviceName FROM Metric m", String.class)
                 .getResultList();
     }
+
+    /**
+     * Samples after the position (afterTimestamp, afterId) and before to, in
+     * (timestamp, id) order, as rows of id, timestamp, value, serviceName, metricName,
+     * podName, namespace and unit. Reads columns only, without loading entities.
+     */
+    public List<Object[]> findSamplesAfter(LocalDateTime afterTimestamp, long afterId, LocalDateTime to, int limit) {
+        return getEntityManager()
+                .createQuery("SELECT m.id, m.timestamp, m.value, m.serviceName, m.metricName, m.podName, " +
+                             "m.namespace, m.unit FROM Metric m WHERE m.timestamp >= :afterTimestamp " +
+                             "AND m.timestamp < :to AND (m.timestamp > :afterTimestamp OR m.id > :afterId) " +
+                             "ORDER BY m.timestamp, m.id", Object[].class)
+                .setParameter("afterTimestamp", afterTimestamp)
+                .setParameter("afterId", afterId)
+                .setParameter("to", to)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Samples of one metric of a service in [from, to) as rows of podName, timestamp
+     * and value, pod by pod and oldest first, fetched fetchSize rows at a time. Must be
+     * read and closed within a transaction.
+     */
+    public ScrollableResults<Object[]> scrollSamples(String metricName, String serviceName, LocalDateTime from,
+                                                     LocalDateTime to, int fetchSize) {
+        return getEntityManager().unwrap(Session.class)
+                .createSelectionQuery("SELECT m.podName, m.timestamp, m.value FROM Metric m " +
+                                      "WHERE m.metricName = :metricName AND m.serviceName = :serviceName " +
+                                      "AND m.timestamp >= :from AND m.timestamp < :to " +
+                                      "ORDER BY m.podName, m.timestamp", Object[].class)
+                .setParameter("metricName", metricName)
+                .setParameter("serviceName", serviceName)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY);
+    }
+
+    /**
+     * Delete at most limit metrics older than the given time.
+     *
+     * @return number of rows deleted
+     */
+    public long deleteOlderThan(LocalDateTime cutoff, int limit) {
+        List<Long> ids = getEntityManager()
+                .createQuery("SELECT m.id FROM Metric m WHERE m.timestamp < :cutoff", Long.class)
+                .setParameter("cutoff", cutoff)
+                .setMaxResults(limit)
+                .getResultList();
+        return ids.isEmpty() ? 0 : delete("id in ?1 and timestamp < ?2", ids, cutoff);
+    }
 }
@@ -0,0 +1,61 @@
+package com.smartincident.repository;
+
+import com.smartincident.model.MetricRollup;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for MetricRollup entity operations.
+ */
+@ApplicationScoped
+public class MetricRollupRepository implements PanacheRepository<MetricRollup> {
+
+    /**
+     * Rollups of one metric of a service at one resolution in [from, to), oldest first.
+     */
+    public List<MetricRollup> findSeries(String serviceName, String metricName, int resolutionMinutes,
+                                         LocalDateTime from, LocalDateTime to) {
+        return list("serviceName = ?1 and metricName = ?2 and resolutionMinutes = ?3 " +
+                    "and bucketStart >= ?4 and bucketStart < ?5 ORDER BY bucketStart",
+                    serviceName, metricName, resolutionMinutes, from, to);
+    }
+
+    /**
+     * Rollups of the given services at one resolution in [from, to).
+     */
+    public List<MetricRollup> findForServices(Collection<String> serviceNames, int resolutionMinutes,
+                                              LocalDateTime from, LocalDateTime to) {
+        return list("serviceName in ?1 and resolutionMinutes = ?2 and bucketStart >= ?3 and bucketStart < ?4",
+                    serviceNames, resolutionMinutes, from, to);
+    }
+
+    /**
+     * Distinct (serviceName, metricName) of the rollups of one resolution in [from, to),
+     * of one metric when metricName is set.
+     */
+    public List<Object[]> findSeriesBetween(int resolutionMinutes, LocalDateTime from, LocalDateTime to,
+                                            String metricName) {
+        var query = getEntityManager()
+                .createQuery("SELECT DISTINCT r.serviceName, r.metricName FROM MetricRollup r " +
+                             "WHERE r.resolutionMinutes = :resolution AND r.bucketStart >= :from AND r.bucketStart < :to" +
+                             (metricName != null ? " AND r.metricName = :metricName" : ""), Object[].class)
+                .setParameter("resolution", resolutionMinutes)
+                .setParameter("from", from)
+                .setParameter("to", to);
+        if (metricName != null) {
+            query.setParameter("metricName", metricName);
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * Delete rollups of one resolution older than the given time.
+     */
+    public long deleteOlderThan(int resolutionMinutes, LocalDateTime cutoff) {
+        return delete("resolutionMinutes = ?1 and bucketStart < ?2", resolutionMinutes, cutoff);
+    }
+}
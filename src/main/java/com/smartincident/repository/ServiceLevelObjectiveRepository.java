@@ -0,0 +1,29 @@
+package com.smartincident.repository;
+
+import com.smartincident.model.ServiceLevelObjective;
+import com.smartincident.model.enums.SloType;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.List;
+
+/**
+ * Repository for ServiceLevelObjective entity operations.
+ */
+@ApplicationScoped
+public class ServiceLevelObjectiveRepository implements PanacheRepository<ServiceLevelObjective> {
+
+    /**
+     * Find objectives declared by a service.
+     */
+    public List<ServiceLevelObjective> findByServiceName(String serviceName) {
+        return list("serviceName", serviceName);
+    }
+
+    /**
+     * Find the objective of a given type for a service.
+     */
+    public ServiceLevelObjective findByServiceAndType(String serviceName, SloType type) {
+        return find("serviceName = ?1 and type = ?2", serviceName, type).firstResult();
+    }
+}
@@ -0,0 +1,52 @@
+package com.smartincident.repository;
+
+import com.smartincident.model.TraceSummary;
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import io.quarkus.panache.common.Parameters;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for TraceSummary entity operations.
+ */
+@ApplicationScoped
+public class TraceSummaryRepository implements PanacheRepositoryBase<TraceSummary, String> {
+
+    /**
+     * Find the most recent traces touching a service, optionally only those with errors.
+     */
+    public List<TraceSummary> findRecent(String serviceName, boolean errorsOnly, LocalDateTime since, int limit) {
+        StringBuilder query = new StringBuilder("lastSeen >= :since");
+        Parameters params = Parameters.with("since", since);
+        if (serviceName != null) {
+            query.append(" and services like :service escape '\\'");
+            params.and("service", "%," + escapeLike(serviceName) + ",%");
+        }
+        if (errorsOnly) {
+            query.append(" and errorCount > 0");
+        }
+        query.append(" ORDER BY lastSeen DESC");
+
+        return find(query.toString(), params).range(0, limit - 1).list();
+    }
+
+    /**
+     * Delete at most limit trace summaries last seen before the given time.
+     *
+     * @return number of rows deleted
+     */
+    public long deleteOlderThan(LocalDateTime cutoff, int limit) {
+        List<String> ids = getEntityManager()
+                .createQuery("SELECT t.traceId FROM TraceSummary t WHERE t.lastSeen < :cutoff", String.class)
+                .setParameter("cutoff", cutoff)
+                .setMaxResults(limit)
+                .getResultList();
+        return ids.isEmpty() ? 0 : delete("traceId in ?1 and lastSeen < ?2", ids, cutoff);
+    }
+
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
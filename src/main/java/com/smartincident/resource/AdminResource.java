@@ -1,7 +1,15 @@
 package com.smartincident.resource;
 
+import com.smartincident.dto.LoadTestRequest;
+import com.smartincident.service.AlertDeliveryService;
+import com.smartincident.service.AlertRoutingService;
 import com.smartincident.service.AlertingService;
 import com.smartincident.service.AnomalyDetectionService;
+import com.smartincident.service.DetectionCadenceService;
+import com.smartincident.service.LoadGeneratorService;
+import com.smartincident.service.LogArchiveService;
+import com.smartincident.service.MetricHeadService;
+import com.smartincident.service.RetentionService;
 
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
@@ -19,9 +27,30 @@ public class AdminResource {
     @Inject
     AlertingService alertingService;
 
+    @Inject
+    AlertDeliveryService alertDeliveryService;
+
+    @Inject
+    AlertRoutingService alertRoutingService;
+
     @Inject
     AnomalyDetectionService anomalyDetectionService;
 
+    @Inject
+    DetectionCadenceService detectionCadenceService;
+
+    @Inject
+    LoadGeneratorService loadGeneratorService;
+
+    @Inject
+    LogArchiveService logArchiveService;
+
+    @Inject
+    MetricHeadService metricHeadService;
+
+    @Inject
+    RetentionService retentionService;
+
     /**
      * Test the alerting webhook.
      */
@@ -39,6 +68,47 @@ public class AdminResource {
         }
     }
 
+    /**
+     * Get the number of alerts in each delivery state.
+     */
+    @GET
+    @Path("/alerts/outbox")
+    public Response getAlertOutbox() {
+        return Response.ok(alertDeliveryService.getCounts()).build();
+    }
+
+    /**
+     * Get the alert channels and the state of their circuits.
+     */
+    @GET
+    @Path("/alerts/channels")
+    public Response getAlertChannels() {
+        return Response.ok(alertRoutingService.getChannelStatuses()).build();
+    }
+
+    /**
+     * Get the most recent alerts that could not be delivered.
+     */
+    @GET
+    @Path("/alerts/dead-letters")
+    public Response getDeadLetters(@QueryParam("limit") @DefaultValue("50") int limit) {
+        return Response.ok(alertDeliveryService.getDeadLetters(Math.min(Math.max(limit, 1), 500))).build();
+    }
+
+    /**
+     * Queue a dead-lettered alert for delivery again.
+     */
+    @POST
+    @Path("/alerts/{id}/retry")
+    public Response retryAlert(@PathParam("id") Long id) {
+        if (!alertDeliveryService.retry(id)) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity("{\"error\": \"No dead-lettered alert with this id\"}")
+                    .build();
+        }
+        return Response.ok("{\"message\": \"Alert queued for delivery\"}").build();
+    }
+
     /**
      * Manually trigger anomaly detection.
      */
@@ -55,6 +125,109 @@ public class AdminResource {
         }
     }
 
+    /**
+     * Get the current detection cadence of every service.
+     */
+    @GET
+    @Path("/detection-cadence")
+    public Response getDetectionCadence() {
+        return Response.ok(detectionCadenceService.getCadences()).build();
+    }
+
+    /**
+     * Get the retention and partitions of the log and metric tables.
+     */
+    @GET
+    @Path("/retention")
+    public Response getRetention() {
+        return Response.ok(retentionService.getStatus()).build();
+    }
+
+    /**
+     * Get the coverage and memory use of the in-memory metric store.
+     */
+    @GET
+    @Path("/metric-head")
+    public Response getMetricHead() {
+        return Response.ok(metricHeadService.getStatus()).build();
+    }
+
+    /**
+     * Get the segments of the log archive.
+     */
+    @GET
+    @Path("/log-archive")
+    public Response getLogArchive() {
+        return Response.ok(logArchiveService.getStatus()).build();
+    }
+
+    /**
+     * Archive aged logs now instead of waiting for the scheduler.
+     */
+    @POST
+    @Path("/log-archive/run")
+    public Response runLogArchive() {
+        if (!logArchiveService.isEnabled()) {
+            return Response.status(Response.Status.FORBIDDEN)
+                    .entity("{\"error\": \"Log archive is disabled (app.logs.archive.enabled)\"}")
+                    .build();
+        }
+        return Response.ok(logArchiveService.archive()).build();
+    }
+
+    /**
+     * Start a synthetic load test against this instance.
+     */
+    @POST
+    @Path("/load-test")
+    public Response startLoadTest(LoadTestRequest request) {
+        if (!loadGeneratorService.isEnabled()) {
+            return Response.status(Response.Status.FORBIDDEN)
+                    .entity("{\"error\": \"Load generator is disabled (app.loadgen.enabled)\"}")
+                    .build();
+        }
+        try {
+            return Response.status(Response.Status.ACCEPTED)
+                    .entity(loadGeneratorService.start(request != null ? request : new LoadTestRequest()))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\": \"" + e.getMessage() + "\"}")
+                    .build();
+        } catch (IllegalStateException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity("{\"error\": \"" + e.getMessage() + "\"}")
+                    .build();
+        }
+    }
+
+    /**
+     * Get the report of the current or last load test.
+     */
+    @GET
+    @Path("/load-test")
+    public Response getLoadTest() {
+        return loadGeneratorService.getReport()
+                .map(report -> Response.ok(report).build())
+                .orElse(Response.status(Response.Status.NOT_FOUND)
+                        .entity("{\"error\": \"No load test has been run\"}")
+                        .build());
+    }
+
+    /**
+     * Stop the running load test.
+     */
+    @DELETE
+    @Path("/load-test")
+    public Response stopLoadTest() {
+        if (!loadGeneratorService.stop()) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity("{\"error\": \"No load test is running\"}")
+                    .build();
+        }
+        return Response.ok("{\"message\": \"Load test stopping\"}").build();
+    }
+
     /**
      * Get application info.
      */
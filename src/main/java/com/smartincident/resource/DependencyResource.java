@@ -0,0 +1,56 @@
+package com.smartincident.resource;
+
+import com.smartincident.service.DependencyGraphService;
+import com.smartincident.service.DependencyGraphService.ServiceDependencies;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.util.Optional;
+
+/**
+ * REST API for the service call graph derived from traces.
+ */
+@Path("/api/dependencies")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class DependencyResource {
+
+    @Inject
+    DependencyGraphService dependencyGraphService;
+
+    /**
+     * Get every service seen in traces and the calls between them.
+     */
+    @GET
+    public Response getGraph() {
+        return Response.ok(dependencyGraphService.getGraph()).build();
+    }
+
+    /**
+     * Get the callers and callees of a service.
+     */
+    @GET
+    @Path("/{serviceName}")
+    public Response getDependencies(@PathParam("serviceName") String serviceName) {
+        Optional<ServiceDependencies> dependencies = dependencyGraphService.getDependencies(serviceName);
+
+        if (dependencies.isEmpty()) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity("{\"error\": \"Service not found in traces\"}")
+                    .build();
+        }
+
+        return Response.ok(dependencies.get()).build();
+    }
+
+    /**
+     * Get the chain of failing calls out of a service and the deepest failing dependency.
+     */
+    @GET
+    @Path("/{serviceName}/failure-path")
+    public Response getFailurePath(@PathParam("serviceName") String serviceName) {
+        return Response.ok(dependencyGraphService.findFailurePath(serviceName)).build();
+    }
+}
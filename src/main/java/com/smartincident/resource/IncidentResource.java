@@ -2,34 +2,141 @@ package com.smartincident.resource;
 
 import com.smartincident.dto.IncidentDTO;
 import com.smartincident.dto.IncidentStatusUpdateDTO;
+import com.smartincident.model.enums.IncidentSeverity;
+import com.smartincident.model.enums.IncidentStatus;
+import com.smartincident.model.enums.IncidentType;
+import com.smartincident.repository.IncidentRepository.IncidentFilter;
+import com.smartincident.service.IncidentResponseCache;
+import com.smartincident.service.IncidentResponseCache.CachedResponse;
 import com.smartincident.service.IncidentService;
+import com.smartincident.service.IncidentService.IncidentPage;
 import com.smartincident.service.IncidentService.IncidentStats;
+import com.smartincident.service.IncidentStreamService;
+import org.jboss.resteasy.reactive.RestStreamElementType;
 
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Link;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
  * REST API for incident management.
+ *
+ * Listing endpoints are paginated newest first. The body stays a JSON array;
+ * the cursor of the next page is returned in the X-Next-Cursor header and as
+ * a Link rel="next" header, and is absent on the last page.
+ *
+ * Read endpoints answer with an ETag tied to the incident change version and
+ * serve repeat requests from a serialized-response cache; a matching
+ * If-None-Match gets 304 without touching the database.
  */
 @Path("/api/incidents")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class IncidentResource {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int MAX_LIMIT = 500;
+
     @Inject
     IncidentService incidentService;
 
+    @Inject
+    IncidentStreamService incidentStreamService;
+
+    @Inject
+    IncidentResponseCache responseCache;
+
+    @Context
+    UriInfo uriInfo;
+
     /**
-     * Get all incidents.
+     * Get incidents, optionally filtered by status, severity, type, service and
+     * detection time range (ISO-8601, from inclusive, to exclusive).
      */
     @GET
-    public Response getAllIncidents() {
-        List<IncidentDTO> incidents = incidentService.getAllIncidents();
-        return Response.ok(incidents).build();
+    public Response getAllIncidents(
+            @QueryParam("status") String status,
+            @QueryParam("severity") String severity,
+            @QueryParam("type") String type,
+            @QueryParam("service") String serviceName,
+            @QueryParam("from") String from,
+            @QueryParam("to") String to,
+            @QueryParam("cursor") String cursor,
+            @QueryParam("limit") @DefaultValue("50") int limit,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
+
+        IncidentFilter filter;
+        try {
+            filter = new IncidentFilter(
+                status != null ? IncidentStatus.valueOf(status.toUpperCase()) : null,
+                severity != null ? IncidentSeverity.valueOf(severity.toUpperCase()) : null,
+                type != null ? IncidentType.valueOf(type.toUpperCase()) : null,
+                serviceName,
+                from != null ? LocalDateTime.parse(from) : null,
+                to != null ? LocalDateTime.parse(to) : null
+            );
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\": \"Invalid status, severity or type filter\"}")
+                    .build();
+        } catch (DateTimeParseException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\": \"Invalid time range. Use ISO-8601, e.g. 2024-01-31T12:00:00\"}")
+                    .build();
+        }
+
+        return listPage(filter, cursor, limit, ifNoneMatch);
+    }
+
+    /**
+     * Stream incident create and status-change events as Server-Sent Events.
+     * Reconnecting clients send Last-Event-ID (or lastEventId) to resume.
+     */
+    @GET
+    @Path("/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    public void streamIncidents(
+            @Context SseEventSink sink,
+            @Context Sse sse,
+            @HeaderParam("Last-Event-ID") String lastEventIdHeader,
+            @QueryParam("lastEventId") String lastEventIdParam,
+            @QueryParam("service") String serviceName,
+            @QueryParam("minSeverity") String minSeverity) {
+
+        Long lastEventId = null;
+        IncidentSeverity severity = null;
+        try {
+            String lastId = lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam;
+            if (lastId != null && !lastId.isBlank()) {
+                lastEventId = Long.parseLong(lastId.trim());
+            }
+            if (minSeverity != null) {
+                severity = IncidentSeverity.valueOf(minSeverity.toUpperCase());
+            }
+        } catch (IllegalArgumentException e) {
+            sink.send(sse.newEventBuilder()
+                    .name("error")
+                    .data("{\"error\": \"Invalid Last-Event-ID or minSeverity\"}")
+                    .build());
+            sink.close();
+            return;
+        }
+
+        incidentStreamService.subscribe(sink, sse, lastEventId, serviceName, severity);
     }
 
     /**
@@ -37,16 +144,57 @@ public class IncidentResource {
      */
     @GET
     @Path("/{id}")
-    public Response getIncidentById(@PathParam("id") Long id) {
-        Optional<IncidentDTO> incident = incidentService.getIncidentById(id);
-        
-        if (incident.isEmpty()) {
-            return Response.status(Response.Status.NOT_FOUND)
-                    .entity("{\"error\": \"Incident not found\"}")
-                    .build();
+    public Response getIncidentById(
+            @PathParam("id") Long id,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
+        long version = incidentService.getChangeVersion();
+        if (responseCache.matches(ifNoneMatch, version)) {
+            return notModified(version);
         }
-        
-        return Response.ok(incident.get()).build();
+
+        String key = uriInfo.getRequestUri().toString();
+        CachedResponse cached = responseCache.get(key, version);
+        if (cached == null) {
+            Optional<IncidentDTO> incident = incidentService.getIncidentById(id);
+            
+            if (incident.isEmpty()) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("{\"error\": \"Incident not found\"}")
+                        .build();
+            }
+            
+            cached = responseCache.put(key, version, incident.get(), Map.of());
+        }
+        return ok(cached);
+    }
+
+    /**
+     * Get the incidents grouped under a parent incident.
+     */
+    @GET
+    @Path("/{id}/children")
+    public Response getChildren(
+            @PathParam("id") Long id,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
+        long version = incidentService.getChangeVersion();
+        if (responseCache.matches(ifNoneMatch, version)) {
+            return notModified(version);
+        }
+
+        String key = uriInfo.getRequestUri().toString();
+        CachedResponse cached = responseCache.get(key, version);
+        if (cached == null) {
+            Optional<List<IncidentDTO>> children = incidentService.getChildren(id);
+
+            if (children.isEmpty()) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("{\"error\": \"Incident not found\"}")
+                        .build();
+            }
+
+            cached = responseCache.put(key, version, children.get(), Map.of());
+        }
+        return ok(cached);
     }
 
     /**
@@ -54,9 +202,11 @@ public class IncidentResource {
      */
     @GET
     @Path("/open")
-    public Response getOpenIncidents() {
-        List<IncidentDTO> incidents = incidentService.getOpenIncidents();
-        return Response.ok(incidents).build();
+    public Response getOpenIncidents(
+            @QueryParam("cursor") String cursor,
+            @QueryParam("limit") @DefaultValue("50") int limit,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
+        return listPage(IncidentFilter.none().withStatus(IncidentStatus.OPEN), cursor, limit, ifNoneMatch);
     }
 
     /**
@@ -64,9 +214,12 @@ public class IncidentResource {
      */
     @GET
     @Path("/service/{serviceName}")
-    public Response getIncidentsByService(@PathParam("serviceName") String serviceName) {
-        List<IncidentDTO> incidents = incidentService.getIncidentsByService(serviceName);
-        return Response.ok(incidents).build();
+    public Response getIncidentsByService(
+            @PathParam("serviceName") String serviceName,
+            @QueryParam("cursor") String cursor,
+            @QueryParam("limit") @DefaultValue("50") int limit,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
+        return listPage(IncidentFilter.none().withServiceName(serviceName), cursor, limit, ifNoneMatch);
     }
 
     /**
@@ -108,4 +261,70 @@ public class IncidentResource {
         IncidentStats stats = incidentService.getStats();
         return Response.ok(stats).build();
     }
+
+    /**
+     * Get incident statistics grouped by service or type.
+     */
+    @GET
+    @Path("/stats/breakdown")
+    public Response getStatsBreakdown(@QueryParam("by") @DefaultValue("service") String groupBy) {
+        try {
+            Map<String, IncidentStats> stats = incidentService.getStatsBreakdown(groupBy);
+            return Response.ok(stats).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\": \"Invalid grouping. Use: service or type\"}")
+                    .build();
+        }
+    }
+
+    private Response listPage(IncidentFilter filter, String cursor, int limit, String ifNoneMatch) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\": \"Limit must be between 1 and " + MAX_LIMIT + "\"}")
+                    .build();
+        }
+
+        long version = incidentService.getChangeVersion();
+        if (responseCache.matches(ifNoneMatch, version)) {
+            return notModified(version);
+        }
+
+        String key = uriInfo.getRequestUri().toString();
+        CachedResponse cached = responseCache.get(key, version);
+        if (cached == null) {
+            IncidentPage page;
+            try {
+                page = incidentService.listIncidents(filter, cursor, limit);
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"error\": \"Invalid cursor\"}")
+                        .build();
+            }
+
+            Map<String, String> headers = new HashMap<>();
+            if (page.nextCursor() != null) {
+                headers.put(NEXT_CURSOR_HEADER, page.nextCursor());
+                headers.put(HttpHeaders.LINK, Link.fromUri(uriInfo.getRequestUriBuilder()
+                        .replaceQueryParam("cursor", page.nextCursor())
+                        .build()).rel("next").build().toString());
+            }
+            cached = responseCache.put(key, version, page.items(), headers);
+        }
+        return ok(cached);
+    }
+
+    private Response ok(CachedResponse cached) {
+        Response.ResponseBuilder response = Response.ok(cached.body(), MediaType.APPLICATION_JSON_TYPE)
+                .tag(responseCache.etag(cached.version()))
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache");
+        cached.headers().forEach(response::header);
+        return response.build();
+    }
+
+    private Response notModified(long version) {
+        return Response.notModified(responseCache.etag(version))
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .build();
+    }
 }
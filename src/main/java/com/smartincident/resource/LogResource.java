@@ -2,25 +2,65 @@ package com.smartincident.resource;
 
 import com.smartincident.dto.LogEntryDTO;
 import com.smartincident.model.LogEntry;
+import com.smartincident.repository.LogEntryRepository.LogFilter;
+import com.smartincident.service.LogCounterService;
+import com.smartincident.service.LogCounterService.MinuteCount;
 import com.smartincident.service.LogIngestionService;
+import com.smartincident.service.LogQueryService;
+import com.smartincident.service.LogQueryService.LogPage;
+import com.smartincident.service.LogSearchService;
+import com.smartincident.service.LogSearchService.LogSearchHit;
+import com.smartincident.service.LogSearchService.LogSearchQuery;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.core.UriInfo;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 /**
- * REST API for log ingestion.
+ * REST API for log ingestion and querying.
+ *
+ * GET /api/logs is paginated newest first like the incident listings: the cursor of
+ * the next page is returned in the X-Next-Cursor and Link rel="next" headers.
+ * GET /api/logs/export streams the same selection as NDJSON in constant memory.
  */
 @Path("/api/logs")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class LogResource {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    private static final int MAX_LIMIT = 500;
+    private static final int MAX_RECENT_LIMIT = 5000;
+    private static final int MAX_SEARCH_LIMIT = 500;
+
     @Inject
     LogIngestionService logIngestionService;
 
+    @Inject
+    LogSearchService logSearchService;
+
+    @Inject
+    LogQueryService logQueryService;
+
+    @Inject
+    LogCounterService logCounterService;
+
+    @ConfigProperty(name = "app.logs.export.max-rows", defaultValue = "1000000")
+    long maxExportRows;
+
+    @Context
+    UriInfo uriInfo;
+
     /**
      * Ingest a single log entry.
      */
@@ -60,30 +100,223 @@ public class LogResource {
     }
 
     /**
-     * Get recent logs.
+     * Get logs, optionally filtered by service, pod, namespace, level, trace id,
+     * failure category and time range (ISO-8601, from inclusive, to exclusive).
+     */
+    @GET
+    public Response getLogs(
+            @QueryParam("service") String serviceName,
+            @QueryParam("pod") String podName,
+            @QueryParam("namespace") String namespace,
+            @QueryParam("level") String level,
+            @QueryParam("traceId") String traceId,
+            @QueryParam("category") String category,
+            @QueryParam("from") String from,
+            @QueryParam("to") String to,
+            @QueryParam("cursor") String cursor,
+            @QueryParam("limit") @DefaultValue("100") int limit) {
+
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\": \"Limit must be between 1 and " + MAX_LIMIT + "\"}")
+                    .build();
+        }
+
+        LogFilter filter;
+        try {
+            filter = toFilter(serviceName, podName, namespace, level, traceId, category, from, to);
+        } catch (DateTimeParseException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\": \"Invalid time range. Use ISO-8601, e.g. 2024-01-31T12:00:00\"}")
+                    .build();
+        }
+
+        LogPage page;
+        try {
+            page = logQueryService.listLogs(filter, cursor, limit);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\": \"Invalid cursor\"}")
+                    .build();
+        }
+
+        Response.ResponseBuilder response = Response.ok(page.items());
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor())
+                    .link(uriInfo.getRequestUriBuilder()
+                            .replaceQueryParam("cursor", page.nextCursor())
+                            .build(), "next");
+        }
+        return response.build();
+    }
+
+    /**
+     * Stream logs as NDJSON (one JSON object per line), newest first, with the same
+     * filters as the paginated listing.
+     */
+    @GET
+    @Path("/export")
+    @Produces({NDJSON, MediaType.APPLICATION_JSON})
+    public Response exportLogs(
+            @QueryParam("service") String serviceName,
+            @QueryParam("pod") String podName,
+            @QueryParam("namespace") String namespace,
+            @QueryParam("level") String level,
+            @QueryParam("traceId") String traceId,
+            @QueryParam("category") String category,
+            @QueryParam("from") String from,
+            @QueryParam("to") String to,
+            @QueryParam("limit") Long limit) {
+
+        if (limit != null && (limit < 1 || limit > maxExportRows)) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .type(MediaType.APPLICATION_JSON)
+                    .entity("{\"error\": \"Limit must be between 1 and " + maxExportRows + "\"}")
+                    .build();
+        }
+
+        LogFilter filter;
+        try {
+            filter = toFilter(serviceName, podName, namespace, level, traceId, category, from, to);
+        } catch (DateTimeParseException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .type(MediaType.APPLICATION_JSON)
+                    .entity("{\"error\": \"Invalid time range. Use ISO-8601, e.g. 2024-01-31T12:00:00\"}")
+                    .build();
+        }
+
+        long maxRows = limit != null ? limit : maxExportRows;
+        StreamingOutput body = out -> logQueryService.exportLogs(filter, maxRows, out);
+        return Response.ok(body, NDJSON).build();
+    }
+
+    /**
+     * Get the newest logs of the last N minutes, at most limit of them.
+     * Use GET /api/logs to page through larger ranges.
      */
     @GET
     @Path("/recent")
-    public Response getRecentLogs(@QueryParam("minutes") @DefaultValue("30") int minutes) {
-        List<LogEntry> logs = logIngestionService.getRecentLogs(minutes);
+    public Response getRecentLogs(
+            @QueryParam("minutes") @DefaultValue("30") int minutes,
+            @QueryParam("limit") @DefaultValue("1000") int limit) {
+        if (limit < 1 || limit > MAX_RECENT_LIMIT) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\": \"Limit must be between 1 and " + MAX_RECENT_LIMIT + "\"}")
+                    .build();
+        }
+        List<LogEntry> logs = logIngestionService.getRecentLogs(minutes, limit);
         return Response.ok(logs).build();
     }
 
     /**
-     * Get error logs for a service.
+     * Get the newest error logs for a service. X-Total-Count carries the number of
+     * errors in the whole window, from the per-minute log counters.
      */
     @GET
     @Path("/errors/{serviceName}")
     public Response getErrorLogs(
             @PathParam("serviceName") String serviceName,
-            @QueryParam("minutes") @DefaultValue("60") int minutes) {
+            @QueryParam("minutes") @DefaultValue("60") int minutes,
+            @QueryParam("limit") @DefaultValue("1000") int limit) {
+        if (limit < 1 || limit > MAX_RECENT_LIMIT) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\": \"Limit must be between 1 and " + MAX_RECENT_LIMIT + "\"}")
+                    .build();
+        }
         
-        List<LogEntry> errors = logIngestionService.getErrorsForService(serviceName, minutes);
-        return Response.ok(errors).build();
+        List<LogEntry> errors = logIngestionService.getErrorsForService(serviceName, minutes, limit);
+        long total = logIngestionService.countRecentErrors(serviceName, minutes);
+        return Response.ok(errors).header(TOTAL_COUNT_HEADER, total).build();
+    }
+
+    /**
+     * Get per-minute log counts for a service, for one level or all levels.
+     */
+    @GET
+    @Path("/counts/{serviceName}")
+    public Response getLogCounts(
+            @PathParam("serviceName") String serviceName,
+            @QueryParam("level") String level,
+            @QueryParam("minutes") @DefaultValue("60") int minutes) {
+        LocalDateTime since = LocalDateTime.now().minusMinutes(minutes);
+        List<MinuteCount> series = logCounterService.series(
+                serviceName, level != null ? level.toUpperCase() : null, since);
+        long total = series.stream().mapToLong(MinuteCount::count).sum();
+        return Response.ok(new LogCounts(serviceName, total, series)).build();
+    }
+
+    /**
+     * Full-text search over log messages. Every word of q must match; results are
+     * ranked by relevance. Without from, the last day of logs is searched.
+     */
+    @GET
+    @Path("/search")
+    public Response searchLogs(
+            @QueryParam("q") String text,
+            @QueryParam("service") String serviceName,
+            @QueryParam("level") String level,
+            @QueryParam("from") String from,
+            @QueryParam("to") String to,
+            @QueryParam("limit") @DefaultValue("50") int limit) {
+
+        if (text == null || text.isBlank()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\": \"Query parameter q is required\"}")
+                    .build();
+        }
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\": \"Limit must be between 1 and " + MAX_SEARCH_LIMIT + "\"}")
+                    .build();
+        }
+
+        LogSearchQuery query;
+        try {
+            query = new LogSearchQuery(
+                text,
+                serviceName,
+                level,
+                from != null ? LocalDateTime.parse(from) : null,
+                to != null ? LocalDateTime.parse(to) : null,
+                limit
+            );
+        } catch (DateTimeParseException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\": \"Invalid time range. Use ISO-8601, e.g. 2024-01-31T12:00:00\"}")
+                    .build();
+        }
+
+        try {
+            List<LogSearchHit> hits = logSearchService.search(query);
+            return Response.ok(hits).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\": \"Query must contain at least one word\"}")
+                    .build();
+        }
+    }
+
+    private static LogFilter toFilter(String serviceName, String podName, String namespace, String level,
+                                      String traceId, String category, String from, String to) {
+        return new LogFilter(
+            serviceName,
+            podName,
+            namespace,
+            level != null ? level.toUpperCase() : null,
+            traceId,
+            category != null ? category.toUpperCase() : null,
+            from != null ? LocalDateTime.parse(from) : null,
+            to != null ? LocalDateTime.parse(to) : null
+        );
     }
 
     /**
      * Response for batch operations.
      */
     public record BatchResponse(int count, String message) {}
+
+    /**
+     * Per-minute log counts of a service and their total.
+     */
+    public record LogCounts(String serviceName, long total, List<MinuteCount> series) {}
 }
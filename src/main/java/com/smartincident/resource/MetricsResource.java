@@ -2,12 +2,15 @@ package com.smartincident.resource;
 
 import com.smartincident.dto.MetricDTO;
 import com.smartincident.model.Metric;
+import com.smartincident.service.MetricRollupService;
 import com.smartincident.service.MetricsIngestionService;
 
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 /**
@@ -21,6 +24,9 @@ public class MetricsResource {
     @Inject
     MetricsIngestionService metricsIngestionService;
 
+    @Inject
+    MetricRollupService metricRollupService;
+
     /**
      * Ingest a single metric.
      */
@@ -77,6 +83,39 @@ public class MetricsResource {
         return Response.ok(metrics).build();
     }
 
+    /**
+     * Get one metric of a service aggregated at a fixed step over a time range
+     * (ISO-8601, from inclusive, to exclusive; default the last hour). Served from
+     * the coarsest rollup tier whose resolution divides the step.
+     */
+    @GET
+    @Path("/range/{serviceName}/{metricName}")
+    public Response getMetricRange(
+            @PathParam("serviceName") String serviceName,
+            @PathParam("metricName") String metricName,
+            @QueryParam("from") String from,
+            @QueryParam("to") String to,
+            @QueryParam("step") @DefaultValue("60") long stepSeconds) {
+        LocalDateTime end;
+        LocalDateTime start;
+        try {
+            end = to != null ? LocalDateTime.parse(to) : LocalDateTime.now();
+            start = from != null ? LocalDateTime.parse(from) : end.minusHours(1);
+        } catch (DateTimeParseException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\": \"Invalid time range. Use ISO-8601, e.g. 2024-01-31T12:00:00\"}")
+                    .build();
+        }
+
+        try {
+            return Response.ok(metricRollupService.query(serviceName, metricName, start, end, stepSeconds)).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\": \"" + e.getMessage() + "\"}")
+                    .build();
+        }
+    }
+
     /**
      * Get latest metric value.
      */
@@ -0,0 +1,248 @@
+package com.smartincident.resource;
+
+import com.smartincident.service.PromQueryService;
+import com.smartincident.service.PromQueryService.QueryResult;
+import com.smartincident.service.PromQueryService.Series;
+import com.smartincident.util.PromQl;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prometheus HTTP API over the stored metrics, so Grafana can use the bot as a
+ * Prometheus data source. Query endpoints accept GET parameters or a POST form, as
+ * Prometheus does. Times are Unix seconds or RFC 3339, steps seconds or durations.
+ */
+@Path("/api/v1")
+@Produces(MediaType.APPLICATION_JSON)
+public class PrometheusApiResource {
+
+    private static final long DEFAULT_RANGE_SECONDS = 3600;
+
+    @Inject
+    PromQueryService promQueryService;
+
+    /**
+     * Evaluate a query at every step of a range.
+     */
+    @GET
+    @Path("/query_range")
+    public Response queryRange(@QueryParam("query") String query, @QueryParam("start") String start,
+                               @QueryParam("end") String end, @QueryParam("step") String step) {
+        return evaluateRange(query, start, end, step);
+    }
+
+    @POST
+    @Path("/query_range")
+    @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
+    public Response queryRangeForm(@FormParam("query") String query, @FormParam("start") String start,
+                                   @FormParam("end") String end, @FormParam("step") String step) {
+        return evaluateRange(query, start, end, step);
+    }
+
+    /**
+     * Evaluate a query at one time, by default now.
+     */
+    @GET
+    @Path("/query")
+    public Response query(@QueryParam("query") String query, @QueryParam("time") String time) {
+        return evaluateInstant(query, time);
+    }
+
+    @POST
+    @Path("/query")
+    @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
+    public Response queryForm(@FormParam("query") String query, @FormParam("time") String time) {
+        return evaluateInstant(query, time);
+    }
+
+    /**
+     * Label sets of the series matching the selectors, by default over the last hour.
+     */
+    @GET
+    @Path("/series")
+    public Response series(@QueryParam("match[]") List<String> matches, @QueryParam("start") String start,
+                           @QueryParam("end") String end) {
+        return findSeries(matches, start, end);
+    }
+
+    @POST
+    @Path("/series")
+    @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
+    public Response seriesForm(@FormParam("match[]") List<String> matches, @FormParam("start") String start,
+                               @FormParam("end") String end) {
+        return findSeries(matches, start, end);
+    }
+
+    /**
+     * Names of the labels.
+     */
+    @GET
+    @Path("/labels")
+    public Response labels() {
+        return success(promQueryService.labelNames());
+    }
+
+    @POST
+    @Path("/labels")
+    @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
+    public Response labelsForm() {
+        return labels();
+    }
+
+    /**
+     * Values of one label over the series with samples in a range, by default the last hour.
+     */
+    @GET
+    @Path("/label/{name}/values")
+    public Response labelValues(@PathParam("name") String name, @QueryParam("start") String start,
+                                @QueryParam("end") String end) {
+        try {
+            long to = parseTime(end, System.currentTimeMillis() / 1000);
+            long from = parseTime(start, to - DEFAULT_RANGE_SECONDS);
+            return success(promQueryService.labelValues(name, from, to));
+        } catch (IllegalArgumentException e) {
+            return badData(e.getMessage());
+        }
+    }
+
+    private Response evaluateRange(String query, String start, String end, String step) {
+        try {
+            if (start == null || end == null || step == null) {
+                throw new IllegalArgumentException("start, end and step are required");
+            }
+            QueryResult result = promQueryService.query(query, parseTime(start, 0), parseTime(end, 0), parseStep(step));
+            List<MatrixSeries> matrix = new ArrayList<>(result.series().size());
+            for (Series series : result.series()) {
+                List<Object[]> values = new ArrayList<>(series.timestamps().length);
+                for (int i = 0; i < series.timestamps().length; i++) {
+                    values.add(sample(series.timestamps()[i], series.values()[i]));
+                }
+                matrix.add(new MatrixSeries(series.labels(), values));
+            }
+            return success(new QueryData("matrix", matrix));
+        } catch (IllegalArgumentException e) {
+            return badData(e.getMessage());
+        }
+    }
+
+    private Response evaluateInstant(String query, String time) {
+        try {
+            long at = parseTime(time, System.currentTimeMillis() / 1000);
+            QueryResult result = promQueryService.queryInstant(query, at);
+            if (result.scalar()) {
+                // A NaN number leaves no series
+                double value = result.series().isEmpty() ? Double.NaN : result.series().get(0).values()[0];
+                return success(new QueryData("scalar", sample(at, value)));
+            }
+            List<VectorSample> vector = new ArrayList<>(result.series().size());
+            for (Series series : result.series()) {
+                vector.add(new VectorSample(series.labels(), sample(series.timestamps()[0], series.values()[0])));
+            }
+            return success(new QueryData("vector", vector));
+        } catch (IllegalArgumentException e) {
+            return badData(e.getMessage());
+        }
+    }
+
+    private Response findSeries(List<String> matches, String start, String end) {
+        try {
+            long to = parseTime(end, System.currentTimeMillis() / 1000);
+            long from = parseTime(start, to - DEFAULT_RANGE_SECONDS);
+            return success(promQueryService.series(matches, from, to));
+        } catch (IllegalArgumentException e) {
+            return badData(e.getMessage());
+        }
+    }
+
+    /**
+     * Parse Unix seconds, possibly fractional, or an RFC 3339 time.
+     */
+    private static long parseTime(String value, long defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return (long) Math.floor(Double.parseDouble(value));
+        } catch (NumberFormatException e) {
+            try {
+                return OffsetDateTime.parse(value).toEpochSecond();
+            } catch (DateTimeParseException ex) {
+                throw new IllegalArgumentException("Invalid time '" + value + "', use Unix seconds or RFC 3339");
+            }
+        }
+    }
+
+    /**
+     * Parse a step in seconds, rounded up to a whole second, or a duration such as 1m.
+     */
+    private static long parseStep(String value) {
+        try {
+            return (long) Math.ceil(Double.parseDouble(value));
+        } catch (NumberFormatException e) {
+            return PromQl.parseDuration(value);
+        }
+    }
+
+    /**
+     * A sample as Prometheus writes it: [time, "value"].
+     */
+    private static Object[] sample(long time, double value) {
+        return new Object[] {time, formatValue(value)};
+    }
+
+    private static String formatValue(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static Response success(Object data) {
+        return Response.ok(new ApiResponse("success", data)).build();
+    }
+
+    private static Response badData(String message) {
+        return Response.status(Response.Status.BAD_REQUEST)
+                .entity(new ApiError("error", "bad_data", message))
+                .build();
+    }
+
+    /**
+     * Envelope of successful responses.
+     */
+    public record ApiResponse(String status, Object data) {}
+
+    /**
+     * Envelope of failed responses.
+     */
+    public record ApiError(String status, String errorType, String error) {}
+
+    /**
+     * Result of a query: matrix, vector or scalar.
+     */
+    public record QueryData(String resultType, Object result) {}
+
+    /**
+     * One series of a range query.
+     */
+    public record MatrixSeries(Map<String, String> metric, List<Object[]> values) {}
+
+    /**
+     * One series of an instant query.
+     */
+    public record VectorSample(Map<String, String> metric, Object[] value) {}
+}
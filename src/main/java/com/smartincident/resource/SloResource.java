@@ -0,0 +1,97 @@
+package com.smartincident.resource;
+
+import com.smartincident.dto.ServiceLevelObjectiveDTO;
+import com.smartincident.model.enums.SloType;
+import com.smartincident.service.SloService;
+import com.smartincident.service.SloService.SloStatus;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.util.List;
+
+/**
+ * REST API for declaring service level objectives and reading their burn rates.
+ */
+@Path("/api/slos")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class SloResource {
+
+    @Inject
+    SloService sloService;
+
+    /**
+     * Get all declared objectives.
+     */
+    @GET
+    public Response getObjectives() {
+        List<ServiceLevelObjectiveDTO> objectives = sloService.getObjectives();
+        return Response.ok(objectives).build();
+    }
+
+    /**
+     * Declare or update an objective.
+     */
+    @PUT
+    public Response saveObjective(ServiceLevelObjectiveDTO objective) {
+        if (objective.serviceName == null || objective.serviceName.isBlank()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\": \"Service name is required\"}")
+                    .build();
+        }
+        if (objective.type == null) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\": \"Type is required. Use: AVAILABILITY or LATENCY\"}")
+                    .build();
+        }
+        if (objective.targetPercent == null || objective.targetPercent <= 0 || objective.targetPercent >= 100) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\": \"Target percent must be between 0 and 100 (exclusive)\"}")
+                    .build();
+        }
+        if (objective.type == SloType.LATENCY
+                && (objective.latencyThresholdMs == null || objective.latencyThresholdMs <= 0)) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\": \"Latency objectives require a positive latencyThresholdMs\"}")
+                    .build();
+        }
+
+        ServiceLevelObjectiveDTO saved = sloService.saveObjective(objective);
+        return Response.ok(saved).build();
+    }
+
+    /**
+     * Remove an objective.
+     */
+    @DELETE
+    @Path("/{serviceName}/{type}")
+    public Response deleteObjective(@PathParam("serviceName") String serviceName, @PathParam("type") String type) {
+        SloType sloType;
+        try {
+            sloType = SloType.valueOf(type.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\": \"Invalid type. Use: AVAILABILITY or LATENCY\"}")
+                    .build();
+        }
+
+        if (!sloService.deleteObjective(serviceName, sloType)) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity("{\"error\": \"Objective not found\"}")
+                    .build();
+        }
+        return Response.noContent().build();
+    }
+
+    /**
+     * Get current error ratios and burn rates for every objective.
+     */
+    @GET
+    @Path("/status")
+    public Response getStatus() {
+        List<SloStatus> status = sloService.getStatus();
+        return Response.ok(status).build();
+    }
+}
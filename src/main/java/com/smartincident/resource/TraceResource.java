@@ -0,0 +1,79 @@
+package com.smartincident.resource;
+
+import com.smartincident.dto.TraceSummaryDTO;
+import com.smartincident.service.TraceService;
+import com.smartincident.service.TraceService.TraceView;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * REST API for following a request across services by trace id.
+ */
+@Path("/api/traces")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class TraceResource {
+
+    private static final int MAX_LIMIT = 500;
+
+    @Inject
+    TraceService traceService;
+
+    /**
+     * Get recent traces, optionally only those touching a service or containing errors.
+     */
+    @GET
+    public Response getRecentTraces(
+            @QueryParam("service") String serviceName,
+            @QueryParam("errorsOnly") @DefaultValue("false") boolean errorsOnly,
+            @QueryParam("minutes") @DefaultValue("60") int minutes,
+            @QueryParam("limit") @DefaultValue("50") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\": \"Limit must be between 1 and " + MAX_LIMIT + "\"}")
+                    .build();
+        }
+
+        List<TraceSummaryDTO> traces = traceService.findRecentTraces(serviceName, errorsOnly, minutes, limit);
+        return Response.ok(traces).build();
+    }
+
+    /**
+     * Get all logs of a trace in time order, grouped by span.
+     */
+    @GET
+    @Path("/{traceId}")
+    public Response getTrace(@PathParam("traceId") String traceId) {
+        Optional<TraceView> trace = traceService.getTrace(traceId);
+
+        if (trace.isEmpty()) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity("{\"error\": \"Trace not found\"}")
+                    .build();
+        }
+
+        return Response.ok(trace.get()).build();
+    }
+
+    /**
+     * Get the summary of a trace: services touched, error count and duration.
+     */
+    @GET
+    @Path("/{traceId}/summary")
+    public Response getTraceSummary(@PathParam("traceId") String traceId) {
+        Optional<TraceSummaryDTO> summary = traceService.getSummary(traceId);
+
+        if (summary.isEmpty()) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity("{\"error\": \"Trace not found\"}")
+                    .build();
+        }
+
+        return Response.ok(summary.get()).build();
+    }
+}
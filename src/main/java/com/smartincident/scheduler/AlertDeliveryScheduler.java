@@ -0,0 +1,31 @@
+package com.smartincident.scheduler;
+
+import com.smartincident.service.AlertDeliveryService;
+import io.quarkus.logging.Log;
+import io.quarkus.scheduler.Scheduled;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Scheduler for draining the alert outbox.
+ */
+@ApplicationScoped
+public class AlertDeliveryScheduler {
+
+    @Inject
+    AlertDeliveryService alertDeliveryService;
+
+    /**
+     * Dispatch due alerts.
+     * Default: every second
+     */
+    @Scheduled(every = "${app.alerting.outbox.poll-seconds:1}s", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void dispatch() {
+        try {
+            alertDeliveryService.dispatch();
+        } catch (Exception e) {
+            Log.errorf("Error dispatching alerts: %s", e.getMessage());
+        }
+    }
+}
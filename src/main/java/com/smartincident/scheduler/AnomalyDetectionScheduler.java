@@ -1,9 +1,8 @@
 package com.smartincident.scheduler;
 
-import com.smartincident.service.AnomalyDetectionService;
+import com.smartincident.service.DetectionCadenceService;
 import io.quarkus.logging.Log;
 import io.quarkus.scheduler.Scheduled;
-import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -15,20 +14,17 @@ import jakarta.inject.Inject;
 public class AnomalyDetectionScheduler {
 
     @Inject
-    AnomalyDetectionService anomalyDetectionService;
-
-    @ConfigProperty(name = "app.detection.check-interval-seconds", defaultValue = "30")
-    int checkIntervalSeconds;
+    DetectionCadenceService detectionCadenceService;
 
     /**
-     * Run anomaly detection periodically.
-     * Default: every 30 seconds
+     * Evaluate the services whose per-service check interval has elapsed.
+     * Default: tick every 5 seconds
      */
-    @Scheduled(every = "${app.detection.check-interval-seconds:30}s")
+    @Scheduled(every = "${app.detection.tick-seconds:5}s", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
     void runDetection() {
-        Log.debug("Scheduled anomaly detection triggered");
+        Log.trace("Scheduled anomaly detection tick");
         try {
-            anomalyDetectionService.detectAnomalies();
+            detectionCadenceService.runDueEvaluations();
         } catch (Exception e) {
             Log.errorf("Error during scheduled anomaly detection: %s", e.getMessage());
         }
@@ -0,0 +1,32 @@
+package com.smartincident.scheduler;
+
+import com.smartincident.service.IncidentService;
+import io.quarkus.logging.Log;
+import io.quarkus.scheduler.Scheduled;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Scheduler picking up incident changes made by other replicas, so cached
+ * incident responses and ETags on this instance do not go stale.
+ */
+@ApplicationScoped
+public class IncidentChangeVersionScheduler {
+
+    @Inject
+    IncidentService incidentService;
+
+    /**
+     * Check for incident modifications made elsewhere.
+     * Default: every 5 seconds
+     */
+    @Scheduled(every = "${app.incidents.change-poll-seconds:5}s")
+    void refresh() {
+        try {
+            incidentService.refreshChangeVersion();
+        } catch (Exception e) {
+            Log.errorf("Error refreshing incident change version: %s", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.smartincident.scheduler;
+
+import com.smartincident.service.IncidentStatsService;
+import io.quarkus.logging.Log;
+import io.quarkus.scheduler.Scheduled;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Scheduler for periodically rebuilding in-memory incident statistics from the database.
+ */
+@ApplicationScoped
+public class IncidentStatsReconciliationScheduler {
+
+    @Inject
+    IncidentStatsService incidentStatsService;
+
+    /**
+     * Reconcile incident counters.
+     * Default: every 60 seconds
+     */
+    @Scheduled(every = "${app.stats.reconcile-interval-seconds:60}s", delayed = "${app.stats.reconcile-interval-seconds:60}s")
+    void reconcile() {
+        try {
+            incidentStatsService.reconcile();
+        } catch (Exception e) {
+            Log.errorf("Error during incident statistics reconciliation: %s", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.smartincident.scheduler;
+
+import com.smartincident.service.IncidentStreamService;
+import io.quarkus.scheduler.Scheduled;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Scheduler keeping incident event streams alive through proxies and idle timeouts.
+ */
+@ApplicationScoped
+public class IncidentStreamHeartbeatScheduler {
+
+    @Inject
+    IncidentStreamService incidentStreamService;
+
+    /**
+     * Send keep-alive comments to stream subscribers.
+     * Default: every 15 seconds
+     */
+    @Scheduled(every = "${app.stream.heartbeat-seconds:15}s")
+    void heartbeat() {
+        incidentStreamService.heartbeat();
+    }
+}
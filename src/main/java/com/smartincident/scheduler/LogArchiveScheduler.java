@@ -0,0 +1,46 @@
+package com.smartincident.scheduler;
+
+import com.smartincident.service.LogArchiveService;
+import io.quarkus.logging.Log;
+import io.quarkus.scheduler.Scheduled;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Scheduler for moving aged logs into the on-disk archive.
+ */
+@ApplicationScoped
+public class LogArchiveScheduler {
+
+    @Inject
+    LogArchiveService logArchiveService;
+
+    /**
+     * Archive the logs of days past app.logs.archive.after-days.
+     * Default: every 60 minutes
+     */
+    @Scheduled(every = "${app.logs.archive.interval-minutes:60}m", delayed = "2m",
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void archive() {
+        try {
+            logArchiveService.archive();
+        } catch (Exception e) {
+            Log.errorf("Error archiving logs: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Open the segments another replica wrote to the shared archive volume.
+     * Default: every 60 seconds
+     */
+    @Scheduled(every = "${app.logs.archive.refresh-seconds:60}s", delayed = "1m",
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void refresh() {
+        try {
+            logArchiveService.refresh();
+        } catch (Exception e) {
+            Log.errorf("Error refreshing the log archive: %s", e.getMessage());
+        }
+    }
+}
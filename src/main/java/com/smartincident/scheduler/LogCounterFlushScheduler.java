@@ -0,0 +1,31 @@
+package com.smartincident.scheduler;
+
+import com.smartincident.service.LogCounterService;
+import io.quarkus.logging.Log;
+import io.quarkus.scheduler.Scheduled;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Scheduler for persisting in-memory log counters to the rollup table.
+ */
+@ApplicationScoped
+public class LogCounterFlushScheduler {
+
+    @Inject
+    LogCounterService logCounterService;
+
+    /**
+     * Flush log counters.
+     * Default: every 10 seconds
+     */
+    @Scheduled(every = "${app.logs.counters.flush-seconds:10}s", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void flush() {
+        try {
+            logCounterService.flush();
+        } catch (Exception e) {
+            Log.errorf("Error flushing log counters: %s", e.getMessage());
+        }
+    }
+}
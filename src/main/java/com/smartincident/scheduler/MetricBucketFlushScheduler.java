@@ -0,0 +1,31 @@
+package com.smartincident.scheduler;
+
+import com.smartincident.service.MetricBucketService;
+import io.quarkus.logging.Log;
+import io.quarkus.scheduler.Scheduled;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Scheduler for persisting in-memory metric aggregates to the bucket table.
+ */
+@ApplicationScoped
+public class MetricBucketFlushScheduler {
+
+    @Inject
+    MetricBucketService metricBucketService;
+
+    /**
+     * Flush metric buckets.
+     * Default: every 10 seconds
+     */
+    @Scheduled(every = "${app.metrics.buckets.flush-seconds:10}s", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void flush() {
+        try {
+            metricBucketService.flush();
+        } catch (Exception e) {
+            Log.errorf("Error flushing metric buckets: %s", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.smartincident.scheduler;
+
+import com.smartincident.service.MetricHeadService;
+import io.quarkus.logging.Log;
+import io.quarkus.scheduler.Scheduled;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Scheduler for dropping samples past the horizon of the in-memory metric store.
+ */
+@ApplicationScoped
+public class MetricHeadScheduler {
+
+    @Inject
+    MetricHeadService metricHeadService;
+
+    /**
+     * Evict expired chunks.
+     * Default: every 60 seconds
+     */
+    @Scheduled(every = "${app.metrics.head.evict-seconds:60}s",
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void evict() {
+        try {
+            metricHeadService.evict();
+        } catch (Exception e) {
+            Log.errorf("Error evicting metric samples: %s", e.getMessage());
+        }
+    }
+}
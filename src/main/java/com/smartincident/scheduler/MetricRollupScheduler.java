@@ -0,0 +1,31 @@
+package com.smartincident.scheduler;
+
+import com.smartincident.service.MetricRollupService;
+import io.quarkus.logging.Log;
+import io.quarkus.scheduler.Scheduled;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Scheduler for folding flushed metric buckets into the 5-minute and hourly rollups.
+ */
+@ApplicationScoped
+public class MetricRollupScheduler {
+
+    @Inject
+    MetricRollupService metricRollupService;
+
+    /**
+     * Roll up metric buckets.
+     * Default: every 60 seconds
+     */
+    @Scheduled(every = "${app.metrics.rollups.interval-seconds:60}s", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void rollUp() {
+        try {
+            metricRollupService.rollUp();
+        } catch (Exception e) {
+            Log.errorf("Error rolling up metric buckets: %s", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.smartincident.scheduler;
+
+import com.smartincident.service.RetentionService;
+import io.quarkus.logging.Log;
+import io.quarkus.scheduler.Scheduled;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Scheduler for creating upcoming partitions and removing logs and metrics past retention.
+ */
+@ApplicationScoped
+public class RetentionScheduler {
+
+    @Inject
+    RetentionService retentionService;
+
+    /**
+     * Enforce retention.
+     * Default: every 60 minutes
+     */
+    @Scheduled(every = "${app.retention.interval-minutes:60}m", delayed = "1m",
+               concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void enforce() {
+        try {
+            retentionService.enforce();
+        } catch (Exception e) {
+            Log.errorf("Error enforcing retention: %s", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.smartincident.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.smartincident.dto.AlertDigestPayload;
+import com.smartincident.dto.AlertPayload;
+import com.smartincident.model.enums.AlertChannelType;
+import com.smartincident.util.CircuitBreaker;
+import com.smartincident.util.TokenBucket;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One alert destination: its receiver, its payload format and the resources that
+ * deliver to it.
+ *
+ * Every channel has its own HTTP client, worker threads, in-flight limit, rate limit
+ * and circuit breaker, so a slow or failing receiver only holds up its own alerts.
+ * Payloads are rendered when an alert is queued, from a template holding the
+ * channel's constant fields.
+ */
+public class AlertChannel {
+
+    private final String name;
+    private final AlertChannelType type;
+    private final URI url;
+    private final Duration timeout;
+    private final ObjectMapper objectMapper;
+    private final ObjectNode template;
+
+    private final HttpClient httpClient;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore slots;
+    private final TokenBucket rate;
+    private final CircuitBreaker breaker;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * @param routingKey integration key of PagerDuty channels, ignored otherwise
+     * @param rateLimitPerMinute requests started per minute at most, 0 for no limit
+     */
+    AlertChannel(String name, AlertChannelType type, String url, String routingKey, int workers,
+                 Duration timeout, int rateLimitPerMinute, CircuitBreaker breaker, ObjectMapper objectMapper) {
+        this.name = name;
+        this.type = type;
+        this.url = URI.create(url);
+        this.timeout = timeout;
+        this.objectMapper = objectMapper;
+        this.breaker = breaker;
+        this.slots = new Semaphore(workers);
+        this.rate = rateLimitPerMinute > 0 ? new TokenBucket(rateLimitPerMinute, 60_000) : null;
+
+        this.template = objectMapper.createObjectNode();
+        if (type == AlertChannelType.PAGERDUTY) {
+            template.put("routing_key", routingKey);
+            template.put("event_action", "trigger");
+        }
+
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .build();
+        // Never more tasks than workers: a task is only submitted holding a slot
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "alert-" + name + "-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public AlertChannelType type() {
+        return type;
+    }
+
+    public URI url() {
+        return url;
+    }
+
+    public Duration timeout() {
+        return timeout;
+    }
+
+    public CircuitBreaker.State circuitState() {
+        return breaker.state();
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Whether alerts to this channel may be combined into one request.
+     */
+    public boolean batches() {
+        return type != AlertChannelType.PAGERDUTY;
+    }
+
+    /**
+     * Render an alert in this channel's format.
+     */
+    public String render(AlertPayload alert) throws JsonProcessingException {
+        return switch (type) {
+            case WEBHOOK -> objectMapper.writeValueAsString(alert);
+            case SLACK -> {
+                ObjectNode message = template.deepCopy();
+                message.put("text", slackText(alert));
+                yield objectMapper.writeValueAsString(message);
+            }
+            case PAGERDUTY -> {
+                ObjectNode event = template.deepCopy();
+                event.put("dedup_key", "incident-" + alert.incidentId);
+                ObjectNode payload = event.putObject("payload");
+                payload.put("summary", alert.title);
+                payload.put("source", alert.serviceName);
+                payload.put("severity", pagerDutySeverity(alert));
+                payload.put("timestamp", String.valueOf(alert.timestamp));
+                payload.put("component", alert.serviceName);
+                payload.put("class", String.valueOf(alert.incidentType));
+                ObjectNode details = payload.putObject("custom_details");
+                details.put("incidentId", alert.incidentId);
+                details.put("message", alert.message);
+                details.put("probableCause", alert.probableCause);
+                yield objectMapper.writeValueAsString(event);
+            }
+        };
+    }
+
+    /**
+     * Combine alerts rendered by this channel into one payload.
+     *
+     * @throws IllegalStateException if the channel does not batch
+     */
+    public String digest(List<String> payloads) throws JsonProcessingException {
+        List<JsonNode> alerts = new ArrayList<>(payloads.size());
+        for (String payload : payloads) {
+            alerts.add(objectMapper.readTree(payload));
+        }
+        return switch (type) {
+            case WEBHOOK -> objectMapper.writeValueAsString(AlertDigestPayload.fromAlerts(alerts));
+            case SLACK -> {
+                StringBuilder text = new StringBuilder("*").append(alerts.size()).append(" alerts*");
+                for (JsonNode alert : alerts) {
+                    text.append("\n\n").append(alert.path("text").asText());
+                }
+                ObjectNode message = template.deepCopy();
+                message.put("text", text.toString());
+                yield objectMapper.writeValueAsString(message);
+            }
+            case PAGERDUTY -> throw new IllegalStateException("PagerDuty channels send one event per alert");
+        };
+    }
+
+    /**
+     * Take a delivery slot, if the circuit lets a request through and the channel has
+     * room. While the circuit is half-open only one request at a time gets a slot.
+     * A slot not used for a request must be given back with {@link #release()}.
+     */
+    boolean tryAcquire() {
+        if (!slots.tryAcquire()) {
+            return false;
+        }
+        if (!breaker.tryAcquirePermission()) {
+            slots.release();
+            return false;
+        }
+        if (rate != null && !rate.tryAcquire()) {
+            breaker.releasePermission();
+            slots.release();
+            return false;
+        }
+        return true;
+    }
+
+    void release() {
+        breaker.releasePermission();
+        slots.release();
+    }
+
+    /**
+     * Run a delivery on this channel's workers. The caller holds a slot.
+     */
+    void execute(Runnable delivery) {
+        inFlight.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                try {
+                    delivery.run();
+                } finally {
+                    inFlight.decrementAndGet();
+                    slots.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Send a payload and feed the result to the circuit breaker.
+     *
+     * @return the HTTP status
+     */
+    int send(String payload) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(url)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(payload))
+                .timeout(timeout)
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    /**
+     * Record the outcome of a send.
+     *
+     * @return whether this failure opened the circuit
+     */
+    boolean recordResult(boolean success) {
+        if (success) {
+            breaker.recordSuccess();
+            return false;
+        }
+        return breaker.recordFailure();
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static String slackText(AlertPayload alert) {
+        StringBuilder text = new StringBuilder("*").append(alert.title).append("*");
+        if (alert.message != null) {
+            text.append('\n').append(alert.message);
+        }
+        if (alert.probableCause != null) {
+            text.append("\nProbable cause: ").append(alert.probableCause);
+        }
+        return text.toString();
+    }
+
+    private static String pagerDutySeverity(AlertPayload alert) {
+        if (alert.severity == null) {
+            return "error";
+        }
+        return switch (alert.severity) {
+            case CRITICAL -> "critical";
+            case HIGH -> "error";
+            case MEDIUM -> "warning";
+            case LOW -> "info";
+        };
+    }
+}
@@ -0,0 +1,387 @@
+package com.smartincident.service;
+
+import com.smartincident.model.AlertOutboxEntry;
+import com.smartincident.model.enums.AlertDeliveryStatus;
+import com.smartincident.model.enums.IncidentSeverity;
+import com.smartincident.repository.AlertOutboxRepository;
+import com.smartincident.util.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service delivering the alerts of the outbox table to their channels.
+ *
+ * Each poll claims due alerts with a conditional update, so replicas never send the
+ * same attempt twice, and hands them to the workers of their channel (see
+ * AlertChannel), so one hung receiver never delays alerts to another. CRITICAL
+ * alerts, and every PagerDuty alert, are sent on their own right away; other alerts
+ * to a channel are held until the oldest has waited app.alerting.digest.window-seconds
+ * and then sent together as one digest, so a storm costs a request per window
+ * rather than per incident. Alerts to a channel that is at its in-flight or rate
+ * limit, or whose circuit is open, stay in the table without using up attempts and
+ * are due again app.alerting.outbox.defer-seconds later; held alerts are due again
+ * when their digest is. Alerts that cannot go now thus never fill a poll's batch
+ * ahead of those that can, such as pages to a healthy channel.
+ * A failed attempt is retried with exponential backoff, and after
+ * app.alerting.outbox.max-attempts the alert is dead-lettered until retried by hand.
+ * A claim that outlives its lease (the replica died mid-send) makes the alert due
+ * again, so delivery is at least once.
+ */
+@ApplicationScoped
+public class AlertDeliveryService {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    @Inject
+    AlertOutboxRepository outboxRepository;
+
+    @Inject
+    AlertRoutingService routingService;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "app.alerting.digest.window-seconds", defaultValue = "30")
+    int digestWindowSeconds;
+
+    @ConfigProperty(name = "app.alerting.digest.max-alerts", defaultValue = "50")
+    int digestMaxAlerts;
+
+    @ConfigProperty(name = "app.alerting.digest.max-bytes", defaultValue = "65536")
+    int digestMaxBytes;
+
+    @ConfigProperty(name = "app.alerting.outbox.batch-size", defaultValue = "100")
+    int batchSize;
+
+    @ConfigProperty(name = "app.alerting.outbox.max-attempts", defaultValue = "10")
+    int maxAttempts;
+
+    @ConfigProperty(name = "app.alerting.outbox.initial-backoff-seconds", defaultValue = "5")
+    int initialBackoffSeconds;
+
+    @ConfigProperty(name = "app.alerting.outbox.max-backoff-seconds", defaultValue = "900")
+    int maxBackoffSeconds;
+
+    @ConfigProperty(name = "app.alerting.outbox.defer-seconds", defaultValue = "5")
+    int deferSeconds;
+
+    @ConfigProperty(name = "app.alerting.outbox.retention-days", defaultValue = "7")
+    int retentionDays;
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong deadLetters = new AtomicLong();
+    private volatile LocalDateTime lastPurge = LocalDateTime.MIN;
+
+    private Timer deliveryTimer;
+
+    void onStart(@Observes StartupEvent event) {
+        deliveryTimer = Timer.builder("alert.delivery.latency")
+                .description("Time from writing an alert to the outbox to its delivery")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+        registry.gauge("alert.outbox.backlog", backlog);
+        registry.gauge("alert.outbox.dead_letters", deadLetters);
+        registry.gauge("alert.outbox.in_flight", routingService,
+                       routing -> routing.getChannels().stream().mapToInt(AlertChannel::inFlight).sum());
+    }
+
+    /**
+     * Claim due alerts and queue them for delivery, then refresh the backlog gauges.
+     */
+    public void dispatch() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        LocalDateTime windowStart = now.minusSeconds(digestWindowSeconds);
+
+        List<AlertOutboxEntry> due = QuarkusTransaction.requiringNew().call(() -> outboxRepository.findDue(now, batchSize));
+        Map<String, List<AlertOutboxEntry>> byChannel = new LinkedHashMap<>();
+        for (AlertOutboxEntry entry : due) {
+            byChannel.computeIfAbsent(entry.destination, d -> new ArrayList<>()).add(entry);
+        }
+
+        int claimed = 0;
+        // Alerts a channel cannot take now
+        List<AlertOutboxEntry> deferred = new ArrayList<>();
+        for (Map.Entry<String, List<AlertOutboxEntry>> group : byChannel.entrySet()) {
+            AlertChannel channel = routingService.getChannel(group.getKey());
+            if (channel == null) {
+                deadLetter(group.getValue(), "Unknown alert channel " + group.getKey());
+                continue;
+            }
+            if (channel.circuitState() == CircuitBreaker.State.OPEN) {
+                registry.counter("alert.delivery.short_circuited", "channel", channel.name()).increment(group.getValue().size());
+                deferred.addAll(group.getValue());
+                continue;
+            }
+            LocalDateTime leaseUntil = now.plus(channel.timeout().multipliedBy(3));
+
+            List<AlertOutboxEntry> held = new ArrayList<>();
+            for (AlertOutboxEntry entry : group.getValue()) {
+                if (entry.severity == IncidentSeverity.CRITICAL || !channel.batches()) {
+                    if (acquire(channel)) {
+                        claimed += submit(channel, List.of(entry), leaseUntil);
+                    } else {
+                        deferred.add(entry);
+                    }
+                } else {
+                    held.add(entry);
+                }
+            }
+            // Send the rest once the oldest has waited a full window or a digest is full
+            held.sort(Comparator.comparing((AlertOutboxEntry e) -> e.createdAt));
+            boolean busy = false;
+            while (!held.isEmpty()
+                    && (!held.get(0).createdAt.isAfter(windowStart) || held.size() >= digestMaxAlerts)) {
+                if (!acquire(channel)) {
+                    busy = true;
+                    break;
+                }
+                List<AlertOutboxEntry> digest = nextDigest(held);
+                claimed += submit(channel, digest, leaseUntil);
+                held.subList(0, digest.size()).clear();
+            }
+            if (busy) {
+                deferred.addAll(held);
+            } else if (!held.isEmpty()) {
+                defer(held, held.get(0).createdAt.plusSeconds(digestWindowSeconds), now);
+            }
+        }
+        if (!deferred.isEmpty()) {
+            defer(deferred, now.plusSeconds(deferSeconds), now);
+        }
+        if (claimed > 0) {
+            Log.debugf("Claimed %d alerts for delivery", claimed);
+        }
+
+        QuarkusTransaction.requiringNew().run(() -> {
+            backlog.set(outboxRepository.countByStatus(AlertDeliveryStatus.PENDING)
+                        + outboxRepository.countByStatus(AlertDeliveryStatus.SENDING));
+            deadLetters.set(outboxRepository.countByStatus(AlertDeliveryStatus.DEAD_LETTER));
+        });
+        purgeDelivered();
+    }
+
+    /**
+     * Get the most recent dead-lettered alerts.
+     */
+    public List<AlertOutboxEntry> getDeadLetters(int limit) {
+        return outboxRepository.findByStatus(AlertDeliveryStatus.DEAD_LETTER, limit);
+    }
+
+    /**
+     * Queue a dead-lettered alert for delivery again, with a fresh attempt budget.
+     *
+     * @return whether the alert was dead-lettered
+     */
+    public boolean retry(Long id) {
+        return QuarkusTransaction.requiringNew().call(() -> outboxRepository.requeue(id, LocalDateTime.now()));
+    }
+
+    /**
+     * Number of alerts in each delivery state.
+     */
+    public Map<AlertDeliveryStatus, Long> getCounts() {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            Map<AlertDeliveryStatus, Long> counts = new EnumMap<>(AlertDeliveryStatus.class);
+            for (AlertDeliveryStatus status : AlertDeliveryStatus.values()) {
+                counts.put(status, outboxRepository.countByStatus(status));
+            }
+            return counts;
+        });
+    }
+
+    /**
+     * Leading alerts of a list that fit one digest, at least one.
+     */
+    private List<AlertOutboxEntry> nextDigest(List<AlertOutboxEntry> alerts) {
+        int count = 0;
+        long bytes = 0;
+        for (AlertOutboxEntry alert : alerts) {
+            bytes += alert.payload.length();
+            if (count > 0 && (count == digestMaxAlerts || bytes > digestMaxBytes)) {
+                break;
+            }
+            count++;
+        }
+        return alerts.subList(0, count);
+    }
+
+    /**
+     * Take a slot of a channel for one request, if it has room and rate allows.
+     */
+    private boolean acquire(AlertChannel channel) {
+        if (channel.tryAcquire()) {
+            return true;
+        }
+        registry.counter("alert.delivery.deferred", "channel", channel.name()).increment();
+        return false;
+    }
+
+    /**
+     * Make alerts due again at a later time, unless another replica claimed them since.
+     */
+    private void defer(List<AlertOutboxEntry> alerts, LocalDateTime until, LocalDateTime now) {
+        try {
+            List<Long> ids = alerts.stream().map(alert -> alert.id).toList();
+            QuarkusTransaction.requiringNew().run(() -> outboxRepository.defer(ids, until, now));
+        } catch (Exception e) {
+            // They stay due and are looked at again by the next poll
+            Log.errorf("Failed to defer %d alerts: %s", alerts.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Claim alerts and queue them as one request to their channel. The caller holds a
+     * slot of the channel, given back here unless the request is queued.
+     *
+     * @return number of alerts queued
+     */
+    private int submit(AlertChannel channel, List<AlertOutboxEntry> alerts, LocalDateTime leaseUntil) {
+        boolean queued = false;
+        try {
+            List<Claim> claims = QuarkusTransaction.requiringNew().call(() -> {
+                List<Claim> claimed = new ArrayList<>(alerts.size());
+                for (AlertOutboxEntry alert : alerts) {
+                    if (outboxRepository.claim(alert.id, alert.nextAttemptAt, leaseUntil)) {
+                        claimed.add(new Claim(alert.id, alert.attempts + 1, alert.createdAt, alert.payload));
+                    }
+                }
+                return claimed;
+            });
+            if (claims.isEmpty()) {
+                return 0;
+            }
+
+            String payload = claims.size() == 1
+                ? claims.get(0).payload()
+                : channel.digest(claims.stream().map(Claim::payload).toList());
+            channel.execute(() -> deliver(channel, payload, claims));
+            queued = true;
+            if (claims.size() > 1) {
+                registry.counter("alert.digests", "channel", channel.name()).increment();
+                registry.counter("alert.coalesced", "channel", channel.name()).increment(claims.size());
+            }
+            return claims.size();
+        } catch (Exception e) {
+            // Claimed alerts are attempted again once their claim expires
+            Log.errorf("Failed to queue alerts for channel %s: %s", channel.name(), e.getMessage());
+            return 0;
+        } finally {
+            if (!queued) {
+                channel.release();
+            }
+        }
+    }
+
+    private void deliver(AlertChannel channel, String payload, List<Claim> claims) {
+        String error;
+        long start = System.nanoTime();
+        try {
+            int status = channel.send(payload);
+            error = status >= 200 && status < 300 ? null : "Receiver returned status " + status;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "Interrupted";
+        } catch (Exception e) {
+            error = e.getMessage() != null ? e.getClass().getSimpleName() + ": " + e.getMessage()
+                                           : e.getClass().getSimpleName();
+        } finally {
+            registry.timer("alert.delivery.request.duration", "channel", channel.name())
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        if (channel.recordResult(error == null)) {
+            registry.counter("alert.channel.circuit.opened", "channel", channel.name()).increment();
+            Log.warnf("Circuit of alert channel %s opened: %s", channel.name(), error);
+        }
+        for (Claim claim : claims) {
+            try {
+                record(channel.name(), claim, error);
+            } catch (Exception e) {
+                // The claim expires and the alert is attempted again
+                Log.errorf("Failed to record delivery of alert %d: %s", claim.id(), e.getMessage());
+            }
+        }
+    }
+
+    private void record(String channel, Claim claim, String error) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        if (error == null) {
+            QuarkusTransaction.requiringNew().run(() -> outboxRepository.markDelivered(claim.id(), claim.attempt(), now));
+            registry.counter("alert.delivery.attempts", "channel", channel, "outcome", "success").increment();
+            deliveryTimer.record(Duration.between(claim.createdAt(), now));
+            Log.infof("Alert %d delivered to %s (attempt %d)", claim.id(), channel, claim.attempt());
+            return;
+        }
+
+        registry.counter("alert.delivery.attempts", "channel", channel, "outcome", "failure").increment();
+        String message = error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        if (claim.attempt() >= maxAttempts) {
+            QuarkusTransaction.requiringNew().run(() -> outboxRepository.markFailed(
+                    claim.id(), AlertDeliveryStatus.DEAD_LETTER, claim.attempt(), now, message));
+            registry.counter("alert.delivery.dead_lettered").increment();
+            Log.errorf("Alert %d dead-lettered after %d attempts: %s", claim.id(), claim.attempt(), message);
+            return;
+        }
+
+        LocalDateTime next = now.plus(backoff(claim.attempt()));
+        QuarkusTransaction.requiringNew().run(() -> outboxRepository.markFailed(
+                claim.id(), AlertDeliveryStatus.PENDING, claim.attempt(), next, message));
+        Log.warnf("Alert %d attempt %d failed, retrying at %s: %s", claim.id(), claim.attempt(), next, message);
+    }
+
+    private void deadLetter(List<AlertOutboxEntry> alerts, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        QuarkusTransaction.requiringNew().run(() -> alerts.forEach(alert -> outboxRepository.markFailed(
+                alert.id, AlertDeliveryStatus.DEAD_LETTER, alert.attempts, now, error)));
+        registry.counter("alert.delivery.dead_lettered").increment(alerts.size());
+        Log.errorf("Dead-lettered %d alerts: %s", alerts.size(), error);
+    }
+
+    /**
+     * Delay before the attempt after the given one: doubling from the initial backoff up
+     * to the maximum, with jitter so alerts failed together do not retry together.
+     */
+    private Duration backoff(int attempt) {
+        long seconds = Math.min(maxBackoffSeconds, (long) initialBackoffSeconds << Math.min(attempt - 1, 20));
+        double jitter = 0.75 + ThreadLocalRandom.current().nextDouble() * 0.5;
+        return Duration.ofMillis((long) (seconds * 1000 * jitter));
+    }
+
+    private void purgeDelivered() {
+        LocalDateTime now = LocalDateTime.now();
+        if (lastPurge.isAfter(now.minusHours(1))) {
+            return;
+        }
+        lastPurge = now;
+        long deleted = QuarkusTransaction.requiringNew().call(
+                () -> outboxRepository.deleteDeliveredBefore(now.minusDays(retentionDays)));
+        if (deleted > 0) {
+            Log.infof("Purged %d delivered alerts older than %d days", deleted, retentionDays);
+        }
+    }
+
+    /**
+     * One claimed alert; attempt counts from 1.
+     */
+    private record Claim(Long id, int attempt, LocalDateTime createdAt, String payload) {}
+}
@@ -0,0 +1,197 @@
+package com.smartincident.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartincident.model.Incident;
+import com.smartincident.model.enums.AlertChannelType;
+import com.smartincident.model.enums.IncidentSeverity;
+import com.smartincident.model.enums.IncidentType;
+import com.smartincident.util.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ShutdownEvent;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service deciding which channels an incident is alerted on.
+ *
+ * Channels are declared in app.alerting.channels; per-channel settings
+ * (app.alerting.channel.<name>.workers, timeout-seconds, rate-limit-per-minute,
+ * routing-key) fall back to the outbox defaults. Routes in app.alerting.routes are
+ * tried in order and the first one matching the incident's severity, service and
+ * type gives its channels.
+ */
+@ApplicationScoped
+public class AlertRoutingService {
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    Config config;
+
+    // <name>:<webhook|slack|pagerduty>:<url>
+    @ConfigProperty(name = "app.alerting.channels", defaultValue = "default:webhook:${app.alerting.webhook-url}")
+    List<String> channelSpecs;
+
+    // <min severity>/<service, * or prefix*>/<type or *>=<channel>+<channel>
+    @ConfigProperty(name = "app.alerting.routes", defaultValue = "LOW/*/*=default")
+    List<String> routeSpecs;
+
+    @ConfigProperty(name = "app.alerting.outbox.max-per-destination", defaultValue = "2")
+    int defaultWorkers;
+
+    @ConfigProperty(name = "app.alerting.outbox.timeout-seconds", defaultValue = "10")
+    int defaultTimeoutSeconds;
+
+    @ConfigProperty(name = "app.alerting.outbox.rate-limit-per-minute", defaultValue = "30")
+    int defaultRateLimitPerMinute;
+
+    @ConfigProperty(name = "app.alerting.circuit.failure-threshold", defaultValue = "5")
+    int failureThreshold;
+
+    @ConfigProperty(name = "app.alerting.circuit.open-seconds", defaultValue = "60")
+    int openSeconds;
+
+    private final Map<String, AlertChannel> channels = new LinkedHashMap<>();
+    private final List<Route> routes = new ArrayList<>();
+
+    @PostConstruct
+    void init() {
+        for (String spec : channelSpecs) {
+            AlertChannel channel = parseChannel(spec.trim());
+            if (channels.putIfAbsent(channel.name(), channel) != null) {
+                throw new IllegalArgumentException("Duplicate alert channel: " + channel.name());
+            }
+            registry.gauge("alert.channel.circuit.open", Tags.of("channel", channel.name()),
+                           channel, c -> c.circuitState() == CircuitBreaker.State.OPEN ? 1 : 0);
+        }
+        for (String spec : routeSpecs) {
+            routes.add(parseRoute(spec.trim()));
+        }
+        Log.infof("Alert channels: %s", channels.keySet());
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        channels.values().forEach(AlertChannel::shutdown);
+    }
+
+    /**
+     * Channels the first matching route sends an incident to; empty when no route matches.
+     */
+    public List<AlertChannel> route(Incident incident) {
+        for (Route route : routes) {
+            if (route.matches(incident)) {
+                return route.channels();
+            }
+        }
+        return List.of();
+    }
+
+    /**
+     * Get a channel by name, or null if it is not configured (any more).
+     */
+    public AlertChannel getChannel(String name) {
+        return channels.get(name);
+    }
+
+    public Collection<AlertChannel> getChannels() {
+        return channels.values();
+    }
+
+    /**
+     * Current state of every channel.
+     */
+    public List<ChannelStatus> getChannelStatuses() {
+        return channels.values().stream()
+                .map(c -> new ChannelStatus(c.name(), c.type(), c.url().toString(), c.circuitState(), c.inFlight()))
+                .toList();
+    }
+
+    private AlertChannel parseChannel(String spec) {
+        try {
+            String[] parts = spec.split(":", 3);
+            String name = parts[0];
+            String prefix = "app.alerting.channel." + name + ".";
+            return new AlertChannel(
+                name,
+                AlertChannelType.valueOf(parts[1].toUpperCase()),
+                parts[2],
+                config.getOptionalValue(prefix + "routing-key", String.class).orElse(null),
+                config.getOptionalValue(prefix + "workers", Integer.class).orElse(defaultWorkers),
+                Duration.ofSeconds(config.getOptionalValue(prefix + "timeout-seconds", Integer.class).orElse(defaultTimeoutSeconds)),
+                config.getOptionalValue(prefix + "rate-limit-per-minute", Integer.class).orElse(defaultRateLimitPerMinute),
+                new CircuitBreaker(failureThreshold, openSeconds * 1000L),
+                objectMapper);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid app.alerting.channels entry: " + spec, e);
+        }
+    }
+
+    private Route parseRoute(String spec) {
+        try {
+            String[] parts = spec.split("=", 2);
+            String[] match = parts[0].split("/");
+            List<AlertChannel> targets = new ArrayList<>();
+            for (String name : parts[1].split("\\+")) {
+                AlertChannel channel = channels.get(name.trim());
+                if (channel == null) {
+                    throw new IllegalArgumentException("Unknown alert channel: " + name);
+                }
+                targets.add(channel);
+            }
+            return new Route(
+                IncidentSeverity.valueOf(match[0].toUpperCase()),
+                match[1],
+                match[2].equals("*") ? null : IncidentType.valueOf(match[2].toUpperCase()),
+                List.copyOf(targets));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid app.alerting.routes entry: " + spec, e);
+        }
+    }
+
+    /**
+     * State of one channel: its circuit and the number of requests in flight.
+     */
+    public record ChannelStatus(
+        String name,
+        AlertChannelType type,
+        String url,
+        CircuitBreaker.State circuit,
+        int inFlight
+    ) {}
+
+    /**
+     * A routing rule; type null matches every type, and a service pattern ending in *
+     * matches by prefix.
+     */
+    private record Route(IncidentSeverity minSeverity, String service, IncidentType type, List<AlertChannel> channels) {
+
+        boolean matches(Incident incident) {
+            if (incident.severity.getLevel() < minSeverity.getLevel()) {
+                return false;
+            }
+            if (type != null && incident.type != type) {
+                return false;
+            }
+            return service.endsWith("*")
+                ? incident.serviceName.startsWith(service.substring(0, service.length() - 1))
+                : incident.serviceName.equals(service);
+        }
+    }
+}
@@ -1,27 +1,40 @@
 package com.smartincident.service;
 
 import com.smartincident.dto.AlertPayload;
+import com.smartincident.model.AlertOutboxEntry;
 import com.smartincident.model.Incident;
+import com.smartincident.repository.AlertOutboxRepository;
 import io.quarkus.logging.Log;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.core.JsonProcessingException;
 
 /**
  * Service for sending alerts via webhooks.
+ * Incident alerts are rendered for each channel their route names and go through the
+ * alert_outbox table; only test alerts are sent inline, to app.alerting.webhook-url.
  */
 @ApplicationScoped
 public class AlertingService {
 
+    @Inject
+    AlertOutboxRepository outboxRepository;
+
+    @Inject
+    AlertRoutingService routingService;
+
     @ConfigProperty(name = "app.alerting.webhook-url")
     String webhookUrl;
 
@@ -29,58 +42,44 @@ public class AlertingService {
     boolean alertingEnabled;
 
     private final HttpClient httpClient;
-    private final ObjectMapper objectMapper;
 
     @Inject
     public AlertingService() {
         this.httpClient = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(10))
                 .build();
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
     }
 
     /**
-     * Send an alert for an incident.
+     * Queue an alert for an incident in the outbox, once per routed channel. Runs in the
+     * caller's transaction, so the alert is only sent if the incident commits;
+     * AlertDeliveryService sends it.
      */
+    @Transactional
     public void sendAlert(Incident incident) {
         if (!alertingEnabled) {
             Log.debug("Alerting is disabled, skipping alert");
             return;
         }
 
-        try {
-            AlertPayload payload = AlertPayload.fromIncident(incident);
-            String jsonPayload = objectMapper.writeValueAsString(payload);
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(webhookUrl))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(jsonPayload))
-                    .timeout(Duration.ofSeconds(30))
-                    .build();
+        List<AlertChannel> channels = routingService.route(incident);
+        if (channels.isEmpty()) {
+            Log.debugf("No alert route matches incident #%d, skipping alert", incident.id);
+            return;
+        }
 
-            // Send asynchronously to not block incident creation
-            httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
-                    .thenAccept(response -> {
-                        if (response.statusCode() >= 200 && response.statusCode() < 300) {
-                            Log.infof("Alert sent successfully for incident #%d", incident.id);
-                        } else {
-                            Log.warnf("Alert webhook returned status %d for incident #%d", 
-                                      response.statusCode(), incident.id);
-                        }
-                    })
-                    .exceptionally(ex -> {
-                        Log.warnf("Failed to send alert for incident #%d: %s", 
-                                  incident.id, ex.getMessage());
-                        return null;
-                    });
-
-            Log.debugf("Alert request sent for incident #%d to %s", incident.id, webhookUrl);
-            
-        } catch (Exception e) {
-            Log.errorf("Error sending alert for incident #%d: %s", incident.id, e.getMessage());
+        AlertPayload payload = AlertPayload.fromIncident(incident);
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        for (AlertChannel channel : channels) {
+            try {
+                outboxRepository.persist(new AlertOutboxEntry(incident.id, channel.name(), channel.render(payload),
+                                                               incident.severity, now));
+            } catch (JsonProcessingException e) {
+                Log.errorf("Error rendering alert for incident #%d on %s: %s", incident.id, channel.name(), e.getMessage());
+            }
         }
+        Log.debugf("Alert for incident #%d queued for %s", incident.id,
+                   channels.stream().map(AlertChannel::name).toList());
     }
 
     /**
@@ -1,9 +1,8 @@
 package com.smartincident.service;
 
-import com.smartincident.model.Metric;
 import com.smartincident.model.enums.IncidentSeverity;
 import com.smartincident.model.enums.IncidentType;
-import com.smartincident.repository.LogEntryRepository;
+import com.smartincident.model.enums.SloType;
 import com.smartincident.repository.MetricRepository;
 import io.quarkus.logging.Log;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
@@ -25,11 +24,17 @@ public class AnomalyDetectionService {
     MetricRepository metricRepository;
 
     @Inject
-    LogEntryRepository logEntryRepository;
+    MetricHeadService metricHeadService;
+
+    @Inject
+    LogCounterService logCounterService;
 
     @Inject
     IncidentService incidentService;
 
+    @Inject
+    SloService sloService;
+
     @ConfigProperty(name = "app.detection.error-rate-threshold", defaultValue = "5.0")
     double errorRateThreshold;
 
@@ -62,24 +67,59 @@ public class AnomalyDetectionService {
 
     /**
      * Detect anomalies for a specific service.
+     *
+     * @return how close the service is to any threshold, as the highest
+     *         observed/threshold ratio across checks (1.0 or more means breached)
      */
-    public void detectAnomaliesForService(String serviceName) {
-        checkHighErrorRate(serviceName);
-        checkHighLatency(serviceName);
-        checkCpuUsage(serviceName);
-        checkMemoryUsage(serviceName);
-        checkPodRestarts(serviceName);
+    public double detectAnomaliesForService(String serviceName) {
+        double pressure = checkHighErrorRate(serviceName);
+        pressure = Math.max(pressure, checkHighLatency(serviceName));
+        pressure = Math.max(pressure, checkCpuUsage(serviceName));
+        pressure = Math.max(pressure, checkMemoryUsage(serviceName));
+        pressure = Math.max(pressure, checkPodRestarts(serviceName));
+        return pressure;
     }
 
     /**
      * Check for high HTTP 5xx error rate.
+     * Services with an availability SLO are paged on error budget burn rate instead
+     * of the flat error rate threshold.
      */
-    private void checkHighErrorRate(String serviceName) {
+    private double checkHighErrorRate(String serviceName) {
         LocalDateTime since = LocalDateTime.now().minusMinutes(5);
+        double pressure;
         
+        if (sloService.hasObjective(serviceName, SloType.AVAILABILITY)) {
+            sloService.findBreach(serviceName, SloType.AVAILABILITY)
+                .ifPresent(breach -> raiseBurnRateIncident(IncidentType.HIGH_ERROR_RATE, breach));
+            pressure = sloService.burnPressure(serviceName, SloType.AVAILABILITY);
+        } else {
+            pressure = checkErrorRateThreshold(serviceName, since);
+        }
+
+        // Also check error logs
+        long errorLogs = logCounterService.count(serviceName, "ERROR", since);
+        if (errorLogs > 50) {  // More than 50 error logs in 5 minutes
+            Log.infof("High error log count for %s: %d errors in 5 min", serviceName, errorLogs);
+            
+            incidentService.createIncident(
+                IncidentType.HIGH_ERROR_RATE,
+                IncidentSeverity.MEDIUM,
+                serviceName,
+                String.format("High error log volume: %d errors in last 5 minutes", errorLogs),
+                String.format("{\"error_log_count\": %d}", errorLogs)
+            );
+        }
+        return Math.max(pressure, errorLogs / 50.0);
+    }
+
+    /**
+     * Check the 5 minute average error rate against the flat threshold.
+     */
+    private double checkErrorRateThreshold(String serviceName, LocalDateTime since) {
         // Get error count from metrics
-        OptionalDouble errorCount = metricRepository.getAverageValue("http_5xx_count", serviceName, since);
-        OptionalDouble totalCount = metricRepository.getAverageValue("http_total_count", serviceName, since);
+        OptionalDouble errorCount = metricHeadService.average("http_5xx_count", serviceName, since);
+        OptionalDouble totalCount = metricHeadService.average("http_total_count", serviceName, since);
         
         if (errorCount.isPresent() && totalCount.isPresent() && totalCount.getAsDouble() > 0) {
             double errorRate = (errorCount.getAsDouble() / totalCount.getAsDouble()) * 100;
@@ -99,30 +139,52 @@ public class AnomalyDetectionService {
                     relatedMetrics
                 );
             }
+            return errorRate / errorRateThreshold;
         }
+        return 0;
+    }
 
-        // Also check error logs
-        long errorLogs = logEntryRepository.countErrors(serviceName, since);
-        if (errorLogs > 50) {  // More than 50 error logs in 5 minutes
-            Log.infof("High error log count for %s: %d errors in 5 min", serviceName, errorLogs);
-            
-            incidentService.createIncident(
-                IncidentType.HIGH_ERROR_RATE,
-                IncidentSeverity.MEDIUM,
-                serviceName,
-                String.format("High error log volume: %d errors in last 5 minutes", errorLogs),
-                String.format("{\"error_log_count\": %d}", errorLogs)
-            );
-        }
+    /**
+     * Raise an incident for an SLO burning its error budget too fast.
+     */
+    private void raiseBurnRateIncident(IncidentType type, SloService.BurnRateBreach breach) {
+        SloService.BurnRateAlert alert = breach.alert();
+        Log.infof("SLO burn rate breach for %s (%s): %.1fx over %s, %.1fx over %s",
+                  breach.serviceName(), breach.type(), breach.longBurnRate(), alert.longWindowLabel(),
+                  breach.shortBurnRate(), alert.shortWindowLabel());
+
+        String relatedMetrics = String.format(
+            "{\"slo_type\": \"%s\", \"slo_target_percent\": %.3f, \"burn_rate_threshold\": %.2f, " +
+            "\"long_window\": \"%s\", \"long_window_error_ratio\": %.5f, \"long_window_burn_rate\": %.2f, " +
+            "\"short_window\": \"%s\", \"short_window_error_ratio\": %.5f, \"short_window_burn_rate\": %.2f}",
+            breach.type(), breach.targetPercent(), alert.burnRate(),
+            alert.longWindowLabel(), breach.longErrorRatio(), breach.longBurnRate(),
+            alert.shortWindowLabel(), breach.shortErrorRatio(), breach.shortBurnRate());
+
+        incidentService.createIncident(
+            type,
+            alert.severity(),
+            breach.serviceName(),
+            String.format("%s SLO (%.3f%%) burning error budget at %.1fx over %s and %.1fx over %s (threshold: %.1fx)",
+                         breach.type(), breach.targetPercent(), breach.longBurnRate(), alert.longWindowLabel(),
+                         breach.shortBurnRate(), alert.shortWindowLabel(), alert.burnRate()),
+            relatedMetrics
+        );
     }
 
     /**
      * Check for high response latency.
      */
-    private void checkHighLatency(String serviceName) {
+    private double checkHighLatency(String serviceName) {
+        if (sloService.hasObjective(serviceName, SloType.LATENCY)) {
+            sloService.findBreach(serviceName, SloType.LATENCY)
+                .ifPresent(breach -> raiseBurnRateIncident(IncidentType.HIGH_LATENCY, breach));
+            return sloService.burnPressure(serviceName, SloType.LATENCY);
+        }
+
         LocalDateTime since = LocalDateTime.now().minusMinutes(5);
         
-        OptionalDouble avgLatency = metricRepository.getAverageValue("latency_ms", serviceName, since);
+        OptionalDouble avgLatency = metricHeadService.average("latency_ms", serviceName, since);
         
         if (avgLatency.isPresent() && avgLatency.getAsDouble() > latencyThreshold) {
             Log.infof("High latency detected for %s: %.2f ms", serviceName, avgLatency.getAsDouble());
@@ -144,15 +206,16 @@ public class AnomalyDetectionService {
                 relatedMetrics
             );
         }
+        return avgLatency.isPresent() ? avgLatency.getAsDouble() / latencyThreshold : 0;
     }
 
     /**
      * Check for high CPU usage.
      */
-    private void checkCpuUsage(String serviceName) {
+    private double checkCpuUsage(String serviceName) {
         LocalDateTime since = LocalDateTime.now().minusMinutes(3);
         
-        OptionalDouble avgCpu = metricRepository.getAverageValue("cpu_usage_percent", serviceName, since);
+        OptionalDouble avgCpu = metricHeadService.average("cpu_usage_percent", serviceName, since);
         
         if (avgCpu.isPresent() && avgCpu.getAsDouble() > cpuThreshold) {
             Log.infof("High CPU usage for %s: %.2f%%", serviceName, avgCpu.getAsDouble());
@@ -169,15 +232,16 @@ public class AnomalyDetectionService {
                 relatedMetrics
             );
         }
+        return avgCpu.isPresent() ? avgCpu.getAsDouble() / cpuThreshold : 0;
     }
 
     /**
      * Check for high memory usage.
      */
-    private void checkMemoryUsage(String serviceName) {
+    private double checkMemoryUsage(String serviceName) {
         LocalDateTime since = LocalDateTime.now().minusMinutes(3);
         
-        OptionalDouble avgMemory = metricRepository.getAverageValue("memory_usage_percent", serviceName, since);
+        OptionalDouble avgMemory = metricHeadService.average("memory_usage_percent", serviceName, since);
         
         if (avgMemory.isPresent() && avgMemory.getAsDouble() > memoryThreshold) {
             Log.infof("High memory usage for %s: %.2f%%", serviceName, avgMemory.getAsDouble());
@@ -199,21 +263,19 @@ public class AnomalyDetectionService {
                 relatedMetrics
             );
         }
+        return avgMemory.isPresent() ? avgMemory.getAsDouble() / memoryThreshold : 0;
     }
 
     /**
      * Check for frequent pod restarts.
      */
-    private void checkPodRestarts(String serviceName) {
+    private double checkPodRestarts(String serviceName) {
         LocalDateTime since = LocalDateTime.now().minusMinutes(10);
         
-        List<Metric> restartMetrics = metricRepository.findMetricForService(
-            "pod_restart_count", serviceName, since);
+        OptionalDouble restarts = metricHeadService.sum("pod_restart_count", serviceName, since);
         
-        if (!restartMetrics.isEmpty()) {
-            double totalRestarts = restartMetrics.stream()
-                .mapToDouble(m -> m.value)
-                .sum();
+        if (restarts.isPresent()) {
+            double totalRestarts = restarts.getAsDouble();
             
             if (totalRestarts >= podRestartThreshold) {
                 Log.infof("Frequent pod restarts for %s: %.0f restarts in 10 min", 
@@ -232,6 +294,8 @@ public class AnomalyDetectionService {
                     relatedMetrics
                 );
             }
+            return totalRestarts / podRestartThreshold;
         }
+        return 0;
     }
 }
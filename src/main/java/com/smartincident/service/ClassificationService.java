@@ -0,0 +1,174 @@
+package com.smartincident.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartincident.util.AhoCorasickMatcher;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Service classifying free text (log messages, incident context) into failure
+ * categories using a keyword catalog.
+ *
+ * The catalog maps each category to its keywords and to the known causes it points
+ * to, in order of preference. All keywords of all categories are compiled into one
+ * automaton at startup, so classifying a text is a single pass over it whatever the
+ * size of the catalog. Keywords are case-insensitive and match at the start of a
+ * word: "lock" matches "locked" but not "block". Keywords ending in a digit must
+ * also end the word, so that the status code "400" does not match "400ms".
+ */
+@ApplicationScoped
+public class ClassificationService {
+
+    private static final String BUNDLED_CATALOG = "classification-catalog.json";
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "app.classification.catalog-path")
+    Optional<String> catalogPath;
+
+    private List<Category> categories;
+    private Map<String, Category> categoriesByName;
+    private AhoCorasickMatcher matcher;
+    // Category index of each compiled keyword
+    private int[] keywordCategory;
+    // Keywords ending in a digit, which must be followed by a word boundary
+    private boolean[] numericEnd;
+
+    void onStart(@Observes StartupEvent event) {
+        compile(loadCatalog());
+        Log.infof("Classification catalog: %d categories, %d keywords", categories.size(), keywordCategory.length);
+    }
+
+    /**
+     * Compile the keywords of a catalog into the automaton.
+     */
+    void compile(List<Category> loaded) {
+        List<String> keywords = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        List<Boolean> numeric = new ArrayList<>();
+        Map<String, Category> byName = new HashMap<>();
+        for (int c = 0; c < loaded.size(); c++) {
+            Category category = loaded.get(c);
+            if (byName.put(category.name(), category) != null) {
+                throw new IllegalStateException("Duplicate category in classification catalog: " + category.name());
+            }
+            for (String keyword : category.keywords()) {
+                keywords.add(keyword);
+                owners.add(c);
+                numeric.add(!keyword.isEmpty() && Character.isDigit(keyword.charAt(keyword.length() - 1)));
+            }
+        }
+
+        categories = loaded;
+        categoriesByName = byName;
+        keywordCategory = owners.stream().mapToInt(Integer::intValue).toArray();
+        numericEnd = new boolean[numeric.size()];
+        for (int k = 0; k < numericEnd.length; k++) {
+            numericEnd[k] = numeric.get(k);
+        }
+        matcher = new AhoCorasickMatcher(keywords);
+    }
+
+    /**
+     * Categories found in a text, most keyword hits first; ties keep catalog order.
+     */
+    public List<String> categorize(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        int[] hits = countHits(text);
+
+        List<Integer> found = new ArrayList<>();
+        for (int c = 0; c < hits.length; c++) {
+            if (hits[c] > 0) {
+                found.add(c);
+            }
+        }
+        found.sort((a, b) -> hits[b] != hits[a] ? Integer.compare(hits[b], hits[a]) : Integer.compare(a, b));
+        return found.stream().map(c -> categories.get(c).name()).toList();
+    }
+
+    /**
+     * The category with the most keyword hits in a text, or null when none matches.
+     */
+    public String primaryCategory(String text) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        int[] hits = countHits(text);
+        int best = -1;
+        for (int c = 0; c < hits.length; c++) {
+            if (hits[c] > 0 && (best < 0 || hits[c] > hits[best])) {
+                best = c;
+            }
+        }
+        return best >= 0 ? categories.get(best).name() : null;
+    }
+
+    /**
+     * Known causes a category points to, most likely first.
+     */
+    public List<String> causesOf(String category) {
+        Category entry = categoriesByName.get(category);
+        return entry != null ? entry.causes() : List.of();
+    }
+
+    private int[] countHits(String text) {
+        int[] hits = new int[categories.size()];
+        matcher.scan(text, (end, keyword) -> {
+            int start = end - matcher.patternLength(keyword);
+            boolean wordStart = start == 0 || !Character.isLetterOrDigit(text.charAt(start - 1));
+            boolean wordEnd = !numericEnd[keyword] || end == text.length() || !Character.isLetterOrDigit(text.charAt(end));
+            if (wordStart && wordEnd) {
+                hits[keywordCategory[keyword]]++;
+            }
+        });
+        return hits;
+    }
+
+    List<Category> loadCatalog() {
+        TypeReference<List<Category>> type = new TypeReference<>() {};
+        try {
+            if (catalogPath.isPresent()) {
+                try (InputStream in = Files.newInputStream(Path.of(catalogPath.get()))) {
+                    return objectMapper.readValue(in, type);
+                }
+            }
+            try (InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream(BUNDLED_CATALOG)) {
+                if (in == null) {
+                    throw new IllegalStateException("Classification catalog not found on classpath: " + BUNDLED_CATALOG);
+                }
+                return objectMapper.readValue(in, type);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read classification catalog", e);
+        }
+    }
+
+    /**
+     * A catalog entry: a failure category, the keywords revealing it and the known
+     * causes it points to, most likely first.
+     */
+    public record Category(
+        String name,
+        List<String> keywords,
+        List<String> causes
+    ) {}
+}
@@ -0,0 +1,129 @@
+package com.smartincident.service;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Deltas accumulated in memory per key and flushed periodically into a table whose
+ * rows every replica adds to.
+ *
+ * A flush updates the row of each key or inserts it when missing, in one transaction;
+ * on failure the deltas go back to the buffer and are retried by the next flush.
+ * Readers combine the table with the pending deltas under a shared lock that a
+ * flush holds exclusively, so no delta is seen twice or missed while it moves.
+ *
+ * @param <K> key of a row
+ * @param <V> delta added to a row
+ * @param <E> entity of a row
+ */
+class DeltaBuffer<K, V, E> {
+
+    private final String description;
+    private final PanacheRepository<E> repository;
+    private final BinaryOperator<V> combiner;
+    private final Map<K, V> pending = new ConcurrentHashMap<>();
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+    private volatile LocalDateTime lastPurge = LocalDateTime.MIN;
+
+    /**
+     * @param description what the rows are, for logs, e.g. "metric buckets"
+     * @param combiner adds two deltas of the same key
+     */
+    DeltaBuffer(String description, PanacheRepository<E> repository, BinaryOperator<V> combiner) {
+        this.description = description;
+        this.repository = repository;
+        this.combiner = combiner;
+    }
+
+    /**
+     * Add deltas, typically those of one committed batch.
+     */
+    void addAll(Map<K, V> deltas) {
+        deltas.forEach((key, delta) -> pending.merge(key, delta, combiner));
+    }
+
+    /**
+     * Read the table and the unflushed deltas with no flush in between.
+     */
+    <R> R read(Function<Map<K, V>, R> reader) {
+        flushLock.readLock().lock();
+        try {
+            return reader.apply(Collections.unmodifiableMap(pending));
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Move the unflushed deltas into the table: update adds a delta to the row of its
+     * key and returns the number of rows changed, create builds the row when there is
+     * none yet.
+     *
+     * @return the keys written, empty when there was nothing to write or the write failed
+     */
+    Set<K> flush(ToIntBiFunction<K, V> update, BiFunction<K, V, E> create) {
+        flushLock.writeLock().lock();
+        try {
+            Map<K, V> deltas = new HashMap<>();
+            for (K key : pending.keySet()) {
+                V delta = pending.remove(key);
+                if (delta != null) {
+                    deltas.put(key, delta);
+                }
+            }
+            if (deltas.isEmpty()) {
+                return Set.of();
+            }
+            try {
+                QuarkusTransaction.requiringNew().run(() -> {
+                    deltas.forEach((key, delta) -> {
+                        if (update.applyAsInt(key, delta) == 0) {
+                            repository.persist(create.apply(key, delta));
+                        }
+                    });
+                    repository.flush();
+                });
+                Log.debugf("Flushed %d %s", deltas.size(), description);
+                return deltas.keySet();
+            } catch (Exception e) {
+                // Typically another replica inserted one of the rows first; the retry updates it
+                addAll(deltas);
+                Log.warnf("Failed to flush %s, will retry: %s", description, e.getMessage());
+                return Set.of();
+            }
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Delete expired rows at most once an hour; purge deletes the rows older than
+     * the given time and returns how many.
+     */
+    void purgeExpired(int retentionDays, ToLongFunction<LocalDateTime> purge) {
+        LocalDateTime now = LocalDateTime.now();
+        if (lastPurge.isAfter(now.minusHours(1))) {
+            return;
+        }
+        lastPurge = now;
+        long deleted = QuarkusTransaction.requiringNew().call(() -> purge.applyAsLong(now.minusDays(retentionDays)));
+        if (deleted > 0) {
+            Log.infof("Purged %d %s older than %d days", deleted, description, retentionDays);
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.smartincident.service;
+
+import com.smartincident.event.LogsIngestedEvent;
+import com.smartincident.model.LogEntry;
+import com.smartincident.repository.LogEntryRepository;
+import com.smartincident.util.ServiceDependencyGraph;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Service maintaining the service call graph from traced logs.
+ *
+ * Each committed log with a trace id is folded into a small per-trace state (span to
+ * service, caller of each service) kept for the most recently active traces. A span
+ * whose parentSpanId belongs to another service adds a call edge from that service;
+ * without a parent span, the first span of a service in the trace is taken as called
+ * by the service of the span before it. The first ERROR log of a service within a trace
+ * counts as a failed call on the edge into it. Every step is O(1) per log line.
+ *
+ * Edge counts decay with app.dependencies.half-life-minutes. The graph lives in
+ * memory, per replica, and is rebuilt from the last app.dependencies.rebuild-minutes
+ * of traced logs at startup.
+ */
+@ApplicationScoped
+public class DependencyGraphService {
+
+    private static final int REBUILD_BATCH_SIZE = 5000;
+    private static final int MAX_SPANS_PER_TRACE = 256;
+    // Edges whose decayed call count fell below this are left out of views
+    private static final double MIN_VISIBLE_CALLS = 0.05;
+    // Failing calls tried per failure path search
+    private static final int MAX_PATH_EDGES = 1000;
+
+    @Inject
+    LogEntryRepository logEntryRepository;
+
+    @Inject
+    EntityManager entityManager;
+
+    @ConfigProperty(name = "app.dependencies.half-life-minutes", defaultValue = "30")
+    int halfLifeMinutes;
+
+    @ConfigProperty(name = "app.dependencies.active-traces", defaultValue = "50000")
+    int activeTraces;
+
+    @ConfigProperty(name = "app.dependencies.rebuild-minutes", defaultValue = "60")
+    int rebuildMinutes;
+
+    @ConfigProperty(name = "app.dependencies.min-error-rate", defaultValue = "0.2")
+    double minErrorRate;
+
+    @ConfigProperty(name = "app.dependencies.max-path-depth", defaultValue = "6")
+    int maxPathDepth;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private ServiceDependencyGraph graph;
+    private Map<String, TraceState> traces;
+
+    void onStart(@Observes StartupEvent event) {
+        graph = new ServiceDependencyGraph(halfLifeMinutes * 60_000L);
+        int capacity = activeTraces;
+        traces = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TraceState> eldest) {
+                return size() > capacity;
+            }
+        };
+        rebuild();
+    }
+
+    /**
+     * Fold committed traced logs into the graph.
+     */
+    void onLogsIngested(@Observes(during = TransactionPhase.AFTER_SUCCESS) LogsIngestedEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (LogEntry entry : event.entries()) {
+                record(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * All visible edges, busiest first.
+     */
+    public DependencyGraph getGraph() {
+        long now = System.currentTimeMillis();
+        lock.readLock().lock();
+        try {
+            List<DependencyEdge> edges = new ArrayList<>();
+            Set<String> services = new HashSet<>();
+            for (int edge = 0; edge < graph.edgeCount(); edge++) {
+                DependencyEdge view = view(edge, now);
+                if (view != null) {
+                    edges.add(view);
+                    services.add(view.caller());
+                    services.add(view.callee());
+                }
+            }
+            edges.sort(Comparator.comparingDouble(DependencyEdge::calls).reversed());
+            return new DependencyGraph(services.stream().sorted().toList(), edges);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The callers and callees of one service.
+     */
+    public Optional<ServiceDependencies> getDependencies(String serviceName) {
+        long now = System.currentTimeMillis();
+        lock.readLock().lock();
+        try {
+            int service = graph.findService(serviceName);
+            if (service < 0) {
+                return Optional.empty();
+            }
+            return Optional.of(new ServiceDependencies(
+                serviceName,
+                views(graph.edgesInto(service), now),
+                views(graph.edgesFrom(service), now)
+            ));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Services a service calls, directly or through other services; empty when the
+     * service has not been seen in traces.
+     */
+    public Optional<Set<String>> findDownstream(String serviceName) {
+        long now = System.currentTimeMillis();
+        lock.readLock().lock();
+        try {
+            int service = graph.findService(serviceName);
+            if (service < 0) {
+                return Optional.empty();
+            }
+            Set<String> downstream = new HashSet<>();
+            Deque<Integer> pending = new ArrayDeque<>();
+            Set<Integer> visited = new HashSet<>();
+            pending.add(service);
+            visited.add(service);
+            while (!pending.isEmpty()) {
+                for (int edge : graph.edgesFrom(pending.poll())) {
+                    int callee = graph.callee(edge);
+                    if (graph.calls(edge, now) >= MIN_VISIBLE_CALLS && visited.add(callee)) {
+                        downstream.add(graph.serviceName(callee));
+                        pending.add(callee);
+                    }
+                }
+            }
+            return Optional.of(downstream);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Follow failing calls out of a service to the deepest dependency that is still
+     * failing: of all paths along edges with an error rate of at least
+     * app.dependencies.min-error-rate, the longest one, then the one with the highest
+     * lowest error rate. The path is empty when no call out of the service fails.
+     * Paths are followed at most app.dependencies.max-path-depth calls deep, and at most
+     * MAX_PATH_EDGES failing calls are tried, so a wide outage keeps the search short.
+     */
+    public FailurePath findFailurePath(String serviceName) {
+        long now = System.currentTimeMillis();
+        lock.readLock().lock();
+        try {
+            int service = graph.findService(serviceName);
+            if (service < 0) {
+                return new FailurePath(serviceName, null, List.of());
+            }
+            Set<Integer> visited = new HashSet<>();
+            visited.add(service);
+            List<DependencyEdge> path = deepestFailingPath(service, visited, maxPathDepth, new int[] {MAX_PATH_EDGES}, now);
+            String suspect = path.isEmpty() ? null : path.get(path.size() - 1).callee();
+            return new FailurePath(serviceName, suspect, path);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<DependencyEdge> deepestFailingPath(int service, Set<Integer> visited, int depth, int[] budget,
+                                                    long now) {
+        List<DependencyEdge> best = List.of();
+        if (depth == 0) {
+            return best;
+        }
+        for (int edge : graph.edgesFrom(service)) {
+            DependencyEdge view = view(edge, now);
+            int callee = graph.callee(edge);
+            if (view == null || view.errorRate() < minErrorRate || budget[0] <= 0 || !visited.add(callee)) {
+                continue;
+            }
+            budget[0]--;
+            List<DependencyEdge> path = new ArrayList<>();
+            path.add(view);
+            path.addAll(deepestFailingPath(callee, visited, depth - 1, budget, now));
+            visited.remove(callee);
+            if (isWorse(best, path)) {
+                best = path;
+            }
+        }
+        return best;
+    }
+
+    private static boolean isWorse(List<DependencyEdge> current, List<DependencyEdge> candidate) {
+        if (candidate.size() != current.size()) {
+            return candidate.size() > current.size();
+        }
+        return minErrorRate(candidate) > minErrorRate(current);
+    }
+
+    private static double minErrorRate(List<DependencyEdge> path) {
+        return path.stream().mapToDouble(DependencyEdge::errorRate).min().orElse(0);
+    }
+
+    private void record(LogEntry entry) {
+        if (entry.traceId == null || entry.traceId.isBlank()) {
+            return;
+        }
+        long at = toMillis(entry.timestamp);
+        int service = graph.serviceId(entry.serviceName);
+        TraceState trace = traces.computeIfAbsent(entry.traceId, id -> new TraceState());
+
+        boolean newSpan = entry.spanId != null
+                ? !trace.spanServices.containsKey(entry.spanId)
+                : trace.lastService != service;
+        if (newSpan) {
+            int caller = -1;
+            if (entry.parentSpanId != null) {
+                caller = trace.spanServices.getOrDefault(entry.parentSpanId, -1);
+            } else if (trace.seen.add(service)) {
+                caller = trace.lastService;
+            }
+            if (caller >= 0 && caller != service) {
+                graph.recordCall(caller, service, at);
+                trace.callers.put(service, caller);
+            }
+            trace.seen.add(service);
+            if (entry.spanId != null && trace.spanServices.size() < MAX_SPANS_PER_TRACE) {
+                trace.spanServices.put(entry.spanId, service);
+            }
+            trace.lastService = service;
+        }
+
+        if (entry.isError() && trace.failed.add(service)) {
+            Integer caller = trace.callers.get(service);
+            if (caller != null) {
+                graph.recordError(caller, service, at);
+            }
+        }
+    }
+
+    private List<DependencyEdge> views(int[] edges, long now) {
+        List<DependencyEdge> views = new ArrayList<>(edges.length);
+        for (int edge : edges) {
+            DependencyEdge view = view(edge, now);
+            if (view != null) {
+                views.add(view);
+            }
+        }
+        views.sort(Comparator.comparingDouble(DependencyEdge::calls).reversed());
+        return views;
+    }
+
+    private DependencyEdge view(int edge, long now) {
+        double calls = graph.calls(edge, now);
+        if (calls < MIN_VISIBLE_CALLS) {
+            return null;
+        }
+        double errors = graph.errors(edge, now);
+        return new DependencyEdge(
+            graph.serviceName(graph.caller(edge)),
+            graph.serviceName(graph.callee(edge)),
+            round(calls),
+            round(errors),
+            round(Math.min(1, errors / calls)),
+            LocalDateTime.ofInstant(Instant.ofEpochMilli(graph.updatedAt(edge)), ZoneId.systemDefault())
+        );
+    }
+
+    private void rebuild() {
+        LocalDateTime since = LocalDateTime.now().minusMinutes(rebuildMinutes);
+        long lastId = 0;
+        int replayed = 0;
+        while (true) {
+            long afterId = lastId;
+            List<LogEntry> batch = QuarkusTransaction.requiringNew().call(() -> {
+                List<LogEntry> entries = logEntryRepository.findTracedSince(since, afterId, REBUILD_BATCH_SIZE);
+                entityManager.clear();
+                return entries;
+            });
+            lock.writeLock().lock();
+            try {
+                for (LogEntry entry : batch) {
+                    record(entry);
+                    lastId = entry.id;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            replayed += batch.size();
+            if (batch.size() < REBUILD_BATCH_SIZE) {
+                break;
+            }
+        }
+        Log.infof("Service dependency graph built from %d traced logs: %d services, %d edges",
+                  replayed, graph.serviceCount(), graph.edgeCount());
+    }
+
+    private static long toMillis(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * What is known about one active trace.
+     */
+    private static class TraceState {
+        final Map<String, Integer> spanServices = new HashMap<>();
+        final Map<Integer, Integer> callers = new HashMap<>();
+        final Set<Integer> seen = new HashSet<>();
+        final Set<Integer> failed = new HashSet<>();
+        int lastService = -1;
+    }
+
+    /**
+     * Calls from one service to another, with decayed call and error counts.
+     */
+    public record DependencyEdge(
+        String caller,
+        String callee,
+        double calls,
+        double errors,
+        double errorRate,
+        LocalDateTime lastSeen
+    ) {}
+
+    /**
+     * Every service seen in traces and the calls between them.
+     */
+    public record DependencyGraph(
+        List<String> services,
+        List<DependencyEdge> edges
+    ) {}
+
+    /**
+     * Calls into and out of one service.
+     */
+    public record ServiceDependencies(
+        String serviceName,
+        List<DependencyEdge> callers,
+        List<DependencyEdge> callees
+    ) {}
+
+    /**
+     * Chain of failing calls from a service; suspect is the last callee, or null.
+     */
+    public record FailurePath(
+        String serviceName,
+        String suspect,
+        List<DependencyEdge> path
+    ) {}
+}
@@ -0,0 +1,68 @@
+package com.smartincident.service;
+
+import com.smartincident.service.DependencyGraphService.DependencyEdge;
+import com.smartincident.service.DependencyGraphService.FailurePath;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Enrichment stage following failing calls through the service call graph: when the
+ * service's errors come from a dependency that is itself failing, the cause is
+ * located at the deepest failing dependency rather than the service that raised the
+ * incident. The most confident downstream cause found by earlier stages is pointed at
+ * that dependency; without one, the dependency is reported as unavailable. Other
+ * causes from earlier stages are local diagnoses and are left to compete on their own.
+ */
+@ApplicationScoped
+public class DependencyStage implements EnrichmentStage {
+
+    @Inject
+    DependencyGraphService dependencyGraphService;
+
+    @Inject
+    RootCauseAnalysisService rootCauseAnalysisService;
+
+    @Inject
+    ClassificationService classificationService;
+
+    @Override
+    public String name() {
+        return "dependencies";
+    }
+
+    @Override
+    public int order() {
+        return 35;
+    }
+
+    @Override
+    public Result enrich(Context context) {
+        FailurePath failurePath = dependencyGraphService.findFailurePath(context.serviceName());
+        if (failurePath.suspect() == null) {
+            return Result.evidence("No failing calls out of " + context.serviceName(), failurePath);
+        }
+
+        String chain = failurePath.path().stream()
+                .map(DependencyEdge::callee)
+                .collect(Collectors.joining(" -> ", context.serviceName() + " -> ", ""));
+        // A chain is only as convincing as its weakest failing link
+        double confidence = failurePath.path().stream().mapToDouble(DependencyEdge::errorRate).min().orElse(0);
+
+        List<String> downstreamCauses = classificationService.causesOf("DOWNSTREAM");
+        Optional<String> cause = context.previous().values().stream()
+                .filter(result -> downstreamCauses.contains(result.suggestedCause())
+                        && rootCauseAnalysisService.isKnownCause(context.type(), result.suggestedCause()))
+                .max(Comparator.comparingDouble(Result::confidence))
+                .map(Result::suggestedCause)
+                .or(() -> rootCauseAnalysisService.causeForCategory(context.type(), "DOWNSTREAM"));
+        String suggestedCause = cause.map(c -> c + " (" + failurePath.suspect() + ")").orElse(null);
+
+        return new Result("Failing calls lead to " + failurePath.suspect() + ": " + chain,
+                failurePath, suggestedCause, suggestedCause != null ? confidence : 0);
+    }
+}
@@ -0,0 +1,216 @@
+package com.smartincident.service;
+
+import com.smartincident.repository.MetricRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.logging.Log;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service deciding when each service is evaluated for anomalies.
+ *
+ * Every service has its own check interval: services close to a threshold or
+ * whose readings move a lot are checked at the minimum interval, calm services
+ * back off towards the maximum, and services without new data since their last
+ * evaluation are skipped. A global evaluations-per-second budget bounds the work
+ * done per scheduler tick, with the most overdue services going first.
+ */
+@ApplicationScoped
+public class DetectionCadenceService {
+
+    @Inject
+    MetricRepository metricRepository;
+
+    @Inject
+    AnomalyDetectionService anomalyDetectionService;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "app.detection.adaptive.enabled", defaultValue = "true")
+    boolean adaptiveEnabled;
+
+    @ConfigProperty(name = "app.detection.check-interval-seconds", defaultValue = "30")
+    int baseIntervalSeconds;
+
+    @ConfigProperty(name = "app.detection.adaptive.min-interval-seconds", defaultValue = "5")
+    int minIntervalSeconds;
+
+    @ConfigProperty(name = "app.detection.adaptive.max-interval-seconds", defaultValue = "120")
+    int maxIntervalSeconds;
+
+    @ConfigProperty(name = "app.detection.adaptive.near-threshold-ratio", defaultValue = "0.8")
+    double nearThresholdRatio;
+
+    @ConfigProperty(name = "app.detection.adaptive.volatility-delta", defaultValue = "0.2")
+    double volatilityDelta;
+
+    @ConfigProperty(name = "app.detection.adaptive.max-evaluations-per-second", defaultValue = "50")
+    double maxEvaluationsPerSecond;
+
+    @ConfigProperty(name = "app.detection.tick-seconds", defaultValue = "5")
+    int tickSeconds;
+
+    private final Map<String, ServiceCadence> cadences = new ConcurrentHashMap<>();
+    private volatile boolean seeded;
+
+    /**
+     * Note that new logs or metrics arrived for a service.
+     */
+    public void recordActivity(String serviceName) {
+        if (serviceName == null) {
+            return;
+        }
+        cadences.computeIfAbsent(serviceName, name -> new ServiceCadence(name, baseIntervalSeconds))
+                .dataVersion.incrementAndGet();
+    }
+
+    /**
+     * Evaluate the services that are due, within the per-tick budget.
+     */
+    public void runDueEvaluations() {
+        seedFromStoredMetrics();
+
+        long now = System.currentTimeMillis();
+        List<ServiceCadence> due = new ArrayList<>();
+        for (ServiceCadence cadence : cadences.values()) {
+            if (cadence.nextDueAt <= now) {
+                due.add(cadence);
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        due.sort(Comparator.comparingLong(c -> c.nextDueAt));
+        long start = System.nanoTime();
+
+        int budget = (int) Math.max(1, Math.floor(maxEvaluationsPerSecond * tickSeconds));
+        int evaluated = 0;
+        int skipped = 0;
+
+        for (ServiceCadence cadence : due) {
+            long version = cadence.dataVersion.get();
+            if (adaptiveEnabled && version == cadence.evaluatedVersion) {
+                // Nothing new since the last evaluation, so nothing new to detect
+                cadence.skips++;
+                cadence.nextDueAt = now + cadence.intervalSeconds * 1000L;
+                skipped++;
+                continue;
+            }
+            if (evaluated >= budget) {
+                break;  // still due, picked up first on the next tick
+            }
+
+            double pressure;
+            try {
+                pressure = anomalyDetectionService.detectAnomaliesForService(cadence.serviceName);
+            } catch (Exception e) {
+                Log.errorf("Error during anomaly detection for %s: %s", cadence.serviceName, e.getMessage());
+                pressure = cadence.lastPressure;
+            }
+
+            cadence.evaluatedVersion = version;
+            cadence.evaluations++;
+            cadence.lastEvaluatedAt = now;
+            cadence.intervalSeconds = nextInterval(cadence, pressure);
+            cadence.lastPressure = pressure;
+            cadence.nextDueAt = now + cadence.intervalSeconds * 1000L;
+            evaluated++;
+        }
+
+        int deferred = due.size() - evaluated - skipped;
+        if (evaluated > 0) {
+            registry.timer("detection.tick.duration").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (deferred > 0) {
+            registry.counter("detection.evaluations.deferred").increment(deferred);
+        }
+        if (evaluated + skipped > 0) {
+            Log.debugf("Detection tick: %d evaluated, %d skipped without new data, %d deferred",
+                       evaluated, skipped, deferred);
+        }
+    }
+
+    /**
+     * Current cadence of every known service.
+     */
+    public List<CadenceView> getCadences() {
+        return cadences.values().stream()
+                .sorted(Comparator.comparing(c -> c.serviceName))
+                .map(c -> new CadenceView(
+                    c.serviceName,
+                    c.intervalSeconds,
+                    c.lastPressure,
+                    c.lastEvaluatedAt > 0 ? Instant.ofEpochMilli(c.lastEvaluatedAt) : null,
+                    Instant.ofEpochMilli(c.nextDueAt),
+                    c.dataVersion.get() != c.evaluatedVersion,
+                    c.evaluations,
+                    c.skips))
+                .toList();
+    }
+
+    private int nextInterval(ServiceCadence cadence, double pressure) {
+        if (!adaptiveEnabled) {
+            return baseIntervalSeconds;
+        }
+        if (pressure >= nearThresholdRatio) {
+            return minIntervalSeconds;
+        }
+        if (Math.abs(pressure - cadence.lastPressure) >= volatilityDelta) {
+            return Math.max(minIntervalSeconds, cadence.intervalSeconds / 2);
+        }
+        return Math.min(maxIntervalSeconds, cadence.intervalSeconds * 2);
+    }
+
+    private void seedFromStoredMetrics() {
+        if (seeded) {
+            return;
+        }
+        // Services known only from data stored before startup get one evaluation
+        for (String serviceName : metricRepository.getDistinctServiceNames()) {
+            recordActivity(serviceName);
+        }
+        seeded = true;
+    }
+
+    private static class ServiceCadence {
+        final String serviceName;
+        final AtomicLong dataVersion = new AtomicLong();
+        volatile long evaluatedVersion;
+        volatile int intervalSeconds;
+        volatile long nextDueAt;
+        volatile long lastEvaluatedAt;
+        volatile double lastPressure;
+        volatile long evaluations;
+        volatile long skips;
+
+        ServiceCadence(String serviceName, int intervalSeconds) {
+            this.serviceName = serviceName;
+            this.intervalSeconds = intervalSeconds;
+        }
+    }
+
+    /**
+     * Detection cadence of one service.
+     */
+    public record CadenceView(
+        String serviceName,
+        int intervalSeconds,
+        double lastPressure,
+        Instant lastEvaluatedAt,
+        Instant nextEvaluationAt,
+        boolean pendingData,
+        long evaluations,
+        long skips
+    ) {}
+}
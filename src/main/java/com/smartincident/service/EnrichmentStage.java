@@ -0,0 +1,59 @@
+package com.smartincident.service;
+
+import com.smartincident.model.enums.IncidentType;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * One stage of the asynchronous root-cause enrichment pipeline.
+ *
+ * Stages are CDI beans run by IncidentEnrichmentService in ascending order(), each
+ * in its own transaction on an enrichment worker. A stage returns the evidence it
+ * found and, optionally, a suggested cause with a confidence in [0, 1]; the most
+ * confident suggestion replaces the provisional cause. A stage may also record
+ * findings of its own on the incident.
+ */
+public interface EnrichmentStage {
+
+    /**
+     * Stage name, used as the evidence key and metric tag.
+     */
+    String name();
+
+    /**
+     * Position of the stage in the pipeline; later stages see earlier results.
+     */
+    default int order() {
+        return 100;
+    }
+
+    Result enrich(Context context);
+
+    /**
+     * The incident being enriched and the results of the stages that already ran.
+     */
+    record Context(
+        Long incidentId,
+        IncidentType type,
+        String serviceName,
+        LocalDateTime detectedAt,
+        String provisionalCause,
+        Map<String, Result> previous
+    ) {}
+
+    /**
+     * Evidence found by a stage. details must serialize to a small JSON value.
+     */
+    record Result(
+        String summary,
+        Object details,
+        String suggestedCause,
+        double confidence
+    ) {
+
+        public static Result evidence(String summary, Object details) {
+            return new Result(summary, details, null, 0);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.smartincident.service;
+
+import com.smartincident.event.IncidentChangedEvent;
+import com.smartincident.event.LogsIngestedEvent;
+import com.smartincident.event.MetricsIngestedEvent;
+import com.smartincident.model.Incident;
+import com.smartincident.model.LogEntry;
+import com.smartincident.model.Metric;
+import com.smartincident.model.enums.IncidentStatus;
+import com.smartincident.repository.IncidentRepository;
+import com.smartincident.service.DependencyGraphService.DependencyEdge;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.interceptor.Interceptor;
+import jakarta.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service grouping incidents that share a cause into a parent incident and children.
+ *
+ * Every incident created within app.incidents.correlation.window-minutes is indexed in
+ * memory under its correlation keys: its service, the services on its failing
+ * dependency path (from the call graph), and its namespace with its probable cause. A
+ * new incident sharing a key with an indexed one becomes a child of that incident's
+ * parent, so a dependency outage raises one parent for every service it takes down.
+ * Lookups are a few map reads under a short lock; nothing is queried.
+ *
+ * The index is per replica and rebuilt from the open parents of the last window at
+ * startup; the parentIncidentId stored on each child is authoritative.
+ */
+@ApplicationScoped
+public class IncidentCorrelationService {
+
+    @Inject
+    IncidentRepository incidentRepository;
+
+    @Inject
+    DependencyGraphService dependencyGraphService;
+
+    @ConfigProperty(name = "app.incidents.correlation.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "app.incidents.correlation.window-minutes", defaultValue = "10")
+    int windowMinutes;
+
+    private final Map<String, String> namespaces = new ConcurrentHashMap<>();
+
+    // Guarded by this
+    private final Deque<WindowEntry> window = new ArrayDeque<>();
+    private final Map<String, WindowEntry> byKey = new HashMap<>();
+    private final Map<Long, WindowEntry> byIncident = new HashMap<>();
+
+    /**
+     * Index the open parents of the last window; runs after the dependency graph is built.
+     */
+    @Transactional
+    void onStart(@Observes @Priority(Interceptor.Priority.APPLICATION + 600) StartupEvent event) {
+        if (!enabled) {
+            return;
+        }
+        List<Incident> parents = incidentRepository.findOpenParentsSince(LocalDateTime.now().minusMinutes(windowMinutes));
+        for (Incident parent : parents) {
+            register(parent, keys(parent));
+        }
+        Log.infof("Incident correlation window rebuilt with %d open parents", parents.size());
+    }
+
+    /**
+     * Learn the namespace of each service from committed logs.
+     */
+    void onLogsIngested(@Observes(during = TransactionPhase.AFTER_SUCCESS) LogsIngestedEvent event) {
+        for (LogEntry entry : event.entries()) {
+            if (entry.namespace != null) {
+                namespaces.put(entry.serviceName, entry.namespace);
+            }
+        }
+    }
+
+    /**
+     * Learn the namespace of each service from committed metrics.
+     */
+    void onMetricsIngested(@Observes(during = TransactionPhase.AFTER_SUCCESS) MetricsIngestedEvent event) {
+        for (Metric metric : event.metrics()) {
+            if (metric.namespace != null) {
+                namespaces.put(metric.serviceName, metric.namespace);
+            }
+        }
+    }
+
+    /**
+     * Forget incidents whose creation rolled back.
+     */
+    void onCreateFailed(@Observes(during = TransactionPhase.AFTER_FAILURE) IncidentChangedEvent event) {
+        if (event.change() == IncidentChangedEvent.Change.CREATED) {
+            unregister(event.incident().id);
+        }
+    }
+
+    /**
+     * Stop attaching children to a parent once it is resolved.
+     */
+    void onIncidentChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) IncidentChangedEvent event) {
+        if (event.change() == IncidentChangedEvent.Change.STATUS_CHANGED
+                && event.incident().status == IncidentStatus.RESOLVED
+                && event.incident().parentIncidentId == null) {
+            unregister(event.incident().id);
+        }
+    }
+
+    /**
+     * Correlation keys of an incident: its service, the services on its failing
+     * dependency path, and its namespace with its probable cause. Empty when
+     * correlation is disabled. Compute them once per incident, as following the
+     * failing path walks the call graph.
+     */
+    public Set<String> keys(Incident incident) {
+        if (!enabled) {
+            return Set.of();
+        }
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add("service:" + incident.serviceName);
+        for (DependencyEdge edge : dependencyGraphService.findFailurePath(incident.serviceName).path()) {
+            keys.add("service:" + edge.callee());
+        }
+        String namespace = namespaces.get(incident.serviceName);
+        if (namespace != null && incident.probableCause != null) {
+            keys.add("cause:" + namespace + "|" + incident.probableCause);
+        }
+        return keys;
+    }
+
+    /**
+     * Find the parent of a new incident from its correlation keys.
+     *
+     * @return id of the parent incident, or empty when the incident starts a new group
+     */
+    public Optional<Long> findParent(Set<String> keys) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            evictExpired(now);
+            WindowEntry match = null;
+            for (String key : keys) {
+                WindowEntry entry = byKey.get(key);
+                if (entry != null && (match == null || entry.detectedAt > match.detectedAt)) {
+                    match = entry;
+                }
+            }
+            return match != null ? Optional.of(match.parentId) : Optional.empty();
+        }
+    }
+
+    /**
+     * Index a persisted incident under its keys, pointing at its parent (or itself).
+     */
+    public void register(Incident incident, Set<String> keys) {
+        if (!enabled) {
+            return;
+        }
+        long parentId = incident.parentIncidentId != null ? incident.parentIncidentId : incident.id;
+        long detectedAt = incident.detectedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        WindowEntry entry = new WindowEntry(incident.id, parentId, detectedAt, keys);
+        synchronized (this) {
+            window.addLast(entry);
+            byIncident.put(incident.id, entry);
+            for (String key : keys) {
+                byKey.put(key, entry);
+            }
+        }
+    }
+
+    private synchronized void unregister(Long incidentId) {
+        WindowEntry removed = byIncident.remove(incidentId);
+        if (removed == null) {
+            return;
+        }
+        List<WindowEntry> group = new ArrayList<>();
+        for (WindowEntry entry : window) {
+            if (entry == removed || entry.parentId == incidentId) {
+                group.add(entry);
+            }
+        }
+        for (WindowEntry entry : group) {
+            window.remove(entry);
+            byIncident.remove(entry.incidentId);
+            entry.keys.forEach(key -> byKey.remove(key, entry));
+        }
+    }
+
+    private void evictExpired(long now) {
+        long cutoff = now - windowMinutes * 60_000L;
+        while (!window.isEmpty() && window.peekFirst().detectedAt < cutoff) {
+            WindowEntry expired = window.pollFirst();
+            byIncident.remove(expired.incidentId);
+            expired.keys.forEach(key -> byKey.remove(key, expired));
+        }
+    }
+
+    /**
+     * An indexed incident: the group it belongs to, when it was detected and its keys.
+     */
+    private record WindowEntry(long incidentId, long parentId, long detectedAt, Set<String> keys) {}
+}
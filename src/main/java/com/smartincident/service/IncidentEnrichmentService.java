@@ -0,0 +1,268 @@
+package com.smartincident.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartincident.event.IncidentChangedEvent;
+import com.smartincident.model.Incident;
+import com.smartincident.model.enums.EnrichmentStatus;
+import com.smartincident.model.enums.IncidentType;
+import com.smartincident.repository.IncidentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.arc.All;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.interceptor.Interceptor;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service running root-cause enrichment off the incident-creation path.
+ *
+ * An incident is persisted with a provisional cause; once that commits, the incident
+ * is queued on a bounded worker pool which runs every EnrichmentStage in order, then
+ * writes the evidence and, when a stage is confident enough, a refined probable
+ * cause back in a short transaction and fires an ENRICHED change. Detection never
+ * waits on enrichment: when the queue is full the incident keeps its provisional
+ * cause and is marked FAILED.
+ *
+ * Queued work is lost when the application stops, so at startup incidents still
+ * PENDING from the last app.rca.enrichment.resume-minutes are queued again and older
+ * ones are marked FAILED. Another replica may enrich the same incident meanwhile;
+ * both write the same kind of result, so the later write simply wins.
+ */
+@ApplicationScoped
+public class IncidentEnrichmentService {
+
+    private static final int MAX_EVIDENCE_LENGTH = 8000;
+
+    @Inject
+    IncidentRepository incidentRepository;
+
+    @Inject
+    @All
+    List<EnrichmentStage> stages;
+
+    @Inject
+    Event<IncidentChangedEvent> incidentEvents;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "app.rca.enrichment.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "app.rca.enrichment.workers", defaultValue = "2")
+    int workers;
+
+    @ConfigProperty(name = "app.rca.enrichment.queue-capacity", defaultValue = "500")
+    int queueCapacity;
+
+    @ConfigProperty(name = "app.rca.enrichment.min-confidence", defaultValue = "0.5")
+    double minConfidence;
+
+    @ConfigProperty(name = "app.rca.enrichment.resume-minutes", defaultValue = "60")
+    int resumeMinutes;
+
+    private ThreadPoolExecutor executor;
+    private List<EnrichmentStage> pipeline;
+    private Timer pipelineTimer;
+
+    void onStart(@Observes StartupEvent event) {
+        pipeline = stages.stream().sorted(Comparator.comparingInt(EnrichmentStage::order)).toList();
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "rca-enrichment-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        pipelineTimer = Timer.builder("incident.enrichment.duration")
+                .description("Time from queueing an incident to recording its enrichment")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+        registry.gauge("incident.enrichment.queue.size", executor, e -> e.getQueue().size());
+
+        Log.infof("Root-cause enrichment pipeline: %s on %d workers",
+                  pipeline.stream().map(EnrichmentStage::name).toList(), workers);
+    }
+
+    /**
+     * Queue again the incidents left PENDING by a previous run; runs after the
+     * correlation window and dependency graph are rebuilt.
+     */
+    void resumePending(@Observes @Priority(Interceptor.Priority.APPLICATION + 700) StartupEvent event) {
+        LocalDateTime since = LocalDateTime.now().minusMinutes(resumeMinutes);
+        try {
+            List<Incident> pending = QuarkusTransaction.requiringNew().call(() -> {
+                int failed = incidentRepository.failPendingEnrichmentBefore(enabled ? since : LocalDateTime.now());
+                if (failed > 0) {
+                    Log.infof("Marked enrichment of %d stale pending incidents as failed", failed);
+                }
+                return enabled ? incidentRepository.findPendingEnrichmentSince(since) : List.<Incident>of();
+            });
+            for (Incident incident : pending) {
+                queue(incident.id, incident.type, incident.serviceName, incident.detectedAt, incident.probableCause);
+            }
+            if (!pending.isEmpty()) {
+                Log.infof("Queued %d pending incidents for enrichment again", pending.size());
+            }
+        } catch (Exception e) {
+            Log.errorf("Failed to resume pending enrichments: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Whether new incidents are enriched after creation.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Queue committed new incidents for enrichment.
+     */
+    void onIncidentChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) IncidentChangedEvent event) {
+        if (!enabled || event.change() != IncidentChangedEvent.Change.CREATED) {
+            return;
+        }
+        queue(event.incident().id, event.incident().type, event.incident().serviceName,
+              event.incident().detectedAt, event.incident().probableCause);
+    }
+
+    private void queue(Long incidentId, IncidentType type, String serviceName, LocalDateTime detectedAt,
+                       String probableCause) {
+        EnrichmentStage.Context context = new EnrichmentStage.Context(
+            incidentId,
+            type,
+            serviceName,
+            detectedAt,
+            probableCause,
+            new LinkedHashMap<>()
+        );
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> enrich(context, queuedAt));
+        } catch (RejectedExecutionException e) {
+            registry.counter("incident.enrichment.rejected").increment();
+            Log.warnf("Enrichment queue full, incident #%d keeps its provisional cause", incidentId);
+            markFailed(incidentId);
+        }
+    }
+
+    /**
+     * Run the pipeline for one incident and record the result.
+     */
+    void enrich(EnrichmentStage.Context context, long queuedAt) {
+        Map<String, Object> evidence = new LinkedHashMap<>();
+        EnrichmentStage.Result best = null;
+
+        for (EnrichmentStage stage : pipeline) {
+            long start = System.nanoTime();
+            try {
+                EnrichmentStage.Result result = QuarkusTransaction.requiringNew().call(() -> stage.enrich(context));
+                context.previous().put(stage.name(), result);
+                evidence.put(stage.name(), result);
+                // Ties go to the later stage, which has seen the earlier results
+                if (result.suggestedCause() != null && result.confidence() >= minConfidence
+                        && (best == null || result.confidence() >= best.confidence())) {
+                    best = result;
+                }
+            } catch (Exception e) {
+                registry.counter("incident.enrichment.stage.failures", "stage", stage.name()).increment();
+                evidence.put(stage.name(), Map.of("error", String.valueOf(e.getMessage())));
+                Log.warnf("Enrichment stage %s failed for incident #%d: %s", stage.name(), context.incidentId(), e.getMessage());
+            } finally {
+                registry.timer("incident.enrichment.stage.duration", "stage", stage.name())
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        String refinedCause = best != null ? best.suggestedCause() : null;
+        double confidence = best != null ? best.confidence() : 0;
+        try {
+            String evidenceJson = toJson(evidence);
+            QuarkusTransaction.requiringNew().run(() -> {
+                Incident incident = incidentRepository.findById(context.incidentId());
+                if (incident == null) {
+                    return;
+                }
+                if (refinedCause != null) {
+                    incident.probableCause = truncate(refinedCause, 500);
+                }
+                incident.rcaEvidence = evidenceJson;
+                incident.enrichmentStatus = EnrichmentStatus.COMPLETED;
+                incident.enrichedAt = LocalDateTime.now();
+                incidentEvents.fire(IncidentChangedEvent.enriched(incident));
+            });
+            Log.infof("Enriched incident #%d: cause %s (confidence %.2f)",
+                      context.incidentId(), refinedCause != null ? refinedCause : "unchanged", confidence);
+        } catch (Exception e) {
+            Log.errorf("Failed to record enrichment of incident #%d: %s", context.incidentId(), e.getMessage());
+            markFailed(context.incidentId());
+        } finally {
+            pipelineTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void markFailed(Long incidentId) {
+        try {
+            QuarkusTransaction.requiringNew().run(() -> {
+                Incident incident = incidentRepository.findById(incidentId);
+                if (incident != null) {
+                    incident.enrichmentStatus = EnrichmentStatus.FAILED;
+                }
+            });
+        } catch (Exception e) {
+            Log.errorf("Failed to mark enrichment of incident #%d as failed: %s", incidentId, e.getMessage());
+        }
+    }
+
+    /**
+     * Serialize the evidence, dropping stage details when it would not fit the column.
+     */
+    private String toJson(Map<String, Object> evidence) throws JsonProcessingException {
+        String json = objectMapper.writeValueAsString(evidence);
+        if (json.length() <= MAX_EVIDENCE_LENGTH) {
+            return json;
+        }
+        Map<String, Object> summaries = new LinkedHashMap<>();
+        evidence.forEach((stage, result) -> summaries.put(stage,
+            result instanceof EnrichmentStage.Result r ? Map.of("summary", truncate(r.summary(), 500)) : result));
+        return truncate(objectMapper.writeValueAsString(summaries), MAX_EVIDENCE_LENGTH);
+    }
+
+    private static String truncate(String text, int maxLength) {
+        return text.length() > maxLength ? text.substring(0, maxLength) : text;
+    }
+}
@@ -0,0 +1,102 @@
+package com.smartincident.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.EntityTag;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Cache of serialized incident read responses, keyed by request URI and valid for
+ * one incident change version.
+ *
+ * ETags combine a per-instance id with the change version, so a tag issued by one
+ * replica never produces a false 304 on another.
+ */
+@ApplicationScoped
+public class IncidentResponseCache {
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "app.incidents.response-cache-size", defaultValue = "256")
+    int maxEntries;
+
+    private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
+
+    private final Map<String, CachedResponse> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    /**
+     * ETag of every incident read response at the given change version.
+     */
+    public EntityTag etag(long version) {
+        return new EntityTag(instanceId + "-" + version);
+    }
+
+    /**
+     * Check whether an If-None-Match header matches the ETag of a version.
+     */
+    public boolean matches(String ifNoneMatch, long version) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        String current = etag(version).getValue();
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals("\"" + current + "\"")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the cached response for a request, if it was built at the given version.
+     */
+    public CachedResponse get(String key, long version) {
+        synchronized (entries) {
+            CachedResponse cached = entries.get(key);
+            return cached != null && cached.version() == version ? cached : null;
+        }
+    }
+
+    /**
+     * Serialize and cache a response body built at the given version.
+     */
+    public CachedResponse put(String key, long version, Object body, Map<String, String> headers) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize incident response", e);
+        }
+
+        CachedResponse cached = new CachedResponse(version, json, Map.copyOf(headers));
+        synchronized (entries) {
+            entries.put(key, cached);
+        }
+        return cached;
+    }
+
+    /**
+     * A serialized response and the extra headers that go with it.
+     */
+    public record CachedResponse(
+        long version,
+        String body,
+        Map<String, String> headers
+    ) {}
+}
@@ -2,18 +2,29 @@ package com.smartincident.service;
 
 import com.smartincident.dto.IncidentDTO;
 import com.smartincident.dto.IncidentStatusUpdateDTO;
+import com.smartincident.event.IncidentChangedEvent;
 import com.smartincident.model.Incident;
+import com.smartincident.model.enums.EnrichmentStatus;
 import com.smartincident.model.enums.IncidentSeverity;
 import com.smartincident.model.enums.IncidentStatus;
 import com.smartincident.model.enums.IncidentType;
 import com.smartincident.repository.IncidentRepository;
+import com.smartincident.repository.IncidentRepository.IncidentFilter;
+import com.smartincident.util.KeysetCursor;
 import io.quarkus.logging.Log;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service for managing incidents.
@@ -30,6 +41,21 @@ public class IncidentService {
     @Inject
     AlertingService alertingService;
 
+    @Inject
+    IncidentEnrichmentService incidentEnrichmentService;
+
+    @Inject
+    IncidentCorrelationService incidentCorrelationService;
+
+    @Inject
+    IncidentStatsService incidentStatsService;
+
+    @Inject
+    Event<IncidentChangedEvent> incidentEvents;
+
+    private final AtomicLong changeVersion = new AtomicLong();
+    private volatile LocalDateTime lastSeenModification;
+
     /**
      * Create a new incident.
      */
@@ -47,56 +73,123 @@ public class IncidentService {
         incident.description = description != null ? description : type.getDescription();
         incident.relatedMetrics = relatedMetrics;
         
-        // Analyze and set probable cause
+        // Cheap provisional cause; enrichment refines it after commit
         incident.probableCause = rootCauseAnalysisService.analyzeCause(incident);
+        if (incidentEnrichmentService.isEnabled()) {
+            incident.enrichmentStatus = EnrichmentStatus.PENDING;
+        }
+        
+        // Group under a recent incident sharing a dependency or cause
+        Set<String> correlationKeys = incidentCorrelationService.keys(incident);
+        Incident parent = incidentCorrelationService.findParent(correlationKeys)
+                .map(incidentRepository::findById)
+                .filter(p -> p.status != IncidentStatus.RESOLVED)
+                .orElse(null);
+        if (parent != null) {
+            incident.parentIncidentId = parent.id;
+        }
         
         incidentRepository.persist(incident);
+        incidentCorrelationService.register(incident, correlationKeys);
+        incidentEvents.fire(IncidentChangedEvent.created(incident));
         
-        Log.infof("Created incident #%d: [%s] %s for %s - Probable cause: %s", 
-                  incident.id, severity, type, serviceName, incident.probableCause);
+        boolean escalates = false;
+        if (parent != null) {
+            // Updated in place so children created concurrently, here or on another replica, all count
+            incidentRepository.incrementChildCount(parent.id);
+            // A child more severe than its group raises the group and is alerted on
+            escalates = incidentRepository.raiseSeverity(parent.id, severity);
+            incidentRepository.getEntityManager().refresh(parent);
+            incidentEvents.fire(IncidentChangedEvent.childAdded(parent));
+            Log.infof("Created incident #%d: [%s] %s for %s, grouped under #%d - Probable cause: %s",
+                      incident.id, severity, type, serviceName, parent.id, incident.probableCause);
+            if (!escalates) {
+                return incident;
+            }
+            Log.infof("Incident #%d escalated to %s by #%d", parent.id, severity, incident.id);
+        } else {
+            Log.infof("Created incident #%d: [%s] %s for %s - Probable cause: %s", 
+                      incident.id, severity, type, serviceName, incident.probableCause);
+        }
         
-        // Send alert
+        // Send alert; children are covered by their parent's alert unless they escalate it
         alertingService.sendAlert(incident);
         
         return incident;
     }
 
     /**
-     * Get all incidents.
+     * Monotonically increasing version of the incident data, bumped after every
+     * committed create or update. Read it before querying, so a response is never
+     * cached under a version newer than the data it was built from.
      */
-    public List<IncidentDTO> getAllIncidents() {
-        return incidentRepository.findAllOrderedByDetectedAt()
-                .stream()
-                .map(IncidentDTO::fromEntity)
-                .toList();
+    public long getChangeVersion() {
+        return changeVersion.get();
     }
 
     /**
-     * Get incident by ID.
+     * Bump the change version if incidents were modified outside this instance,
+     * e.g. by another replica. Costs one indexed max() query.
      */
-    public Optional<IncidentDTO> getIncidentById(Long id) {
-        Incident incident = incidentRepository.findById(id);
-        return incident != null ? Optional.of(IncidentDTO.fromEntity(incident)) : Optional.empty();
+    public void refreshChangeVersion() {
+        LocalDateTime latest = incidentRepository.findLatestModification();
+        if (latest != null && !latest.equals(lastSeenModification)) {
+            lastSeenModification = latest;
+            changeVersion.incrementAndGet();
+        }
+    }
+
+    void onIncidentChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) IncidentChangedEvent event) {
+        changeVersion.incrementAndGet();
     }
 
     /**
-     * Get open incidents.
+     * Get one page of incidents matching a filter, newest first.
+     *
+     * @param cursor opaque cursor from a previous page, or null for the first page
+     * @throws IllegalArgumentException if the cursor is malformed
      */
-    public List<IncidentDTO> getOpenIncidents() {
-        return incidentRepository.findOpenIncidents()
-                .stream()
-                .map(IncidentDTO::fromEntity)
-                .toList();
+    public IncidentPage listIncidents(IncidentFilter filter, String cursor, int limit) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+
+        // Fetch one extra row to know whether another page follows
+        List<Incident> incidents = incidentRepository.findPage(
+                filter, after != null ? after.timestamp() : null, after != null ? after.id() : null, limit + 1);
+        boolean hasMore = incidents.size() > limit;
+        if (hasMore) {
+            incidents = incidents.subList(0, limit);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            Incident last = incidents.get(incidents.size() - 1);
+            nextCursor = new KeysetCursor(last.detectedAt, last.id).encode();
+        }
+
+        return new IncidentPage(
+            incidents.stream().map(IncidentDTO::fromEntity).toList(),
+            nextCursor
+        );
+    }
+
+    /**
+     * Get incident by ID.
+     */
+    public Optional<IncidentDTO> getIncidentById(Long id) {
+        Incident incident = incidentRepository.findById(id);
+        return incident != null ? Optional.of(IncidentDTO.fromEntity(incident)) : Optional.empty();
     }
 
     /**
-     * Get incidents by service name.
+     * Get the incidents grouped under a parent incident.
      */
-    public List<IncidentDTO> getIncidentsByService(String serviceName) {
-        return incidentRepository.findByServiceName(serviceName)
-                .stream()
+    public Optional<List<IncidentDTO>> getChildren(Long parentId) {
+        if (incidentRepository.findById(parentId) == null) {
+            return Optional.empty();
+        }
+        return Optional.of(incidentRepository.findChildren(parentId).stream()
                 .map(IncidentDTO::fromEntity)
-                .toList();
+                .toList());
     }
 
     /**
@@ -111,6 +204,7 @@ public class IncidentService {
         }
 
         IncidentStatus newStatus = IncidentStatus.valueOf(updateDTO.status.toUpperCase());
+        IncidentStatus previousStatus = incident.status;
         
         switch (newStatus) {
             case INVESTIGATING:
@@ -125,6 +219,7 @@ public class IncidentService {
         }
 
         Log.infof("Updated incident #%d status to %s", id, newStatus);
+        incidentEvents.fire(IncidentChangedEvent.statusChanged(previousStatus, incident));
         
         return Optional.of(IncidentDTO.fromEntity(incident));
     }
@@ -133,15 +228,30 @@ public class IncidentService {
      * Get incident statistics.
      */
     public IncidentStats getStats() {
-        long openCount = incidentRepository.count("status", IncidentStatus.OPEN);
-        long investigatingCount = incidentRepository.count("status", IncidentStatus.INVESTIGATING);
-        long resolvedCount = incidentRepository.count("status", IncidentStatus.RESOLVED);
-        long criticalOpen = incidentRepository.countOpenBySeverity(IncidentSeverity.CRITICAL);
-        long highOpen = incidentRepository.countOpenBySeverity(IncidentSeverity.HIGH);
-        
-        return new IncidentStats(openCount, investigatingCount, resolvedCount, criticalOpen, highOpen);
+        return incidentStatsService.getStats();
     }
 
+    /**
+     * Get incident statistics grouped by service name or incident type.
+     *
+     * @throws IllegalArgumentException if groupBy is neither "service" nor "type"
+     */
+    public Map<String, IncidentStats> getStatsBreakdown(String groupBy) {
+        return switch (groupBy.toLowerCase()) {
+            case "service" -> incidentStatsService.getStatsByService();
+            case "type" -> incidentStatsService.getStatsByType();
+            default -> throw new IllegalArgumentException("Unknown grouping: " + groupBy);
+        };
+    }
+
+    /**
+     * One page of incidents and the cursor of the next page (null on the last page).
+     */
+    public record IncidentPage(
+        List<IncidentDTO> items,
+        String nextCursor
+    ) {}
+
     /**
      * Statistics about incidents.
      */
@@ -0,0 +1,170 @@
+package com.smartincident.service;
+
+import com.smartincident.dto.IncidentDTO;
+import com.smartincident.event.IncidentChangedEvent;
+import com.smartincident.model.enums.IncidentSeverity;
+import com.smartincident.model.enums.IncidentStatus;
+import com.smartincident.model.enums.IncidentType;
+import com.smartincident.repository.IncidentRepository;
+import com.smartincident.service.IncidentService.IncidentStats;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.StartupEvent;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Service keeping incident counters in memory so statistics never hit the incident table.
+ *
+ * Counters are adjusted from committed incident lifecycle events and rebuilt by a
+ * periodic reconciliation from the database, which corrects any drift, including
+ * changes made by other replicas since the last run.
+ */
+@ApplicationScoped
+public class IncidentStatsService {
+
+    @Inject
+    IncidentRepository incidentRepository;
+
+    private volatile Counters counters = new Counters();
+
+    @Transactional
+    void onStart(@Observes StartupEvent event) {
+        reconcile();
+    }
+
+    /**
+     * Apply a committed incident change to the counters.
+     */
+    void onIncidentChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) IncidentChangedEvent event) {
+        if (event.change() == IncidentChangedEvent.Change.ENRICHED
+                || event.change() == IncidentChangedEvent.Change.CHILD_ADDED) {
+            return;  // counts are unaffected
+        }
+        IncidentDTO incident = event.incident();
+        Counters current = counters;
+        if (event.previousStatus() != null) {
+            current.add(event.previousStatus(), incident.severity, incident.type, incident.serviceName, -1);
+        }
+        current.add(incident.status, incident.severity, incident.type, incident.serviceName, 1);
+    }
+
+    /**
+     * Get overall incident statistics.
+     */
+    public IncidentStats getStats() {
+        Counters current = counters;
+        return new IncidentStats(
+            current.byStatus.get(IncidentStatus.OPEN).sum(),
+            current.byStatus.get(IncidentStatus.INVESTIGATING).sum(),
+            current.byStatus.get(IncidentStatus.RESOLVED).sum(),
+            current.openBySeverity.get(IncidentSeverity.CRITICAL).sum(),
+            current.openBySeverity.get(IncidentSeverity.HIGH).sum()
+        );
+    }
+
+    /**
+     * Get incident statistics per service name.
+     */
+    public Map<String, IncidentStats> getStatsByService() {
+        return breakdown(StatsKey::serviceName);
+    }
+
+    /**
+     * Get incident statistics per incident type.
+     */
+    public Map<String, IncidentStats> getStatsByType() {
+        return breakdown(key -> key.type().name());
+    }
+
+    /**
+     * Rebuild the counters from the incident table.
+     */
+    @Transactional
+    public void reconcile() {
+        List<Object[]> rows = incidentRepository.countGrouped();
+
+        Counters rebuilt = new Counters();
+        for (Object[] row : rows) {
+            rebuilt.add((IncidentStatus) row[0], (IncidentSeverity) row[1], (IncidentType) row[2],
+                        (String) row[3], (Long) row[4]);
+        }
+
+        IncidentStats before = getStats();
+        counters = rebuilt;
+        IncidentStats after = getStats();
+
+        if (!before.equals(after)) {
+            Log.infof("Reconciled incident statistics: %s -> %s", before, after);
+        }
+    }
+
+    private Map<String, IncidentStats> breakdown(Function<StatsKey, String> groupBy) {
+        Map<String, Totals> totals = new TreeMap<>();
+        for (Map.Entry<StatsKey, LongAdder> entry : counters.detailed.entrySet()) {
+            StatsKey key = entry.getKey();
+            long count = entry.getValue().sum();
+            Totals t = totals.computeIfAbsent(groupBy.apply(key), k -> new Totals());
+            switch (key.status()) {
+                case OPEN -> {
+                    t.open += count;
+                    if (key.severity() == IncidentSeverity.CRITICAL) t.criticalOpen += count;
+                    if (key.severity() == IncidentSeverity.HIGH) t.highOpen += count;
+                }
+                case INVESTIGATING -> t.investigating += count;
+                case RESOLVED -> t.resolved += count;
+            }
+        }
+
+        Map<String, IncidentStats> result = new TreeMap<>();
+        totals.forEach((name, t) -> result.put(name,
+            new IncidentStats(t.open, t.investigating, t.resolved, t.criticalOpen, t.highOpen)));
+        return result;
+    }
+
+    private static class Totals {
+        long open;
+        long investigating;
+        long resolved;
+        long criticalOpen;
+        long highOpen;
+    }
+
+    private record StatsKey(IncidentStatus status, IncidentSeverity severity, IncidentType type, String serviceName) {}
+
+    /**
+     * One generation of counters; replaced as a whole on reconciliation.
+     */
+    private static class Counters {
+        final Map<IncidentStatus, LongAdder> byStatus = new ConcurrentHashMap<>();
+        final Map<IncidentSeverity, LongAdder> openBySeverity = new ConcurrentHashMap<>();
+        final Map<StatsKey, LongAdder> detailed = new ConcurrentHashMap<>();
+
+        Counters() {
+            for (IncidentStatus status : IncidentStatus.values()) {
+                byStatus.put(status, new LongAdder());
+            }
+            for (IncidentSeverity severity : IncidentSeverity.values()) {
+                openBySeverity.put(severity, new LongAdder());
+            }
+        }
+
+        void add(IncidentStatus status, IncidentSeverity severity, IncidentType type, String serviceName, long delta) {
+            byStatus.get(status).add(delta);
+            if (status == IncidentStatus.OPEN) {
+                openBySeverity.get(severity).add(delta);
+            }
+            detailed.computeIfAbsent(new StatsKey(status, severity, type, serviceName), k -> new LongAdder())
+                    .add(delta);
+        }
+    }
+}
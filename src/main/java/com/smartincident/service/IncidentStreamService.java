@@ -0,0 +1,151 @@
+package com.smartincident.service;
+
+import com.smartincident.dto.IncidentDTO;
+import com.smartincident.event.IncidentChangedEvent;
+import com.smartincident.model.enums.IncidentSeverity;
+import io.quarkus.logging.Log;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Service pushing committed incident lifecycle changes to Server-Sent Events subscribers.
+ *
+ * Every change gets a monotonically increasing event id and is kept in a bounded
+ * replay buffer, so a client reconnecting with Last-Event-ID receives what it missed.
+ * Publishing and subscribing share one lock so a subscriber sees replayed and live
+ * events in id order without gaps or duplicates.
+ */
+@ApplicationScoped
+public class IncidentStreamService {
+
+    private static final String RESYNC_EVENT = "resync";
+
+    @ConfigProperty(name = "app.stream.replay-buffer-size", defaultValue = "1000")
+    int replayBufferSize;
+
+    private final Deque<StreamedChange> replayBuffer = new ArrayDeque<>();
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private long lastEventId;
+
+    /**
+     * Publish a committed incident change to matching subscribers.
+     */
+    void onIncidentChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) IncidentChangedEvent event) {
+        synchronized (replayBuffer) {
+            StreamedChange change = new StreamedChange(++lastEventId, event);
+            replayBuffer.addLast(change);
+            while (replayBuffer.size() > replayBufferSize) {
+                replayBuffer.removeFirst();
+            }
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.matches(event.incident())) {
+                    send(subscriber, change);
+                }
+            }
+        }
+    }
+
+    /**
+     * Register a subscriber, first replaying buffered changes newer than lastEventId.
+     * When the requested position has already been evicted from the buffer, or is
+     * unknown to this instance (e.g. after a restart), a "resync" event is sent so
+     * the client reloads its state from the REST API.
+     *
+     * @param lastEventId id of the last event the client saw, or null for live events only
+     * @param serviceName only stream incidents of this service, or null for all
+     * @param minSeverity only stream incidents at or above this severity, or null for all
+     */
+    public void subscribe(SseEventSink sink, Sse sse, Long lastEventId, String serviceName,
+                          IncidentSeverity minSeverity) {
+        Subscriber subscriber = new Subscriber(sink, sse, serviceName, minSeverity);
+
+        synchronized (replayBuffer) {
+            if (lastEventId != null) {
+                StreamedChange oldest = replayBuffer.peekFirst();
+                long oldestAvailable = oldest != null ? oldest.id() : this.lastEventId + 1;
+                if (lastEventId + 1 < oldestAvailable || lastEventId > this.lastEventId) {
+                    sink.send(sse.newEventBuilder()
+                            .id(String.valueOf(this.lastEventId))
+                            .name(RESYNC_EVENT)
+                            .data("{\"reason\": \"requested events are no longer available\"}")
+                            .build());
+                } else {
+                    for (StreamedChange change : replayBuffer) {
+                        if (change.id() > lastEventId && subscriber.matches(change.event().incident())) {
+                            send(subscriber, change);
+                        }
+                    }
+                }
+            }
+            subscribers.add(subscriber);
+        }
+
+        Log.debugf("Incident stream subscriber added (service=%s, minSeverity=%s), %d connected",
+                   serviceName, minSeverity, subscribers.size());
+    }
+
+    /**
+     * Send a keep-alive comment to every subscriber and drop closed connections.
+     */
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.sink().isClosed()) {
+                subscribers.remove(subscriber);
+                continue;
+            }
+            subscriber.sink().send(subscriber.sse().newEventBuilder().comment("keep-alive").build())
+                    .exceptionally(ex -> {
+                        subscribers.remove(subscriber);
+                        return null;
+                    });
+        }
+    }
+
+    /**
+     * Number of open stream connections.
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private void send(Subscriber subscriber, StreamedChange change) {
+        if (subscriber.sink().isClosed()) {
+            subscribers.remove(subscriber);
+            return;
+        }
+
+        OutboundSseEvent sseEvent = subscriber.sse().newEventBuilder()
+                .id(String.valueOf(change.id()))
+                .name(change.event().change().name().toLowerCase())
+                .data(IncidentDTO.class, change.event().incident())
+                .build();
+
+        subscriber.sink().send(sseEvent).exceptionally(ex -> {
+            Log.debugf("Dropping incident stream subscriber: %s", ex.getMessage());
+            subscribers.remove(subscriber);
+            return null;
+        });
+    }
+
+    private record StreamedChange(long id, IncidentChangedEvent event) {}
+
+    private record Subscriber(SseEventSink sink, Sse sse, String serviceName, IncidentSeverity minSeverity) {
+
+        boolean matches(IncidentDTO incident) {
+            if (serviceName != null && !serviceName.equals(incident.serviceName)) {
+                return false;
+            }
+            return minSeverity == null || incident.severity.getLevel() >= minSeverity.getLevel();
+        }
+    }
+}
@@ -0,0 +1,529 @@
+package com.smartincident.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartincident.dto.IncidentDTO;
+import com.smartincident.dto.LoadTestRequest;
+import com.smartincident.dto.LogEntryDTO;
+import com.smartincident.dto.MetricDTO;
+import com.smartincident.event.IncidentChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ShutdownEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Service generating synthetic telemetry against this instance to measure how much
+ * load one replica absorbs before ingestion or detection falls behind.
+ *
+ * A run simulates services × pods emitting metrics and logs at fixed rates, posted
+ * in batches to the regular ingestion endpoints so the whole path (HTTP, JSON,
+ * persistence, counters, detection) is exercised. Some services get an injected
+ * anomaly part way through, and the incidents raised for them give the
+ * time-to-incident. Batches the senders cannot keep up with are dropped and counted
+ * rather than queued, so offered and achieved throughput can be compared. Generated
+ * services are named load-svc-NNN in the loadgen namespace and stay in the database
+ * like any other data.
+ */
+@ApplicationScoped
+public class LoadGeneratorService {
+
+    static final String SERVICE_PREFIX = "load-svc-";
+    static final String NAMESPACE = "loadgen";
+
+    private static final String[] INFO_MESSAGES = {
+        "Request completed successfully",
+        "Cache hit for customer profile",
+        "Processed message from queue",
+        "Health check passed"
+    };
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "app.loadgen.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "quarkus.http.port", defaultValue = "8080")
+    int httpPort;
+
+    @ConfigProperty(name = "app.security.api-token")
+    String apiToken;
+
+    @ConfigProperty(name = "app.detection.tick-seconds", defaultValue = "5")
+    int tickSeconds;
+
+    private volatile Run current;
+
+    /**
+     * Whether load tests may be started on this instance.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start a load test run.
+     *
+     * @throws IllegalArgumentException if the request is invalid
+     * @throws IllegalStateException if a run is already in progress
+     */
+    public synchronized LoadTestReport start(LoadTestRequest request) {
+        String problem = request.validate();
+        if (problem != null) {
+            throw new IllegalArgumentException(problem);
+        }
+        if (current != null && current.running) {
+            throw new IllegalStateException("A load test is already running");
+        }
+        Run run = new Run(request);
+        current = run;
+        Thread driver = new Thread(run::drive, "loadgen-driver");
+        driver.setDaemon(true);
+        driver.start();
+        Log.infof("Load test started: %d services x %d pods for %ds, %d anomalies",
+                  request.services, request.podsPerService, request.durationSeconds, request.anomalies);
+        return run.report();
+    }
+
+    /**
+     * Report of the current or last run.
+     */
+    public Optional<LoadTestReport> getReport() {
+        Run run = current;
+        return run != null ? Optional.of(run.report()) : Optional.empty();
+    }
+
+    /**
+     * Stop the current run early; false when none is running.
+     */
+    public boolean stop() {
+        Run run = current;
+        if (run == null || !run.running) {
+            return false;
+        }
+        run.stopRequested = true;
+        return true;
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        stop();
+    }
+
+    /**
+     * Match committed incidents to the injected anomalies.
+     */
+    void onIncidentChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) IncidentChangedEvent event) {
+        Run run = current;
+        if (run != null && event.change() == IncidentChangedEvent.Change.CREATED) {
+            run.incidentCreated(event.incident());
+        }
+    }
+
+    /**
+     * One load test run: a driver thread producing a tick of telemetry per second
+     * and a bounded pool posting the batches.
+     */
+    private class Run {
+
+        final LoadTestRequest request;
+        final Map<String, Anomaly> anomalies = new LinkedHashMap<>();
+        final LongAdder metricsIngested = new LongAdder();
+        final LongAdder logsIngested = new LongAdder();
+        final LongAdder failedBatches = new LongAdder();
+        final LongAdder droppedBatches = new LongAdder();
+        final LongAdder unexpectedIncidents = new LongAdder();
+        final LatencyRecorder metricLatency = new LatencyRecorder();
+        final LatencyRecorder logLatency = new LatencyRecorder();
+        final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        final ThreadPoolExecutor senders;
+        final Instant startedAt = Instant.now();
+        final long startNanos = System.nanoTime();
+        final DetectionSnapshot detectionAtStart = DetectionSnapshot.of(registry);
+
+        volatile boolean running = true;
+        volatile boolean stopRequested;
+        volatile Instant finishedAt;
+        volatile long elapsedNanos;
+        volatile DetectionSnapshot detectionAtEnd;
+
+        Run(LoadTestRequest request) {
+            this.request = request;
+            for (int i = 0; i < request.anomalies; i++) {
+                anomalies.put(serviceName(i), new Anomaly(i % 2 == 0 ? AnomalyKind.ERROR_BURST : AnomalyKind.MEMORY_PRESSURE));
+            }
+            AtomicInteger threadNumber = new AtomicInteger();
+            // A short queue: when the senders fall behind, batches are dropped rather than piling up
+            senders = new ThreadPoolExecutor(request.concurrency, request.concurrency, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(request.concurrency * 2),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "loadgen-sender-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+
+        void drive() {
+            try {
+                for (int second = 0; second < request.durationSeconds && !stopRequested; second++) {
+                    produceTick(second);
+                    long nextTick = startNanos + (second + 1) * 1_000_000_000L;
+                    long sleep = nextTick - System.nanoTime();
+                    if (sleep > 0) {
+                        TimeUnit.NANOSECONDS.sleep(sleep);
+                    }
+                }
+                senders.shutdown();
+                if (!senders.awaitTermination(30, TimeUnit.SECONDS)) {
+                    senders.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                senders.shutdownNow();
+            } catch (Exception e) {
+                Log.errorf("Load test aborted: %s", e.getMessage());
+                senders.shutdownNow();
+            } finally {
+                elapsedNanos = System.nanoTime() - startNanos;
+                detectionAtEnd = DetectionSnapshot.of(registry);
+                finishedAt = Instant.now();
+                running = false;
+                Log.infof("Load test %s: %d metrics and %d logs ingested in %.1fs",
+                          stopRequested ? "stopped" : "completed", metricsIngested.sum(), logsIngested.sum(),
+                          elapsedNanos / 1e9);
+            }
+        }
+
+        void produceTick(int second) {
+            LocalDateTime now = LocalDateTime.now();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            List<MetricDTO> metrics = new ArrayList<>();
+            List<LogEntryDTO> logs = new ArrayList<>();
+            int metricsPerPod = countForTick(request.metricsPerPodPerSecond, second);
+            int logsPerPod = countForTick(request.logsPerPodPerSecond, second);
+
+            for (int s = 0; s < request.services; s++) {
+                String service = serviceName(s);
+                Anomaly anomaly = anomalies.get(service);
+                AnomalyKind active = null;
+                if (anomaly != null && second >= request.anomalyAfterSeconds) {
+                    anomaly.markInjected();
+                    active = anomaly.kind;
+                }
+                for (int p = 0; p < request.podsPerService; p++) {
+                    String pod = service + "-" + p;
+                    for (int m = 0; m < metricsPerPod; m++) {
+                        metrics.add(metric(service, pod, (second * metricsPerPod + m + p) % 5, active, now, random));
+                    }
+                    for (int l = 0; l < logsPerPod; l++) {
+                        logs.add(log(service, pod, active, now, random));
+                    }
+                }
+            }
+
+            submit(metrics, "/api/metrics/batch", metricsIngested, metricLatency);
+            submit(logs, "/api/logs/batch", logsIngested, logLatency);
+        }
+
+        <T> void submit(List<T> items, String path, LongAdder ingested, LatencyRecorder latency) {
+            for (int from = 0; from < items.size(); from += request.batchSize) {
+                List<T> batch = items.subList(from, Math.min(items.size(), from + request.batchSize));
+                try {
+                    senders.execute(() -> post(path, batch, ingested, latency));
+                } catch (RejectedExecutionException e) {
+                    droppedBatches.increment();
+                }
+            }
+        }
+
+        void post(String path, List<?> batch, LongAdder ingested, LatencyRecorder latency) {
+            long start = System.nanoTime();
+            try {
+                HttpRequest httpRequest = HttpRequest.newBuilder(URI.create("http://localhost:" + httpPort + path))
+                        .timeout(Duration.ofSeconds(30))
+                        .header("Content-Type", "application/json")
+                        .header("X-API-Token", apiToken)
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(batch)))
+                        .build();
+                HttpResponse<Void> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() >= 200 && response.statusCode() < 300) {
+                    ingested.add(batch.size());
+                    latency.record(System.nanoTime() - start);
+                } else {
+                    failedBatches.increment();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failedBatches.increment();
+            } catch (Exception e) {
+                failedBatches.increment();
+            }
+        }
+
+        void incidentCreated(IncidentDTO incident) {
+            if (incident.serviceName == null || !incident.serviceName.startsWith(SERVICE_PREFIX)) {
+                return;
+            }
+            Anomaly anomaly = anomalies.get(incident.serviceName);
+            if (anomaly == null || !anomaly.recordIncident(incident)) {
+                unexpectedIncidents.increment();
+            }
+        }
+
+        LoadTestReport report() {
+            boolean done = !running;
+            long elapsed = done ? elapsedNanos : System.nanoTime() - startNanos;
+            double seconds = Math.max(elapsed / 1e9, 1e-3);
+            long ingested = metricsIngested.sum() + logsIngested.sum();
+            double offered = (request.metricsPerPodPerSecond + request.logsPerPodPerSecond)
+                    * request.services * request.podsPerService;
+
+            DetectionSnapshot end = done ? detectionAtEnd : DetectionSnapshot.of(registry);
+            long ticks = end.ticks() - detectionAtStart.ticks();
+            double meanTickMs = ticks > 0 ? (end.totalTickMs() - detectionAtStart.totalTickMs()) / ticks : 0;
+            long deferred = end.deferred() - detectionAtStart.deferred();
+            DetectionSummary detection = new DetectionSummary(ticks, meanTickMs, end.recentMaxTickMs(), deferred,
+                    deferred > 0 || meanTickMs > tickSeconds * 1000.0);
+
+            return new LoadTestReport(
+                running ? "RUNNING" : stopRequested ? "STOPPED" : "COMPLETED",
+                request,
+                startedAt,
+                finishedAt,
+                seconds,
+                metricsIngested.sum(),
+                logsIngested.sum(),
+                failedBatches.sum(),
+                droppedBatches.sum(),
+                offered,
+                ingested / seconds,
+                metricLatency.summary(),
+                logLatency.summary(),
+                detection,
+                anomalies.entrySet().stream().map(e -> e.getValue().result(e.getKey())).toList(),
+                unexpectedIncidents.sum()
+            );
+        }
+    }
+
+    /**
+     * Number of items a pod emits in a given second, spreading fractional rates evenly.
+     */
+    static int countForTick(double perSecond, int second) {
+        return (int) (Math.floor(perSecond * (second + 1)) - Math.floor(perSecond * second));
+    }
+
+    static String serviceName(int index) {
+        return String.format("%s%03d", SERVICE_PREFIX, index);
+    }
+
+    static MetricDTO metric(String service, String pod, int kind, AnomalyKind anomaly,
+                            LocalDateTime timestamp, ThreadLocalRandom random) {
+        boolean burst = anomaly == AnomalyKind.ERROR_BURST;
+        MetricDTO metric = switch (kind) {
+            case 0 -> new MetricDTO("http_total_count", 100.0 + random.nextInt(20), service);
+            case 1 -> new MetricDTO("http_5xx_count", burst ? 30.0 + random.nextInt(10) : random.nextInt(2), service);
+            case 2 -> new MetricDTO("latency_ms", 80 + random.nextDouble(70), service);
+            case 3 -> new MetricDTO("cpu_usage_percent", 30 + random.nextDouble(25), service);
+            default -> new MetricDTO("memory_usage_percent",
+                    anomaly == AnomalyKind.MEMORY_PRESSURE ? 97 + random.nextDouble(2) : 50 + random.nextDouble(15), service);
+        };
+        metric.unit = switch (kind) {
+            case 0, 1 -> "count";
+            case 2 -> "ms";
+            default -> "percent";
+        };
+        metric.timestamp = timestamp;
+        metric.podName = pod;
+        metric.namespace = NAMESPACE;
+        return metric;
+    }
+
+    static LogEntryDTO log(String service, String pod, AnomalyKind anomaly,
+                           LocalDateTime timestamp, ThreadLocalRandom random) {
+        LogEntryDTO entry;
+        double roll = random.nextDouble();
+        if (anomaly == AnomalyKind.ERROR_BURST && roll < 0.9) {
+            entry = new LogEntryDTO("ERROR", "Connection refused: connection pool exhausted while calling upstream", service);
+        } else if (roll < 0.005) {
+            entry = new LogEntryDTO("ERROR", "Request failed with timeout after 5000ms", service);
+        } else if (roll < 0.05) {
+            entry = new LogEntryDTO("WARN", "Slow response from downstream dependency", service);
+        } else {
+            entry = new LogEntryDTO("INFO", INFO_MESSAGES[random.nextInt(INFO_MESSAGES.length)], service);
+        }
+        entry.timestamp = timestamp;
+        entry.podName = pod;
+        entry.namespace = NAMESPACE;
+        return entry;
+    }
+
+    enum AnomalyKind {
+        ERROR_BURST,
+        MEMORY_PRESSURE
+    }
+
+    /**
+     * An anomaly injected into one service and the first incident raised for it.
+     */
+    private static class Anomaly {
+
+        final AnomalyKind kind;
+        volatile long injectedNanos;
+        volatile Instant injectedAt;
+        volatile Long incidentId;
+        volatile String incidentType;
+        volatile double timeToIncidentSeconds;
+
+        Anomaly(AnomalyKind kind) {
+            this.kind = kind;
+        }
+
+        void markInjected() {
+            if (injectedAt == null) {
+                injectedNanos = System.nanoTime();
+                injectedAt = Instant.now();
+            }
+        }
+
+        /**
+         * Record the incident revealing this anomaly; false when it cannot be one.
+         */
+        synchronized boolean recordIncident(IncidentDTO incident) {
+            if (injectedAt == null) {
+                return false;
+            }
+            if (incidentId == null) {
+                timeToIncidentSeconds = (System.nanoTime() - injectedNanos) / 1e9;
+                incidentType = incident.type != null ? incident.type.name() : null;
+                incidentId = incident.id;
+            }
+            return true;
+        }
+
+        AnomalyResult result(String serviceName) {
+            Long id = incidentId;
+            return new AnomalyResult(serviceName, kind.name(), injectedAt, id, incidentType,
+                                     id != null ? timeToIncidentSeconds : null);
+        }
+    }
+
+    /**
+     * Latencies of successful batches, for percentiles at report time.
+     */
+    private static class LatencyRecorder {
+
+        private long[] nanos = new long[1024];
+        private int size;
+
+        synchronized void record(long value) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = value;
+        }
+
+        LatencySummary summary() {
+            long[] sorted;
+            synchronized (this) {
+                sorted = Arrays.copyOf(nanos, size);
+            }
+            if (sorted.length == 0) {
+                return new LatencySummary(0, 0, 0, 0);
+            }
+            Arrays.sort(sorted);
+            return new LatencySummary(sorted.length, percentile(sorted, 0.5), percentile(sorted, 0.99),
+                                      sorted[sorted.length - 1] / 1e6);
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+
+    /**
+     * Detection meters at one point in time, diffed over a run.
+     */
+    private record DetectionSnapshot(long ticks, double totalTickMs, double recentMaxTickMs, long deferred) {
+
+        static DetectionSnapshot of(MeterRegistry registry) {
+            Timer timer = registry.find("detection.tick.duration").timer();
+            Counter counter = registry.find("detection.evaluations.deferred").counter();
+            return new DetectionSnapshot(
+                timer != null ? timer.count() : 0,
+                timer != null ? timer.totalTime(TimeUnit.MILLISECONDS) : 0,
+                timer != null ? timer.max(TimeUnit.MILLISECONDS) : 0,
+                counter != null ? (long) counter.count() : 0);
+        }
+    }
+
+    /**
+     * Progress and results of a load test run.
+     */
+    public record LoadTestReport(
+        String state,
+        LoadTestRequest request,
+        Instant startedAt,
+        Instant finishedAt,
+        double elapsedSeconds,
+        long metricsIngested,
+        long logsIngested,
+        long failedBatches,
+        long droppedBatches,
+        double offeredPerSecond,
+        double ingestedPerSecond,
+        LatencySummary metricBatchLatency,
+        LatencySummary logBatchLatency,
+        DetectionSummary detection,
+        List<AnomalyResult> anomalies,
+        long unexpectedIncidents
+    ) {}
+
+    /**
+     * Latency of the ingestion requests that succeeded, in milliseconds.
+     */
+    public record LatencySummary(long batches, double p50Ms, double p99Ms, double maxMs) {}
+
+    /**
+     * Detection work during the run: ticks that evaluated services, their mean and
+     * recent maximum duration, and evaluations pushed to a later tick by the budget.
+     */
+    public record DetectionSummary(long ticks, double meanTickMs, double recentMaxTickMs,
+                                   long deferredEvaluations, boolean lagging) {}
+
+    /**
+     * An injected anomaly and the incident that revealed it, if any yet.
+     */
+    public record AnomalyResult(String serviceName, String kind, Instant injectedAt, Long incidentId,
+                                String incidentType, Double timeToIncidentSeconds) {}
+}
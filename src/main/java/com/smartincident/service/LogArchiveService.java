@@ -0,0 +1,567 @@
+package com.smartincident.service;
+
+import com.smartincident.model.LogEntry;
+import com.smartincident.repository.LogEntryRepository;
+import com.smartincident.repository.LogEntryRepository.LogFilter;
+import com.smartincident.util.LogSegment;
+import com.smartincident.util.LogSegmentWriter;
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Service moving aged logs out of the database into compressed segment files on a
+ * volume shared by the replicas, and answering log queries from them.
+ *
+ * Each archive run handles every whole day older than after-days. It first deletes
+ * from log_entry, in batches, the ids stored in the day's segments written by
+ * earlier runs, then writes every row of the day still in the database to new
+ * segments of at most max-segment-mb. Rows are deleted by the ids actually written,
+ * never by an id watermark: ids are handed out in blocks per replica, so a late row
+ * can carry an id below ones already archived. Waiting a run before deleting gives
+ * every replica time to open the new segments, which they look for every
+ * refresh-seconds. A segment is renamed into place only once complete, so a run
+ * interrupted between writing and deleting neither loses nor duplicates rows. Logs
+ * arriving later for an archived day go to additional segments of that day. On
+ * PostgreSQL a run holds an advisory lock, so only one replica writes to the
+ * archive at a time.
+ *
+ * Segments are memory-mapped. Lookups skip segments by time range and by the Bloom
+ * filters on service name and trace id, then skip blocks by time range, so paging
+ * through recent logs or fetching one trace reads only a few blocks.
+ */
+@ApplicationScoped
+public class LogArchiveService {
+
+    /**
+     * Newest first, the order of log pages.
+     */
+    public static final Comparator<LogEntry> NEWEST_FIRST =
+            Comparator.comparing((LogEntry e) -> e.timestamp).thenComparing(e -> e.id).reversed();
+
+    private static final Comparator<LogEntry> OLDEST_FIRST = NEWEST_FIRST.reversed();
+    private static final Pattern SEGMENT_NAME = Pattern.compile("logs-(\\d{8})-(\\d{3})\\.seg");
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final int PAGE_SIZE = 1000;
+    // Segments are mapped with int offsets; the cap leaves room for the footer
+    private static final int MAX_SEGMENT_MB = 1024;
+
+    @Inject
+    LogEntryRepository logEntryRepository;
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @ConfigProperty(name = "quarkus.datasource.db-kind")
+    String dbKind;
+
+    @ConfigProperty(name = "app.logs.archive.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "app.logs.archive.path", defaultValue = "data/log-archive")
+    String path;
+
+    @ConfigProperty(name = "app.logs.archive.after-days", defaultValue = "3")
+    int afterDays;
+
+    @ConfigProperty(name = "app.logs.archive.retention-days", defaultValue = "90")
+    int retentionDays;
+
+    @ConfigProperty(name = "app.logs.archive.block-rows", defaultValue = "4096")
+    int blockRows;
+
+    @ConfigProperty(name = "app.logs.archive.max-segment-mb", defaultValue = "512")
+    int maxSegmentMb;
+
+    @ConfigProperty(name = "app.retention.log-entry-days", defaultValue = "14")
+    int logEntryDays;
+
+    @ConfigProperty(name = "app.retention.delete-batch-size", defaultValue = "5000")
+    int deleteBatchSize;
+
+    private final List<ArchivedSegment> segments = new CopyOnWriteArrayList<>();
+    // Segment files that failed to open, not retried
+    private final Set<Path> unreadable = ConcurrentHashMap.newKeySet();
+    // Segments whose rows are known to be gone from the database; the others are checked once per run
+    private final Set<Path> settled = ConcurrentHashMap.newKeySet();
+    private volatile LocalDateTime lastRun;
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (maxSegmentMb < 1 || maxSegmentMb > MAX_SEGMENT_MB) {
+            throw new IllegalArgumentException("app.logs.archive.max-segment-mb must be between 1 and " + MAX_SEGMENT_MB);
+        }
+        if (logEntryDays > 0 && afterDays >= logEntryDays) {
+            Log.warnf("Logs are archived after %d days but deleted after %d (app.retention.log-entry-days), " +
+                      "they will be deleted before being archived", afterDays, logEntryDays);
+        }
+        Path directory = Path.of(path);
+        try {
+            Files.createDirectories(directory);
+            refresh();
+            Log.infof("Log archive in %s: %d segments, logs archived after %d days and kept %d days",
+                      directory.toAbsolutePath(), segments.size(), afterDays, retentionDays);
+        } catch (IOException e) {
+            Log.errorf("Could not open the log archive in %s: %s", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * Open the segments written since the last look, by this or another replica, and
+     * forget the deleted ones. A segment that cannot be opened is skipped.
+     */
+    public synchronized void refresh() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        for (ArchivedSegment archived : segments) {
+            if (!Files.exists(archived.segment().path())) {
+                segments.remove(archived);
+                settled.remove(archived.segment().path());
+            }
+        }
+        Set<Path> known = segments.stream().map(a -> a.segment().path()).collect(Collectors.toSet());
+        try (Stream<Path> files = Files.list(Path.of(path))) {
+            for (Path file : files.sorted().toList()) {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (!matcher.matches() || known.contains(file) || unreadable.contains(file)) {
+                    continue;
+                }
+                try {
+                    open(file, LocalDate.parse(matcher.group(1), DAY), Integer.parseInt(matcher.group(2)));
+                } catch (Exception e) {
+                    unreadable.add(file);
+                    Log.errorf("Skipping log segment %s, it cannot be opened: %s", file, e.getMessage());
+                }
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Archive every day of logs older than after-days, oldest first, then delete
+     * segments past retention. Does nothing while another replica is archiving.
+     */
+    public ArchiveRun archive() {
+        if (!enabled) {
+            return new ArchiveRun(0, 0, 0);
+        }
+        Connection lock = null;
+        try {
+            if ("postgresql".equalsIgnoreCase(dbKind)) {
+                lock = dataSource.getConnection();
+                if (!advisoryLock(lock, "pg_try_advisory_lock")) {
+                    Log.debug("Another replica is archiving logs, skipping this run");
+                    return new ArchiveRun(0, 0, 0);
+                }
+            }
+            return archiveLocked();
+        } catch (IOException | SQLException e) {
+            Log.errorf("Could not start archiving logs: %s", e.getMessage());
+            return new ArchiveRun(0, 0, 0);
+        } finally {
+            if (lock != null) {
+                try (Connection connection = lock) {
+                    advisoryLock(connection, "pg_advisory_unlock");
+                } catch (SQLException e) {
+                    Log.warnf("Could not release the log archive lock: %s", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private ArchiveRun archiveLocked() throws IOException {
+        refresh();
+        deleteUnfinished();
+        LocalDate cutoff = LocalDate.now().minusDays(afterDays);
+        int segmentsBefore = segments.size();
+        long rowsArchived = 0;
+
+        LocalDateTime oldest = QuarkusTransaction.requiringNew().call(
+                () -> logEntryRepository.findOldestBefore(cutoff.atStartOfDay()));
+        if (oldest != null) {
+            for (LocalDate day = oldest.toLocalDate(); day.isBefore(cutoff); day = day.plusDays(1)) {
+                try {
+                    rowsArchived += archiveDay(day);
+                } catch (Exception e) {
+                    // Later days are left for the next run so days are archived in order
+                    Log.errorf("Failed to archive the logs of %s: %s", day, e.getMessage());
+                    break;
+                }
+            }
+        }
+        int purged = purgeExpired();
+        int segmentsWritten = segments.size() + purged - segmentsBefore;
+        lastRun = LocalDateTime.now();
+        if (segmentsWritten > 0 || purged > 0) {
+            Log.infof("Archived %d logs into %d segments, deleted %d expired segments",
+                      rowsArchived, segmentsWritten, purged);
+        }
+        return new ArchiveRun(segmentsWritten, rowsArchived, purged);
+    }
+
+    /**
+     * Get one page of archived logs matching a filter, newest first, continuing after
+     * the given (timestamp, id) position when one is set.
+     */
+    public List<LogEntry> findPage(LogFilter filter, LocalDateTime afterTimestamp, Long afterId, int limit) {
+        boolean cursor = afterTimestamp != null && afterId != null;
+        List<LogSegment> candidates = segments.stream()
+                .map(ArchivedSegment::segment)
+                .filter(s -> s.overlaps(filter.from(), filter.to()))
+                .filter(s -> !cursor || !s.minTimestamp().isAfter(afterTimestamp))
+                .filter(s -> filter.serviceName() == null || s.mightContainService(filter.serviceName()))
+                .filter(s -> filter.traceId() == null || s.mightContainTrace(filter.traceId()))
+                .sorted(Comparator.comparing(LogSegment::maxTimestamp).reversed())
+                .toList();
+
+        // Oldest kept entry at the head, replaced whenever a newer one turns up
+        PriorityQueue<LogEntry> newest = new PriorityQueue<>(limit + 1, OLDEST_FIRST);
+        for (LogSegment segment : candidates) {
+            if (newest.size() == limit && segment.maxTimestamp().isBefore(newest.peek().timestamp)) {
+                break;
+            }
+            for (LogSegment.Block block : segment.blocks()) {
+                if ((filter.from() != null && block.maxTimestamp().isBefore(filter.from()))
+                        || (filter.to() != null && !block.minTimestamp().isBefore(filter.to()))
+                        || (cursor && block.minTimestamp().isAfter(afterTimestamp))
+                        || (newest.size() == limit && block.maxTimestamp().isBefore(newest.peek().timestamp))) {
+                    continue;
+                }
+                for (LogEntry entry : segment.readBlock(block)) {
+                    if (matches(filter, entry) && (!cursor || isBefore(entry, afterTimestamp, afterId))) {
+                        newest.add(entry);
+                        if (newest.size() > limit) {
+                            newest.poll();
+                        }
+                    }
+                }
+            }
+        }
+
+        List<LogEntry> page = new ArrayList<>(newest);
+        page.sort(NEWEST_FIRST);
+        return page;
+    }
+
+    /**
+     * Complete one page of database logs with archived logs: the newest limit rows
+     * of both, newest first. Archived rows not yet deleted from the database are
+     * returned once.
+     */
+    public List<LogEntry> withArchived(LogFilter filter, LocalDateTime afterTimestamp, Long afterId,
+                                       List<LogEntry> page, int limit) {
+        if (segments.isEmpty()) {
+            return page;
+        }
+        if (page.size() >= limit && page.get(page.size() - 1).timestamp.isAfter(newestArchived())) {
+            return page;
+        }
+        return merge(page, findPage(filter, afterTimestamp, afterId, limit), NEWEST_FIRST, limit);
+    }
+
+    /**
+     * Find the archived logs of a trace in time order, at most limit of them.
+     */
+    public List<LogEntry> findByTraceId(String traceId, int limit) {
+        List<LogEntry> logs = new ArrayList<>();
+        for (ArchivedSegment archived : segments) {
+            if (archived.segment().mightContainTrace(traceId)) {
+                archived.segment().scan(null, null, entry -> {
+                    if (traceId.equals(entry.traceId)) {
+                        logs.add(entry);
+                    }
+                });
+            }
+        }
+        logs.sort(OLDEST_FIRST);
+        return logs.size() > limit ? new ArrayList<>(logs.subList(0, limit)) : logs;
+    }
+
+    /**
+     * Complete the database logs of a trace with its archived logs, in time order,
+     * at most limit of them.
+     */
+    public List<LogEntry> withArchivedTrace(String traceId, List<LogEntry> logs, int limit) {
+        if (segments.isEmpty()) {
+            return logs;
+        }
+        return merge(logs, findByTraceId(traceId, limit), OLDEST_FIRST, limit);
+    }
+
+    /**
+     * Segments of the archive and their sizes.
+     */
+    public ArchiveStatus getStatus() {
+        List<SegmentInfo> infos = segments.stream()
+                .sorted(Comparator.comparing(ArchivedSegment::day).thenComparing(ArchivedSegment::sequence))
+                .map(a -> new SegmentInfo(a.segment().path().getFileName().toString(), a.day(),
+                        a.segment().rowCount(), a.segment().sizeBytes(), a.segment().blocks().size(),
+                        a.segment().minTimestamp(), a.segment().maxTimestamp()))
+                .toList();
+        return new ArchiveStatus(enabled, Path.of(path).toAbsolutePath().toString(), afterDays, retentionDays,
+                infos.size(), infos.stream().mapToLong(SegmentInfo::rows).sum(),
+                infos.stream().mapToLong(SegmentInfo::sizeBytes).sum(), lastRun, infos);
+    }
+
+    /**
+     * Delete the day's rows written to segments by earlier runs from the database,
+     * then write the rows left to new segments.
+     *
+     * @return number of rows archived
+     */
+    private long archiveDay(LocalDate day) throws IOException {
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = from.plusDays(1);
+        List<ArchivedSegment> written = segments.stream()
+                .filter(s -> s.day().equals(day) && !settled.contains(s.segment().path()))
+                .toList();
+        if (countDay(from, to) == 0) {
+            written.forEach(s -> settled.add(s.segment().path()));
+            return 0;
+        }
+
+        long deleted = 0;
+        for (ArchivedSegment archived : written) {
+            deleted += deleteArchived(archived.segment(), from, to);
+            settled.add(archived.segment().path());
+        }
+        long pending = countDay(from, to);
+        long rows = pending > 0 ? writeSegments(day, pending) : 0;
+        Log.debugf("Archived the logs of %s: %d written, %d archived earlier deleted", day, rows, deleted);
+        return rows;
+    }
+
+    private long countDay(LocalDateTime from, LocalDateTime to) {
+        return QuarkusTransaction.requiringNew().call(() -> logEntryRepository.countBetween(from, to, 0));
+    }
+
+    /**
+     * Delete the rows stored in a segment from the database, in batches of ids.
+     *
+     * @return number of rows deleted
+     */
+    private long deleteArchived(LogSegment segment, LocalDateTime from, LocalDateTime to) {
+        long[] deleted = {0};
+        List<Long> batch = new ArrayList<>(deleteBatchSize);
+        Runnable flush = () -> {
+            List<Long> ids = List.copyOf(batch);
+            batch.clear();
+            deleted[0] += QuarkusTransaction.requiringNew().call(() -> logEntryRepository.deleteIds(ids, from, to));
+        };
+        segment.scan(null, null, entry -> {
+            batch.add(entry.id);
+            if (batch.size() >= deleteBatchSize) {
+                flush.run();
+            }
+        });
+        if (!batch.isEmpty()) {
+            flush.run();
+        }
+        return deleted[0];
+    }
+
+    /**
+     * Write the logs of a day still in the database to new segments, in id order,
+     * starting another one whenever a segment reaches max-segment-mb.
+     *
+     * @return number of rows written
+     */
+    private long writeSegments(LocalDate day, long expectedRows) throws IOException {
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = from.plusDays(1);
+        long maxBytes = maxSegmentMb * 1024L * 1024L;
+        int sequence = segments.stream().filter(s -> s.day().equals(day))
+                .mapToInt(ArchivedSegment::sequence).max().orElse(-1) + 1;
+
+        long rows = 0;
+        long lastId = 0;
+        LogSegmentWriter writer = null;
+        try {
+            while (true) {
+                long after = lastId;
+                List<LogEntry> page = QuarkusTransaction.requiringNew().call(
+                        () -> logEntryRepository.findBetween(from, to, after, PAGE_SIZE));
+                for (LogEntry entry : page) {
+                    if (writer == null) {
+                        writer = new LogSegmentWriter(segmentPath(day, sequence), blockRows,
+                                                      Math.max(1, expectedRows - rows));
+                    }
+                    writer.append(entry);
+                    rows++;
+                    if (writer.sizeBytes() >= maxBytes) {
+                        writer.finish();
+                        writer = null;
+                        open(segmentPath(day, sequence), day, sequence++);
+                    }
+                }
+                if (page.size() < PAGE_SIZE) {
+                    break;
+                }
+                lastId = page.get(page.size() - 1).id;
+            }
+            if (writer != null) {
+                writer.finish();
+                writer = null;
+                open(segmentPath(day, sequence), day, sequence);
+            }
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+        return rows;
+    }
+
+    private Path segmentPath(LocalDate day, int sequence) {
+        return Path.of(path, String.format("logs-%s-%03d.seg", day.format(DAY), sequence));
+    }
+
+    /**
+     * Delete the temporary files of interrupted runs, whose rows are still in the
+     * database. Only called while holding the archive lock, when no run is writing.
+     */
+    private void deleteUnfinished() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of(path))) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(".tmp")).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static boolean advisoryLock(Connection connection, String function) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT " + function + "(hashtext('log-archive'))");
+             ResultSet result = statement.executeQuery()) {
+            return result.next() && result.getBoolean(1);
+        }
+    }
+
+    private int purgeExpired() {
+        LocalDate cutoff = LocalDate.now().minusDays(retentionDays);
+        int purged = 0;
+        for (ArchivedSegment archived : segments) {
+            if (archived.day().isBefore(cutoff)) {
+                segments.remove(archived);
+                settled.remove(archived.segment().path());
+                try {
+                    Files.deleteIfExists(archived.segment().path());
+                    purged++;
+                } catch (IOException e) {
+                    Log.warnf("Could not delete log segment %s: %s", archived.segment().path(), e.getMessage());
+                }
+            }
+        }
+        return purged;
+    }
+
+    private synchronized LogSegment open(Path file, LocalDate day, int sequence) throws IOException {
+        LogSegment segment = LogSegment.open(file);
+        segments.add(new ArchivedSegment(day, sequence, segment));
+        return segment;
+    }
+
+    private LocalDateTime newestArchived() {
+        return segments.stream().map(s -> s.segment().maxTimestamp()).max(Comparator.naturalOrder())
+                .orElse(LocalDateTime.MIN);
+    }
+
+    private static boolean matches(LogFilter filter, LogEntry entry) {
+        return (filter.serviceName() == null || filter.serviceName().equals(entry.serviceName))
+                && (filter.podName() == null || filter.podName().equals(entry.podName))
+                && (filter.namespace() == null || filter.namespace().equals(entry.namespace))
+                && (filter.level() == null || filter.level().equals(entry.level))
+                && (filter.traceId() == null || filter.traceId().equals(entry.traceId))
+                && (filter.category() == null || filter.category().equals(entry.category))
+                && (filter.from() == null || !entry.timestamp.isBefore(filter.from()))
+                && (filter.to() == null || entry.timestamp.isBefore(filter.to()));
+    }
+
+    private static boolean isBefore(LogEntry entry, LocalDateTime timestamp, long id) {
+        return entry.timestamp.isBefore(timestamp) || (entry.timestamp.equals(timestamp) && entry.id < id);
+    }
+
+    /**
+     * Union of database and archived logs by id, database rows first, sorted and cut to limit.
+     */
+    private static List<LogEntry> merge(List<LogEntry> database, List<LogEntry> archived,
+                                        Comparator<LogEntry> order, int limit) {
+        if (archived.isEmpty()) {
+            return database;
+        }
+        Map<Long, LogEntry> byId = new LinkedHashMap<>();
+        database.forEach(e -> byId.put(e.id, e));
+        archived.forEach(e -> byId.putIfAbsent(e.id, e));
+        List<LogEntry> merged = new ArrayList<>(byId.values());
+        merged.sort(order);
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    private record ArchivedSegment(LocalDate day, int sequence, LogSegment segment) {}
+
+    /**
+     * Outcome of one archive run.
+     */
+    public record ArchiveRun(int segmentsWritten, long rowsArchived, int segmentsPurged) {}
+
+    /**
+     * Settings and content of the archive.
+     */
+    public record ArchiveStatus(
+        boolean enabled,
+        String path,
+        int afterDays,
+        int retentionDays,
+        int segmentCount,
+        long rows,
+        long sizeBytes,
+        LocalDateTime lastRun,
+        List<SegmentInfo> segments
+    ) {}
+
+    /**
+     * One segment file: the day it holds, its rows, size on disk and time range.
+     */
+    public record SegmentInfo(
+        String file,
+        LocalDate day,
+        long rows,
+        long sizeBytes,
+        int blocks,
+        LocalDateTime from,
+        LocalDateTime to
+    ) {}
+}
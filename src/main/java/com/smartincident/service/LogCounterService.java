@@ -0,0 +1,134 @@
+package com.smartincident.service;
+
+import com.smartincident.event.LogsIngestedEvent;
+import com.smartincident.model.LogCountRollup;
+import com.smartincident.model.LogEntry;
+import com.smartincident.repository.LogCountRollupRepository;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ShutdownEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Service counting ingested logs per (service, level, minute).
+ *
+ * Counts accumulate in memory as logs are committed and are flushed periodically
+ * into the log_count_rollup table, which every replica adds to. Reads combine the
+ * rollups with this instance's unflushed counts, so log volume checks cost a few
+ * rollup rows however much log_entry holds. Counts have minute granularity: a
+ * window starting mid-minute includes that whole minute.
+ */
+@ApplicationScoped
+public class LogCounterService {
+
+    @Inject
+    LogCountRollupRepository rollupRepository;
+
+    @ConfigProperty(name = "app.logs.counters.retention-days", defaultValue = "30")
+    int retentionDays;
+
+    private DeltaBuffer<CounterKey, Long, LogCountRollup> counts;
+
+    @PostConstruct
+    void init() {
+        counts = new DeltaBuffer<>("log count rollups", rollupRepository, Long::sum);
+    }
+
+    /**
+     * Count committed log entries.
+     */
+    void onLogsIngested(@Observes(during = TransactionPhase.AFTER_SUCCESS) LogsIngestedEvent event) {
+        Map<CounterKey, Long> batch = new HashMap<>();
+        for (LogEntry entry : event.entries()) {
+            CounterKey key = new CounterKey(entry.serviceName, entry.level, entry.timestamp.truncatedTo(ChronoUnit.MINUTES));
+            batch.merge(key, 1L, Long::sum);
+        }
+        counts.addAll(batch);
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        try {
+            flush();
+        } catch (Exception e) {
+            Log.warnf("Could not flush log counts on shutdown: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Number of logs of a service and level in the minutes since a given time.
+     */
+    public long count(String serviceName, String level, LocalDateTime since) {
+        LocalDateTime from = since.truncatedTo(ChronoUnit.MINUTES);
+        return counts.read(pending -> {
+            long total = rollupRepository.sumCounts(serviceName, level, from);
+            for (Map.Entry<CounterKey, Long> entry : pending.entrySet()) {
+                CounterKey key = entry.getKey();
+                if (key.serviceName().equals(serviceName) && key.level().equals(level) && !key.minute().isBefore(from)) {
+                    total += entry.getValue();
+                }
+            }
+            return total;
+        });
+    }
+
+    /**
+     * Per-minute log counts of a service since a given time, oldest first,
+     * for one level or every level when level is null.
+     */
+    public List<MinuteCount> series(String serviceName, String level, LocalDateTime since) {
+        LocalDateTime from = since.truncatedTo(ChronoUnit.MINUTES);
+        Map<CounterKey, Long> minutes = counts.read(pending -> {
+            Map<CounterKey, Long> merged = new TreeMap<>(CounterKey.ORDER);
+            for (LogCountRollup rollup : rollupRepository.findSeries(serviceName, level, from)) {
+                merged.merge(new CounterKey(serviceName, rollup.level, rollup.minuteStart), rollup.logCount, Long::sum);
+            }
+            for (Map.Entry<CounterKey, Long> entry : pending.entrySet()) {
+                CounterKey key = entry.getKey();
+                if (key.serviceName().equals(serviceName) && (level == null || key.level().equals(level))
+                        && !key.minute().isBefore(from)) {
+                    merged.merge(key, entry.getValue(), Long::sum);
+                }
+            }
+            return merged;
+        });
+
+        List<MinuteCount> series = new ArrayList<>(minutes.size());
+        minutes.forEach((key, count) -> series.add(new MinuteCount(key.minute(), key.level(), count)));
+        return series;
+    }
+
+    /**
+     * Move unflushed counts into the rollup table and purge expired rollups.
+     * On failure the counts are kept for the next flush.
+     */
+    public void flush() {
+        counts.flush(
+                (key, delta) -> rollupRepository.increment(key.serviceName(), key.level(), key.minute(), delta),
+                (key, delta) -> new LogCountRollup(key.serviceName(), key.level(), key.minute(), delta));
+        counts.purgeExpired(retentionDays, rollupRepository::deleteOlderThan);
+    }
+
+    private record CounterKey(String serviceName, String level, LocalDateTime minute) {
+        static final Comparator<CounterKey> ORDER = Comparator
+                .comparing(CounterKey::minute)
+                .thenComparing(CounterKey::level);
+    }
+
+    /**
+     * Number of logs of one level within one minute.
+     */
+    public record MinuteCount(LocalDateTime minute, String level, long count) {}
+}
@@ -1,11 +1,14 @@
 package com.smartincident.service;
 
 import com.smartincident.dto.LogEntryDTO;
+import com.smartincident.event.LogsIngestedEvent;
 import com.smartincident.model.LogEntry;
 import com.smartincident.repository.LogEntryRepository;
 import io.quarkus.logging.Log;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import java.time.LocalDateTime;
@@ -20,22 +23,35 @@ public class LogIngestionService {
     @Inject
     LogEntryRepository logEntryRepository;
 
+    @Inject
+    DetectionCadenceService detectionCadenceService;
+
+    @Inject
+    LogSearchService logSearchService;
+
+    @Inject
+    LogCounterService logCounterService;
+
+    @Inject
+    ClassificationService classificationService;
+
+    @Inject
+    Event<LogsIngestedEvent> logsIngestedEvents;
+
+    @ConfigProperty(name = "app.classification.tag-error-logs", defaultValue = "true")
+    boolean tagErrorLogs;
+
     /**
      * Ingest a single log entry.
      */
     @Transactional
     public LogEntry ingest(LogEntryDTO dto) {
-        LogEntry logEntry = new LogEntry();
-        logEntry.timestamp = dto.timestamp != null ? dto.timestamp : LocalDateTime.now();
-        logEntry.level = dto.level != null ? dto.level.toUpperCase() : "INFO";
-        logEntry.message = dto.message;
-        logEntry.serviceName = dto.serviceName;
-        logEntry.podName = dto.podName;
-        logEntry.namespace = dto.namespace;
-        logEntry.traceId = dto.traceId;
-        logEntry.spanId = dto.spanId;
+        LogEntry logEntry = toEntity(dto);
 
         logEntryRepository.persist(logEntry);
+        logSearchService.index(logEntry);
+        detectionCadenceService.recordActivity(logEntry.serviceName);
+        logsIngestedEvents.fire(new LogsIngestedEvent(List.of(logEntry)));
         
         Log.debugf("Ingested log entry: [%s] %s from %s", 
                    logEntry.level, 
@@ -56,37 +72,40 @@ public class LogIngestionService {
         
         for (LogEntry entry : entries) {
             logEntryRepository.persist(entry);
+            logSearchService.index(entry);
+            detectionCadenceService.recordActivity(entry.serviceName);
         }
+        logsIngestedEvents.fire(new LogsIngestedEvent(entries));
         
         Log.infof("Ingested batch of %d log entries", entries.size());
         return entries;
     }
 
     /**
-     * Get error logs for a service since a given time.
+     * Get the newest error logs of a service in the last N minutes, at most limit of them.
      */
-    public List<LogEntry> getErrorsForService(String serviceName, int minutesAgo) {
+    public List<LogEntry> getErrorsForService(String serviceName, int minutesAgo, int limit) {
         LocalDateTime since = LocalDateTime.now().minusMinutes(minutesAgo);
-        return logEntryRepository.findErrorsForService(serviceName, since);
+        return logEntryRepository.findErrorsForService(serviceName, since, limit);
     }
 
     /**
-     * Count errors for a service in the last N minutes.
+     * Count errors for a service in the last N minutes, from the per-minute log counters.
      */
     public long countRecentErrors(String serviceName, int minutesAgo) {
         LocalDateTime since = LocalDateTime.now().minusMinutes(minutesAgo);
-        return logEntryRepository.countErrors(serviceName, since);
+        return logCounterService.count(serviceName, "ERROR", since);
     }
 
     /**
-     * Get recent logs.
+     * Get the newest logs of the last N minutes, at most limit of them.
      */
-    public List<LogEntry> getRecentLogs(int minutesAgo) {
+    public List<LogEntry> getRecentLogs(int minutesAgo, int limit) {
         LocalDateTime since = LocalDateTime.now().minusMinutes(minutesAgo);
-        return logEntryRepository.findRecent(since);
+        return logEntryRepository.findRecent(since, limit);
     }
 
-    private LogEntry toEntity(LogEntryDTO dto) {
+    LogEntry toEntity(LogEntryDTO dto) {
         LogEntry logEntry = new LogEntry();
         logEntry.timestamp = dto.timestamp != null ? dto.timestamp : LocalDateTime.now();
         logEntry.level = dto.level != null ? dto.level.toUpperCase() : "INFO";
@@ -96,6 +115,10 @@ public class LogIngestionService {
         logEntry.namespace = dto.namespace;
         logEntry.traceId = dto.traceId;
         logEntry.spanId = dto.spanId;
+        logEntry.parentSpanId = dto.parentSpanId;
+        if (tagErrorLogs && logEntry.isError()) {
+            logEntry.category = classificationService.primaryCategory(logEntry.message);
+        }
         return logEntry;
     }
 
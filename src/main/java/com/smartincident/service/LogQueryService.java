@@ -0,0 +1,160 @@
+package com.smartincident.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.smartincident.model.LogEntry;
+import com.smartincident.repository.LogEntryRepository;
+import com.smartincident.repository.LogEntryRepository.LogFilter;
+import com.smartincident.util.KeysetCursor;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.panache.common.Parameters;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Service for querying stored logs without loading whole time ranges into memory.
+ *
+ * Pages are read with keyset pagination on (timestamp, id). Exports stream rows as
+ * NDJSON from a forward-only scrollable result of a stateless session: rows are
+ * fetched in fixed-size batches and never attached to a persistence context, so
+ * memory use does not depend on the size of the range.
+ */
+@ApplicationScoped
+public class LogQueryService {
+
+    private static final byte[] NEWLINE = {'\n'};
+
+    @Inject
+    LogEntryRepository logEntryRepository;
+
+    @Inject
+    LogArchiveService logArchiveService;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "app.logs.export.fetch-size", defaultValue = "500")
+    int fetchSize;
+
+    @ConfigProperty(name = "app.logs.export.timeout-seconds", defaultValue = "300")
+    int timeoutSeconds;
+
+    /**
+     * Get one page of logs matching a filter, newest first.
+     *
+     * @param cursor opaque cursor from a previous page, or null for the first page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public LogPage listLogs(LogFilter filter, String cursor, int limit) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+
+        // Fetch one extra row to know whether another page follows
+        LocalDateTime afterTimestamp = after != null ? after.timestamp() : null;
+        Long afterId = after != null ? after.id() : null;
+        List<LogEntry> logs = logArchiveService.withArchived(filter, afterTimestamp, afterId,
+                logEntryRepository.findPage(filter, afterTimestamp, afterId, limit + 1), limit + 1);
+        boolean hasMore = logs.size() > limit;
+        if (hasMore) {
+            logs = logs.subList(0, limit);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            LogEntry last = logs.get(logs.size() - 1);
+            nextCursor = new KeysetCursor(last.timestamp, last.id).encode();
+        }
+        return new LogPage(logs, nextCursor);
+    }
+
+    /**
+     * Write every log matching a filter to out as one JSON object per line, newest
+     * first, stopping after maxRows rows. Archived logs follow the database rows.
+     *
+     * @return number of rows written
+     */
+    public long exportLogs(LogFilter filter, long maxRows, OutputStream out) {
+        Parameters params = new Parameters();
+        String hql = "FROM LogEntry WHERE " + logEntryRepository.whereClause(filter, params)
+                + " ORDER BY timestamp DESC, id DESC";
+        ObjectWriter writer = objectMapper.writerFor(LogEntry.class);
+
+        long written = QuarkusTransaction.requiringNew().timeout(timeoutSeconds).call(() -> {
+            long rows = 0;
+            try (StatelessSession session = sessionFactory.openStatelessSession()) {
+                var query = session.createSelectionQuery(hql, LogEntry.class)
+                        .setFetchSize(fetchSize)
+                        .setReadOnly(true);
+                params.map().forEach(query::setParameter);
+
+                try (ScrollableResults<LogEntry> results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+                    while (rows < maxRows && results.next()) {
+                        out.write(writer.writeValueAsBytes(results.get()));
+                        out.write(NEWLINE);
+                        if (++rows % fetchSize == 0) {
+                            out.flush();
+                        }
+                    }
+                }
+                out.flush();
+            } catch (IOException e) {
+                // Client went away; the transaction ends with the scroll
+                throw new UncheckedIOException(e);
+            }
+            return rows;
+        });
+        written += exportArchived(filter, maxRows - written, writer, out);
+
+        Log.debugf("Exported %d log entries", written);
+        return written;
+    }
+
+    /**
+     * Write archived logs matching a filter, newest first, a page at a time.
+     */
+    private long exportArchived(LogFilter filter, long maxRows, ObjectWriter writer, OutputStream out) {
+        long rows = 0;
+        LogEntry last = null;
+        try {
+            while (rows < maxRows) {
+                List<LogEntry> page = logArchiveService.findPage(filter, last != null ? last.timestamp : null,
+                        last != null ? last.id : null, (int) Math.min(fetchSize, maxRows - rows));
+                for (LogEntry entry : page) {
+                    out.write(writer.writeValueAsBytes(entry));
+                    out.write(NEWLINE);
+                }
+                out.flush();
+                rows += page.size();
+                if (page.size() < fetchSize) {
+                    break;
+                }
+                last = page.get(page.size() - 1);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rows;
+    }
+
+    /**
+     * One page of logs and the cursor of the next page (null on the last page).
+     */
+    public record LogPage(
+        List<LogEntry> items,
+        String nextCursor
+    ) {}
+}
@@ -0,0 +1,473 @@
+package com.smartincident.service;
+
+import com.smartincident.model.LogEntry;
+import com.smartincident.repository.LogEntryRepository;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service for full-text search over log messages.
+ *
+ * Two engines are available. The "index" engine keeps an in-process inverted index
+ * of message tokens for the last index-hours of logs, split into segments by the hour
+ * of each log's timestamp that are dropped as they age out; queries intersect posting lists and rank hits by term
+ * weight. The "database" engine queries log_entry directly and relies on a pg_trgm GIN
+ * index on lower(message), created at startup. "auto" picks the database engine on
+ * PostgreSQL, where all replicas share one index, and the in-process index otherwise.
+ */
+@ApplicationScoped
+public class LogSearchService {
+
+    private static final int REBUILD_BATCH_SIZE = 5000;
+    private static final int MAX_TOKEN_LENGTH = 64;
+    private static final double TF_SATURATION = 1.2;
+    private static final long HOUR_MILLIS = 3_600_000L;
+
+    @Inject
+    LogEntryRepository logEntryRepository;
+
+    @Inject
+    EntityManager entityManager;
+
+    @ConfigProperty(name = "app.logs.search.engine", defaultValue = "auto")
+    String engineSetting;
+
+    @ConfigProperty(name = "quarkus.datasource.db-kind")
+    String dbKind;
+
+    @ConfigProperty(name = "app.logs.search.index-hours", defaultValue = "24")
+    int indexHours;
+
+    @ConfigProperty(name = "app.logs.search.max-documents", defaultValue = "2000000")
+    int maxDocuments;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Segments by the start of the hour of their logs' timestamps
+    private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+    private final Map<String, String> symbols = new HashMap<>();
+    private long documentCount;
+    private volatile boolean useIndex;
+
+    void onStart(@Observes StartupEvent event) {
+        useIndex = switch (engineSetting.toLowerCase()) {
+            case "index" -> true;
+            case "database" -> false;
+            default -> !"postgresql".equalsIgnoreCase(dbKind);
+        };
+
+        if (useIndex) {
+            rebuildIndex();
+        } else if ("postgresql".equalsIgnoreCase(dbKind)) {
+            createTrigramIndex();
+        }
+    }
+
+    /**
+     * Add a freshly persisted log entry to the in-process index.
+     */
+    public void index(LogEntry entry) {
+        if (!useIndex || entry.id == null) {
+            return;
+        }
+        Map<String, Integer> termFrequencies = termFrequencies(entry.message);
+        long timestamp = toMillis(entry.timestamp);
+        long now = System.currentTimeMillis();
+        long bucket = timestamp - Math.floorMod(timestamp, HOUR_MILLIS);
+
+        lock.writeLock().lock();
+        try {
+            if (bucket + HOUR_MILLIS < now - indexHours * HOUR_MILLIS) {
+                // Already outside the indexed window
+                return;
+            }
+            Segment segment = segments.get(bucket);
+            if (segment == null) {
+                evict(now);
+                segment = new Segment(bucket);
+                segments.put(bucket, segment);
+            }
+            segment.add(entry.id, timestamp, symbol(entry.serviceName), symbol(entry.level), termFrequencies);
+            documentCount++;
+            if (documentCount > maxDocuments) {
+                evict(now);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Search log messages for all terms of the query, best matches first.
+     */
+    public List<LogSearchHit> search(LogSearchQuery query) {
+        List<String> terms = tokenize(query.text());
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("Query must contain at least one word");
+        }
+        LocalDateTime from = query.from() != null ? query.from() : LocalDateTime.now().minusHours(indexHours);
+        String level = query.level() != null ? query.level().toUpperCase() : null;
+
+        return useIndex
+                ? searchIndex(terms, query.serviceName(), level, from, query.to(), query.limit())
+                : searchDatabase(terms, query.serviceName(), level, from, query.to(), query.limit());
+    }
+
+    /**
+     * Name of the engine serving searches and, for the index engine, its size.
+     */
+    public SearchEngineInfo getEngineInfo() {
+        lock.readLock().lock();
+        try {
+            return useIndex
+                    ? new SearchEngineInfo("index", segments.size(), documentCount)
+                    : new SearchEngineInfo("database", 0, 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<LogSearchHit> searchIndex(List<String> terms, String serviceName, String level,
+                                           LocalDateTime from, LocalDateTime to, int limit) {
+        long fromMillis = toMillis(from);
+        long toMillis = to != null ? toMillis(to) : Long.MAX_VALUE;
+        PriorityQueue<ScoredId> top = new PriorityQueue<>(
+                Comparator.comparingDouble(ScoredId::score).thenComparingLong(ScoredId::timestamp));
+
+        lock.readLock().lock();
+        try {
+            String service = serviceName != null ? symbols.get(serviceName) : null;
+            String lvl = level != null ? symbols.get(level) : null;
+            if ((serviceName != null && service == null) || (level != null && lvl == null)) {
+                return List.of();
+            }
+            for (Segment segment : segments.values()) {
+                if (segment.maxTimestamp >= fromMillis && segment.minTimestamp < toMillis) {
+                    segment.search(terms, service, lvl, fromMillis, toMillis, limit, top);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<ScoredId> ranked = new ArrayList<>(top);
+        ranked.sort(Comparator.comparingDouble(ScoredId::score).thenComparingLong(ScoredId::timestamp).reversed());
+        if (ranked.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, LogEntry> entries = logEntryRepository
+                .list("id in ?1", ranked.stream().map(ScoredId::id).toList())
+                .stream()
+                .collect(Collectors.toMap(e -> e.id, Function.identity()));
+
+        List<LogSearchHit> hits = new ArrayList<>(ranked.size());
+        for (ScoredId scored : ranked) {
+            LogEntry entry = entries.get(scored.id());
+            if (entry != null) {
+                hits.add(new LogSearchHit(round(scored.score()), entry));
+            }
+        }
+        return hits;
+    }
+
+    private List<LogSearchHit> searchDatabase(List<String> terms, String serviceName, String level,
+                                              LocalDateTime from, LocalDateTime to, int limit) {
+        List<LogEntry> matches = logEntryRepository.searchByTerms(terms, serviceName, level, from, to, limit);
+
+        // No document frequencies here: rank the newest matches by term occurrences alone
+        List<LogSearchHit> hits = new ArrayList<>(matches.size());
+        for (LogEntry entry : matches) {
+            Map<String, Integer> tf = termFrequencies(entry.message);
+            double score = 0;
+            for (String term : terms) {
+                int count = tf.getOrDefault(term, 0);
+                score += count / (count + TF_SATURATION);
+            }
+            hits.add(new LogSearchHit(round(score), entry));
+        }
+        hits.sort(Comparator.comparingDouble(LogSearchHit::score).reversed());
+        return hits;
+    }
+
+    private void rebuildIndex() {
+        LocalDateTime since = LocalDateTime.now().minusHours(indexHours);
+        long lastId = 0;
+        int indexed = 0;
+        while (true) {
+            long afterId = lastId;
+            List<LogEntry> batch = QuarkusTransaction.requiringNew().call(() -> {
+                List<LogEntry> entries = logEntryRepository.findSince(since, afterId, REBUILD_BATCH_SIZE);
+                entityManager.clear();
+                return entries;
+            });
+            for (LogEntry entry : batch) {
+                index(entry);
+                lastId = entry.id;
+            }
+            indexed += batch.size();
+            if (batch.size() < REBUILD_BATCH_SIZE) {
+                break;
+            }
+        }
+        Log.infof("Log search index built with %d entries from the last %d hours", indexed, indexHours);
+    }
+
+    private void createTrigramIndex() {
+        try {
+            QuarkusTransaction.requiringNew().run(() -> {
+                entityManager.createNativeQuery("CREATE EXTENSION IF NOT EXISTS pg_trgm").executeUpdate();
+                entityManager.createNativeQuery(
+                        "CREATE INDEX IF NOT EXISTS idx_log_message_trgm ON log_entry " +
+                        "USING gin (lower(message) gin_trgm_ops)").executeUpdate();
+            });
+            Log.info("Log search uses the pg_trgm index on log_entry.message");
+        } catch (Exception e) {
+            Log.warnf("Could not create the pg_trgm log search index, searches will scan log_entry: %s",
+                      e.getMessage());
+        }
+    }
+
+    /**
+     * Drop segments older than the retention window, then oldest segments while over
+     * the document limit. Callers hold the write lock.
+     */
+    private void evict(long now) {
+        long cutoff = now - indexHours * HOUR_MILLIS;
+        Iterator<Segment> it = segments.values().iterator();
+        while (it.hasNext()) {
+            Segment segment = it.next();
+            boolean expired = segment.bucket + HOUR_MILLIS < cutoff;
+            boolean overLimit = documentCount > maxDocuments && segments.size() > 1;
+            if (!expired && !overLimit) {
+                break;
+            }
+            documentCount -= segment.size;
+            it.remove();
+        }
+    }
+
+    private String symbol(String value) {
+        if (value == null) {
+            return null;
+        }
+        return symbols.computeIfAbsent(value, Function.identity());
+    }
+
+    /**
+     * Split text into lowercase word tokens, the unit of indexing and querying.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : text.toLowerCase().split("[^\\p{L}\\p{N}_]+")) {
+            if (!token.isEmpty() && token.length() <= MAX_TOKEN_LENGTH) {
+                tokens.add(token);
+            }
+        }
+        return List.copyOf(tokens);
+    }
+
+    private static Map<String, Integer> termFrequencies(String text) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        if (text == null) {
+            return frequencies;
+        }
+        for (String token : text.toLowerCase().split("[^\\p{L}\\p{N}_]+")) {
+            if (!token.isEmpty() && token.length() <= MAX_TOKEN_LENGTH) {
+                frequencies.merge(token, 1, Integer::sum);
+            }
+        }
+        return frequencies;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static double round(double score) {
+        return Math.round(score * 1000) / 1000.0;
+    }
+
+    /**
+     * Inverted index over the logs timestamped within one hour. Documents are numbered
+     * in arrival order, so every posting list is sorted by document number.
+     */
+    private static final class Segment {
+        final long bucket;
+        final Map<String, Postings> postings = new HashMap<>();
+        long[] ids = new long[256];
+        long[] timestamps = new long[256];
+        String[] services = new String[256];
+        String[] levels = new String[256];
+        int size;
+        long minTimestamp = Long.MAX_VALUE;
+        long maxTimestamp = Long.MIN_VALUE;
+
+        Segment(long bucket) {
+            this.bucket = bucket;
+        }
+
+        void add(long id, long timestamp, String service, String level, Map<String, Integer> termFrequencies) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                services = Arrays.copyOf(services, capacity);
+                levels = Arrays.copyOf(levels, capacity);
+            }
+            int doc = size++;
+            ids[doc] = id;
+            timestamps[doc] = timestamp;
+            services[doc] = service;
+            levels[doc] = level;
+            minTimestamp = Math.min(minTimestamp, timestamp);
+            maxTimestamp = Math.max(maxTimestamp, timestamp);
+            termFrequencies.forEach((term, tf) -> postings.computeIfAbsent(term, t -> new Postings()).add(doc, tf));
+        }
+
+        /**
+         * Intersect the posting lists of all terms, starting from the rarest, and offer
+         * matching documents to the shared top-k heap.
+         */
+        void search(List<String> terms, String service, String level, long fromMillis, long toMillis,
+                    int limit, PriorityQueue<ScoredId> top) {
+            Postings[] lists = new Postings[terms.size()];
+            double[] idf = new double[terms.size()];
+            for (int i = 0; i < terms.size(); i++) {
+                Postings list = postings.get(terms.get(i));
+                if (list == null) {
+                    return;
+                }
+                lists[i] = list;
+            }
+            Arrays.sort(lists, Comparator.comparingInt(p -> p.size));
+            for (int i = 0; i < lists.length; i++) {
+                idf[i] = Math.log(1 + (double) size / lists[i].size);
+            }
+
+            int[] cursors = new int[lists.length];
+            Postings rarest = lists[0];
+            candidates:
+            for (int c = 0; c < rarest.size; c++) {
+                int doc = rarest.docs[c];
+                double score = idf[0] * rarest.tfs[c] / (rarest.tfs[c] + TF_SATURATION);
+                for (int i = 1; i < lists.length; i++) {
+                    int pos = lists[i].seek(doc, cursors[i]);
+                    cursors[i] = pos;
+                    if (pos >= lists[i].size) {
+                        break candidates;
+                    }
+                    if (lists[i].docs[pos] != doc) {
+                        continue candidates;
+                    }
+                    int tf = lists[i].tfs[pos];
+                    score += idf[i] * tf / (tf + TF_SATURATION);
+                }
+
+                long timestamp = timestamps[doc];
+                if (timestamp < fromMillis || timestamp >= toMillis
+                        || (service != null && services[doc] != service)
+                        || (level != null && levels[doc] != level)) {
+                    continue;
+                }
+                if (top.size() < limit) {
+                    top.add(new ScoredId(ids[doc], score, timestamp));
+                } else {
+                    ScoredId weakest = top.peek();
+                    if (score > weakest.score() || (score == weakest.score() && timestamp > weakest.timestamp())) {
+                        top.poll();
+                        top.add(new ScoredId(ids[doc], score, timestamp));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sorted document numbers containing a term, with the term frequency of each.
+     */
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] tfs = new int[4];
+        int size;
+
+        void add(int doc, int tf) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                tfs = Arrays.copyOf(tfs, size * 2);
+            }
+            docs[size] = doc;
+            tfs[size] = tf;
+            size++;
+        }
+
+        /**
+         * Position of the first document at or after doc, searching from start by
+         * galloping then binary search.
+         */
+        int seek(int doc, int start) {
+            int step = 1;
+            int low = start;
+            int high = start;
+            while (high < size && docs[high] < doc) {
+                low = high + 1;
+                high = start + step;
+                step <<= 1;
+            }
+            high = Math.min(high + 1, size);
+            int pos = Arrays.binarySearch(docs, low, high, doc);
+            return pos >= 0 ? pos : -pos - 1;
+        }
+    }
+
+    private record ScoredId(long id, double score, long timestamp) {}
+
+    /**
+     * Search criteria; text is required, the filters are optional.
+     */
+    public record LogSearchQuery(
+        String text,
+        String serviceName,
+        String level,
+        LocalDateTime from,
+        LocalDateTime to,
+        int limit
+    ) {}
+
+    /**
+     * A matching log entry and its relevance score.
+     */
+    public record LogSearchHit(double score, LogEntry log) {}
+
+    /**
+     * Active search engine and index size.
+     */
+    public record SearchEngineInfo(String engine, int segments, long documents) {}
+}
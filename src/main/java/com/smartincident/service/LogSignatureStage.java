@@ -0,0 +1,110 @@
+package com.smartincident.service;
+
+import com.smartincident.model.LogEntry;
+import com.smartincident.repository.LogEntryRepository;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Enrichment stage grouping the service's recent error logs into message signatures
+ * (messages with ids and numbers masked) and into the failure categories tagged at
+ * ingest; the dominant category points to a known cause.
+ */
+@ApplicationScoped
+public class LogSignatureStage implements EnrichmentStage {
+
+    private static final int MAX_LOGS = 500;
+    private static final int TOP_SIGNATURES = 5;
+    private static final int SIGNATURE_LENGTH = 120;
+
+    private static final Pattern UUID = Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    private static final Pattern HEX = Pattern.compile("\\b0x[0-9a-fA-F]+\\b|\\b[0-9a-fA-F]{16,}\\b");
+    private static final Pattern NUMBER = Pattern.compile("\\d+");
+
+    @Inject
+    LogEntryRepository logEntryRepository;
+
+    @Inject
+    RootCauseAnalysisService rootCauseAnalysisService;
+
+    @Inject
+    ClassificationService classificationService;
+
+    @ConfigProperty(name = "app.rca.enrichment.lookback-minutes", defaultValue = "15")
+    int lookbackMinutes;
+
+    @Override
+    public String name() {
+        return "logSignatures";
+    }
+
+    @Override
+    public int order() {
+        return 10;
+    }
+
+    @Override
+    public Result enrich(Context context) {
+        List<LogEntry> errors = logEntryRepository.findErrorsForService(
+                context.serviceName(), context.detectedAt().minusMinutes(lookbackMinutes), MAX_LOGS);
+        if (errors.isEmpty()) {
+            return Result.evidence("No error logs in the last " + lookbackMinutes + " minutes", List.of());
+        }
+
+        Map<String, Integer> signatures = new HashMap<>();
+        Map<String, Integer> categoryCounts = new HashMap<>();
+        for (LogEntry error : errors) {
+            signatures.merge(signature(error.message), 1, Integer::sum);
+            // Logs ingested before tagging, or with tagging disabled, are classified here
+            String category = error.category != null ? error.category : classificationService.primaryCategory(error.message);
+            if (category != null) {
+                categoryCounts.merge(category, 1, Integer::sum);
+            }
+        }
+
+        List<SignatureCount> top = signatures.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(TOP_SIGNATURES)
+                .map(e -> new SignatureCount(e.getKey(), e.getValue()))
+                .toList();
+
+        String suggestedCause = null;
+        double confidence = 0;
+        for (Map.Entry<String, Integer> category : categoryCounts.entrySet()) {
+            double share = (double) category.getValue() / errors.size();
+            if (share > confidence) {
+                Optional<String> cause = rootCauseAnalysisService.causeForCategory(context.type(), category.getKey());
+                if (cause.isPresent()) {
+                    suggestedCause = cause.get();
+                    confidence = share;
+                }
+            }
+        }
+
+        String summary = String.format("%d error logs, %d distinct signatures; most frequent: %s (%d)",
+                errors.size(), signatures.size(), top.get(0).signature(), top.get(0).count());
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("signatures", top);
+        details.put("categories", categoryCounts);
+        return new Result(summary, details, suggestedCause, confidence);
+    }
+
+    static String signature(String message) {
+        String masked = NUMBER.matcher(HEX.matcher(UUID.matcher(message).replaceAll("<id>")).replaceAll("<id>"))
+                .replaceAll("#");
+        return masked.length() > SIGNATURE_LENGTH ? masked.substring(0, SIGNATURE_LENGTH) : masked;
+    }
+
+    /**
+     * A message signature and how many error logs carry it.
+     */
+    public record SignatureCount(String signature, int count) {}
+}
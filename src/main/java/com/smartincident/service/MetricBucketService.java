@@ -0,0 +1,258 @@
+package com.smartincident.service;
+
+import com.smartincident.event.MetricsIngestedEvent;
+import com.smartincident.model.Metric;
+import com.smartincident.model.MetricBucket;
+import com.smartincident.repository.MetricBucketRepository;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ShutdownEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service keeping per-minute aggregates (count, sum, sum of squares, min, max, last)
+ * of every service metric.
+ *
+ * Samples are folded in memory as metrics are committed and flushed periodically
+ * into the metric_bucket table, which every replica adds to. Reads combine the
+ * buckets with this instance's unflushed aggregates, so the statistics of a metric
+ * over any range of minutes cost one grouped query. The minutes each flush touched
+ * are remembered for MetricRollupService to fold into the coarser rollups.
+ */
+@ApplicationScoped
+public class MetricBucketService {
+
+    @Inject
+    MetricBucketRepository bucketRepository;
+
+    @ConfigProperty(name = "app.metrics.buckets.retention-days", defaultValue = "30")
+    int retentionDays;
+
+    private DeltaBuffer<BucketKey, Aggregate, MetricBucket> aggregates;
+    // Minutes written since the rollups last consumed them
+    private final Set<BucketKey> flushed = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void init() {
+        aggregates = new DeltaBuffer<>("metric buckets", bucketRepository, Aggregate::plus);
+    }
+
+    /**
+     * Fold committed metrics into their buckets.
+     */
+    void onMetricsIngested(@Observes(during = TransactionPhase.AFTER_SUCCESS) MetricsIngestedEvent event) {
+        Map<BucketKey, Aggregate> batch = new HashMap<>();
+        for (Metric metric : event.metrics()) {
+            if (metric.value == null || metric.value.isNaN()) {
+                continue;
+            }
+            BucketKey key = new BucketKey(metric.serviceName, metric.metricName, metric.timestamp.truncatedTo(ChronoUnit.MINUTES));
+            batch.merge(key, Aggregate.of(metric.value, metric.timestamp), Aggregate::plus);
+        }
+        aggregates.addAll(batch);
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        try {
+            flush();
+        } catch (Exception e) {
+            Log.warnf("Could not flush metric buckets on shutdown: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Statistics of every metric of the given services over the minutes in [from, to).
+     */
+    public Map<SeriesKey, Stats> stats(Collection<String> serviceNames, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime start = from.truncatedTo(ChronoUnit.MINUTES);
+        LocalDateTime end = to.truncatedTo(ChronoUnit.MINUTES);
+        if (serviceNames.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        return aggregates.read(pending -> {
+            Map<SeriesKey, Stats> stats = new HashMap<>();
+            for (Object[] row : bucketRepository.sumByMetric(serviceNames, start, end)) {
+                stats.merge(new SeriesKey((String) row[0], (String) row[1]),
+                        new Stats(((Number) row[2]).longValue(), ((Number) row[3]).doubleValue(), ((Number) row[4]).doubleValue()),
+                        Stats::plus);
+            }
+            for (Map.Entry<BucketKey, Aggregate> entry : pending.entrySet()) {
+                BucketKey key = entry.getKey();
+                if (serviceNames.contains(key.serviceName()) && !key.minute().isBefore(start) && key.minute().isBefore(end)) {
+                    Aggregate aggregate = entry.getValue();
+                    stats.merge(new SeriesKey(key.serviceName(), key.metricName()),
+                            new Stats(aggregate.count(), aggregate.sum(), aggregate.sumSquares()), Stats::plus);
+                }
+            }
+            return stats;
+        });
+    }
+
+    /**
+     * Per-minute buckets of one metric of a service over the minutes in [from, to),
+     * oldest first.
+     */
+    public List<Bucket> series(String serviceName, String metricName, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime start = from.truncatedTo(ChronoUnit.MINUTES);
+        return aggregates.read(pending -> {
+            Map<LocalDateTime, Bucket> buckets = new TreeMap<>();
+            for (MetricBucket bucket : bucketRepository.findSeries(serviceName, metricName, start, to)) {
+                buckets.merge(bucket.bucketStart, Bucket.of(bucket), Bucket::plus);
+            }
+            for (Map.Entry<BucketKey, Aggregate> entry : pending.entrySet()) {
+                BucketKey key = entry.getKey();
+                if (key.serviceName().equals(serviceName) && key.metricName().equals(metricName)
+                        && !key.minute().isBefore(start) && key.minute().isBefore(to)) {
+                    buckets.merge(key.minute(), entry.getValue().toBucket(key.minute()), Bucket::plus);
+                }
+            }
+            return new ArrayList<>(buckets.values());
+        });
+    }
+
+    /**
+     * Minutes flushed since the last call, forgetting them.
+     */
+    Set<BucketKey> takeFlushed() {
+        Set<BucketKey> taken = new HashSet<>();
+        for (BucketKey key : flushed) {
+            if (flushed.remove(key)) {
+                taken.add(key);
+            }
+        }
+        return taken;
+    }
+
+    /**
+     * Remember minutes again, after the rollups failed to consume them.
+     */
+    void restoreFlushed(Collection<BucketKey> keys) {
+        flushed.addAll(keys);
+    }
+
+    /**
+     * Move unflushed aggregates into the bucket table and purge expired buckets.
+     * On failure the aggregates are kept for the next flush.
+     */
+    public void flush() {
+        flushed.addAll(aggregates.flush(
+                (key, delta) -> bucketRepository.merge(key.serviceName(), key.metricName(), key.minute(),
+                        delta.count(), delta.sum(), delta.sumSquares(), delta.min(), delta.max(),
+                        delta.last(), delta.lastAt()),
+                (key, delta) -> {
+                    MetricBucket bucket = new MetricBucket(key.serviceName(), key.metricName(), key.minute());
+                    bucket.sampleCount = delta.count();
+                    bucket.sumValue = delta.sum();
+                    bucket.sumSquares = delta.sumSquares();
+                    bucket.minValue = delta.min();
+                    bucket.maxValue = delta.max();
+                    bucket.lastValue = delta.last();
+                    bucket.lastAt = delta.lastAt();
+                    return bucket;
+                }));
+        aggregates.purgeExpired(retentionDays, bucketRepository::deleteOlderThan);
+    }
+
+    record BucketKey(String serviceName, String metricName, LocalDateTime minute) {}
+
+    private record Aggregate(long count, double sum, double sumSquares, double min, double max,
+                             double last, LocalDateTime lastAt) {
+
+        static Aggregate of(double value, LocalDateTime at) {
+            return new Aggregate(1, value, value * value, value, value, value, at);
+        }
+
+        Aggregate plus(Aggregate other) {
+            boolean otherIsLater = !other.lastAt.isBefore(lastAt);
+            return new Aggregate(count + other.count, sum + other.sum, sumSquares + other.sumSquares,
+                    Math.min(min, other.min), Math.max(max, other.max),
+                    otherIsLater ? other.last : last, otherIsLater ? other.lastAt : lastAt);
+        }
+
+        Bucket toBucket(LocalDateTime start) {
+            return new Bucket(start, count, sum, sumSquares, min, max, last, lastAt);
+        }
+    }
+
+    /**
+     * Aggregate of one metric of one service over one bucket, at any resolution.
+     * The last value is null for buckets written before it was tracked.
+     */
+    public record Bucket(
+        LocalDateTime start,
+        long count,
+        double sum,
+        double sumSquares,
+        double min,
+        double max,
+        Double last,
+        LocalDateTime lastAt
+    ) {
+
+        static Bucket of(MetricBucket bucket) {
+            return new Bucket(bucket.bucketStart, bucket.sampleCount, bucket.sumValue, bucket.sumSquares,
+                    bucket.minValue, bucket.maxValue, bucket.lastValue, bucket.lastAt);
+        }
+
+        /**
+         * Combine with another bucket, keeping this bucket's start.
+         */
+        public Bucket plus(Bucket other) {
+            boolean otherIsLater = other.lastAt != null && (lastAt == null || !other.lastAt.isBefore(lastAt));
+            return new Bucket(start, count + other.count, sum + other.sum, sumSquares + other.sumSquares,
+                    Math.min(min, other.min), Math.max(max, other.max),
+                    otherIsLater ? other.last : last, otherIsLater ? other.lastAt : lastAt);
+        }
+
+        public double mean() {
+            return count > 0 ? sum / count : 0;
+        }
+    }
+
+    /**
+     * One metric of one service.
+     */
+    public record SeriesKey(String serviceName, String metricName) {}
+
+    /**
+     * Sample count, sum and sum of squares of a metric over a range of buckets.
+     */
+    public record Stats(long count, double sum, double sumSquares) {
+
+        Stats plus(Stats other) {
+            return new Stats(count + other.count, sum + other.sum, sumSquares + other.sumSquares);
+        }
+
+        public double mean() {
+            return count > 0 ? sum / count : 0;
+        }
+
+        /**
+         * Population standard deviation of the samples.
+         */
+        public double stddev() {
+            if (count < 2) {
+                return 0;
+            }
+            double mean = mean();
+            return Math.sqrt(Math.max(0, sumSquares / count - mean * mean));
+        }
+    }
+}
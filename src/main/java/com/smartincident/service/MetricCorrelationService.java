@@ -0,0 +1,108 @@
+package com.smartincident.service;
+
+import com.smartincident.service.MetricBucketService.SeriesKey;
+import com.smartincident.service.MetricBucketService.Stats;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service ranking metrics by how strongly they moved around a point in time.
+ *
+ * Each metric of the given services is compared between a baseline range and the
+ * window just before the point: the score is the shift of the mean in baseline
+ * standard deviations. Both ranges are read from the per-minute metric buckets, so
+ * a ranking is two grouped queries however many samples the ranges hold.
+ */
+@ApplicationScoped
+public class MetricCorrelationService {
+
+    // Floor of the baseline deviation, relative to the mean, so flat metrics do not score infinitely
+    private static final double MIN_RELATIVE_STDDEV = 0.05;
+    private static final double MIN_STDDEV = 1e-6;
+
+    @Inject
+    MetricBucketService metricBucketService;
+
+    @ConfigProperty(name = "app.rca.correlation.window-minutes", defaultValue = "10")
+    int windowMinutes;
+
+    @ConfigProperty(name = "app.rca.correlation.baseline-minutes", defaultValue = "60")
+    int baselineMinutes;
+
+    @ConfigProperty(name = "app.rca.correlation.min-baseline-samples", defaultValue = "3")
+    int minBaselineSamples;
+
+    /**
+     * Rank the metrics of a service and its related services by the size of their
+     * shift in the window ending at the given time, strongest first.
+     */
+    public List<CorrelatedSignal> rank(String serviceName, Set<String> relatedServices, LocalDateTime at, int limit) {
+        Set<String> services = new LinkedHashSet<>();
+        services.add(serviceName);
+        services.addAll(relatedServices);
+
+        LocalDateTime windowStart = at.minusMinutes(windowMinutes);
+        // The window includes the minute of the incident itself
+        LocalDateTime windowEnd = at.plusMinutes(1);
+        Map<SeriesKey, Stats> baseline = metricBucketService.stats(services, windowStart.minusMinutes(baselineMinutes), windowStart);
+        Map<SeriesKey, Stats> window = metricBucketService.stats(services, windowStart, windowEnd);
+
+        List<CorrelatedSignal> signals = new ArrayList<>();
+        window.forEach((key, current) -> {
+            Stats before = baseline.get(key);
+            if (before == null || before.count() < minBaselineSamples || current.count() == 0) {
+                return;
+            }
+            double stddev = Math.max(before.stddev(),
+                    Math.max(MIN_RELATIVE_STDDEV * Math.max(Math.abs(before.mean()), Math.abs(current.mean())), MIN_STDDEV));
+            double score = (current.mean() - before.mean()) / stddev;
+            signals.add(new CorrelatedSignal(
+                key.serviceName(),
+                key.metricName(),
+                !key.serviceName().equals(serviceName),
+                round(before.mean()),
+                round(current.mean()),
+                round(score)
+            ));
+        });
+
+        return signals.stream()
+                .sorted(Comparator.comparingDouble((CorrelatedSignal s) -> Math.abs(s.score())).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public int windowMinutes() {
+        return windowMinutes;
+    }
+
+    public int baselineMinutes() {
+        return baselineMinutes;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * A metric whose mean moved by score baseline standard deviations (signed) in the
+     * window before an incident. related is set for metrics of another service.
+     */
+    public record CorrelatedSignal(
+        String serviceName,
+        String metricName,
+        boolean related,
+        double baselineMean,
+        double windowMean,
+        double score
+    ) {}
+}
@@ -0,0 +1,170 @@
+package com.smartincident.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartincident.dto.TraceSummaryDTO;
+import com.smartincident.model.Incident;
+import com.smartincident.repository.IncidentRepository;
+import com.smartincident.service.MetricCorrelationService.CorrelatedSignal;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Enrichment stage ranking the metrics of the service, and of the services sharing
+ * its traces, by how strongly they moved just before the incident. The top signals
+ * and a confidence are recorded on the incident; a clearly dominant signal suggests
+ * a cause.
+ */
+@ApplicationScoped
+public class MetricCorrelationStage implements EnrichmentStage {
+
+    private static final int MAX_TRACES = 50;
+    // Score at which a lone signal reaches a confidence of 0.5
+    private static final double HALF_CONFIDENCE_SCORE = 3.0;
+
+    @Inject
+    MetricCorrelationService metricCorrelationService;
+
+    @Inject
+    TraceService traceService;
+
+    @Inject
+    RootCauseAnalysisService rootCauseAnalysisService;
+
+    @Inject
+    IncidentRepository incidentRepository;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "app.rca.correlation.max-signals", defaultValue = "5")
+    int maxSignals;
+
+    @ConfigProperty(name = "app.rca.correlation.max-related-services", defaultValue = "5")
+    int maxRelatedServices;
+
+    @ConfigProperty(name = "app.rca.correlation.min-score", defaultValue = "2.0")
+    double minScore;
+
+    @Override
+    public String name() {
+        return "correlation";
+    }
+
+    @Override
+    public int order() {
+        return 25;
+    }
+
+    @Override
+    public Result enrich(Context context) {
+        Set<String> related = relatedServices(context.serviceName());
+        List<CorrelatedSignal> signals = metricCorrelationService.rank(
+                context.serviceName(), related, context.detectedAt(), maxSignals);
+
+        double confidence = confidence(signals);
+        record(context.incidentId(), signals, confidence);
+
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("relatedServices", related);
+        details.put("signals", signals);
+        if (signals.isEmpty() || Math.abs(signals.get(0).score()) < minScore) {
+            return Result.evidence(String.format("No metric moved by %.1f deviations in the %d minutes before detection",
+                    minScore, metricCorrelationService.windowMinutes()), details);
+        }
+
+        CorrelatedSignal top = signals.get(0);
+        String summary = String.format("%s %s moved %+.1f deviations (%.2f -> %.2f)",
+                top.serviceName(), top.metricName(), top.score(), top.baselineMean(), top.windowMean());
+        String suggestedCause = suggestCause(context, top).orElse(null);
+        return new Result(summary, details, suggestedCause, suggestedCause != null ? confidence : 0);
+    }
+
+    /**
+     * Services appearing most often in the service's recent traces.
+     */
+    private Set<String> relatedServices(String serviceName) {
+        int minutes = metricCorrelationService.windowMinutes() + metricCorrelationService.baselineMinutes();
+        Map<String, Integer> counts = new HashMap<>();
+        for (TraceSummaryDTO trace : traceService.findRecentTraces(serviceName, false, minutes, MAX_TRACES)) {
+            for (String service : trace.services) {
+                if (!service.equals(serviceName)) {
+                    counts.merge(service, 1, Integer::sum);
+                }
+            }
+        }
+        Set<String> related = new LinkedHashSet<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(maxRelatedServices)
+                .forEach(e -> related.add(e.getKey()));
+        return related;
+    }
+
+    /**
+     * Confidence grows with the top score and shrinks when the runner-up is nearly as
+     * strong, since the ranking then does not single out one signal.
+     */
+    private double confidence(List<CorrelatedSignal> signals) {
+        if (signals.isEmpty()) {
+            return 0;
+        }
+        double top = Math.abs(signals.get(0).score());
+        if (top < minScore) {
+            return 0;
+        }
+        double strength = top / (top + HALF_CONFIDENCE_SCORE);
+        double runnerUp = signals.size() > 1 ? Math.abs(signals.get(1).score()) : 0;
+        double separation = 1 - runnerUp / top;
+        return Math.round(strength * (0.5 + 0.5 * separation) * 100) / 100.0;
+    }
+
+    private Optional<String> suggestCause(Context context, CorrelatedSignal signal) {
+        String metric = signal.metricName().toLowerCase();
+        if (signal.related()) {
+            if (signal.score() < 0 && !metric.contains("count")) {
+                return Optional.empty();
+            }
+            return rootCauseAnalysisService.causeForCategory(context.type(), "DOWNSTREAM")
+                    .map(cause -> cause + " (" + signal.serviceName() + ")");
+        }
+        if (signal.score() < 0) {
+            return Optional.empty();
+        }
+        if (metric.contains("memory")) {
+            return rootCauseAnalysisService.causeForCategory(context.type(), "MEMORY");
+        }
+        if (metric.contains("cpu")) {
+            return rootCauseAnalysisService.causeForCategory(context.type(), "CPU");
+        }
+        if (metric.contains("total") || metric.contains("request")) {
+            return rootCauseAnalysisService.causeForCategory(context.type(), "TRAFFIC");
+        }
+        if (metric.contains("latency") || metric.contains("duration")) {
+            return rootCauseAnalysisService.causeForCategory(context.type(), "DATABASE");
+        }
+        return Optional.empty();
+    }
+
+    private void record(Long incidentId, List<CorrelatedSignal> signals, double confidence) {
+        Incident incident = incidentRepository.findById(incidentId);
+        if (incident == null) {
+            return;
+        }
+        try {
+            incident.correlatedSignals = objectMapper.writeValueAsString(signals);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize correlated signals", e);
+        }
+        incident.correlationConfidence = confidence;
+    }
+}
@@ -0,0 +1,536 @@
+package com.smartincident.service;
+
+import com.smartincident.event.MetricsIngestedEvent;
+import com.smartincident.model.Metric;
+import com.smartincident.repository.MetricRepository;
+import com.smartincident.service.MetricBucketService.SeriesKey;
+import com.smartincident.util.GorillaChunk;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Service keeping the last hours of raw metric samples in memory, compressed, so
+ * detection and recent-metric reads do not query the metric table.
+ *
+ * There is one series per service, metric and pod, made of GorillaChunks of
+ * chunk-samples samples each: about 1 to 3 bytes per sample for regular scrapes.
+ * Samples arrive as ingests commit; at startup the last retention-hours are loaded
+ * from the table. A sample older than its series' newest one is merged into the
+ * chunk covering it. Chunks that end before the retention horizon are dropped, and
+ * when the store outgrows max-memory-mb the oldest chunks go first and the horizon
+ * moves up.
+ *
+ * Reads of a range starting at or after the horizon are answered from memory, older
+ * ranges from the table. The store holds what the table had at startup plus the
+ * samples this replica ingested itself since, so it only answers for the whole
+ * table when a single replica ingests metrics. It is therefore off by default, and
+ * every read then goes to the table.
+ */
+@ApplicationScoped
+public class MetricHeadService {
+
+    private static final int BACKFILL_BATCH_SIZE = 5000;
+
+    @Inject
+    MetricRepository metricRepository;
+
+    @Inject
+    EntityManager entityManager;
+
+    @ConfigProperty(name = "app.metrics.head.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "app.metrics.head.retention-hours", defaultValue = "3")
+    int retentionHours;
+
+    @ConfigProperty(name = "app.metrics.head.max-memory-mb", defaultValue = "64")
+    int maxMemoryMb;
+
+    @ConfigProperty(name = "app.metrics.head.chunk-samples", defaultValue = "120")
+    int chunkSamples;
+
+    private final Map<SeriesKey, Map<String, Series>> series = new ConcurrentHashMap<>();
+    private final AtomicLong memoryBytes = new AtomicLong();
+    private final AtomicLong sampleCount = new AtomicLong();
+    // Epoch millis from which the store holds every sample; nothing before startup completes
+    private volatile long horizon = Long.MAX_VALUE;
+    // Samples from this time on are appended as they are committed, also while loading
+    private volatile long liveFrom = Long.MIN_VALUE;
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = now.minusHours(retentionHours);
+        liveFrom = toMillis(now);
+
+        LocalDateTime afterTimestamp = since;
+        long afterId = -1;
+        long loaded = 0;
+        while (true) {
+            LocalDateTime after = afterTimestamp;
+            long id = afterId;
+            List<Object[]> rows = QuarkusTransaction.requiringNew().call(() -> {
+                List<Object[]> batch = metricRepository.findSamplesAfter(after, id, now, BACKFILL_BATCH_SIZE);
+                entityManager.clear();
+                return batch;
+            });
+            for (Object[] row : rows) {
+                append((String) row[3], (String) row[4], (String) row[5], (String) row[6], (String) row[7],
+                       toMillis((LocalDateTime) row[1]), ((Number) row[2]).doubleValue());
+                afterId = ((Number) row[0]).longValue();
+                afterTimestamp = (LocalDateTime) row[1];
+            }
+            loaded += rows.size();
+            if (rows.size() < BACKFILL_BATCH_SIZE) {
+                break;
+            }
+        }
+        horizon = toMillis(since);
+        Log.infof("Metric head loaded %d samples of %d series from the last %d hours (%d KB)",
+                  loaded, countSeries(), retentionHours, memoryBytes.get() / 1024);
+    }
+
+    /**
+     * Append committed metrics to their series.
+     */
+    void onMetricsIngested(@Observes(during = TransactionPhase.AFTER_SUCCESS) MetricsIngestedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        for (Metric metric : event.metrics()) {
+            long timestamp = toMillis(metric.timestamp);
+            if (metric.value != null && (timestamp >= liveFrom || horizon != Long.MAX_VALUE)) {
+                append(metric.serviceName, metric.metricName, metric.podName, metric.namespace, metric.unit,
+                       timestamp, metric.value);
+            }
+        }
+    }
+
+    /**
+     * Whether reads of a range starting at since are answered from memory.
+     */
+    public boolean covers(LocalDateTime since) {
+        return enabled && toMillis(since) >= horizon;
+    }
+
+    /**
+     * Average of a metric of a service, across its pods, since the given time.
+     */
+    public OptionalDouble average(String metricName, String serviceName, LocalDateTime since) {
+        if (!covers(since)) {
+            return metricRepository.getAverageValue(metricName, serviceName, since);
+        }
+        Summary summary = summarize(serviceName, metricName, since, null);
+        return summary.count() > 0 ? OptionalDouble.of(summary.sum() / summary.count()) : OptionalDouble.empty();
+    }
+
+    /**
+     * Sum of a metric of a service, across its pods, since the given time; empty when
+     * there is no sample.
+     */
+    public OptionalDouble sum(String metricName, String serviceName, LocalDateTime since) {
+        if (!covers(since)) {
+            List<Metric> metrics = metricRepository.findMetricForService(metricName, serviceName, since);
+            return metrics.isEmpty() ? OptionalDouble.empty()
+                    : OptionalDouble.of(metrics.stream().mapToDouble(m -> m.value).sum());
+        }
+        Summary summary = summarize(serviceName, metricName, since, null);
+        return summary.count() > 0 ? OptionalDouble.of(summary.sum()) : OptionalDouble.empty();
+    }
+
+    /**
+     * Every sample of a service since the given time, oldest first. Samples read from
+     * memory have no id.
+     */
+    public List<Metric> samples(String serviceName, LocalDateTime since) {
+        if (!covers(since)) {
+            return metricRepository.findByServiceAndTimeRange(serviceName, since);
+        }
+        long from = toMillis(since);
+        List<Metric> metrics = new ArrayList<>();
+        series.forEach((key, pods) -> {
+            if (key.serviceName().equals(serviceName)) {
+                for (Series s : pods.values()) {
+                    synchronized (s) {
+                        s.forEach(from, Long.MAX_VALUE, (timestamp, value) -> {
+                            Metric metric = new Metric(key.metricName(), value, serviceName, s.podName, s.unit);
+                            metric.timestamp = fromMillis(timestamp);
+                            metric.namespace = s.namespace;
+                            metrics.add(metric);
+                        });
+                    }
+                }
+            }
+        });
+        metrics.sort(Comparator.comparing(m -> m.timestamp));
+        return metrics;
+    }
+
+    /**
+     * Pass the samples of a metric of a service with a timestamp in [from, to) to the
+     * consumer, pod by pod, each pod oldest first. Timestamps are epoch millis, UTC.
+     */
+    public void forEach(String serviceName, String metricName, LocalDateTime from, LocalDateTime to,
+                        GorillaChunk.SampleConsumer consumer) {
+        Map<String, Series> pods = series.get(new SeriesKey(serviceName, metricName));
+        if (pods == null) {
+            return;
+        }
+        long start = toMillis(from);
+        long end = to != null ? toMillis(to) : Long.MAX_VALUE;
+        for (Series s : pods.values()) {
+            synchronized (s) {
+                s.forEach(start, end, consumer);
+            }
+        }
+    }
+
+    /**
+     * Like forEach, with one consumer per pod obtained from consumerForPod, so
+     * per-pod state such as the previous value of a counter stays separate. Pods
+     * without a name are passed as "".
+     */
+    public void forEachPod(String serviceName, String metricName, LocalDateTime from, LocalDateTime to,
+                           Function<String, GorillaChunk.SampleConsumer> consumerForPod) {
+        Map<String, Series> pods = series.get(new SeriesKey(serviceName, metricName));
+        if (pods == null) {
+            return;
+        }
+        long start = toMillis(from);
+        long end = to != null ? toMillis(to) : Long.MAX_VALUE;
+        pods.forEach((pod, s) -> {
+            GorillaChunk.SampleConsumer consumer = consumerForPod.apply(pod);
+            synchronized (s) {
+                s.forEach(start, end, consumer);
+            }
+        });
+    }
+
+    /**
+     * The (service, metric) series holding samples in [from, to).
+     */
+    public List<SeriesKey> seriesBetween(LocalDateTime from, LocalDateTime to) {
+        long start = toMillis(from);
+        long end = toMillis(to);
+        List<SeriesKey> keys = new ArrayList<>();
+        series.forEach((key, pods) -> {
+            boolean found = false;
+            for (Series s : pods.values()) {
+                synchronized (s) {
+                    for (GorillaChunk chunk : s.chunks) {
+                        if (chunk.lastTimestamp() >= start && chunk.firstTimestamp() < end) {
+                            found = true;
+                            break;
+                        }
+                    }
+                }
+                if (found) {
+                    keys.add(key);
+                    break;
+                }
+            }
+        });
+        return keys;
+    }
+
+    /**
+     * Count, sum, min and max of a metric of a service across its pods over [from, to);
+     * a null end is open. Chunks inside the range are summed without decoding them.
+     */
+    public Summary summarize(String serviceName, String metricName, LocalDateTime from, LocalDateTime to) {
+        long start = toMillis(from);
+        long end = to != null ? toMillis(to) : Long.MAX_VALUE;
+        Summary total = Summary.EMPTY;
+        Map<String, Series> pods = series.get(new SeriesKey(serviceName, metricName));
+        if (pods == null) {
+            return total;
+        }
+        for (Series s : pods.values()) {
+            synchronized (s) {
+                for (GorillaChunk chunk : s.chunks) {
+                    if (chunk.lastTimestamp() < start || chunk.firstTimestamp() >= end) {
+                        continue;
+                    }
+                    if (chunk.firstTimestamp() >= start && chunk.lastTimestamp() < end) {
+                        total = total.plus(new Summary(chunk.count(), chunk.sum(), chunk.min(), chunk.max()));
+                    } else {
+                        SummaryBuilder partial = new SummaryBuilder();
+                        chunk.forEach(start, end, partial);
+                        total = total.plus(partial.build());
+                    }
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Drop the chunks past the retention horizon, then the oldest chunks while the
+     * store is over its memory limit.
+     */
+    public void evict() {
+        if (!enabled || horizon == Long.MAX_VALUE) {
+            return;
+        }
+        evictBefore(toMillis(LocalDateTime.now().minusHours(retentionHours)));
+
+        long excess = memoryBytes.get() - maxMemoryMb * 1024L * 1024L;
+        if (excess > 0) {
+            List<long[]> sealed = new ArrayList<>();
+            forEachSeries(s -> {
+                for (int i = 0; i < s.chunks.size() - 1; i++) {
+                    sealed.add(new long[] {s.chunks.get(i).lastTimestamp(), s.chunks.get(i).sizeBytes()});
+                }
+            });
+            sealed.sort(Comparator.comparingLong(c -> c[0]));
+            long freed = 0;
+            long newHorizon = horizon;
+            for (long[] chunk : sealed) {
+                if (freed >= excess) {
+                    break;
+                }
+                freed += chunk[1];
+                newHorizon = chunk[0] + 1;
+            }
+            Log.warnf("Metric head is over %d MB, keeping samples from %s only",
+                      maxMemoryMb, fromMillis(newHorizon));
+            evictBefore(newHorizon);
+        }
+    }
+
+    /**
+     * Size and coverage of the store.
+     */
+    public HeadStatus getStatus() {
+        long[] chunkCount = new long[1];
+        forEachSeries(s -> chunkCount[0] += s.chunks.size());
+        long samples = sampleCount.get();
+        long bytes = memoryBytes.get();
+        return new HeadStatus(enabled, retentionHours, horizon != Long.MAX_VALUE ? fromMillis(horizon) : null,
+                countSeries(), chunkCount[0], samples, bytes, maxMemoryMb * 1024L * 1024L,
+                samples > 0 ? Math.round(bytes * 100.0 / samples) / 100.0 : 0);
+    }
+
+    private void append(String serviceName, String metricName, String podName, String namespace, String unit,
+                        long timestamp, double value) {
+        if (timestamp < horizon && horizon != Long.MAX_VALUE) {
+            // Older than the store; reads of that time go to the table
+            return;
+        }
+        Map<String, Series> pods = series.computeIfAbsent(new SeriesKey(serviceName, metricName),
+                k -> new ConcurrentHashMap<>());
+        while (true) {
+            Series s = pods.computeIfAbsent(podName != null ? podName : "", p -> new Series(podName));
+            synchronized (s) {
+                if (s.removed) {
+                    continue;
+                }
+                s.namespace = namespace;
+                s.unit = unit;
+                long before = s.bytes;
+                s.append(timestamp, value, chunkSamples);
+                memoryBytes.addAndGet(s.bytes - before);
+                sampleCount.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    private void evictBefore(long cutoff) {
+        horizon = Math.max(horizon, cutoff);
+        series.values().forEach(pods -> pods.forEach((pod, s) -> {
+            synchronized (s) {
+                while (!s.chunks.isEmpty() && s.chunks.get(0).lastTimestamp() < cutoff) {
+                    GorillaChunk chunk = s.chunks.remove(0);
+                    s.bytes -= chunk.sizeBytes();
+                    memoryBytes.addAndGet(-chunk.sizeBytes());
+                    sampleCount.addAndGet(-chunk.count());
+                }
+                if (s.chunks.isEmpty()) {
+                    s.removed = true;
+                    pods.remove(pod, s);
+                }
+            }
+        }));
+    }
+
+    private void forEachSeries(Consumer<Series> action) {
+        series.values().forEach(pods -> pods.values().forEach(s -> {
+            synchronized (s) {
+                action.accept(s);
+            }
+        }));
+    }
+
+    private int countSeries() {
+        return series.values().stream().mapToInt(Map::size).sum();
+    }
+
+    /**
+     * Unix millis of a timestamp stored as wall-clock time of the JVM zone.
+     */
+    static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    static LocalDateTime fromMillis(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    /**
+     * Samples of one metric of one pod, in chunks ordered by time. Guarded by its own monitor.
+     */
+    private static class Series {
+
+        final String podName;
+        final List<GorillaChunk> chunks = new ArrayList<>();
+        String namespace;
+        String unit;
+        long bytes;
+        boolean removed;
+
+        Series(String podName) {
+            this.podName = podName;
+        }
+
+        void append(long timestamp, double value, int chunkSamples) {
+            GorillaChunk head = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+            if (head != null && timestamp < head.lastTimestamp()) {
+                insert(timestamp, value);
+                return;
+            }
+            if (head == null || head.count() >= chunkSamples) {
+                if (head != null) {
+                    bytes -= head.sizeBytes();
+                    head.trim();
+                    bytes += head.sizeBytes();
+                }
+                head = new GorillaChunk();
+                chunks.add(head);
+                bytes += head.sizeBytes();
+            }
+            bytes -= head.sizeBytes();
+            head.append(timestamp, value);
+            bytes += head.sizeBytes();
+        }
+
+        /**
+         * Re-encode the chunk covering an out-of-order sample with the sample merged in.
+         */
+        private void insert(long timestamp, double value) {
+            int index = chunks.size() - 1;
+            while (index > 0 && chunks.get(index).firstTimestamp() > timestamp) {
+                index--;
+            }
+            GorillaChunk old = chunks.get(index);
+            long[] timestamps = new long[old.count() + 1];
+            double[] values = new double[old.count() + 1];
+            int[] n = {0};
+            boolean[] inserted = {false};
+            old.forEach(Long.MIN_VALUE, Long.MAX_VALUE, (t, v) -> {
+                if (!inserted[0] && timestamp < t) {
+                    timestamps[n[0]] = timestamp;
+                    values[n[0]++] = value;
+                    inserted[0] = true;
+                }
+                timestamps[n[0]] = t;
+                values[n[0]++] = v;
+            });
+            if (!inserted[0]) {
+                timestamps[n[0]] = timestamp;
+                values[n[0]++] = value;
+            }
+
+            GorillaChunk rebuilt = new GorillaChunk();
+            for (int i = 0; i < n[0]; i++) {
+                rebuilt.append(timestamps[i], values[i]);
+            }
+            if (index < chunks.size() - 1) {
+                rebuilt.trim();
+            }
+            chunks.set(index, rebuilt);
+            bytes += rebuilt.sizeBytes() - old.sizeBytes();
+        }
+
+        void forEach(long from, long to, GorillaChunk.SampleConsumer consumer) {
+            for (GorillaChunk chunk : chunks) {
+                chunk.forEach(from, to, consumer);
+            }
+        }
+    }
+
+    private static class SummaryBuilder implements GorillaChunk.SampleConsumer {
+
+        long count;
+        double sum;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+
+        @Override
+        public void accept(long timestamp, double value) {
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        Summary build() {
+            return count > 0 ? new Summary(count, sum, min, max) : Summary.EMPTY;
+        }
+    }
+
+    /**
+     * Count, sum, min and max of samples; min and max are NaN without samples.
+     */
+    public record Summary(long count, double sum, double min, double max) {
+
+        static final Summary EMPTY = new Summary(0, 0, Double.NaN, Double.NaN);
+
+        Summary plus(Summary other) {
+            if (other.count == 0) {
+                return this;
+            }
+            if (count == 0) {
+                return other;
+            }
+            return new Summary(count + other.count, sum + other.sum, Math.min(min, other.min), Math.max(max, other.max));
+        }
+    }
+
+    /**
+     * Settings, coverage and memory use of the store.
+     */
+    public record HeadStatus(
+        boolean enabled,
+        int retentionHours,
+        LocalDateTime coveredSince,
+        int series,
+        long chunks,
+        long samples,
+        long memoryBytes,
+        long maxMemoryBytes,
+        double bytesPerSample
+    ) {}
+}
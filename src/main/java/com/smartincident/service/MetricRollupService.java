@@ -0,0 +1,320 @@
+package com.smartincident.service;
+
+import com.smartincident.model.MetricBucket;
+import com.smartincident.model.MetricRollup;
+import com.smartincident.repository.MetricBucketRepository;
+import com.smartincident.repository.MetricRepository;
+import com.smartincident.repository.MetricRollupRepository;
+import com.smartincident.service.MetricBucketService.Bucket;
+import com.smartincident.service.MetricBucketService.BucketKey;
+import com.smartincident.service.MetricBucketService.SeriesKey;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.ScrollableResults;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Service maintaining 5-minute and 1-hour rollups of every service metric and
+ * answering range queries from the coarsest tier that fits the requested step.
+ *
+ * The per-minute buckets of MetricBucketService are the finest tier. Each rollup
+ * run takes the minutes flushed since the previous run and recomputes the 5-minute
+ * periods containing them from the minute buckets, then the hours containing those
+ * from the 5-minute rollups. A period is always recomputed from the full tier below,
+ * never incremented, so late samples, several replicas and retried runs all converge
+ * on the same rows. After a restart the last hours are recomputed once to cover
+ * minutes flushed but not yet rolled up.
+ */
+@ApplicationScoped
+public class MetricRollupService {
+
+    static final int FIVE_MINUTES = 5;
+    static final int HOUR = 60;
+    // Same cap as Prometheus on points per series per query
+    static final int MAX_POINTS = 11000;
+    private static final int FETCH_SIZE = 1000;
+
+    @Inject
+    MetricBucketService bucketService;
+
+    @Inject
+    MetricBucketRepository bucketRepository;
+
+    @Inject
+    MetricRollupRepository rollupRepository;
+
+    @Inject
+    MetricRepository metricRepository;
+
+    @Inject
+    MetricHeadService metricHeadService;
+
+    @ConfigProperty(name = "app.metrics.rollups.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "app.metrics.rollups.catch-up-hours", defaultValue = "24")
+    int catchUpHours;
+
+    @ConfigProperty(name = "app.metrics.rollups.five-minute-retention-days", defaultValue = "90")
+    int fiveMinuteRetentionDays;
+
+    @ConfigProperty(name = "app.metrics.rollups.hourly-retention-days", defaultValue = "730")
+    int hourlyRetentionDays;
+
+    private volatile boolean caughtUp;
+    private volatile LocalDateTime lastPurge = LocalDateTime.MIN;
+
+    /**
+     * Recompute the rollups of the periods that received new minutes and purge
+     * expired rollups. On failure the minutes are kept for the next run.
+     */
+    public void rollUp() {
+        if (!enabled) {
+            return;
+        }
+        Set<BucketKey> minutes = bucketService.takeFlushed();
+        if (!caughtUp) {
+            LocalDateTime since = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(catchUpHours);
+            for (Object[] row : QuarkusTransaction.requiringNew().call(() -> bucketRepository.findKeysSince(since))) {
+                minutes.add(new BucketKey((String) row[0], (String) row[1], (LocalDateTime) row[2]));
+            }
+            caughtUp = true;
+        }
+
+        if (!minutes.isEmpty()) {
+            try {
+                Map<LocalDateTime, Set<SeriesKey>> fiveMinutePeriods = new HashMap<>();
+                for (BucketKey minute : minutes) {
+                    fiveMinutePeriods.computeIfAbsent(periodStart(minute.minute(), FIVE_MINUTES), p -> new HashSet<>())
+                            .add(new SeriesKey(minute.serviceName(), minute.metricName()));
+                }
+                Map<LocalDateTime, Set<SeriesKey>> hours = new HashMap<>();
+                fiveMinutePeriods.forEach((period, series) -> {
+                    QuarkusTransaction.requiringNew().run(() -> recompute(FIVE_MINUTES, period, series));
+                    hours.computeIfAbsent(periodStart(period, HOUR), p -> new HashSet<>()).addAll(series);
+                });
+                hours.forEach((period, series) ->
+                        QuarkusTransaction.requiringNew().run(() -> recompute(HOUR, period, series)));
+                Log.debugf("Rolled up %d minutes into %d 5-minute and %d hourly periods",
+                           minutes.size(), fiveMinutePeriods.size(), hours.size());
+            } catch (Exception e) {
+                // Periods are rewritten from the tier below, so running them again is harmless
+                bucketService.restoreFlushed(minutes);
+                Log.warnf("Failed to roll up metric buckets, will retry: %s", e.getMessage());
+            }
+        }
+
+        purgeExpired();
+    }
+
+    /**
+     * Aggregate one metric of a service over [from, to) into points every stepSeconds,
+     * aligned on multiples of the step in Unix time. Reads the coarsest tier whose resolution
+     * divides the step: hourly or 5-minute rollups, minute buckets, or raw samples
+     * for steps that are not whole minutes.
+     *
+     * @throws IllegalArgumentException if the range or step is invalid
+     */
+    public RollupSeries query(String serviceName, String metricName, LocalDateTime from, LocalDateTime to, long stepSeconds) {
+        if (stepSeconds < 1) {
+            throw new IllegalArgumentException("Step must be at least 1 second");
+        }
+        if (!to.isAfter(from)) {
+            throw new IllegalArgumentException("End of range must be after its start");
+        }
+        if (Duration.between(from, to).toSeconds() / stepSeconds >= MAX_POINTS) {
+            throw new IllegalArgumentException("Too many points, at most " + MAX_POINTS + " per series: use a larger step");
+        }
+
+        Map<Long, Bucket> steps = new TreeMap<>();
+        Consumer<Bucket> addToStep = bucket -> {
+            long second = bucket.start().atZone(ZoneId.systemDefault()).toEpochSecond();
+            long stepStart = Math.floorDiv(second, stepSeconds) * stepSeconds;
+            LocalDateTime start = LocalDateTime.ofInstant(Instant.ofEpochSecond(stepStart), ZoneId.systemDefault());
+            steps.merge(stepStart, withStart(bucket, start), Bucket::plus);
+        };
+        int resolution = resolutionFor(stepSeconds);
+        switch (resolution) {
+            case HOUR, FIVE_MINUTES -> rollupRepository.findSeries(serviceName, metricName, resolution,
+                    periodStart(from, resolution), to).forEach(rollup -> addToStep.accept(toBucket(rollup)));
+            case 1 -> bucketService.series(serviceName, metricName, from, to).forEach(addToStep);
+            default -> forEachRawSample(serviceName, metricName, from, to, addToStep);
+        }
+
+        List<Point> points = new ArrayList<>(steps.size());
+        for (Bucket bucket : steps.values()) {
+            if (bucket.count() > 0) {
+                points.add(new Point(bucket.start(), bucket.count(), bucket.mean(), bucket.min(), bucket.max(),
+                                     bucket.sum(), bucket.last()));
+            }
+        }
+        return new RollupSeries(serviceName, metricName, resolutionLabel(resolution), stepSeconds, points);
+    }
+
+    /**
+     * Stream raw samples as single-sample buckets, from the in-memory head when it is
+     * enabled and covers the range, else scrolled from the metric table, so only the
+     * per-step totals are held in memory.
+     */
+    private void forEachRawSample(String serviceName, String metricName, LocalDateTime from, LocalDateTime to,
+                                  Consumer<Bucket> consumer) {
+        if (metricHeadService.covers(from)) {
+            metricHeadService.forEach(serviceName, metricName, from, to, (timestamp, value) ->
+                    consumer.accept(sample(MetricHeadService.fromMillis(timestamp), value)));
+            return;
+        }
+        QuarkusTransaction.requiringNew().run(() -> {
+            try (ScrollableResults<Object[]> rows = metricRepository.scrollSamples(metricName, serviceName,
+                    from, to, FETCH_SIZE)) {
+                while (rows.next()) {
+                    Object[] row = rows.get();
+                    consumer.accept(sample((LocalDateTime) row[1], ((Number) row[2]).doubleValue()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Resolution in minutes of the coarsest tier that divides the step, 0 for raw samples.
+     */
+    static int resolutionFor(long stepSeconds) {
+        for (int resolution : new int[] {HOUR, FIVE_MINUTES, 1}) {
+            if (stepSeconds % (resolution * 60L) == 0) {
+                return resolution;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Rewrite the rollup of one period for the given series from the tier below.
+     */
+    private void recompute(int resolution, LocalDateTime periodStart, Set<SeriesKey> series) {
+        LocalDateTime periodEnd = periodStart.plusMinutes(resolution);
+        Set<String> services = series.stream().map(SeriesKey::serviceName).collect(Collectors.toSet());
+
+        Map<SeriesKey, Bucket> totals = new HashMap<>();
+        if (resolution == FIVE_MINUTES) {
+            for (MetricBucket bucket : bucketRepository.findForServices(services, periodStart, periodEnd)) {
+                SeriesKey key = new SeriesKey(bucket.serviceName, bucket.metricName);
+                if (series.contains(key)) {
+                    totals.merge(key, Bucket.of(bucket), Bucket::plus);
+                }
+            }
+        } else {
+            for (MetricRollup rollup : rollupRepository.findForServices(services, FIVE_MINUTES, periodStart, periodEnd)) {
+                SeriesKey key = new SeriesKey(rollup.serviceName, rollup.metricName);
+                if (series.contains(key)) {
+                    totals.merge(key, toBucket(rollup), Bucket::plus);
+                }
+            }
+        }
+
+        Map<SeriesKey, MetricRollup> existing = new HashMap<>();
+        for (MetricRollup rollup : rollupRepository.findForServices(services, resolution, periodStart, periodEnd)) {
+            existing.put(new SeriesKey(rollup.serviceName, rollup.metricName), rollup);
+        }
+        totals.forEach((key, total) -> {
+            MetricRollup rollup = existing.get(key);
+            if (rollup == null) {
+                rollup = new MetricRollup(key.serviceName(), key.metricName(), resolution, periodStart);
+                rollupRepository.persist(rollup);
+            }
+            rollup.sampleCount = total.count();
+            rollup.sumValue = total.sum();
+            rollup.sumSquares = total.sumSquares();
+            rollup.minValue = total.min();
+            rollup.maxValue = total.max();
+            rollup.lastValue = total.last();
+            rollup.lastAt = total.lastAt();
+        });
+        rollupRepository.flush();
+    }
+
+    private void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        if (lastPurge.isAfter(now.minusHours(1))) {
+            return;
+        }
+        lastPurge = now;
+        long deleted = QuarkusTransaction.requiringNew().call(() ->
+                rollupRepository.deleteOlderThan(FIVE_MINUTES, now.minusDays(fiveMinuteRetentionDays))
+                + rollupRepository.deleteOlderThan(HOUR, now.minusDays(hourlyRetentionDays)));
+        if (deleted > 0) {
+            Log.infof("Purged %d expired metric rollups", deleted);
+        }
+    }
+
+    static LocalDateTime periodStart(LocalDateTime time, int resolutionMinutes) {
+        LocalDateTime minute = time.truncatedTo(ChronoUnit.MINUTES);
+        if (resolutionMinutes == HOUR) {
+            return minute.truncatedTo(ChronoUnit.HOURS);
+        }
+        return minute.minusMinutes(minute.getMinute() % resolutionMinutes);
+    }
+
+    private static String resolutionLabel(int resolution) {
+        return switch (resolution) {
+            case HOUR -> "1h";
+            case FIVE_MINUTES -> "5m";
+            case 1 -> "1m";
+            default -> "raw";
+        };
+    }
+
+    private static Bucket toBucket(MetricRollup rollup) {
+        return new Bucket(rollup.bucketStart, rollup.sampleCount, rollup.sumValue, rollup.sumSquares,
+                rollup.minValue, rollup.maxValue, rollup.lastValue, rollup.lastAt);
+    }
+
+    private static Bucket sample(LocalDateTime at, double value) {
+        return new Bucket(at, 1, value, value * value, value, value, value, at);
+    }
+
+    private static Bucket withStart(Bucket bucket, LocalDateTime start) {
+        return new Bucket(start, bucket.count(), bucket.sum(), bucket.sumSquares(), bucket.min(), bucket.max(),
+                bucket.last(), bucket.lastAt());
+    }
+
+    /**
+     * Aggregates of one metric of a service at a fixed step; steps without samples
+     * are left out.
+     */
+    public record RollupSeries(
+        String serviceName,
+        String metricName,
+        String resolution,
+        long stepSeconds,
+        List<Point> points
+    ) {}
+
+    /**
+     * Aggregates of the samples within one step, stamped with the step's start.
+     */
+    public record Point(
+        LocalDateTime timestamp,
+        long count,
+        double avg,
+        double min,
+        double max,
+        double sum,
+        Double last
+    ) {}
+}
@@ -0,0 +1,71 @@
+package com.smartincident.service;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalDouble;
+
+/**
+ * Enrichment stage recording the service's resource and traffic metrics around
+ * detection time, and pointing at resource pressure when a limit was crossed.
+ */
+@ApplicationScoped
+public class MetricSnapshotStage implements EnrichmentStage {
+
+    private static final String[] METRICS = {
+        "cpu_usage_percent", "memory_usage_percent", "latency_ms", "http_5xx_count", "http_total_count"
+    };
+
+    @Inject
+    MetricHeadService metricHeadService;
+
+    @Inject
+    RootCauseAnalysisService rootCauseAnalysisService;
+
+    @ConfigProperty(name = "app.detection.cpu-threshold-percent", defaultValue = "90.0")
+    double cpuThreshold;
+
+    @ConfigProperty(name = "app.detection.memory-threshold-percent", defaultValue = "85.0")
+    double memoryThreshold;
+
+    @Override
+    public String name() {
+        return "metrics";
+    }
+
+    @Override
+    public int order() {
+        return 20;
+    }
+
+    @Override
+    public Result enrich(Context context) {
+        LocalDateTime since = context.detectedAt().minusMinutes(5);
+        Map<String, Double> averages = new LinkedHashMap<>();
+        for (String metric : METRICS) {
+            OptionalDouble average = metricHeadService.average(metric, context.serviceName(), since);
+            average.ifPresent(value -> averages.put(metric, Math.round(value * 100) / 100.0));
+        }
+        if (averages.isEmpty()) {
+            return Result.evidence("No metrics in the 5 minutes before detection", averages);
+        }
+
+        String suggestedCause = null;
+        double confidence = 0;
+        Double memory = averages.get("memory_usage_percent");
+        Double cpu = averages.get("cpu_usage_percent");
+        if (memory != null && memory >= memoryThreshold) {
+            suggestedCause = rootCauseAnalysisService.causeForCategory(context.type(), "MEMORY").orElse(null);
+            confidence = suggestedCause != null ? 0.6 : 0;
+        } else if (cpu != null && cpu >= cpuThreshold) {
+            suggestedCause = rootCauseAnalysisService.causeForCategory(context.type(), "CPU").orElse(null);
+            confidence = suggestedCause != null ? 0.6 : 0;
+        }
+
+        return new Result("5 minute averages before detection: " + averages, averages, suggestedCause, confidence);
+    }
+}
@@ -1,11 +1,13 @@
 package com.smartincident.service;
 
 import com.smartincident.dto.MetricDTO;
+import com.smartincident.event.MetricsIngestedEvent;
 import com.smartincident.model.Metric;
 import com.smartincident.repository.MetricRepository;
 import io.quarkus.logging.Log;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import java.time.LocalDateTime;
@@ -21,6 +23,18 @@ public class MetricsIngestionService {
     @Inject
     MetricRepository metricRepository;
 
+    @Inject
+    MetricHeadService metricHeadService;
+
+    @Inject
+    SloService sloService;
+
+    @Inject
+    DetectionCadenceService detectionCadenceService;
+
+    @Inject
+    Event<MetricsIngestedEvent> metricsIngestedEvents;
+
     /**
      * Ingest a single metric.
      */
@@ -28,6 +42,9 @@ public class MetricsIngestionService {
     public Metric ingest(MetricDTO dto) {
         Metric metric = toEntity(dto);
         metricRepository.persist(metric);
+        sloService.record(metric);
+        detectionCadenceService.recordActivity(metric.serviceName);
+        metricsIngestedEvents.fire(new MetricsIngestedEvent(List.of(metric)));
         
         Log.debugf("Ingested metric: %s = %.2f for %s", 
                    metric.metricName, 
@@ -48,7 +65,10 @@ public class MetricsIngestionService {
         
         for (Metric metric : metrics) {
             metricRepository.persist(metric);
+            sloService.record(metric);
+            detectionCadenceService.recordActivity(metric.serviceName);
         }
+        metricsIngestedEvents.fire(new MetricsIngestedEvent(metrics));
         
         Log.infof("Ingested batch of %d metrics", metrics.size());
         return metrics;
@@ -59,7 +79,7 @@ public class MetricsIngestionService {
      */
     public OptionalDouble getAverageMetric(String metricName, String serviceName, int minutesAgo) {
         LocalDateTime since = LocalDateTime.now().minusMinutes(minutesAgo);
-        return metricRepository.getAverageValue(metricName, serviceName, since);
+        return metricHeadService.average(metricName, serviceName, since);
     }
 
     /**
@@ -85,14 +105,15 @@ public class MetricsIngestionService {
     }
 
     /**
-     * Get metrics for a service in the last N minutes.
+     * Get metrics for a service in the last N minutes, from the in-memory head when
+     * it covers them.
      */
     public List<Metric> getMetricsForService(String serviceName, int minutesAgo) {
         LocalDateTime since = LocalDateTime.now().minusMinutes(minutesAgo);
-        return metricRepository.findByServiceAndTimeRange(serviceName, since);
+        return metricHeadService.samples(serviceName, since);
     }
 
-    private Metric toEntity(MetricDTO dto) {
+    Metric toEntity(MetricDTO dto) {
         Metric metric = new Metric();
         metric.timestamp = dto.timestamp != null ? dto.timestamp : LocalDateTime.now();
         metric.metricName = dto.metricName;
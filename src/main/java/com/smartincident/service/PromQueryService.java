@@ -0,0 +1,562 @@
+package com.smartincident.service;
+
+import com.smartincident.repository.MetricBucketRepository;
+import com.smartincident.repository.MetricRepository;
+import com.smartincident.repository.MetricRollupRepository;
+import com.smartincident.service.MetricBucketService.SeriesKey;
+import com.smartincident.service.MetricRollupService.Point;
+import com.smartincident.util.GorillaChunk;
+import com.smartincident.util.PromQl;
+import com.smartincident.util.PromQl.Aggregation;
+import com.smartincident.util.PromQl.Expr;
+import com.smartincident.util.PromQl.Matcher;
+import com.smartincident.util.PromQl.NumberLiteral;
+import com.smartincident.util.PromQl.RangeFunction;
+import com.smartincident.util.PromQl.Selector;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.ScrollableResults;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Service evaluating PromQL queries (the subset parsed by PromQl) over the stored
+ * metrics, for the Prometheus-compatible API.
+ *
+ * Each metric of each service is one series labelled __name__ and service. A query
+ * is evaluated at the multiples of the step between start and end, and the value at
+ * time t covers the samples in [t - range, t), with the range rounded up to whole
+ * steps. Every step is then a whole number of step-aligned aggregates, so plain
+ * selectors and the *_over_time functions read MetricRollupService's tiered range
+ * query instead of raw rows. A plain selector gives the last sample within the
+ * lookback window.
+ *
+ * rate, increase and quantile_over_time need raw samples. They stream them from the
+ * in-memory head when it is enabled and covers the range, otherwise from the metric
+ * table, pod by pod into per-step accumulators, without building Metric rows.
+ */
+@ApplicationScoped
+public class PromQueryService {
+
+    // Resolution of instant queries: evaluated at the start of the current minute
+    static final long INSTANT_STEP_SECONDS = 60;
+    private static final int FETCH_SIZE = 1000;
+    private static final Comparator<SeriesKey> SERIES_ORDER =
+            Comparator.comparing(SeriesKey::metricName).thenComparing(SeriesKey::serviceName);
+
+    @Inject
+    MetricRollupService metricRollupService;
+
+    @Inject
+    MetricHeadService metricHeadService;
+
+    @Inject
+    MetricRepository metricRepository;
+
+    @Inject
+    MetricBucketRepository bucketRepository;
+
+    @Inject
+    MetricRollupRepository rollupRepository;
+
+    @ConfigProperty(name = "app.metrics.promql.lookback-seconds", defaultValue = "300")
+    long lookbackSeconds;
+
+    @ConfigProperty(name = "app.metrics.promql.max-samples", defaultValue = "1000000")
+    long maxSamples;
+
+    /**
+     * Evaluate a query at every multiple of stepSeconds in [start, end], times in Unix
+     * seconds. Series without any value are left out, as are the steps without one.
+     *
+     * @throws IllegalArgumentException if the query, range or step is invalid
+     */
+    public QueryResult query(String query, long start, long end, long stepSeconds) {
+        if (stepSeconds < 1) {
+            throw new IllegalArgumentException("Step must be at least 1 second");
+        }
+        if (end < start) {
+            throw new IllegalArgumentException("End of range must not be before its start");
+        }
+        if ((end - start) / stepSeconds >= MetricRollupService.MAX_POINTS) {
+            throw new IllegalArgumentException("Too many points, at most " + MetricRollupService.MAX_POINTS
+                    + " per series: use a larger step");
+        }
+        Expr expr = PromQl.parse(query);
+
+        long first = -Math.floorDiv(-start, stepSeconds) * stepSeconds;
+        long last = Math.floorDiv(end, stepSeconds) * stepSeconds;
+        Grid grid = new Grid(first, stepSeconds, first > last ? 0 : (int) ((last - first) / stepSeconds) + 1);
+
+        if (expr instanceof NumberLiteral literal) {
+            double[] values = new double[grid.count()];
+            Arrays.fill(values, literal.value());
+            return new QueryResult(true, toSeries(Map.of(Map.of(), values), grid));
+        }
+        if (grid.count() == 0) {
+            return new QueryResult(false, List.of());
+        }
+        return new QueryResult(false, toSeries(evaluate(expr, grid), grid));
+    }
+
+    /**
+     * Evaluate a query at one time, in Unix seconds, rounded down to the minute.
+     *
+     * @throws IllegalArgumentException if the query is invalid
+     */
+    public QueryResult queryInstant(String query, long time) {
+        long at = Math.floorDiv(time, INSTANT_STEP_SECONDS) * INSTANT_STEP_SECONDS;
+        return query(query, at, at, INSTANT_STEP_SECONDS);
+    }
+
+    /**
+     * Label sets of the series matching any of the selectors with samples in
+     * [start, end), sorted.
+     *
+     * @throws IllegalArgumentException if a selector is invalid
+     */
+    public List<Map<String, String>> series(List<String> matches, long start, long end) {
+        if (matches == null || matches.isEmpty()) {
+            throw new IllegalArgumentException("At least one match[] selector is required");
+        }
+        Set<SeriesKey> keys = new LinkedHashSet<>();
+        for (String match : matches) {
+            if (!(PromQl.parse(match) instanceof Selector selector) || selector.rangeSeconds() > 0) {
+                throw new IllegalArgumentException("match[] must be a series selector, got '" + match + "'");
+            }
+            keys.addAll(findSeries(selector, toTime(start), toTime(end)));
+        }
+        return keys.stream().sorted(SERIES_ORDER).map(PromQueryService::labels).toList();
+    }
+
+    /**
+     * Names of the labels carried by the series.
+     */
+    public List<String> labelNames() {
+        return List.of("__name__", "service");
+    }
+
+    /**
+     * Distinct values of a label over the series with samples in [start, end), sorted.
+     */
+    public List<String> labelValues(String label, long start, long end) {
+        if (!labelNames().contains(label)) {
+            return List.of();
+        }
+        Set<String> values = new TreeSet<>();
+        for (SeriesKey key : findSeries(new Selector(List.of(), 0), toTime(start), toTime(end))) {
+            values.add(labels(key).get(label));
+        }
+        return List.copyOf(values);
+    }
+
+    private Map<Map<String, String>, double[]> evaluate(Expr expr, Grid grid) {
+        if (expr instanceof Selector selector) {
+            if (selector.rangeSeconds() > 0) {
+                throw new IllegalArgumentException("A range selector needs a function such as rate(...)");
+            }
+            return evaluateSelector(selector, "last_over_time", 0, lookbackSeconds, true, grid);
+        }
+        if (expr instanceof RangeFunction function) {
+            return evaluateSelector(function.selector(), function.function(), function.parameter(),
+                    function.selector().rangeSeconds(), false, grid);
+        }
+        if (expr instanceof Aggregation aggregation) {
+            return aggregate(aggregation, evaluate(aggregation.expression(), grid), grid);
+        }
+        throw new IllegalArgumentException("A number cannot be used here");
+    }
+
+    private Map<Map<String, String>, double[]> evaluateSelector(Selector selector, String function, double parameter,
+                                                                long rangeSeconds, boolean keepName, Grid grid) {
+        long steps = Math.max(1, -Math.floorDiv(-rangeSeconds, grid.step()));
+        // Windows are held step by step, so the range counts towards the points of a series
+        if (grid.count() + steps >= MetricRollupService.MAX_POINTS) {
+            throw new IllegalArgumentException("Too many points, at most " + MetricRollupService.MAX_POINTS
+                    + " per series including the range of the selector: use a larger step or a shorter range");
+        }
+        int window = (int) steps;
+        // Raw reads also take the step before the first window, for the sample preceding it
+        long from = grid.first() - (long) (window + 1) * grid.step();
+        long to = grid.last();
+
+        Map<Map<String, String>, double[]> result = new LinkedHashMap<>();
+        for (SeriesKey key : findSeries(selector, toTime(from), toTime(to))) {
+            double[] values = switch (function) {
+                case "rate", "increase" -> increase(key, function.equals("rate"), window, grid);
+                case "quantile_over_time" -> quantileOverTime(key, parameter, window, grid);
+                default -> overTime(key, function, window, grid);
+            };
+            Map<String, String> labels = labels(key);
+            if (!keepName) {
+                labels.remove("__name__");
+            }
+            result.put(labels, values);
+        }
+        return result;
+    }
+
+    /**
+     * avg, min, max, sum, count or last over each window, from the step aggregates.
+     */
+    private double[] overTime(SeriesKey key, String function, int window, Grid grid) {
+        long base = grid.first() - (long) window * grid.step();
+        int slots = grid.count() + window - 1;
+        long[] counts = new long[slots];
+        Point[] points = new Point[slots];
+        for (Point point : metricRollupService.query(key.serviceName(), key.metricName(), toTime(base),
+                toTime(grid.last()), grid.step()).points()) {
+            long slot = (toEpochSecond(point.timestamp()) - base) / grid.step();
+            if (slot < 0 || slot >= slots) {
+                continue;
+            }
+            points[(int) slot] = point;
+            counts[(int) slot] = point.count();
+        }
+
+        double[] values = new double[grid.count()];
+        for (int i = 0; i < grid.count(); i++) {
+            long count = 0;
+            double sum = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            Point latest = null;
+            for (int slot = i; slot < i + window; slot++) {
+                Point point = points[slot];
+                if (point != null && counts[slot] > 0) {
+                    count += point.count();
+                    sum += point.sum();
+                    min = Math.min(min, point.min());
+                    max = Math.max(max, point.max());
+                    latest = point;
+                }
+            }
+            if (count == 0) {
+                values[i] = Double.NaN;
+                continue;
+            }
+            values[i] = switch (function) {
+                case "avg_over_time" -> sum / count;
+                case "min_over_time" -> min;
+                case "max_over_time" -> max;
+                case "sum_over_time" -> sum;
+                case "count_over_time" -> count;
+                // Buckets written before the last value was tracked only have the mean
+                default -> latest.last() != null ? latest.last() : latest.avg();
+            };
+        }
+        return values;
+    }
+
+    /**
+     * Counter increase over each window, or its per-second rate. Each pod's samples
+     * are compared with the previous sample of the same pod, and a drop is a counter
+     * reset that counts the new value as the increase.
+     */
+    private double[] increase(SeriesKey key, boolean rate, int window, Grid grid) {
+        long base = grid.first() - (long) (window + 1) * grid.step();
+        int slots = grid.count() + window;
+        double[] increases = new double[slots];
+        int[] deltas = new int[slots];
+        forEachRaw(key, base, grid.last(), pod -> new GorillaChunk.SampleConsumer() {
+            double previous = Double.NaN;
+
+            @Override
+            public void accept(long timestamp, double value) {
+                if (!Double.isNaN(previous)) {
+                    int slot = slot(timestamp, base, grid.step());
+                    increases[slot] += value >= previous ? value - previous : value;
+                    deltas[slot]++;
+                }
+                previous = value;
+            }
+        });
+
+        double[] values = new double[grid.count()];
+        for (int i = 0; i < grid.count(); i++) {
+            double total = 0;
+            int count = 0;
+            for (int slot = i + 1; slot <= i + window; slot++) {
+                total += increases[slot];
+                count += deltas[slot];
+            }
+            values[i] = count == 0 ? Double.NaN : rate ? total / ((double) window * grid.step()) : total;
+        }
+        return values;
+    }
+
+    /**
+     * Quantile of the raw samples of each window.
+     */
+    private double[] quantileOverTime(SeriesKey key, double q, int window, Grid grid) {
+        long base = grid.first() - (long) (window + 1) * grid.step();
+        int slots = grid.count() + window;
+        double[][] samples = new double[slots][];
+        int[] sizes = new int[slots];
+        long[] total = {0};
+        forEachRaw(key, base, grid.last(), pod -> (timestamp, value) -> {
+            if (++total[0] > maxSamples) {
+                throw new IllegalArgumentException("Query reads more than " + maxSamples
+                        + " samples: narrow the range or the selector");
+            }
+            int slot = slot(timestamp, base, grid.step());
+            if (samples[slot] == null) {
+                samples[slot] = new double[16];
+            } else if (sizes[slot] == samples[slot].length) {
+                samples[slot] = Arrays.copyOf(samples[slot], sizes[slot] * 2);
+            }
+            samples[slot][sizes[slot]++] = value;
+        });
+
+        double[] values = new double[grid.count()];
+        for (int i = 0; i < grid.count(); i++) {
+            int size = 0;
+            for (int slot = i + 1; slot <= i + window; slot++) {
+                size += sizes[slot];
+            }
+            double[] windowValues = new double[size];
+            int n = 0;
+            for (int slot = i + 1; slot <= i + window; slot++) {
+                if (sizes[slot] > 0) {
+                    System.arraycopy(samples[slot], 0, windowValues, n, sizes[slot]);
+                    n += sizes[slot];
+                }
+            }
+            values[i] = quantile(q, windowValues, size);
+        }
+        return values;
+    }
+
+    /**
+     * Stream the raw samples of a series in [from, to), in Unix seconds, pod by pod:
+     * from the head when it covers the range, else from the table.
+     */
+    private void forEachRaw(SeriesKey key, long from, long to,
+                            Function<String, GorillaChunk.SampleConsumer> consumerForPod) {
+        LocalDateTime start = toTime(from);
+        LocalDateTime end = toTime(to);
+        if (metricHeadService.covers(start)) {
+            metricHeadService.forEachPod(key.serviceName(), key.metricName(), start, end, consumerForPod);
+            return;
+        }
+        QuarkusTransaction.requiringNew().run(() -> {
+            try (ScrollableResults<Object[]> rows = metricRepository.scrollSamples(key.metricName(), key.serviceName(),
+                    start, end, FETCH_SIZE)) {
+                String pod = null;
+                GorillaChunk.SampleConsumer consumer = null;
+                while (rows.next()) {
+                    Object[] row = rows.get();
+                    String rowPod = row[0] != null ? (String) row[0] : "";
+                    if (consumer == null || !rowPod.equals(pod)) {
+                        pod = rowPod;
+                        consumer = consumerForPod.apply(pod);
+                    }
+                    consumer.accept(MetricHeadService.toMillis((LocalDateTime) row[1]), ((Number) row[2]).doubleValue());
+                }
+            }
+        });
+    }
+
+    /**
+     * Combine series into one per group of labels, step by step.
+     */
+    private Map<Map<String, String>, double[]> aggregate(Aggregation aggregation,
+                                                         Map<Map<String, String>, double[]> input, Grid grid) {
+        Map<Map<String, String>, List<double[]>> groups = new LinkedHashMap<>();
+        input.forEach((labels, values) -> {
+            Map<String, String> group = new TreeMap<>();
+            if (aggregation.without()) {
+                group.putAll(labels);
+                group.remove("__name__");
+                aggregation.grouping().forEach(group::remove);
+            } else {
+                for (String label : aggregation.grouping()) {
+                    if (labels.containsKey(label)) {
+                        group.put(label, labels.get(label));
+                    }
+                }
+            }
+            groups.computeIfAbsent(group, g -> new ArrayList<>()).add(values);
+        });
+
+        Map<Map<String, String>, double[]> result = new LinkedHashMap<>();
+        groups.forEach((group, members) -> {
+            double[] values = new double[grid.count()];
+            double[] present = new double[members.size()];
+            for (int i = 0; i < grid.count(); i++) {
+                int n = 0;
+                for (double[] member : members) {
+                    if (!Double.isNaN(member[i])) {
+                        present[n++] = member[i];
+                    }
+                }
+                values[i] = n == 0 ? Double.NaN : combine(aggregation, present, n);
+            }
+            result.put(group, values);
+        });
+        return result;
+    }
+
+    private static double combine(Aggregation aggregation, double[] values, int n) {
+        return switch (aggregation.operator()) {
+            case "sum", "avg" -> {
+                double sum = 0;
+                for (int i = 0; i < n; i++) {
+                    sum += values[i];
+                }
+                yield aggregation.operator().equals("sum") ? sum : sum / n;
+            }
+            case "min" -> Arrays.stream(values, 0, n).min().orElse(Double.NaN);
+            case "max" -> Arrays.stream(values, 0, n).max().orElse(Double.NaN);
+            case "count" -> n;
+            default -> quantile(aggregation.parameter(), Arrays.copyOf(values, n), n);
+        };
+    }
+
+    /**
+     * Quantile of the first n values by linear interpolation between closest ranks, as
+     * Prometheus computes it; sorts the values in place.
+     */
+    static double quantile(double q, double[] values, int n) {
+        if (n == 0) {
+            return Double.NaN;
+        }
+        if (q < 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        if (q > 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        Arrays.sort(values, 0, n);
+        double rank = q * (n - 1);
+        int lower = (int) Math.floor(rank);
+        int upper = Math.min(n - 1, lower + 1);
+        double weight = rank - lower;
+        return values[lower] * (1 - weight) + values[upper] * weight;
+    }
+
+    /**
+     * Series of the head, the minute buckets and the hourly rollups with samples in
+     * [from, to) that match every matcher of the selector.
+     */
+    private List<SeriesKey> findSeries(Selector selector, LocalDateTime from, LocalDateTime to) {
+        String metricName = selector.metricName();
+        Set<SeriesKey> keys = new LinkedHashSet<>();
+        for (SeriesKey key : metricHeadService.seriesBetween(from, to)) {
+            if (metricName == null || key.metricName().equals(metricName)) {
+                keys.add(key);
+            }
+        }
+        for (Object[] row : bucketRepository.findSeriesBetween(MetricRollupService.periodStart(from, 1), to, metricName)) {
+            keys.add(new SeriesKey((String) row[0], (String) row[1]));
+        }
+        for (Object[] row : rollupRepository.findSeriesBetween(MetricRollupService.HOUR,
+                MetricRollupService.periodStart(from, MetricRollupService.HOUR), to, metricName)) {
+            keys.add(new SeriesKey((String) row[0], (String) row[1]));
+        }
+
+        List<SeriesKey> matching = new ArrayList<>();
+        for (SeriesKey key : keys) {
+            Map<String, String> labels = labels(key);
+            boolean matches = true;
+            for (Matcher matcher : selector.matchers()) {
+                matches &= matcher.matches(labels.get(matcher.label()));
+            }
+            if (matches) {
+                matching.add(key);
+            }
+        }
+        matching.sort(SERIES_ORDER);
+        return matching;
+    }
+
+    private static Map<String, String> labels(SeriesKey key) {
+        Map<String, String> labels = new TreeMap<>();
+        labels.put("__name__", key.metricName());
+        labels.put("service", key.serviceName());
+        return labels;
+    }
+
+    private static List<Series> toSeries(Map<Map<String, String>, double[]> values, Grid grid) {
+        List<Series> series = new ArrayList<>();
+        values.forEach((labels, points) -> {
+            int n = 0;
+            for (double value : points) {
+                if (!Double.isNaN(value)) {
+                    n++;
+                }
+            }
+            if (n == 0) {
+                return;
+            }
+            long[] timestamps = new long[n];
+            double[] kept = new double[n];
+            int j = 0;
+            for (int i = 0; i < points.length; i++) {
+                if (!Double.isNaN(points[i])) {
+                    timestamps[j] = grid.first() + i * grid.step();
+                    kept[j++] = points[i];
+                }
+            }
+            series.add(new Series(labels, timestamps, kept));
+        });
+        return series;
+    }
+
+    private static int slot(long timestampMillis, long base, long step) {
+        return (int) ((Math.floorDiv(timestampMillis, 1000L) - base) / step);
+    }
+
+    /**
+     * Metrics are stored as wall-clock time of the JVM zone, Prometheus times are Unix seconds.
+     */
+    private static LocalDateTime toTime(long epochSecond) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.systemDefault());
+    }
+
+    private static long toEpochSecond(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    /**
+     * Evaluation times: count multiples of step from first on.
+     */
+    private record Grid(long first, long step, int count) {
+
+        long last() {
+            return first + (count - 1L) * step;
+        }
+    }
+
+    /**
+     * Result of a query; scalar when the query is a plain number.
+     */
+    public record QueryResult(
+        boolean scalar,
+        List<Series> series
+    ) {}
+
+    /**
+     * Values of one labelled series at the evaluation times that have one, in Unix seconds.
+     */
+    public record Series(
+        Map<String, String> labels,
+        long[] timestamps,
+        double[] values
+    ) {}
+}
@@ -0,0 +1,340 @@
+package com.smartincident.service;
+
+import com.smartincident.repository.LogEntryRepository;
+import com.smartincident.repository.MetricRepository;
+import com.smartincident.repository.TraceSummaryRepository;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Service enforcing the retention of raw logs and metrics, and of the trace
+ * summaries derived from logs.
+ *
+ * On PostgreSQL, log_entry and metric are range-partitioned by day on their
+ * timestamp. Partitions are created a few days ahead and a partition is dropped as
+ * a whole once all of its days are past retention, which costs no vacuum and leaves
+ * no bloat; queries with a timestamp predicate only scan the matching partitions.
+ * Tables created unpartitioned (by Hibernate, or before partitioning existed) are
+ * converted at startup: the old table is attached as one partition covering
+ * everything up to the day after its newest row. Rows outside every daily
+ * partition land in a default partition.
+ *
+ * Rows older than retention that are not in a droppable partition (default, legacy
+ * partition, or any table on other databases such as H2) are deleted in small
+ * batches, each in its own transaction.
+ */
+@ApplicationScoped
+public class RetentionService {
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final Pattern RANGE_BOUND = Pattern.compile("FROM \\((.+?)\\) TO \\((.+?)\\)");
+
+    @Inject
+    EntityManager entityManager;
+
+    @Inject
+    LogEntryRepository logEntryRepository;
+
+    @Inject
+    MetricRepository metricRepository;
+
+    @Inject
+    TraceSummaryRepository traceSummaryRepository;
+
+    @ConfigProperty(name = "quarkus.datasource.db-kind")
+    String dbKind;
+
+    @ConfigProperty(name = "app.retention.log-entry-days", defaultValue = "14")
+    int logEntryDays;
+
+    @ConfigProperty(name = "app.retention.metric-days", defaultValue = "7")
+    int metricDays;
+
+    @ConfigProperty(name = "app.retention.trace-summary-days", defaultValue = "14")
+    int traceSummaryDays;
+
+    @ConfigProperty(name = "app.retention.partitioning.enabled", defaultValue = "true")
+    boolean partitioningEnabled;
+
+    @ConfigProperty(name = "app.retention.partitioning.premake-days", defaultValue = "7")
+    int premakeDays;
+
+    @ConfigProperty(name = "app.retention.delete-batch-size", defaultValue = "5000")
+    int deleteBatchSize;
+
+    private final List<Policy> policies = new ArrayList<>();
+
+    void onStart(@Observes StartupEvent event) {
+        boolean postgres = partitioningEnabled && "postgresql".equalsIgnoreCase(dbKind);
+        policies.add(new Policy("log_entry", logEntryDays, true, logEntryRepository::deleteOlderThan));
+        policies.add(new Policy("metric", metricDays, true, metricRepository::deleteOlderThan));
+        // Keyed by trace id, not time, so always deleted in batches
+        policies.add(new Policy("trace_summary", traceSummaryDays, false, traceSummaryRepository::deleteOlderThan));
+
+        for (Policy policy : policies) {
+            if (postgres && policy.partitionable) {
+                try {
+                    QuarkusTransaction.requiringNew().run(() -> policy.partitioned = preparePartitioning(policy.table));
+                    createPartitions(policy);
+                } catch (Exception e) {
+                    Log.errorf("Could not partition %s, old rows will be deleted in batches: %s", policy.table, e.getMessage());
+                    policy.partitioned = false;
+                }
+            }
+            Log.infof("Retention of %s: %s, %s", policy.table,
+                      policy.days > 0 ? policy.days + " days" : "unlimited",
+                      policy.partitioned ? "daily partitions" : "batched deletes");
+        }
+    }
+
+    /**
+     * Create upcoming partitions, then remove rows past retention.
+     */
+    public void enforce() {
+        for (Policy policy : policies) {
+            try {
+                if (policy.partitioned) {
+                    createPartitions(policy);
+                }
+                if (policy.days <= 0) {
+                    continue;
+                }
+                // Partitions hold whole days, so retention is enforced at day granularity there
+                LocalDateTime cutoff = policy.partitioned
+                        ? LocalDate.now().minusDays(policy.days).atStartOfDay()
+                        : LocalDateTime.now().minusDays(policy.days);
+                int dropped = policy.partitioned ? dropPartitionsBefore(policy.table, cutoff) : 0;
+                long deleted = deleteBefore(policy, cutoff);
+                if (dropped > 0 || deleted > 0) {
+                    Log.infof("Retention of %s: dropped %d partitions, deleted %d rows older than %s",
+                              policy.table, dropped, deleted, cutoff);
+                }
+            } catch (Exception e) {
+                Log.errorf("Failed to enforce retention of %s: %s", policy.table, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Retention settings and partitions of each table.
+     */
+    public List<TableRetention> getStatus() {
+        List<TableRetention> status = new ArrayList<>();
+        for (Policy policy : policies) {
+            List<String> partitions = policy.partitioned
+                    ? QuarkusTransaction.requiringNew().call(() -> partitions(policy.table)).stream()
+                            .map(Partition::name).sorted().toList()
+                    : List.of();
+            status.add(new TableRetention(policy.table, policy.days, policy.partitioned, partitions));
+        }
+        return status;
+    }
+
+    /**
+     * Make sure a table is partitioned by day, converting it when it is a plain table.
+     * Runs in a transaction, serialized across replicas.
+     *
+     * @return whether the table is partitioned
+     */
+    private boolean preparePartitioning(String table) {
+        entityManager.createNativeQuery("SELECT count(*) FROM (SELECT pg_advisory_xact_lock(hashtext(:key))) l")
+                .setParameter("key", "retention:" + table)
+                .getSingleResult();
+        String kind = nativeQuery("SELECT relkind::text FROM pg_class WHERE oid = to_regclass(:table)", String.class)
+                .setParameter("table", table)
+                .getResultStream().findFirst().orElse(null);
+        if (kind == null) {
+            Log.warnf("Table %s does not exist, not partitioning it", table);
+            return false;
+        }
+        if ("p".equals(kind)) {
+            return true;
+        }
+
+        List<String> indexes = nativeQuery(
+                "SELECT pg_get_indexdef(i.indexrelid) FROM pg_index i " +
+                "WHERE i.indrelid = to_regclass(:table) AND NOT i.indisprimary AND NOT i.indisunique", String.class)
+                .setParameter("table", table)
+                .getResultList();
+        String newest = nativeQuery("SELECT to_char(max(timestamp), 'YYYY-MM-DD') FROM " + table, String.class)
+                .getSingleResult();
+        LocalDate legacyEnd = LocalDate.now();
+        if (newest != null && !LocalDate.parse(newest).isBefore(legacyEnd)) {
+            legacyEnd = LocalDate.parse(newest).plusDays(1);
+        }
+
+        String legacy = table + "_legacy";
+        execute("ALTER TABLE " + table + " RENAME TO " + legacy);
+        List<String> legacyIndexes = nativeQuery(
+                "SELECT c.relname::text FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid " +
+                "WHERE i.indrelid = to_regclass(:table)", String.class)
+                .setParameter("table", legacy)
+                .getResultList();
+        for (String index : legacyIndexes) {
+            execute("ALTER INDEX " + index + " RENAME TO " + index + "_legacy");
+        }
+
+        execute("CREATE TABLE " + table + " (LIKE " + legacy + " INCLUDING DEFAULTS) PARTITION BY RANGE (timestamp)");
+        // The partition key must be part of the primary key; ids stay unique through their sequence
+        execute("ALTER TABLE " + table + " ADD PRIMARY KEY (id, timestamp)");
+        indexes.forEach(this::execute);
+        // Replaced by an index on (id, timestamp) built when attaching
+        List<String> legacyKeys = nativeQuery(
+                "SELECT conname::text FROM pg_constraint WHERE conrelid = to_regclass(:table) AND contype = 'p'",
+                String.class)
+                .setParameter("table", legacy)
+                .getResultList();
+        for (String key : legacyKeys) {
+            execute("ALTER TABLE " + legacy + " DROP CONSTRAINT " + key);
+        }
+        execute("ALTER TABLE " + table + " ATTACH PARTITION " + legacy +
+                " FOR VALUES FROM (MINVALUE) TO ('" + legacyEnd + "')");
+        execute("CREATE TABLE " + table + "_default PARTITION OF " + table + " DEFAULT");
+        Log.infof("Converted %s to a partitioned table, existing rows kept in %s up to %s", table, legacy, legacyEnd);
+        return true;
+    }
+
+    /**
+     * Create the daily partitions from yesterday to premake-days ahead that are not
+     * covered yet, each in its own transaction.
+     */
+    private void createPartitions(Policy policy) {
+        if (!policy.partitioned) {
+            return;
+        }
+        List<Partition> existing = QuarkusTransaction.requiringNew().call(() -> partitions(policy.table));
+        LocalDate today = LocalDate.now();
+        for (LocalDate day = today.minusDays(1); !day.isAfter(today.plusDays(premakeDays)); day = day.plusDays(1)) {
+            LocalDateTime from = day.atStartOfDay();
+            LocalDateTime to = from.plusDays(1);
+            if (existing.stream().anyMatch(p -> p.overlaps(from, to))) {
+                continue;
+            }
+            String name = policy.table + "_p" + day.format(PARTITION_SUFFIX);
+            try {
+                QuarkusTransaction.requiringNew().run(() -> execute(
+                        "CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + policy.table +
+                        " FOR VALUES FROM ('" + from + "') TO ('" + to + "')"));
+                Log.debugf("Created partition %s", name);
+            } catch (Exception e) {
+                // Typically rows for that day already sit in the default partition
+                Log.warnf("Could not create partition %s: %s", name, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Drop the partitions whose whole range is before the cutoff.
+     */
+    private int dropPartitionsBefore(String table, LocalDateTime cutoff) {
+        int dropped = 0;
+        for (Partition partition : QuarkusTransaction.requiringNew().call(() -> partitions(table))) {
+            if (partition.to() != null && !partition.to().isAfter(cutoff)) {
+                QuarkusTransaction.requiringNew().run(() -> execute("DROP TABLE IF EXISTS " + partition.name()));
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    private long deleteBefore(Policy policy, LocalDateTime cutoff) {
+        long total = 0;
+        while (true) {
+            long deleted = QuarkusTransaction.requiringNew().call(() -> policy.batchDelete.delete(cutoff, deleteBatchSize));
+            total += deleted;
+            if (deleted < deleteBatchSize) {
+                return total;
+            }
+        }
+    }
+
+    /**
+     * Partitions of a table with their bounds; the default partition has none.
+     */
+    private List<Partition> partitions(String table) {
+        List<Object[]> rows = nativeQuery(
+                "SELECT c.relname::text, pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = to_regclass(:table)", Object[].class)
+                .setParameter("table", table)
+                .getResultList();
+        List<Partition> partitions = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Matcher bound = RANGE_BOUND.matcher((String) row[1]);
+            partitions.add(bound.find()
+                    ? new Partition((String) row[0], parseBound(bound.group(1)), parseBound(bound.group(2)))
+                    : new Partition((String) row[0], null, null));
+        }
+        return partitions;
+    }
+
+    private static LocalDateTime parseBound(String bound) {
+        if (bound.startsWith("MINVALUE") || bound.startsWith("MAXVALUE")) {
+            return null;
+        }
+        return LocalDateTime.parse(bound.replace("'", "").trim().replace(' ', 'T'));
+    }
+
+    private <T> NativeQuery<T> nativeQuery(String sql, Class<T> resultType) {
+        return entityManager.unwrap(Session.class).createNativeQuery(sql, resultType);
+    }
+
+    private void execute(String sql) {
+        entityManager.createNativeQuery(sql).executeUpdate();
+    }
+
+    @FunctionalInterface
+    interface BatchDelete {
+        long delete(LocalDateTime cutoff, int limit);
+    }
+
+    private static class Policy {
+
+        final String table;
+        final int days;
+        final boolean partitionable;
+        final BatchDelete batchDelete;
+        volatile boolean partitioned;
+
+        Policy(String table, int days, boolean partitionable, BatchDelete batchDelete) {
+            this.table = table;
+            this.days = days;
+            this.partitionable = partitionable;
+            this.batchDelete = batchDelete;
+        }
+    }
+
+    /**
+     * A partition and its range; from is null for MINVALUE, both are null for the
+     * default partition.
+     */
+    private record Partition(String name, LocalDateTime from, LocalDateTime to) {
+
+        boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            if (from == null && to == null) {
+                return false;
+            }
+            return (from == null || from.isBefore(end)) && (to == null || to.isAfter(start));
+        }
+    }
+
+    /**
+     * Retention of one table: days kept (0 for unlimited) and its partitions.
+     */
+    public record TableRetention(String table, int retentionDays, boolean partitioned, List<String> partitions) {}
+}
@@ -4,17 +4,25 @@ import com.smartincident.model.Incident;
 import com.smartincident.model.enums.IncidentType;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * Service for analyzing incidents and determining probable root causes.
  * Uses rule-based correlation to suggest causes based on incident type and patterns.
+ *
+ * analyzeCause is cheap and gives the provisional cause set at creation; the
+ * enrichment stages refine it asynchronously. Both go through the classification
+ * catalog, which maps failure categories found in text to known causes.
  */
 @ApplicationScoped
 public class RootCauseAnalysisService {
 
     private static final Map<IncidentType, String[]> CAUSE_MAPPING = new HashMap<>();
+    private static final Map<IncidentType, Set<String>> KNOWN_CAUSES = new HashMap<>();
 
     static {
         CAUSE_MAPPING.put(IncidentType.HIGH_ERROR_RATE, new String[]{
@@ -48,8 +56,13 @@ public class RootCauseAnalysisService {
             "Readiness probe failure",
             "Node pressure eviction"
         });
+
+        CAUSE_MAPPING.forEach((type, causes) -> KNOWN_CAUSES.put(type, Set.of(causes)));
     }
 
+    @Inject
+    ClassificationService classificationService;
+
     /**
      * Analyze an incident and determine the most probable cause.
      */
@@ -64,6 +77,28 @@ public class RootCauseAnalysisService {
         return selectMostProbableCause(incident, possibleCauses);
     }
 
+    /**
+     * Whether a cause is one of the known causes of an incident type.
+     */
+    public boolean isKnownCause(IncidentType type, String cause) {
+        Set<String> known = KNOWN_CAUSES.get(type);
+        return known != null && cause != null && known.contains(cause);
+    }
+
+    /**
+     * Find the first cause a classification category points to that is a known
+     * cause of the incident type.
+     */
+    public Optional<String> causeForCategory(IncidentType type, String category) {
+        Set<String> known = KNOWN_CAUSES.get(type);
+        if (known == null || category == null) {
+            return Optional.empty();
+        }
+        return classificationService.causesOf(category).stream()
+                .filter(known::contains)
+                .findFirst();
+    }
+
     /**
      * Get all possible causes for an incident type.
      */
@@ -72,57 +107,23 @@ public class RootCauseAnalysisService {
     }
 
     /**
-     * Select the most probable cause based on incident context.
+     * Select the most probable cause based on incident context: the first known cause
+     * of the incident type among those of the categories found in the context.
      */
     private String selectMostProbableCause(Incident incident, String[] causes) {
-        String relatedMetrics = incident.relatedMetrics;
-        String description = incident.description;
-
-        // Simple keyword matching for cause selection
-        if (relatedMetrics != null) {
-            if (relatedMetrics.contains("memory") && containsAny(causes, "memory", "Memory", "OOM")) {
-                return findCauseContaining(causes, "memory", "Memory", "OOM");
-            }
-            if (relatedMetrics.contains("cpu") && containsAny(causes, "CPU", "cpu", "throttl")) {
-                return findCauseContaining(causes, "CPU", "cpu", "throttl");
-            }
-            if (relatedMetrics.contains("database") || relatedMetrics.contains("db")) {
-                return findCauseContaining(causes, "Database", "database", "connection");
-            }
+        String context = incident.relatedMetrics != null ? incident.relatedMetrics : "";
+        if (incident.description != null) {
+            context = context + "\n" + incident.description;
         }
 
-        if (description != null) {
-            if (description.toLowerCase().contains("timeout")) {
-                return findCauseContaining(causes, "timeout", "Timeout");
-            }
-            if (description.toLowerCase().contains("connection")) {
-                return findCauseContaining(causes, "connection", "Connection");
+        for (String category : classificationService.categorize(context)) {
+            Optional<String> cause = causeForCategory(incident.type, category);
+            if (cause.isPresent()) {
+                return cause.get();
             }
         }
 
         // Default to first cause
         return causes[0];
     }
-
-    private boolean containsAny(String[] causes, String... keywords) {
-        for (String cause : causes) {
-            for (String keyword : keywords) {
-                if (cause.contains(keyword)) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
-    private String findCauseContaining(String[] causes, String... keywords) {
-        for (String cause : causes) {
-            for (String keyword : keywords) {
-                if (cause.contains(keyword)) {
-                    return cause;
-                }
-            }
-        }
-        return causes[0];
-    }
 }
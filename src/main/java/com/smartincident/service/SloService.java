@@ -0,0 +1,364 @@
+package com.smartincident.service;
+
+import com.smartincident.dto.ServiceLevelObjectiveDTO;
+import com.smartincident.model.Metric;
+import com.smartincident.model.ServiceLevelObjective;
+import com.smartincident.model.enums.IncidentSeverity;
+import com.smartincident.model.enums.SloType;
+import com.smartincident.repository.ServiceLevelObjectiveRepository;
+import com.smartincident.util.WindowedErrorCounter;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service for SLO tracking and multi-window, multi-burn-rate alerting.
+ *
+ * Good/total counters are kept in memory per declared objective, bucketed by time
+ * and fed directly from metric ingestion, so burn rates over long windows are read
+ * from running sums instead of re-scanning raw metric rows.
+ */
+@ApplicationScoped
+public class SloService {
+
+    @Inject
+    ServiceLevelObjectiveRepository sloRepository;
+
+    @ConfigProperty(name = "app.slo.enabled", defaultValue = "true")
+    boolean sloEnabled;
+
+    @ConfigProperty(name = "app.slo.bucket-seconds", defaultValue = "60")
+    int bucketSeconds;
+
+    // <long window>/<short window>:<burn rate>:<severity>
+    @ConfigProperty(name = "app.slo.burn-rate-alerts", defaultValue = "1h/5m:14.4:CRITICAL,6h/30m:6:HIGH")
+    List<String> burnRateAlertSpecs;
+
+    private final List<BurnRateAlert> burnRateAlerts = new ArrayList<>();
+    private final List<Long> windowSeconds = new ArrayList<>();
+
+    private final Map<SloType, Map<String, TrackedObjective>> objectives = new EnumMap<>(SloType.class);
+
+    @PostConstruct
+    void init() {
+        TreeSet<Long> windows = new TreeSet<>();
+        List<ParsedAlert> parsed = new ArrayList<>();
+        for (String spec : burnRateAlertSpecs) {
+            ParsedAlert alert = parseAlert(spec.trim());
+            windows.add(alert.longSeconds());
+            windows.add(alert.shortSeconds());
+            parsed.add(alert);
+        }
+        windowSeconds.addAll(windows);
+
+        for (ParsedAlert alert : parsed) {
+            burnRateAlerts.add(new BurnRateAlert(
+                windowSeconds.indexOf(alert.longSeconds()), windowSeconds.indexOf(alert.shortSeconds()),
+                alert.longLabel(), alert.shortLabel(), alert.burnRate(), alert.severity()));
+        }
+        // Most aggressive rule first so a fast burn is reported with its own severity
+        burnRateAlerts.sort(Comparator.comparingDouble(BurnRateAlert::burnRate).reversed());
+
+        for (SloType type : SloType.values()) {
+            objectives.put(type, new ConcurrentHashMap<>());
+        }
+    }
+
+    @Transactional
+    void onStart(@Observes StartupEvent event) {
+        List<ServiceLevelObjective> declared = sloRepository.listAll();
+        declared.forEach(this::track);
+        Log.infof("Loaded %d service level objectives", declared.size());
+    }
+
+    /**
+     * Feed an ingested metric into the counters of matching objectives.
+     */
+    public void record(Metric metric) {
+        if (!sloEnabled || metric.value == null) {
+            return;
+        }
+
+        switch (metric.metricName) {
+            case "http_5xx_count" -> {
+                TrackedObjective tracked = objectives.get(SloType.AVAILABILITY).get(metric.serviceName);
+                if (tracked != null) {
+                    tracked.counter().add(epochSecond(metric.timestamp), metric.value, 0);
+                }
+            }
+            case "http_total_count" -> {
+                TrackedObjective tracked = objectives.get(SloType.AVAILABILITY).get(metric.serviceName);
+                if (tracked != null) {
+                    tracked.counter().add(epochSecond(metric.timestamp), 0, metric.value);
+                }
+            }
+            case "latency_ms" -> {
+                TrackedObjective tracked = objectives.get(SloType.LATENCY).get(metric.serviceName);
+                if (tracked != null) {
+                    double bad = metric.value > tracked.latencyThresholdMs() ? 1 : 0;
+                    tracked.counter().add(epochSecond(metric.timestamp), bad, 1);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Check whether a service has declared an objective of the given type.
+     */
+    public boolean hasObjective(String serviceName, SloType type) {
+        return sloEnabled && objectives.get(type).containsKey(serviceName);
+    }
+
+    /**
+     * Evaluate the burn-rate rules of an objective. A rule fires only when both its
+     * long and short window burn faster than the rule's rate, so a breach is
+     * detected quickly and stops firing soon after the burn ends.
+     */
+    public Optional<BurnRateBreach> findBreach(String serviceName, SloType type) {
+        TrackedObjective tracked = objectives.get(type).get(serviceName);
+        if (!sloEnabled || tracked == null) {
+            return Optional.empty();
+        }
+
+        long now = epochSecond(LocalDateTime.now());
+        double budget = 1.0 - tracked.targetPercent() / 100.0;
+
+        for (BurnRateAlert alert : burnRateAlerts) {
+            OptionalDouble longRatio = tracked.counter().errorRatio(alert.longWindow(), now);
+            OptionalDouble shortRatio = tracked.counter().errorRatio(alert.shortWindow(), now);
+            if (longRatio.isEmpty() || shortRatio.isEmpty()) {
+                continue;
+            }
+
+            double longBurn = longRatio.getAsDouble() / budget;
+            double shortBurn = shortRatio.getAsDouble() / budget;
+            if (longBurn >= alert.burnRate() && shortBurn >= alert.burnRate()) {
+                return Optional.of(new BurnRateBreach(serviceName, type, tracked.targetPercent(), alert,
+                    longRatio.getAsDouble(), shortRatio.getAsDouble(), longBurn, shortBurn));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * How close an objective is to firing any rule: the highest ratio of the lower
+     * of a rule's two window burn rates to the rule's burn rate.
+     */
+    public double burnPressure(String serviceName, SloType type) {
+        TrackedObjective tracked = objectives.get(type).get(serviceName);
+        if (!sloEnabled || tracked == null) {
+            return 0;
+        }
+
+        long now = epochSecond(LocalDateTime.now());
+        double budget = 1.0 - tracked.targetPercent() / 100.0;
+        double pressure = 0;
+
+        for (BurnRateAlert alert : burnRateAlerts) {
+            OptionalDouble longRatio = tracked.counter().errorRatio(alert.longWindow(), now);
+            OptionalDouble shortRatio = tracked.counter().errorRatio(alert.shortWindow(), now);
+            if (longRatio.isPresent() && shortRatio.isPresent()) {
+                double burn = Math.min(longRatio.getAsDouble(), shortRatio.getAsDouble()) / budget;
+                pressure = Math.max(pressure, burn / alert.burnRate());
+            }
+        }
+        return pressure;
+    }
+
+    /**
+     * Current error ratio and burn rate of every tracked window, for all objectives.
+     */
+    public List<SloStatus> getStatus() {
+        long now = epochSecond(LocalDateTime.now());
+        List<SloStatus> statuses = new ArrayList<>();
+
+        for (Map.Entry<SloType, Map<String, TrackedObjective>> byType : objectives.entrySet()) {
+            for (TrackedObjective tracked : byType.getValue().values()) {
+                double budget = 1.0 - tracked.targetPercent() / 100.0;
+                List<WindowStatus> windows = new ArrayList<>();
+                for (int w = 0; w < windowSeconds.size(); w++) {
+                    OptionalDouble ratio = tracked.counter().errorRatio(w, now);
+                    windows.add(new WindowStatus(
+                        formatDuration(windowSeconds.get(w)),
+                        tracked.counter().total(w, now),
+                        ratio.isPresent() ? ratio.getAsDouble() : null,
+                        ratio.isPresent() ? ratio.getAsDouble() / budget : null));
+                }
+                statuses.add(new SloStatus(tracked.serviceName(), byType.getKey(),
+                    tracked.targetPercent(), tracked.latencyThresholdMs(), windows));
+            }
+        }
+        return statuses;
+    }
+
+    /**
+     * List declared objectives.
+     */
+    public List<ServiceLevelObjectiveDTO> getObjectives() {
+        return sloRepository.listAll()
+                .stream()
+                .map(ServiceLevelObjectiveDTO::fromEntity)
+                .toList();
+    }
+
+    /**
+     * Declare or update an objective for a service.
+     */
+    @Transactional
+    public ServiceLevelObjectiveDTO saveObjective(ServiceLevelObjectiveDTO dto) {
+        ServiceLevelObjective slo = sloRepository.findByServiceAndType(dto.serviceName, dto.type);
+        if (slo == null) {
+            slo = new ServiceLevelObjective(dto.serviceName, dto.type, dto.targetPercent);
+            sloRepository.persist(slo);
+        }
+        slo.targetPercent = dto.targetPercent;
+        slo.latencyThresholdMs = dto.latencyThresholdMs;
+        slo.updatedAt = LocalDateTime.now();
+
+        track(slo);
+        Log.infof("Saved %s objective for %s: %.3f%%", slo.type, slo.serviceName, slo.targetPercent);
+
+        return ServiceLevelObjectiveDTO.fromEntity(slo);
+    }
+
+    /**
+     * Remove an objective; returns false when it did not exist.
+     */
+    @Transactional
+    public boolean deleteObjective(String serviceName, SloType type) {
+        ServiceLevelObjective slo = sloRepository.findByServiceAndType(serviceName, type);
+        if (slo == null) {
+            return false;
+        }
+        sloRepository.delete(slo);
+        objectives.get(type).remove(serviceName);
+        return true;
+    }
+
+    private void track(ServiceLevelObjective slo) {
+        double threshold = slo.latencyThresholdMs != null ? slo.latencyThresholdMs : 0;
+        objectives.get(slo.type).compute(slo.serviceName, (name, existing) -> {
+            // Counts stay valid across target changes, but not across latency threshold changes
+            WindowedErrorCounter counter = existing != null && existing.latencyThresholdMs() == threshold
+                ? existing.counter()
+                : newCounter();
+            return new TrackedObjective(name, slo.targetPercent, threshold, counter);
+        });
+    }
+
+    private WindowedErrorCounter newCounter() {
+        int[] buckets = new int[windowSeconds.size()];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = (int) Math.max(1, windowSeconds.get(i) / bucketSeconds);
+        }
+        return new WindowedErrorCounter(bucketSeconds, buckets);
+    }
+
+    private static long epochSecond(LocalDateTime timestamp) {
+        return (timestamp != null ? timestamp : LocalDateTime.now()).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static ParsedAlert parseAlert(String spec) {
+        try {
+            String[] parts = spec.split(":");
+            String[] windows = parts[0].split("/");
+            return new ParsedAlert(
+                windows[0], windows[1],
+                parseDuration(windows[0]), parseDuration(windows[1]),
+                Double.parseDouble(parts[1]),
+                IncidentSeverity.valueOf(parts[2].toUpperCase()));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid app.slo.burn-rate-alerts entry: " + spec, e);
+        }
+    }
+
+    private static long parseDuration(String text) {
+        long amount = Long.parseLong(text.substring(0, text.length() - 1));
+        return switch (text.charAt(text.length() - 1)) {
+            case 's' -> amount;
+            case 'm' -> amount * 60;
+            case 'h' -> amount * 3600;
+            case 'd' -> amount * 86400;
+            default -> throw new IllegalArgumentException("Unknown duration unit: " + text);
+        };
+    }
+
+    private static String formatDuration(long seconds) {
+        if (seconds % 86400 == 0) return seconds / 86400 + "d";
+        if (seconds % 3600 == 0) return seconds / 3600 + "h";
+        if (seconds % 60 == 0) return seconds / 60 + "m";
+        return seconds + "s";
+    }
+
+    private record ParsedAlert(String longLabel, String shortLabel, long longSeconds, long shortSeconds,
+                               double burnRate, IncidentSeverity severity) {}
+
+    private record TrackedObjective(String serviceName, double targetPercent, double latencyThresholdMs,
+                                    WindowedErrorCounter counter) {}
+
+    /**
+     * A burn-rate alerting rule over a long and a short window.
+     */
+    public record BurnRateAlert(
+        int longWindow,
+        int shortWindow,
+        String longWindowLabel,
+        String shortWindowLabel,
+        double burnRate,
+        IncidentSeverity severity
+    ) {}
+
+    /**
+     * An objective burning its error budget faster than a rule allows.
+     */
+    public record BurnRateBreach(
+        String serviceName,
+        SloType type,
+        double targetPercent,
+        BurnRateAlert alert,
+        double longErrorRatio,
+        double shortErrorRatio,
+        double longBurnRate,
+        double shortBurnRate
+    ) {}
+
+    /**
+     * Burn-rate status of one objective.
+     */
+    public record SloStatus(
+        String serviceName,
+        SloType type,
+        double targetPercent,
+        double latencyThresholdMs,
+        List<WindowStatus> windows
+    ) {}
+
+    /**
+     * Error ratio and burn rate over one window.
+     */
+    public record WindowStatus(
+        String window,
+        double events,
+        Double errorRatio,
+        Double burnRate
+    ) {}
+}
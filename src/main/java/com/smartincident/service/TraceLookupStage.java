@@ -0,0 +1,91 @@
+package com.smartincident.service;
+
+import com.smartincident.dto.TraceSummaryDTO;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Enrichment stage looking at the service's recent failing traces: when most of them
+ * also pass through one other service, the problem likely sits in that dependency.
+ * Once the call graph knows the service, only services it calls are counted.
+ */
+@ApplicationScoped
+public class TraceLookupStage implements EnrichmentStage {
+
+    private static final int MAX_TRACES = 50;
+
+    @Inject
+    TraceService traceService;
+
+    @Inject
+    DependencyGraphService dependencyGraphService;
+
+    @Inject
+    RootCauseAnalysisService rootCauseAnalysisService;
+
+    @ConfigProperty(name = "app.rca.enrichment.lookback-minutes", defaultValue = "15")
+    int lookbackMinutes;
+
+    @Override
+    public String name() {
+        return "traces";
+    }
+
+    @Override
+    public int order() {
+        return 30;
+    }
+
+    @Override
+    public Result enrich(Context context) {
+        List<TraceSummaryDTO> traces = traceService.findRecentTraces(context.serviceName(), true, lookbackMinutes, MAX_TRACES);
+        if (traces.isEmpty()) {
+            return Result.evidence("No failing traces in the last " + lookbackMinutes + " minutes", Map.of());
+        }
+
+        Optional<Set<String>> downstream = dependencyGraphService.findDownstream(context.serviceName());
+        Map<String, Integer> coServices = new HashMap<>();
+        for (TraceSummaryDTO trace : traces) {
+            for (String service : trace.services) {
+                if (!service.equals(context.serviceName())
+                        && downstream.map(services -> services.contains(service)).orElse(true)) {
+                    coServices.merge(service, 1, Integer::sum);
+                }
+            }
+        }
+
+        Map<String, Integer> ranked = new LinkedHashMap<>();
+        coServices.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(5)
+                .forEach(e -> ranked.put(e.getKey(), e.getValue()));
+
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("failingTraces", traces.size());
+        details.put("sampleTraceIds", traces.stream().limit(3).map(t -> t.traceId).toList());
+        details.put("servicesInFailingTraces", ranked);
+
+        if (ranked.isEmpty()) {
+            return Result.evidence(traces.size() + " failing traces, all local to the service", details);
+        }
+
+        Map.Entry<String, Integer> top = ranked.entrySet().iterator().next();
+        double share = (double) top.getValue() / traces.size();
+        String suggestedCause = rootCauseAnalysisService
+                .causeForCategory(context.type(), "DOWNSTREAM")
+                .map(cause -> cause + " (" + top.getKey() + ")")
+                .orElse(null);
+
+        String summary = String.format("%d failing traces; %s appears in %.0f%% of them",
+                traces.size(), top.getKey(), share * 100);
+        return new Result(summary, details, suggestedCause, suggestedCause != null ? share : 0);
+    }
+}
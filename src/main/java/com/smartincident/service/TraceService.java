@@ -0,0 +1,221 @@
+package com.smartincident.service;
+
+import com.smartincident.dto.TraceSummaryDTO;
+import com.smartincident.event.LogsIngestedEvent;
+import com.smartincident.model.LogEntry;
+import com.smartincident.model.TraceSummary;
+import com.smartincident.repository.LogEntryRepository;
+import com.smartincident.repository.TraceSummaryRepository;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Service for trace-correlated log retrieval.
+ *
+ * Trace summaries are updated after each ingest commits, in their own transaction,
+ * so a summary conflict can never fail log ingestion. Deltas of one ingest call are
+ * folded per trace first; when two replicas create the same summary concurrently the
+ * loser retries and takes the update path.
+ */
+@ApplicationScoped
+public class TraceService {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Inject
+    LogEntryRepository logEntryRepository;
+
+    @Inject
+    TraceSummaryRepository traceSummaryRepository;
+
+    @Inject
+    LogArchiveService logArchiveService;
+
+    @ConfigProperty(name = "app.traces.max-logs", defaultValue = "5000")
+    int maxLogsPerTrace;
+
+    /**
+     * Fold committed traced logs into their trace summaries.
+     */
+    void onLogsIngested(@Observes(during = TransactionPhase.AFTER_SUCCESS) LogsIngestedEvent event) {
+        Map<String, TraceDelta> deltas = new HashMap<>();
+        for (LogEntry entry : event.entries()) {
+            if (entry.traceId == null || entry.traceId.isBlank()) {
+                continue;
+            }
+            deltas.computeIfAbsent(entry.traceId, TraceDelta::new).add(entry);
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                QuarkusTransaction.requiringNew().run(() -> deltas.values().forEach(this::apply));
+                return;
+            } catch (PersistenceException e) {
+                // Another replica inserted one of these traces first; retry as an update
+                Log.debugf("Trace summary update conflict (attempt %d): %s", attempt, e.getMessage());
+            } catch (Exception e) {
+                Log.errorf("Failed to update trace summaries: %s", e.getMessage());
+                return;
+            }
+        }
+        Log.warnf("Gave up updating %d trace summaries after %d attempts", deltas.size(), MAX_ATTEMPTS);
+    }
+
+    /**
+     * Get the summary of a trace.
+     */
+    public Optional<TraceSummaryDTO> getSummary(String traceId) {
+        return traceSummaryRepository.findByIdOptional(traceId).map(TraceSummaryDTO::fromEntity);
+    }
+
+    /**
+     * Get the logs of a trace in time order, grouped by span, including archived
+     * logs. Spans are ordered by their first log.
+     */
+    public Optional<TraceView> getTrace(String traceId) {
+        List<LogEntry> logs = logArchiveService.withArchivedTrace(
+                traceId, logEntryRepository.findByTraceId(traceId, maxLogsPerTrace), maxLogsPerTrace);
+        if (logs.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Map<String, List<LogEntry>> bySpan = new LinkedHashMap<>();
+        for (LogEntry log : logs) {
+            bySpan.computeIfAbsent(log.spanId, k -> new ArrayList<>()).add(log);
+        }
+
+        List<SpanLogs> spans = new ArrayList<>(bySpan.size());
+        bySpan.forEach((spanId, spanLogs) -> spans.add(new SpanLogs(
+            spanId,
+            spanLogs.get(0).serviceName,
+            spanLogs.get(0).timestamp,
+            spanLogs.get(spanLogs.size() - 1).timestamp,
+            spanLogs.stream().filter(LogEntry::isError).count(),
+            spanLogs
+        )));
+        spans.sort(Comparator.comparing(SpanLogs::start));
+
+        TraceSummaryDTO summary = getSummary(traceId).orElseGet(() -> summarize(traceId, logs));
+        return Optional.of(new TraceView(summary, logs.size() >= maxLogsPerTrace, spans));
+    }
+
+    /**
+     * Get the most recent traces touching a service.
+     */
+    public List<TraceSummaryDTO> findRecentTraces(String serviceName, boolean errorsOnly, int minutes, int limit) {
+        LocalDateTime since = LocalDateTime.now().minusMinutes(minutes);
+        return traceSummaryRepository.findRecent(serviceName, errorsOnly, since, limit).stream()
+                .map(TraceSummaryDTO::fromEntity)
+                .toList();
+    }
+
+    private void apply(TraceDelta delta) {
+        Optional<TraceSummary> existing =
+                traceSummaryRepository.findByIdOptional(delta.traceId, LockModeType.PESSIMISTIC_WRITE);
+        TraceSummary summary = existing.orElseGet(() -> new TraceSummary(delta.traceId));
+
+        if (summary.firstSeen == null || delta.firstSeen.isBefore(summary.firstSeen)) {
+            summary.firstSeen = delta.firstSeen;
+            summary.rootService = delta.rootService;
+        }
+        if (summary.lastSeen == null || delta.lastSeen.isAfter(summary.lastSeen)) {
+            summary.lastSeen = delta.lastSeen;
+        }
+        summary.logCount += delta.logCount;
+        summary.errorCount += delta.errorCount;
+        delta.services.forEach(summary::addService);
+
+        if (existing.isEmpty()) {
+            traceSummaryRepository.persist(summary);
+            traceSummaryRepository.flush();
+        }
+    }
+
+    /**
+     * Summary computed from logs, for traces ingested before summaries existed.
+     */
+    private TraceSummaryDTO summarize(String traceId, List<LogEntry> logs) {
+        TraceDelta delta = new TraceDelta(traceId);
+        logs.forEach(delta::add);
+        TraceSummary summary = new TraceSummary(traceId);
+        summary.firstSeen = delta.firstSeen;
+        summary.lastSeen = delta.lastSeen;
+        summary.rootService = delta.rootService;
+        summary.logCount = delta.logCount;
+        summary.errorCount = delta.errorCount;
+        delta.services.forEach(summary::addService);
+        return TraceSummaryDTO.fromEntity(summary);
+    }
+
+    private static class TraceDelta {
+        final String traceId;
+        final List<String> services = new ArrayList<>();
+        LocalDateTime firstSeen;
+        LocalDateTime lastSeen;
+        String rootService;
+        long logCount;
+        long errorCount;
+
+        TraceDelta(String traceId) {
+            this.traceId = traceId;
+        }
+
+        void add(LogEntry entry) {
+            if (firstSeen == null || entry.timestamp.isBefore(firstSeen)) {
+                firstSeen = entry.timestamp;
+                rootService = entry.serviceName;
+            }
+            if (lastSeen == null || entry.timestamp.isAfter(lastSeen)) {
+                lastSeen = entry.timestamp;
+            }
+            logCount++;
+            if (entry.isError()) {
+                errorCount++;
+            }
+            if (!services.contains(entry.serviceName)) {
+                services.add(entry.serviceName);
+            }
+        }
+    }
+
+    /**
+     * Logs of one span, in time order.
+     */
+    public record SpanLogs(
+        String spanId,
+        String serviceName,
+        LocalDateTime start,
+        LocalDateTime end,
+        long errorCount,
+        List<LogEntry> logs
+    ) {}
+
+    /**
+     * A trace: its summary and its logs grouped by span. truncated is set when the
+     * trace has more logs than app.traces.max-logs.
+     */
+    public record TraceView(
+        TraceSummaryDTO summary,
+        boolean truncated,
+        List<SpanLogs> spans
+    ) {}
+}
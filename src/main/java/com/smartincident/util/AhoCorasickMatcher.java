@@ -0,0 +1,158 @@
+package com.smartincident.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Case-insensitive multi-pattern matcher (Aho-Corasick automaton).
+ *
+ * The patterns are compiled once into a deterministic automaton over the characters
+ * they use; scanning a text then takes one table lookup per character plus one call
+ * per match, however many patterns there are. Characters that appear in no pattern
+ * send the scan back to the root state.
+ *
+ * Instances are immutable and safe to share between threads.
+ */
+public class AhoCorasickMatcher {
+
+    private final int[] patternLengths;
+    // Alphabet index of each char below 128, -1 when no pattern uses it
+    private final int[] asciiIndex = new int[128];
+    private final Map<Character, Integer> otherIndex = new HashMap<>();
+    private int alphabetSize;
+    private final int[][] transitions;
+    // Patterns ending at each state, including those reached through failure links
+    private final int[][] outputs;
+
+    /**
+     * Compile patterns; match callbacks receive the index of the pattern in this list.
+     */
+    public AhoCorasickMatcher(List<String> patterns) {
+        Arrays.fill(asciiIndex, -1);
+        patternLengths = new int[patterns.size()];
+
+        // Trie of the lowercased patterns
+        List<Map<Integer, Integer>> children = new ArrayList<>();
+        List<List<Integer>> ends = new ArrayList<>();
+        children.add(new HashMap<>());
+        ends.add(new ArrayList<>());
+        for (int p = 0; p < patterns.size(); p++) {
+            String pattern = patterns.get(p).toLowerCase();
+            if (pattern.isEmpty()) {
+                throw new IllegalArgumentException("Empty pattern at index " + p);
+            }
+            patternLengths[p] = pattern.length();
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                int symbol = symbolOf(pattern.charAt(i), true);
+                Integer next = children.get(state).get(symbol);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new HashMap<>());
+                    ends.add(new ArrayList<>());
+                    children.get(state).put(symbol, next);
+                }
+                state = next;
+            }
+            ends.get(state).add(p);
+        }
+
+        // Breadth-first: fill missing transitions from the failure state and inherit its outputs
+        int alphabet = alphabetSize;
+        transitions = new int[children.size()][alphabet];
+        outputs = new int[children.size()][];
+        int[] failure = new int[children.size()];
+        Queue<Integer> queue = new ArrayDeque<>();
+
+        outputs[0] = toArray(ends.get(0));
+        for (int symbol = 0; symbol < alphabet; symbol++) {
+            Integer child = children.get(0).get(symbol);
+            if (child != null) {
+                transitions[0][symbol] = child;
+                failure[child] = 0;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int fail = failure[state];
+            List<Integer> out = new ArrayList<>(ends.get(state));
+            for (int inherited : outputs[fail]) {
+                out.add(inherited);
+            }
+            outputs[state] = toArray(out);
+
+            for (int symbol = 0; symbol < alphabet; symbol++) {
+                Integer child = children.get(state).get(symbol);
+                if (child != null) {
+                    transitions[state][symbol] = child;
+                    failure[child] = transitions[fail][symbol];
+                    queue.add(child);
+                } else {
+                    transitions[state][symbol] = transitions[fail][symbol];
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of compiled patterns.
+     */
+    public int size() {
+        return patternLengths.length;
+    }
+
+    /**
+     * Length of a pattern, to locate the start of a match from its end.
+     */
+    public int patternLength(int pattern) {
+        return patternLengths[pattern];
+    }
+
+    /**
+     * Scan text once, calling onMatch with the end offset (exclusive) and pattern
+     * index of every occurrence, overlapping ones included.
+     */
+    public void scan(CharSequence text, MatchConsumer onMatch) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int symbol = symbolOf(Character.toLowerCase(text.charAt(i)), false);
+            state = symbol < 0 ? 0 : transitions[state][symbol];
+            for (int pattern : outputs[state]) {
+                onMatch.accept(i + 1, pattern);
+            }
+        }
+    }
+
+    private int symbolOf(char c, boolean add) {
+        if (c < 128) {
+            if (asciiIndex[c] < 0 && add) {
+                asciiIndex[c] = alphabetSize++;
+            }
+            return asciiIndex[c];
+        }
+        Integer index = otherIndex.get(c);
+        if (index == null && add) {
+            index = alphabetSize++;
+            otherIndex.put(c, index);
+        }
+        return index != null ? index : -1;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Receives one match: the end offset in the text (exclusive) and the pattern index.
+     */
+    @FunctionalInterface
+    public interface MatchConsumer {
+        void accept(int end, int pattern);
+    }
+}
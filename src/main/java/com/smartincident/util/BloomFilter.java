@@ -0,0 +1,106 @@
+package com.smartincident.util;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Bloom filter over strings: answers "definitely absent" or "maybe present".
+ *
+ * The bit array is a LongBuffer, so a filter can be built on the heap and written
+ * out, then read back as a view of a memory-mapped file without copying it. Bit
+ * positions come from one 64-bit hash split into two halves (double hashing).
+ */
+public class BloomFilter {
+
+    private final LongBuffer words;
+    private final int numHashes;
+    private final long numBits;
+
+    private BloomFilter(LongBuffer words, int numHashes) {
+        this.words = words;
+        this.numHashes = numHashes;
+        this.numBits = (long) words.capacity() * Long.SIZE;
+    }
+
+    /**
+     * An empty filter sized for a number of distinct values and false positive rate.
+     */
+    public static BloomFilter create(long expectedItems, double falsePositiveRate) {
+        long n = Math.max(1, expectedItems);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + Long.SIZE - 1) / Long.SIZE));
+        int hashes = (int) Math.max(1, Math.min(16, Math.round((double) wordCount * Long.SIZE / n * Math.log(2))));
+        return new BloomFilter(LongBuffer.wrap(new long[wordCount]), hashes);
+    }
+
+    /**
+     * Read a filter written by writeTo, as a view of the buffer from its position,
+     * which is advanced past the filter.
+     */
+    public static BloomFilter readFrom(ByteBuffer buffer) {
+        int hashes = buffer.getInt();
+        int wordCount = buffer.getInt();
+        ByteBuffer bytes = buffer.slice(buffer.position(), wordCount * Long.BYTES).order(buffer.order());
+        buffer.position(buffer.position() + wordCount * Long.BYTES);
+        return new BloomFilter(bytes.asLongBuffer(), hashes);
+    }
+
+    public void add(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, numBits);
+            int word = (int) (bit >>> 6);
+            words.put(word, words.get(word) | (1L << bit));
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, numBits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Write the number of hashes, the number of words and the words.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(numHashes);
+        out.writeInt(words.capacity());
+        for (int i = 0; i < words.capacity(); i++) {
+            out.writeLong(words.get(i));
+        }
+    }
+
+    /**
+     * Size of the filter in bytes once written.
+     */
+    public long sizeBytes() {
+        return 8 + (long) words.capacity() * Long.BYTES;
+    }
+
+    // FNV-1a over the UTF-16 chars, then the murmur3 finalizer to spread the bits
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
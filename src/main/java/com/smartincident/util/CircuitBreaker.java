@@ -0,0 +1,94 @@
+package com.smartincident.util;
+
+/**
+ * Consecutive-failure circuit breaker.
+ *
+ * After failureThreshold failures in a row the circuit opens and requests are refused
+ * for openMillis. It then half-opens: a single trial request is let through, and its
+ * result either closes the circuit or opens it for another period.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        if (failureThreshold <= 0 || openMillis <= 0) {
+            throw new IllegalArgumentException("Failure threshold and open period must be positive");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openMillis * 1_000_000;
+    }
+
+    /**
+     * Take permission to send a request: always granted while closed, never while
+     * open, and to one request at a time while half-open. A permission not used for
+     * a request must be given back with {@link #releasePermission()}.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        return switch (state()) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> {
+                if (trialInFlight) {
+                    yield false;
+                }
+                trialInFlight = true;
+                yield true;
+            }
+        };
+    }
+
+    /**
+     * Give back a permission whose request was not sent.
+     */
+    public synchronized void releasePermission() {
+        trialInFlight = false;
+    }
+
+    public synchronized void recordSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+        trialInFlight = false;
+    }
+
+    /**
+     * Record a failed request.
+     *
+     * @return whether this failure opened the circuit
+     */
+    public synchronized boolean recordFailure() {
+        if (state == State.OPEN) {
+            return false;
+        }
+        trialInFlight = false;
+        if (state == State.HALF_OPEN || ++failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            failures = 0;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Current state; an open circuit whose period has elapsed is half-open.
+     */
+    public synchronized State state() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+        }
+        return state;
+    }
+}
@@ -0,0 +1,271 @@
+package com.smartincident.util;
+
+import java.util.Arrays;
+
+/**
+ * Append-only block of (timestamp, value) samples compressed as in Facebook's
+ * Gorilla and Prometheus chunks, in a growing long[] bit stream.
+ *
+ * The first sample is stored raw. After it, each timestamp is stored as the
+ * difference between consecutive deltas (delta-of-delta), which is 0 for regular
+ * scrapes and costs a single bit. Each value is XORed with the previous one and only
+ * the meaningful bits of the XOR are kept, reusing the previous leading/trailing zero
+ * window when they fit: an unchanged value costs one bit, a slowly moving gauge a
+ * dozen or two. Timestamps must not decrease.
+ *
+ * Count, sum, min, max and the last value are kept uncompressed, so aggregating a
+ * range that covers the whole chunk needs no decoding. Not thread-safe.
+ */
+public class GorillaChunk {
+
+    private static final int INITIAL_WORDS = 4;
+
+    private long[] words = new long[INITIAL_WORDS];
+    private int bitLength;
+    private int count;
+
+    private long firstTimestamp;
+    private long lastTimestamp;
+    private long lastDelta;
+    private long lastValueBits;
+    private int leading = -1;
+    private int trailing;
+
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Append a sample; its timestamp must not be before the last one.
+     *
+     * @throws IllegalArgumentException if the timestamp goes backwards
+     */
+    public void append(long timestamp, double value) {
+        long valueBits = Double.doubleToRawLongBits(value);
+        if (count == 0) {
+            writeBits(timestamp, 64);
+            writeBits(valueBits, 64);
+            firstTimestamp = timestamp;
+        } else {
+            if (timestamp < lastTimestamp) {
+                throw new IllegalArgumentException("Sample at " + timestamp + " is before the last one at " + lastTimestamp);
+            }
+            long delta = timestamp - lastTimestamp;
+            writeDeltaOfDelta(delta - lastDelta);
+            lastDelta = delta;
+            writeXor(valueBits ^ lastValueBits);
+        }
+        lastTimestamp = timestamp;
+        lastValueBits = valueBits;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Pass the samples with a timestamp in [from, to) to the consumer, oldest first.
+     */
+    public void forEach(long from, long to, SampleConsumer consumer) {
+        if (count == 0 || lastTimestamp < from || firstTimestamp >= to) {
+            return;
+        }
+        Reader reader = new Reader();
+        for (int i = 0; i < count; i++) {
+            reader.next(i);
+            if (reader.timestamp >= to) {
+                return;
+            }
+            if (reader.timestamp >= from) {
+                consumer.accept(reader.timestamp, Double.longBitsToDouble(reader.valueBits));
+            }
+        }
+    }
+
+    /**
+     * Release the unused tail of the bit stream, once no more samples will be appended.
+     */
+    public void trim() {
+        words = Arrays.copyOf(words, Math.max(1, (bitLength + 63) >>> 6));
+    }
+
+    /**
+     * Approximate heap size of the chunk, in bytes.
+     */
+    public long sizeBytes() {
+        // Object and array headers plus the fields
+        return 120 + (long) words.length * Long.BYTES;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public long firstTimestamp() {
+        return firstTimestamp;
+    }
+
+    public long lastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public double lastValue() {
+        return Double.longBitsToDouble(lastValueBits);
+    }
+
+    public double sum() {
+        return sum;
+    }
+
+    public double min() {
+        return min;
+    }
+
+    public double max() {
+        return max;
+    }
+
+    private void writeDeltaOfDelta(long dod) {
+        if (dod == 0) {
+            writeBits(0, 1);
+        } else if (fits(dod, 14)) {
+            writeBits(0b10, 2);
+            writeBits(dod, 14);
+        } else if (fits(dod, 17)) {
+            writeBits(0b110, 3);
+            writeBits(dod, 17);
+        } else if (fits(dod, 20)) {
+            writeBits(0b1110, 4);
+            writeBits(dod, 20);
+        } else {
+            writeBits(0b1111, 4);
+            writeBits(dod, 64);
+        }
+    }
+
+    private void writeXor(long xor) {
+        if (xor == 0) {
+            writeBits(0, 1);
+            return;
+        }
+        writeBits(1, 1);
+        // Five bits hold the leading zeros, so at most 31 of them
+        int lead = Math.min(31, Long.numberOfLeadingZeros(xor));
+        int trail = Long.numberOfTrailingZeros(xor);
+        if (leading >= 0 && lead >= leading && trail >= trailing) {
+            writeBits(0, 1);
+            writeBits(xor >>> trailing, 64 - leading - trailing);
+        } else {
+            leading = lead;
+            trailing = trail;
+            int significant = 64 - lead - trail;
+            writeBits(1, 1);
+            writeBits(lead, 5);
+            // 64 significant bits do not fit in six bits and are written as 0
+            writeBits(significant & 63, 6);
+            writeBits(xor >>> trail, significant);
+        }
+    }
+
+    private static boolean fits(long value, int bits) {
+        long bound = 1L << (bits - 1);
+        return value >= -bound && value < bound;
+    }
+
+    /**
+     * Write the low n bits of value, most significant first.
+     */
+    private void writeBits(long value, int n) {
+        if (bitLength + n > (long) words.length * Long.SIZE) {
+            words = Arrays.copyOf(words, words.length * 2);
+        }
+        if (n < 64) {
+            value &= (1L << n) - 1;
+        }
+        int word = bitLength >>> 6;
+        int free = 64 - (bitLength & 63);
+        if (n <= free) {
+            words[word] |= value << (free - n);
+        } else {
+            words[word] |= value >>> (n - free);
+            words[word + 1] |= value << (64 - (n - free));
+        }
+        bitLength += n;
+    }
+
+    /**
+     * Decoder of the bit stream, one sample at a time.
+     */
+    private class Reader {
+
+        int position;
+        long timestamp;
+        long delta;
+        long valueBits;
+        int leading;
+        int trailing;
+
+        void next(int index) {
+            if (index == 0) {
+                timestamp = readBits(64);
+                valueBits = readBits(64);
+                return;
+            }
+            delta += readDeltaOfDelta();
+            timestamp += delta;
+            if (readBits(1) == 1) {
+                if (readBits(1) == 1) {
+                    leading = (int) readBits(5);
+                    int significant = (int) readBits(6);
+                    if (significant == 0) {
+                        significant = 64;
+                    }
+                    trailing = 64 - leading - significant;
+                }
+                valueBits ^= readBits(64 - leading - trailing) << trailing;
+            }
+        }
+
+        private long readDeltaOfDelta() {
+            if (readBits(1) == 0) {
+                return 0;
+            }
+            int bits;
+            if (readBits(1) == 0) {
+                bits = 14;
+            } else if (readBits(1) == 0) {
+                bits = 17;
+            } else if (readBits(1) == 0) {
+                bits = 20;
+            } else {
+                return readBits(64);
+            }
+            long value = readBits(bits);
+            // Sign-extend
+            return (value << (64 - bits)) >> (64 - bits);
+        }
+
+        private long readBits(int n) {
+            int word = position >>> 6;
+            int offset = position & 63;
+            int available = 64 - offset;
+            long value;
+            if (n <= available) {
+                value = (words[word] << offset) >>> (64 - n);
+            } else {
+                int rest = n - available;
+                value = ((words[word] << offset) >>> (64 - n)) | (words[word + 1] >>> (64 - rest));
+            }
+            position += n;
+            return value;
+        }
+    }
+
+    /**
+     * Receives decoded samples.
+     */
+    @FunctionalInterface
+    public interface SampleConsumer {
+        void accept(long timestamp, double value);
+    }
+}
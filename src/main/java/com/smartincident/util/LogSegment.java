@@ -0,0 +1,297 @@
+package com.smartincident.util;
+
+import com.smartincident.model.LogEntry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Read-only, memory-mapped file of archived log entries, written by LogSegmentWriter.
+ *
+ * Layout: compressed blocks, then a footer, the footer length and a magic number.
+ * Each block holds a few thousand rows stored column by column: ids and timestamps
+ * (epoch microseconds, UTC) as zigzag varint deltas, then each string column as
+ * length-prefixed UTF-8. The footer holds the row count, time and id ranges, Bloom
+ * filters of the service names and trace ids, and per block its offset, lengths,
+ * row count and time range, so lookups skip segments and blocks that cannot match
+ * without decompressing them.
+ */
+public class LogSegment {
+
+    static final long MAGIC = 0x534d4c4f47534547L; // "SMLOGSEG"
+    static final int VERSION = 1;
+    static final double FALSE_POSITIVE_RATE = 0.01;
+    static final int STRING_COLUMNS = 9;
+
+    private final Path path;
+    private final MappedByteBuffer data;
+    private final long sizeBytes;
+    private final int rowCount;
+    private final long minTime;
+    private final long maxTime;
+    private final long minId;
+    private final long maxId;
+    private final BloomFilter serviceFilter;
+    private final BloomFilter traceFilter;
+    private final List<Block> blocks;
+
+    private LogSegment(Path path, MappedByteBuffer data) throws IOException {
+        this.path = path;
+        this.data = data;
+        this.sizeBytes = data.capacity();
+
+        if (sizeBytes < 12 || data.getLong((int) sizeBytes - 8) != MAGIC) {
+            throw new IOException("Not a log segment: " + path);
+        }
+        int footerLength = data.getInt((int) sizeBytes - 12);
+        ByteBuffer footer = data.slice((int) sizeBytes - 12 - footerLength, footerLength);
+        int version = footer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported log segment version " + version + ": " + path);
+        }
+        this.rowCount = footer.getInt();
+        this.minTime = footer.getLong();
+        this.maxTime = footer.getLong();
+        this.minId = footer.getLong();
+        this.maxId = footer.getLong();
+        this.serviceFilter = BloomFilter.readFrom(footer);
+        this.traceFilter = BloomFilter.readFrom(footer);
+        int blockCount = footer.getInt();
+        List<Block> index = new ArrayList<>(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            index.add(new Block(footer.getLong(), footer.getInt(), footer.getInt(), footer.getInt(),
+                                footer.getLong(), footer.getLong()));
+        }
+        this.blocks = Collections.unmodifiableList(index);
+    }
+
+    /**
+     * Map a segment file and read its footer.
+     *
+     * @throws IOException if the file cannot be read, is not a complete segment or is
+     *                     too large to map
+     */
+    public static LogSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Log segment over 2 GB cannot be mapped: " + path);
+            }
+            return new LogSegment(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Pass every entry with a timestamp in [from, to) to the consumer, in file
+     * order, decompressing only the blocks that overlap the range. Null bounds are open.
+     */
+    public void scan(LocalDateTime from, LocalDateTime to, Consumer<LogEntry> consumer) {
+        long fromMicros = from != null ? toMicros(from) : Long.MIN_VALUE;
+        long toMicros = to != null ? toMicros(to) : Long.MAX_VALUE;
+        for (Block block : blocks) {
+            if (block.maxTime() < fromMicros || block.minTime() >= toMicros) {
+                continue;
+            }
+            for (LogEntry entry : readBlock(block)) {
+                long time = toMicros(entry.timestamp);
+                if (time >= fromMicros && time < toMicros) {
+                    consumer.accept(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Decompress one block into entries, in the order they were written.
+     */
+    public List<LogEntry> readBlock(Block block) {
+        byte[] compressed = new byte[block.compressedLength()];
+        data.slice((int) block.offset(), block.compressedLength()).get(compressed);
+        byte[] raw = new byte[block.rawLength()];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int read = 0;
+            while (read < raw.length && !inflater.finished()) {
+                read += inflater.inflate(raw, read, raw.length - read);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt block in log segment " + path, e);
+        } finally {
+            inflater.end();
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(raw);
+        List<LogEntry> entries = new ArrayList<>(block.rows());
+        long previous = 0;
+        for (int i = 0; i < block.rows(); i++) {
+            LogEntry entry = new LogEntry();
+            previous += unZigZag(readVarLong(in));
+            entry.id = previous;
+            entries.add(entry);
+        }
+        previous = 0;
+        for (LogEntry entry : entries) {
+            previous += unZigZag(readVarLong(in));
+            entry.timestamp = fromMicros(previous);
+        }
+        for (int column = 0; column < STRING_COLUMNS; column++) {
+            for (LogEntry entry : entries) {
+                setStringColumn(entry, column, readString(in));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * False if the segment certainly holds no log of the service.
+     */
+    public boolean mightContainService(String serviceName) {
+        return serviceFilter.mightContain(serviceName);
+    }
+
+    /**
+     * False if the segment certainly holds no log of the trace.
+     */
+    public boolean mightContainTrace(String traceId) {
+        return traceFilter.mightContain(traceId);
+    }
+
+    /**
+     * True if some entry may have a timestamp in [from, to); null bounds are open.
+     */
+    public boolean overlaps(LocalDateTime from, LocalDateTime to) {
+        return (from == null || maxTime >= toMicros(from)) && (to == null || minTime < toMicros(to));
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public long sizeBytes() {
+        return sizeBytes;
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public LocalDateTime minTimestamp() {
+        return fromMicros(minTime);
+    }
+
+    public LocalDateTime maxTimestamp() {
+        return fromMicros(maxTime);
+    }
+
+    public long minId() {
+        return minId;
+    }
+
+    public long maxId() {
+        return maxId;
+    }
+
+    public List<Block> blocks() {
+        return blocks;
+    }
+
+    static long toMicros(LocalDateTime time) {
+        return ChronoUnit.MICROS.between(LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC), time);
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                                           (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+    }
+
+    static String stringColumn(LogEntry entry, int column) {
+        return switch (column) {
+            case 0 -> entry.level;
+            case 1 -> entry.message;
+            case 2 -> entry.serviceName;
+            case 3 -> entry.podName;
+            case 4 -> entry.namespace;
+            case 5 -> entry.traceId;
+            case 6 -> entry.spanId;
+            case 7 -> entry.parentSpanId;
+            case 8 -> entry.category;
+            default -> throw new IllegalArgumentException("No string column " + column);
+        };
+    }
+
+    private static void setStringColumn(LogEntry entry, int column, String value) {
+        switch (column) {
+            case 0 -> entry.level = value;
+            case 1 -> entry.message = value;
+            case 2 -> entry.serviceName = value;
+            case 3 -> entry.podName = value;
+            case 4 -> entry.namespace = value;
+            case 5 -> entry.traceId = value;
+            case 6 -> entry.spanId = value;
+            case 7 -> entry.parentSpanId = value;
+            case 8 -> entry.category = value;
+            default -> throw new IllegalArgumentException("No string column " + column);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = (int) readVarLong(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Location and summary of one compressed block; times in epoch microseconds.
+     */
+    public record Block(
+        long offset,
+        int compressedLength,
+        int rawLength,
+        int rows,
+        long minTime,
+        long maxTime
+    ) {
+
+        public LocalDateTime minTimestamp() {
+            return fromMicros(minTime);
+        }
+
+        public LocalDateTime maxTimestamp() {
+            return fromMicros(maxTime);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.smartincident.util;
+
+import com.smartincident.model.LogEntry;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+/**
+ * Writes log entries to a new segment file, see LogSegment for the format.
+ *
+ * Rows are buffered into blocks which are compressed and appended as they fill;
+ * the footer is written on finish. The file is built under a temporary name and
+ * renamed into place at the end, so a segment either exists complete or not at all.
+ */
+public class LogSegmentWriter implements Closeable {
+
+    private final Path target;
+    private final Path temporary;
+    private final int blockRows;
+    private final DataOutputStream out;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final BloomFilter traceFilter;
+    private final Set<String> serviceNames = new HashSet<>();
+    private final List<LogSegment.Block> blocks = new ArrayList<>();
+    private final List<LogEntry> pending = new ArrayList<>();
+
+    private long offset;
+    private int rowCount;
+    private long minTime = Long.MAX_VALUE;
+    private long maxTime = Long.MIN_VALUE;
+    private long minId = Long.MAX_VALUE;
+    private long maxId = Long.MIN_VALUE;
+    private boolean finished;
+
+    /**
+     * @param target      path of the segment once finished
+     * @param blockRows   rows per compressed block
+     * @param expectedRows upper bound on the rows, used to size the trace id filter
+     */
+    public LogSegmentWriter(Path target, int blockRows, long expectedRows) throws IOException {
+        this.target = target;
+        this.temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        this.blockRows = blockRows;
+        this.traceFilter = BloomFilter.create(expectedRows, LogSegment.FALSE_POSITIVE_RATE);
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16));
+    }
+
+    public void append(LogEntry entry) throws IOException {
+        pending.add(entry);
+        if (pending.size() >= blockRows) {
+            writeBlock();
+        }
+    }
+
+    public int rowCount() {
+        return rowCount + pending.size();
+    }
+
+    /**
+     * Bytes of the blocks written so far, without the buffered rows and the footer.
+     */
+    public long sizeBytes() {
+        return offset;
+    }
+
+    /**
+     * Write the last block and the footer, then move the file into place.
+     */
+    public void finish() throws IOException {
+        if (!pending.isEmpty()) {
+            writeBlock();
+        }
+        BloomFilter serviceFilter = BloomFilter.create(serviceNames.size(), LogSegment.FALSE_POSITIVE_RATE);
+        serviceNames.forEach(serviceFilter::add);
+
+        ByteArrayOutputStream footerBytes = new ByteArrayOutputStream();
+        DataOutputStream footer = new DataOutputStream(footerBytes);
+        footer.writeInt(LogSegment.VERSION);
+        footer.writeInt(rowCount);
+        footer.writeLong(minTime);
+        footer.writeLong(maxTime);
+        footer.writeLong(minId);
+        footer.writeLong(maxId);
+        serviceFilter.writeTo(footer);
+        traceFilter.writeTo(footer);
+        footer.writeInt(blocks.size());
+        for (LogSegment.Block block : blocks) {
+            footer.writeLong(block.offset());
+            footer.writeInt(block.compressedLength());
+            footer.writeInt(block.rawLength());
+            footer.writeInt(block.rows());
+            footer.writeLong(block.minTime());
+            footer.writeLong(block.maxTime());
+        }
+        footer.flush();
+
+        out.write(footerBytes.toByteArray());
+        out.writeInt(footerBytes.size());
+        out.writeLong(LogSegment.MAGIC);
+        out.close();
+        deflater.end();
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        finished = true;
+    }
+
+    /**
+     * Discard an unfinished segment.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!finished) {
+            out.close();
+            deflater.end();
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(pending.size() * 128);
+        long blockMin = Long.MAX_VALUE;
+        long blockMax = Long.MIN_VALUE;
+
+        // Column by column: similar values sit together and compress better
+        long previous = 0;
+        for (LogEntry entry : pending) {
+            writeVarLong(raw, zigZag(entry.id - previous));
+            previous = entry.id;
+            minId = Math.min(minId, entry.id);
+            maxId = Math.max(maxId, entry.id);
+        }
+        previous = 0;
+        for (LogEntry entry : pending) {
+            long time = LogSegment.toMicros(entry.timestamp);
+            writeVarLong(raw, zigZag(time - previous));
+            previous = time;
+            blockMin = Math.min(blockMin, time);
+            blockMax = Math.max(blockMax, time);
+        }
+        for (int column = 0; column < LogSegment.STRING_COLUMNS; column++) {
+            for (LogEntry entry : pending) {
+                writeString(raw, LogSegment.stringColumn(entry, column));
+            }
+        }
+        for (LogEntry entry : pending) {
+            serviceNames.add(entry.serviceName);
+            if (entry.traceId != null) {
+                traceFilter.add(entry.traceId);
+            }
+        }
+
+        byte[] input = raw.toByteArray();
+        deflater.reset();
+        deflater.setInput(input);
+        deflater.finish();
+        byte[] buffer = new byte[Math.max(64, input.length / 2)];
+        int compressed = 0;
+        while (!deflater.finished()) {
+            int n = deflater.deflate(buffer);
+            out.write(buffer, 0, n);
+            compressed += n;
+        }
+
+        blocks.add(new LogSegment.Block(offset, compressed, input.length, pending.size(), blockMin, blockMax));
+        offset += compressed;
+        rowCount += pending.size();
+        minTime = Math.min(minTime, blockMin);
+        maxTime = Math.max(maxTime, blockMax);
+        pending.clear();
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
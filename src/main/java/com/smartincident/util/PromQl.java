@@ -0,0 +1,444 @@
+package com.smartincident.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Parser for the subset of PromQL served by the Prometheus-compatible query API:
+ * <ul>
+ *   <li>selectors such as {@code cpu_usage{service=~"api-.*"}}, with the matchers =, !=, =~ and !~</li>
+ *   <li>{@code rate}, {@code increase} and {@code avg|min|max|sum|count|last_over_time} of a range
+ *       selector, and {@code quantile_over_time(q, ...)}</li>
+ *   <li>{@code sum}, {@code avg}, {@code min}, {@code max}, {@code count} and {@code quantile(q, ...)}
+ *       across series, with an optional {@code by (...)} or {@code without (...)} clause</li>
+ *   <li>arithmetic between numbers only, enough for clients that check a data source with {@code 1+1}</li>
+ * </ul>
+ */
+public final class PromQl {
+
+    public static final Set<String> RANGE_FUNCTIONS = Set.of("rate", "increase", "avg_over_time", "min_over_time",
+            "max_over_time", "sum_over_time", "count_over_time", "last_over_time", "quantile_over_time");
+    public static final Set<String> AGGREGATIONS = Set.of("sum", "avg", "min", "max", "count", "quantile");
+
+    private PromQl() {
+    }
+
+    /**
+     * Parse a query.
+     *
+     * @throws IllegalArgumentException if the query is malformed or outside the supported subset
+     */
+    public static Expr parse(String query) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Query is required");
+        }
+        Parser parser = new Parser(query);
+        Expr expr = parser.expression();
+        parser.skipSpaces();
+        if (parser.position < query.length()) {
+            throw parser.error("unexpected '" + query.charAt(parser.position) + "'");
+        }
+        return expr;
+    }
+
+    /**
+     * Parse a duration such as {@code 90s}, {@code 5m} or {@code 1h30m} into seconds.
+     *
+     * @throws IllegalArgumentException if the duration is malformed, under one second or
+     *                                  too large to count in seconds
+     */
+    public static long parseDuration(String duration) {
+        if (duration == null || !duration.matches("(\\d+[smhdwy])+")) {
+            throw new IllegalArgumentException("Invalid duration '" + duration + "', use e.g. 30s, 5m or 1h30m");
+        }
+        long seconds = 0;
+        int start = 0;
+        try {
+            for (int i = 0; i < duration.length(); i++) {
+                char c = duration.charAt(i);
+                if (Character.isLetter(c)) {
+                    long amount = Long.parseLong(duration.substring(start, i));
+                    seconds = Math.addExact(seconds, Math.multiplyExact(amount, switch (c) {
+                        case 's' -> 1L;
+                        case 'm' -> 60L;
+                        case 'h' -> 3600L;
+                        case 'd' -> 86400L;
+                        case 'w' -> 7 * 86400L;
+                        default -> 365 * 86400L;
+                    }));
+                    start = i + 1;
+                }
+            }
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Duration '" + duration + "' is too large");
+        }
+        if (seconds < 1) {
+            throw new IllegalArgumentException("Duration must be at least 1 second");
+        }
+        return seconds;
+    }
+
+    /**
+     * A parsed query.
+     */
+    public interface Expr {}
+
+    /**
+     * A number, after folding arithmetic between numbers.
+     */
+    public record NumberLiteral(double value) implements Expr {}
+
+    /**
+     * Series matching every matcher, with the range in seconds of a range selector, 0 otherwise.
+     */
+    public record Selector(List<Matcher> matchers, long rangeSeconds) implements Expr {
+
+        /**
+         * The metric name when a matcher requires an exact one, else null.
+         */
+        public String metricName() {
+            for (Matcher matcher : matchers) {
+                if (matcher.label().equals("__name__") && matcher.operator().equals("=")) {
+                    return matcher.value();
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A function of a range selector; the parameter is the quantile of quantile_over_time.
+     */
+    public record RangeFunction(String function, double parameter, Selector selector) implements Expr {}
+
+    /**
+     * An aggregation across series, grouped by (or without) the given labels; the
+     * parameter is the quantile of quantile.
+     */
+    public record Aggregation(String operator, double parameter, boolean without, List<String> grouping,
+                              Expr expression) implements Expr {}
+
+    /**
+     * A label matcher: =, !=, =~ or !~. Regular expressions are anchored, as in Prometheus.
+     */
+    public record Matcher(String label, String operator, String value, Pattern pattern) {
+
+        public boolean matches(String labelValue) {
+            String actual = labelValue != null ? labelValue : "";
+            return switch (operator) {
+                case "=" -> actual.equals(value);
+                case "!=" -> !actual.equals(value);
+                case "=~" -> pattern.matcher(actual).matches();
+                default -> !pattern.matcher(actual).matches();
+            };
+        }
+    }
+
+    /**
+     * Recursive-descent parser over the query string.
+     */
+    private static final class Parser {
+
+        private final String query;
+        private int position;
+
+        Parser(String query) {
+            this.query = query;
+        }
+
+        // expression := term (('+' | '-') term)*
+        Expr expression() {
+            Expr left = term();
+            while (true) {
+                skipSpaces();
+                char op = peek();
+                if (op != '+' && op != '-') {
+                    return left;
+                }
+                position++;
+                left = arithmetic(left, op, term());
+            }
+        }
+
+        // term := unary (('*' | '/') unary)*
+        private Expr term() {
+            Expr left = unary();
+            while (true) {
+                skipSpaces();
+                char op = peek();
+                if (op != '*' && op != '/') {
+                    return left;
+                }
+                position++;
+                left = arithmetic(left, op, unary());
+            }
+        }
+
+        private Expr unary() {
+            skipSpaces();
+            char c = peek();
+            if (c == '-' || c == '+') {
+                position++;
+                return arithmetic(new NumberLiteral(0), c, unary());
+            }
+            if (c == '(') {
+                position++;
+                Expr inner = expression();
+                expect(')');
+                return inner;
+            }
+            if (Character.isDigit(c) || c == '.') {
+                return new NumberLiteral(number());
+            }
+            if (c == '{') {
+                return selector(null);
+            }
+            String name = identifier();
+            skipSpaces();
+            if (AGGREGATIONS.contains(name) && (peek() == '(' || lookingAtWord("by") || lookingAtWord("without"))) {
+                return aggregation(name);
+            }
+            if (peek() == '(') {
+                if (!RANGE_FUNCTIONS.contains(name)) {
+                    throw error("unsupported function '" + name + "'");
+                }
+                return rangeFunction(name);
+            }
+            return selector(name);
+        }
+
+        private Expr aggregation(String operator) {
+            boolean without = false;
+            List<String> grouping = List.of();
+            if (lookingAtWord("by") || lookingAtWord("without")) {
+                without = identifier().equals("without");
+                grouping = labelList();
+            }
+            expect('(');
+            double parameter = 0;
+            if (operator.equals("quantile")) {
+                parameter = signedNumber();
+                expect(',');
+            }
+            Expr inner = expression();
+            if (inner instanceof NumberLiteral) {
+                throw error(operator + " needs series, not a number");
+            }
+            expect(')');
+            skipSpaces();
+            if (grouping.isEmpty() && (lookingAtWord("by") || lookingAtWord("without"))) {
+                without = identifier().equals("without");
+                grouping = labelList();
+            }
+            return new Aggregation(operator, parameter, without, grouping, inner);
+        }
+
+        private Expr rangeFunction(String function) {
+            expect('(');
+            double parameter = 0;
+            if (function.equals("quantile_over_time")) {
+                parameter = signedNumber();
+                expect(',');
+            }
+            skipSpaces();
+            String name = peek() == '{' ? null : identifier();
+            Selector selector = selector(name);
+            if (selector.rangeSeconds() == 0) {
+                throw error(function + " needs a range selector such as metric[5m]");
+            }
+            expect(')');
+            return new RangeFunction(function, parameter, selector);
+        }
+
+        private Selector selector(String metricName) {
+            List<Matcher> matchers = new ArrayList<>();
+            if (metricName != null) {
+                matchers.add(matcher("__name__", "=", metricName));
+            }
+            skipSpaces();
+            if (peek() == '{') {
+                position++;
+                skipSpaces();
+                while (peek() != '}') {
+                    String label = identifier();
+                    skipSpaces();
+                    String operator;
+                    if (query.startsWith("=~", position) || query.startsWith("!~", position)
+                            || query.startsWith("!=", position)) {
+                        operator = query.substring(position, position + 2);
+                    } else if (peek() == '=') {
+                        operator = "=";
+                    } else {
+                        throw error("expected a matcher operator after '" + label + "'");
+                    }
+                    position += operator.length();
+                    matchers.add(matcher(label, operator, string()));
+                    skipSpaces();
+                    if (peek() == ',') {
+                        position++;
+                        skipSpaces();
+                    } else if (peek() != '}') {
+                        throw error("expected ',' or '}'");
+                    }
+                }
+                position++;
+            }
+            if (matchers.isEmpty()) {
+                throw error("a selector needs a metric name or at least one matcher");
+            }
+
+            long range = 0;
+            skipSpaces();
+            if (peek() == '[') {
+                position++;
+                int end = query.indexOf(']', position);
+                if (end < 0) {
+                    throw error("unclosed range");
+                }
+                range = parseDuration(query.substring(position, end).trim());
+                position = end + 1;
+            }
+            return new Selector(List.copyOf(matchers), range);
+        }
+
+        private Matcher matcher(String label, String operator, String value) {
+            Pattern pattern = null;
+            if (operator.endsWith("~")) {
+                try {
+                    pattern = Pattern.compile(value);
+                } catch (PatternSyntaxException e) {
+                    throw error("invalid regular expression '" + value + "'");
+                }
+            }
+            return new Matcher(label, operator, value, pattern);
+        }
+
+        private List<String> labelList() {
+            expect('(');
+            List<String> labels = new ArrayList<>();
+            skipSpaces();
+            while (peek() != ')') {
+                labels.add(identifier());
+                skipSpaces();
+                if (peek() == ',') {
+                    position++;
+                    skipSpaces();
+                }
+            }
+            position++;
+            return List.copyOf(labels);
+        }
+
+        private String identifier() {
+            skipSpaces();
+            int start = position;
+            while (position < query.length()) {
+                char c = query.charAt(position);
+                if (!(Character.isLetter(c) || c == '_' || c == ':' || (position > start && Character.isDigit(c)))) {
+                    break;
+                }
+                position++;
+            }
+            if (position == start) {
+                throw error(position < query.length() ? "unexpected '" + query.charAt(position) + "'" : "unexpected end of query");
+            }
+            return query.substring(start, position);
+        }
+
+        private String string() {
+            skipSpaces();
+            char quote = peek();
+            if (quote != '"' && quote != '\'') {
+                throw error("expected a quoted label value");
+            }
+            StringBuilder value = new StringBuilder();
+            position++;
+            while (position < query.length() && query.charAt(position) != quote) {
+                char c = query.charAt(position++);
+                if (c == '\\' && position < query.length()) {
+                    c = query.charAt(position++);
+                    if (c == 'n') {
+                        c = '\n';
+                    } else if (c == 't') {
+                        c = '\t';
+                    }
+                }
+                value.append(c);
+            }
+            if (position >= query.length()) {
+                throw error("unclosed string");
+            }
+            position++;
+            return value.toString();
+        }
+
+        private double signedNumber() {
+            Expr expr = expression();
+            if (!(expr instanceof NumberLiteral literal)) {
+                throw error("expected a number");
+            }
+            return literal.value();
+        }
+
+        private double number() {
+            int start = position;
+            while (position < query.length()
+                    && (Character.isDigit(query.charAt(position)) || query.charAt(position) == '.'
+                        || query.charAt(position) == 'e' || query.charAt(position) == 'E'
+                        || ((query.charAt(position) == '-' || query.charAt(position) == '+')
+                            && (query.charAt(position - 1) == 'e' || query.charAt(position - 1) == 'E')))) {
+                position++;
+            }
+            try {
+                return Double.parseDouble(query.substring(start, position));
+            } catch (NumberFormatException e) {
+                throw error("invalid number '" + query.substring(start, position) + "'");
+            }
+        }
+
+        private Expr arithmetic(Expr left, char op, Expr right) {
+            if (!(left instanceof NumberLiteral a) || !(right instanceof NumberLiteral b)) {
+                throw error("arithmetic is only supported between numbers");
+            }
+            return new NumberLiteral(switch (op) {
+                case '+' -> a.value() + b.value();
+                case '-' -> a.value() - b.value();
+                case '*' -> a.value() * b.value();
+                default -> a.value() / b.value();
+            });
+        }
+
+        private boolean lookingAtWord(String word) {
+            if (!query.startsWith(word, position)) {
+                return false;
+            }
+            int end = position + word.length();
+            return end >= query.length() || !(Character.isLetterOrDigit(query.charAt(end)) || query.charAt(end) == '_');
+        }
+
+        private void expect(char c) {
+            skipSpaces();
+            if (peek() != c) {
+                throw error("expected '" + c + "'");
+            }
+            position++;
+        }
+
+        private char peek() {
+            return position < query.length() ? query.charAt(position) : '\0';
+        }
+
+        void skipSpaces() {
+            while (position < query.length() && Character.isWhitespace(query.charAt(position))) {
+                position++;
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Parse error at position " + (position + 1) + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.smartincident.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Directed service call graph with exponentially decaying call and error counts.
+ *
+ * Services are interned to dense ids and edges live in parallel arrays, with an
+ * index from (caller, callee) to edge and per-service lists of outgoing and
+ * incoming edges, so recording a call or error is O(1). Counts are decayed lazily:
+ * each edge keeps the time of its latest update and readers scale by the half-life
+ * elapsed since then, so old traffic fades without any sweeping.
+ *
+ * Not thread-safe; callers synchronize.
+ */
+public class ServiceDependencyGraph {
+
+    private static final int INITIAL_EDGES = 64;
+
+    private final double halfLifeMillis;
+
+    private final Map<String, Integer> serviceIds = new HashMap<>();
+    private final List<String> serviceNames = new ArrayList<>();
+    private final List<IntList> outgoing = new ArrayList<>();
+    private final List<IntList> incoming = new ArrayList<>();
+
+    private final Map<Long, Integer> edgeIndex = new HashMap<>();
+    private int edgeCount;
+    private int[] callers = new int[INITIAL_EDGES];
+    private int[] callees = new int[INITIAL_EDGES];
+    private double[] calls = new double[INITIAL_EDGES];
+    private double[] errors = new double[INITIAL_EDGES];
+    private long[] updatedAt = new long[INITIAL_EDGES];
+
+    public ServiceDependencyGraph(long halfLifeMillis) {
+        this.halfLifeMillis = halfLifeMillis;
+    }
+
+    /**
+     * Id of a service, registering it on first use.
+     */
+    public int serviceId(String serviceName) {
+        Integer id = serviceIds.get(serviceName);
+        if (id == null) {
+            id = serviceNames.size();
+            serviceIds.put(serviceName, id);
+            serviceNames.add(serviceName);
+            outgoing.add(new IntList());
+            incoming.add(new IntList());
+        }
+        return id;
+    }
+
+    /**
+     * Id of a known service, or -1.
+     */
+    public int findService(String serviceName) {
+        return serviceIds.getOrDefault(serviceName, -1);
+    }
+
+    public String serviceName(int id) {
+        return serviceNames.get(id);
+    }
+
+    public int serviceCount() {
+        return serviceNames.size();
+    }
+
+    /**
+     * Count a call from caller to callee observed at the given time.
+     */
+    public void recordCall(int caller, int callee, long atMillis) {
+        int edge = edge(caller, callee);
+        double weight = weight(edge, atMillis);
+        calls[edge] += weight;
+    }
+
+    /**
+     * Count a failed call from caller to callee observed at the given time.
+     */
+    public void recordError(int caller, int callee, long atMillis) {
+        int edge = edge(caller, callee);
+        double weight = weight(edge, atMillis);
+        errors[edge] += weight;
+    }
+
+    /**
+     * Edge ids leaving a service.
+     */
+    public int[] edgesFrom(int service) {
+        return outgoing.get(service).toArray();
+    }
+
+    /**
+     * Edge ids entering a service.
+     */
+    public int[] edgesInto(int service) {
+        return incoming.get(service).toArray();
+    }
+
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    public int caller(int edge) {
+        return callers[edge];
+    }
+
+    public int callee(int edge) {
+        return callees[edge];
+    }
+
+    public long updatedAt(int edge) {
+        return updatedAt[edge];
+    }
+
+    /**
+     * Decayed call count of an edge as of the given time.
+     */
+    public double calls(int edge, long nowMillis) {
+        return calls[edge] * decay(nowMillis - updatedAt[edge]);
+    }
+
+    /**
+     * Decayed error count of an edge as of the given time.
+     */
+    public double errors(int edge, long nowMillis) {
+        return errors[edge] * decay(nowMillis - updatedAt[edge]);
+    }
+
+    private int edge(int caller, int callee) {
+        long key = ((long) caller << 32) | (callee & 0xffffffffL);
+        Integer edge = edgeIndex.get(key);
+        if (edge != null) {
+            return edge;
+        }
+        if (edgeCount == callers.length) {
+            int capacity = edgeCount * 2;
+            callers = Arrays.copyOf(callers, capacity);
+            callees = Arrays.copyOf(callees, capacity);
+            calls = Arrays.copyOf(calls, capacity);
+            errors = Arrays.copyOf(errors, capacity);
+            updatedAt = Arrays.copyOf(updatedAt, capacity);
+        }
+        int id = edgeCount++;
+        callers[id] = caller;
+        callees[id] = callee;
+        updatedAt[id] = Long.MIN_VALUE;
+        edgeIndex.put(key, id);
+        outgoing.get(caller).add(id);
+        incoming.get(callee).add(id);
+        return id;
+    }
+
+    /**
+     * Bring an edge's counts forward to atMillis if that is newer, and return the
+     * weight of an event at atMillis: 1, or less for an event older than the edge.
+     */
+    private double weight(int edge, long atMillis) {
+        long last = updatedAt[edge];
+        if (last == Long.MIN_VALUE) {
+            updatedAt[edge] = atMillis;
+            return 1;
+        }
+        if (atMillis > last) {
+            double factor = decay(atMillis - last);
+            calls[edge] *= factor;
+            errors[edge] *= factor;
+            updatedAt[edge] = atMillis;
+            return 1;
+        }
+        return decay(last - atMillis);
+    }
+
+    private double decay(long elapsedMillis) {
+        return elapsedMillis <= 0 ? 1 : Math.pow(0.5, elapsedMillis / halfLifeMillis);
+    }
+
+    /**
+     * Growable list of ints.
+     */
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.smartincident.util;
+
+/**
+ * Token bucket allowing bursts of up to capacity events and capacity events per
+ * period on average. Tokens are refilled lazily from the elapsed time on each call.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * @param capacity     events allowed per period, and the largest burst
+     * @param periodMillis length of the period
+     */
+    public TokenBucket(int capacity, long periodMillis) {
+        if (capacity <= 0 || periodMillis <= 0) {
+            throw new IllegalArgumentException("Capacity and period must be positive");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = capacity / (periodMillis * 1_000_000.0);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Take one token if one is available.
+     */
+    public synchronized boolean tryAcquire() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+}
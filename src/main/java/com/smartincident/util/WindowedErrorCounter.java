@@ -0,0 +1,128 @@
+package com.smartincident.util;
+
+import java.util.Arrays;
+import java.util.OptionalDouble;
+
+/**
+ * Ring buffer of error/total event counts in fixed-size time buckets.
+ *
+ * A running sum is kept for every configured window, so reading the error ratio
+ * of a window is O(1) regardless of its length: buckets are added to the sums
+ * when recorded and subtracted once as the head moves past the window edge.
+ * The ring only needs as many buckets as the longest window.
+ */
+public class WindowedErrorCounter {
+
+    private final long bucketSeconds;
+    private final int capacity;
+    private final int[] windowBuckets;
+
+    private final double[] errors;
+    private final double[] totals;
+    private final double[] windowErrors;
+    private final double[] windowTotals;
+
+    private long head = Long.MIN_VALUE;
+
+    /**
+     * @param bucketSeconds width of one bucket
+     * @param windowBuckets length of each tracked window, in buckets
+     */
+    public WindowedErrorCounter(long bucketSeconds, int... windowBuckets) {
+        if (bucketSeconds <= 0 || windowBuckets.length == 0) {
+            throw new IllegalArgumentException("Bucket size and at least one window are required");
+        }
+        int max = 0;
+        for (int w : windowBuckets) {
+            if (w <= 0) {
+                throw new IllegalArgumentException("Window length must be positive: " + w);
+            }
+            max = Math.max(max, w);
+        }
+        this.bucketSeconds = bucketSeconds;
+        this.capacity = max;
+        this.windowBuckets = windowBuckets.clone();
+        this.errors = new double[capacity];
+        this.totals = new double[capacity];
+        this.windowErrors = new double[windowBuckets.length];
+        this.windowTotals = new double[windowBuckets.length];
+    }
+
+    /**
+     * Record error and total events observed at the given time.
+     * Events older than the longest window are ignored.
+     */
+    public synchronized void add(long epochSecond, double errorDelta, double totalDelta) {
+        long bucket = Math.floorDiv(epochSecond, bucketSeconds);
+        advance(bucket);
+        if (bucket <= head - capacity) {
+            return;
+        }
+
+        int slot = slot(bucket);
+        errors[slot] += errorDelta;
+        totals[slot] += totalDelta;
+
+        for (int w = 0; w < windowBuckets.length; w++) {
+            if (bucket > head - windowBuckets[w]) {
+                windowErrors[w] += errorDelta;
+                windowTotals[w] += totalDelta;
+            }
+        }
+    }
+
+    /**
+     * Error ratio (errors / total) of a window ending at the given time,
+     * empty when the window saw no events.
+     */
+    public synchronized OptionalDouble errorRatio(int window, long epochSecond) {
+        advance(Math.floorDiv(epochSecond, bucketSeconds));
+        double total = windowTotals[window];
+        if (total <= 0) {
+            return OptionalDouble.empty();
+        }
+        return OptionalDouble.of(Math.max(0, windowErrors[window]) / total);
+    }
+
+    /**
+     * Total events of a window ending at the given time.
+     */
+    public synchronized double total(int window, long epochSecond) {
+        advance(Math.floorDiv(epochSecond, bucketSeconds));
+        return Math.max(0, windowTotals[window]);
+    }
+
+    private void advance(long bucket) {
+        if (head == Long.MIN_VALUE) {
+            head = bucket;
+            return;
+        }
+        if (bucket <= head) {
+            return;
+        }
+        if (bucket - head >= capacity) {
+            Arrays.fill(errors, 0);
+            Arrays.fill(totals, 0);
+            Arrays.fill(windowErrors, 0);
+            Arrays.fill(windowTotals, 0);
+            head = bucket;
+            return;
+        }
+        for (long b = head + 1; b <= bucket; b++) {
+            // Drop the bucket falling off the tail of each window before its slot is reused
+            for (int w = 0; w < windowBuckets.length; w++) {
+                int leaving = slot(b - windowBuckets[w]);
+                windowErrors[w] -= errors[leaving];
+                windowTotals[w] -= totals[leaving];
+            }
+            int slot = slot(b);
+            errors[slot] = 0;
+            totals[slot] = 0;
+        }
+        head = bucket;
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) capacity);
+    }
+}
@@ -0,0 +1,159 @@
+package com.smartincident.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartincident.model.enums.AlertChannelType;
+import com.smartincident.util.CircuitBreaker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlertChannelTest {
+
+    private StubReceiver receiver;
+    private final List<AlertChannel> channels = new ArrayList<>();
+
+    @BeforeEach
+    void startReceiver() throws Exception {
+        receiver = new StubReceiver();
+    }
+
+    @AfterEach
+    void stop() {
+        channels.forEach(AlertChannel::shutdown);
+        receiver.close();
+    }
+
+    @Test
+    void sendsPayloadAndReturnsStatus() throws Exception {
+        AlertChannel channel = channel(2, Duration.ofSeconds(2), 0, new CircuitBreaker(5, 60_000));
+
+        assertEquals(200, channel.send("{\"title\":\"disk full\"}"));
+        receiver.respondWith(503);
+        assertEquals(503, channel.send("{}"));
+
+        assertEquals(List.of("{\"title\":\"disk full\"}", "{}"), receiver.bodies());
+    }
+
+    @Test
+    void hungReceiverTimesOut() {
+        receiver.delay(5_000);
+        AlertChannel channel = channel(1, Duration.ofMillis(300), 0, new CircuitBreaker(5, 60_000));
+
+        long start = System.nanoTime();
+        assertThrows(HttpTimeoutException.class, () -> channel.send("{}"));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3));
+    }
+
+    @Test
+    void inFlightRequestsAreLimitedToWorkers() {
+        AlertChannel channel = channel(2, Duration.ofSeconds(2), 0, new CircuitBreaker(5, 60_000));
+
+        assertTrue(channel.tryAcquire());
+        assertTrue(channel.tryAcquire());
+        assertFalse(channel.tryAcquire());
+
+        channel.release();
+        assertTrue(channel.tryAcquire());
+    }
+
+    @Test
+    void requestsAreRateLimited() {
+        AlertChannel channel = channel(10, Duration.ofSeconds(2), 2, new CircuitBreaker(5, 60_000));
+
+        assertTrue(channel.tryAcquire());
+        channel.release();
+        assertTrue(channel.tryAcquire());
+        channel.release();
+
+        assertFalse(channel.tryAcquire());
+    }
+
+    @Test
+    void executeRunsOnWorkersAndFreesSlot() throws Exception {
+        AlertChannel channel = channel(1, Duration.ofSeconds(2), 0, new CircuitBreaker(5, 60_000));
+        CountDownLatch delivered = new CountDownLatch(1);
+
+        assertTrue(channel.tryAcquire());
+        channel.execute(() -> {
+            try {
+                channel.send("{}");
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            delivered.countDown();
+        });
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        // The slot is given back once the worker finishes
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (channel.inFlight() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, channel.inFlight());
+        assertTrue(channel.tryAcquire());
+    }
+
+    @Test
+    void failuresOpenCircuitAndRefuseSlots() {
+        AlertChannel channel = channel(2, Duration.ofSeconds(2), 0, new CircuitBreaker(2, 60_000));
+
+        assertFalse(channel.recordResult(false));
+        assertTrue(channel.recordResult(false));
+
+        assertEquals(CircuitBreaker.State.OPEN, channel.circuitState());
+        assertFalse(channel.tryAcquire());
+    }
+
+    @Test
+    void halfOpenCircuitGivesOneSlot() throws Exception {
+        AlertChannel channel = channel(4, Duration.ofSeconds(2), 0, new CircuitBreaker(1, 50));
+        receiver.respondWith(500);
+        assertEquals(500, channel.send("{}"));
+        assertTrue(channel.recordResult(false));
+        Thread.sleep(80);
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, channel.circuitState());
+        assertTrue(channel.tryAcquire());
+        assertFalse(channel.tryAcquire());
+
+        receiver.respondWith(200);
+        assertEquals(200, channel.send("{}"));
+        assertFalse(channel.recordResult(true));
+        channel.release();
+
+        assertEquals(CircuitBreaker.State.CLOSED, channel.circuitState());
+        assertTrue(channel.tryAcquire());
+        assertTrue(channel.tryAcquire());
+    }
+
+    @Test
+    void unsentTrialIsGivenBack() throws Exception {
+        AlertChannel channel = channel(4, Duration.ofSeconds(2), 0, new CircuitBreaker(1, 50));
+        channel.recordResult(false);
+        Thread.sleep(80);
+
+        assertTrue(channel.tryAcquire());
+        channel.release();
+
+        assertTrue(channel.tryAcquire());
+    }
+
+    private AlertChannel channel(int workers, Duration timeout, int rateLimitPerMinute, CircuitBreaker breaker) {
+        AlertChannel channel = new AlertChannel("test", AlertChannelType.WEBHOOK, receiver.url(), null, workers,
+                timeout, rateLimitPerMinute, breaker, new ObjectMapper());
+        channels.add(channel);
+        return channel;
+    }
+}
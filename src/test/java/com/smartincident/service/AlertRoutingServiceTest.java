@@ -0,0 +1,160 @@
+package com.smartincident.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartincident.model.Incident;
+import com.smartincident.model.enums.IncidentSeverity;
+import com.smartincident.model.enums.IncidentType;
+import com.smartincident.util.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.config.PropertiesConfigSource;
+import io.smallrye.config.SmallRyeConfigBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlertRoutingServiceTest {
+
+    private StubReceiver webhook;
+    private StubReceiver chat;
+    private StubReceiver pager;
+    private AlertRoutingService service;
+
+    @BeforeEach
+    void startReceivers() throws Exception {
+        webhook = new StubReceiver();
+        chat = new StubReceiver();
+        pager = new StubReceiver();
+    }
+
+    @AfterEach
+    void stop() {
+        if (service != null) {
+            service.getChannels().forEach(AlertChannel::shutdown);
+        }
+        webhook.close();
+        chat.close();
+        pager.close();
+    }
+
+    @Test
+    void firstMatchingRouteGivesChannels() {
+        service = routing(Map.of(), List.of(
+            "CRITICAL/*/*=pd+chat",
+            "LOW/payment-*/*=chat",
+            "HIGH/*/HIGH_LATENCY=default"));
+
+        assertEquals(List.of("pd", "chat"), names(service.route(incident(IncidentSeverity.CRITICAL, "payment-api", IncidentType.HIGH_ERROR_RATE))));
+        assertEquals(List.of("chat"), names(service.route(incident(IncidentSeverity.HIGH, "payment-api", IncidentType.HIGH_LATENCY))));
+        assertEquals(List.of("default"), names(service.route(incident(IncidentSeverity.HIGH, "orders", IncidentType.HIGH_LATENCY))));
+        assertEquals(List.of(), service.route(incident(IncidentSeverity.MEDIUM, "orders", IncidentType.HIGH_LATENCY)));
+        assertEquals(List.of(), service.route(incident(IncidentSeverity.HIGH, "orders", IncidentType.POD_RESTART)));
+    }
+
+    @Test
+    void unknownChannelIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> routing(Map.of(), List.of("LOW/*/*=missing")));
+        assertNull(routing(Map.of(), List.of("LOW/*/*=default")).getChannel("missing"));
+    }
+
+    @Test
+    void channelSettingsOverrideOutboxDefaults() {
+        service = routing(Map.of("app.alerting.channel.chat.workers", "1"), List.of("LOW/*/*=default"));
+        AlertChannel chatChannel = service.getChannel("chat");
+        AlertChannel defaultChannel = service.getChannel("default");
+
+        assertTrue(chatChannel.tryAcquire());
+        assertFalse(chatChannel.tryAcquire());
+        assertTrue(defaultChannel.tryAcquire());
+        assertTrue(defaultChannel.tryAcquire());
+        assertFalse(defaultChannel.tryAcquire());
+    }
+
+    @Test
+    void hungChannelDoesNotDelayOtherChannels() throws Exception {
+        chat.delay(5_000);
+        service = routing(Map.of("app.alerting.channel.chat.workers", "1",
+                                 "app.alerting.channel.chat.timeout-seconds", "10"), List.of("LOW/*/*=default"));
+        AlertChannel hung = service.getChannel("chat");
+        AlertChannel healthy = service.getChannel("pd");
+
+        CountDownLatch started = new CountDownLatch(1);
+        assertTrue(hung.tryAcquire());
+        hung.execute(() -> {
+            started.countDown();
+            try {
+                hung.send("{}");
+            } catch (Exception e) {
+                // Cut off when the receiver stops
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertFalse(hung.tryAcquire());
+
+        long start = System.nanoTime();
+        assertTrue(healthy.tryAcquire());
+        assertEquals(200, healthy.send("{}"));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        assertEquals(1, pager.bodies().size());
+    }
+
+    @Test
+    void circuitsAreKeptPerChannel() throws Exception {
+        webhook.respondWith(500);
+        service = routing(Map.of(), List.of("LOW/*/*=default"));
+        AlertChannel failing = service.getChannel("default");
+        AlertChannel other = service.getChannel("chat");
+
+        assertEquals(500, failing.send("{}"));
+        assertFalse(failing.recordResult(false));
+        assertEquals(500, failing.send("{}"));
+        assertTrue(failing.recordResult(false));
+
+        assertEquals(CircuitBreaker.State.OPEN, failing.circuitState());
+        assertFalse(failing.tryAcquire());
+        assertEquals(CircuitBreaker.State.CLOSED, other.circuitState());
+        assertTrue(other.tryAcquire());
+
+        assertEquals(List.of(CircuitBreaker.State.OPEN, CircuitBreaker.State.CLOSED, CircuitBreaker.State.CLOSED),
+                service.getChannelStatuses().stream().map(AlertRoutingService.ChannelStatus::circuit).toList());
+    }
+
+    private AlertRoutingService routing(Map<String, String> channelSettings, List<String> routes) {
+        AlertRoutingService routing = new AlertRoutingService();
+        routing.objectMapper = new ObjectMapper();
+        routing.registry = new SimpleMeterRegistry();
+        routing.config = new SmallRyeConfigBuilder()
+                .withSources(new PropertiesConfigSource(channelSettings, "test", 100))
+                .build();
+        routing.channelSpecs = List.of(
+            "default:webhook:" + webhook.url(),
+            "chat:slack:" + chat.url(),
+            "pd:pagerduty:" + pager.url());
+        routing.routeSpecs = routes;
+        routing.defaultWorkers = 2;
+        routing.defaultTimeoutSeconds = 2;
+        routing.defaultRateLimitPerMinute = 0;
+        routing.failureThreshold = 2;
+        routing.openSeconds = 60;
+        routing.init();
+        return routing;
+    }
+
+    private static Incident incident(IncidentSeverity severity, String serviceName, IncidentType type) {
+        return new Incident(type, severity, serviceName);
+    }
+
+    private static List<String> names(List<AlertChannel> channels) {
+        return channels.stream().map(AlertChannel::name).toList();
+    }
+}
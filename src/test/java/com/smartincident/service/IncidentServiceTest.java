@@ -0,0 +1,94 @@
+package com.smartincident.service;
+
+import com.smartincident.model.Incident;
+import com.smartincident.model.enums.IncidentSeverity;
+import com.smartincident.model.enums.IncidentType;
+import com.smartincident.repository.AlertOutboxRepository;
+import com.smartincident.repository.IncidentRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+class IncidentServiceTest {
+
+    @Inject
+    IncidentService incidentService;
+
+    @Inject
+    IncidentRepository incidentRepository;
+
+    @Inject
+    AlertOutboxRepository outboxRepository;
+
+    @Test
+    void lessSevereChildIsNotAlerted() {
+        Incident parent = incidentService.createIncident(IncidentType.HIGH_LATENCY, IncidentSeverity.HIGH,
+                "grouping-quiet", null, null);
+        Incident child = incidentService.createIncident(IncidentType.HIGH_ERROR_RATE, IncidentSeverity.MEDIUM,
+                "grouping-quiet", null, null);
+
+        assertEquals(parent.id, child.parentIncidentId);
+        assertEquals(1, alertsFor(parent));
+        assertEquals(0, alertsFor(child));
+        assertEquals(IncidentSeverity.HIGH, reload(parent).severity);
+    }
+
+    @Test
+    void moreSevereChildEscalatesParentAndIsAlerted() {
+        Incident parent = incidentService.createIncident(IncidentType.HIGH_LATENCY, IncidentSeverity.MEDIUM,
+                "grouping-escalation", null, null);
+        Incident child = incidentService.createIncident(IncidentType.RESOURCE_EXHAUSTION, IncidentSeverity.CRITICAL,
+                "grouping-escalation", null, null);
+
+        assertEquals(parent.id, child.parentIncidentId);
+        assertEquals(1, alertsFor(child));
+        Incident reloaded = reload(parent);
+        assertEquals(IncidentSeverity.CRITICAL, reloaded.severity);
+        assertEquals(1, reloaded.childCount);
+    }
+
+    @Test
+    void concurrentChildrenAreAllCounted() throws Exception {
+        Incident parent = incidentService.createIncident(IncidentType.HIGH_LATENCY, IncidentSeverity.HIGH,
+                "grouping-concurrent", null, null);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Incident>> children = new ArrayList<>();
+            for (IncidentType type : List.of(IncidentType.HIGH_ERROR_RATE, IncidentType.POD_RESTART)) {
+                children.add(executor.submit(() -> {
+                    start.await();
+                    return incidentService.createIncident(type, IncidentSeverity.LOW, "grouping-concurrent", null, null);
+                }));
+            }
+            start.countDown();
+            for (Future<Incident> child : children) {
+                assertEquals(parent.id, child.get(10, TimeUnit.SECONDS).parentIncidentId);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(2, reload(parent).childCount);
+    }
+
+    private long alertsFor(Incident incident) {
+        return QuarkusTransaction.requiringNew().call(() -> outboxRepository.count("incidentId", incident.id));
+    }
+
+    private Incident reload(Incident incident) {
+        return QuarkusTransaction.requiringNew().call(() -> incidentRepository.findById(incident.id));
+    }
+}